@@ -0,0 +1,35 @@
+package com.stackroute.keepnote.cache;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+ * Changes to in-memory state derived from the database (caches, indexes) must
+ * only be applied once the write they follow is committed, otherwise a rolled
+ * back write would stay visible, or a concurrent reader could fill the state
+ * again from the rows not committed yet.
+ */
+public final class AfterCommit {
+
+	private AfterCommit() {
+	}
+
+	/*
+	 * Run the change when the current transaction commits. Outside of a
+	 * transaction the write is already committed and the change runs at once.
+	 */
+	public static void run(Runnable change) {
+		if (TransactionSynchronizationManager.isActualTransactionActive()
+				&& TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					change.run();
+				}
+			});
+		} else {
+			change.run();
+		}
+	}
+
+}
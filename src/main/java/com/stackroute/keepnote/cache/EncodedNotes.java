@@ -0,0 +1,82 @@
+package com.stackroute.keepnote.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.stackroute.keepnote.model.Note;
+
+/*
+ * A list of notes returned by a controller, written as a JSON array of the
+ * cached JSON of each note by EncodedNotesHttpMessageConverter, without going
+ * through Jackson. For any other format, e.g. CBOR, the message converters
+ * serialize the notes themselves, as for a plain list.
+ */
+public class EncodedNotes {
+
+	private static final byte[] OPEN = { '[' };
+	private static final byte[] SEPARATOR = { ',' };
+	private static final byte[] CLOSE = { ']' };
+
+	private final List<Note> notes;
+	private final NoteJsonCache cache;
+	private List<byte[]> fragments;
+
+	public EncodedNotes(List<Note> notes, NoteJsonCache cache) {
+		this.notes = notes;
+		this.cache = cache;
+	}
+
+	@JsonValue
+	public List<Note> getNotes() {
+		return this.notes;
+	}
+
+	/*
+	 * The length of the JSON array, known before it is written so that the
+	 * response gets a Content-Length
+	 */
+	public long getContentLength() {
+		long length = OPEN.length + CLOSE.length + Math.max(0, this.notes.size() - 1) * SEPARATOR.length;
+		for (byte[] fragment : this.getFragments()) {
+			length += fragment.length;
+		}
+		return length;
+	}
+
+	/*
+	 * Write the JSON array to the stream. The cached arrays are handed to the
+	 * stream as they are, no copy of the JSON is made.
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(OPEN);
+		boolean first = true;
+		for (byte[] fragment : this.getFragments()) {
+			if (!first) {
+				out.write(SEPARATOR);
+			}
+			out.write(fragment);
+			first = false;
+		}
+		out.write(CLOSE);
+	}
+
+	private List<byte[]> getFragments() {
+		if (null == this.fragments) {
+			List<byte[]> encoded = new ArrayList<>(this.notes.size());
+			for (Note note : this.notes) {
+				encoded.add(this.cache.get(note));
+			}
+			this.fragments = encoded;
+		}
+		return this.fragments;
+	}
+
+	@Override
+	public String toString() {
+		return "EncodedNotes [notes=" + notes.size() + "]";
+	}
+
+}
@@ -0,0 +1,233 @@
+package com.stackroute.keepnote.cache;
+
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stackroute.keepnote.dao.IdempotencyDAO;
+import com.stackroute.keepnote.model.IdempotentResponse;
+
+/*
+ * The responses of the requests sent with an idempotency key, by key. The
+ * first request of a key claims it with begin(), runs, and hands its response
+ * to complete(), or releases the key with abandon() when the response must not
+ * be kept. A request of a key already completed gets the kept response from
+ * begin() instead of the claim. A request of a key claimed by a running request
+ * waits for it, at most IDEMPOTENCY_WAIT_MS, and gets its response, or the
+ * claim itself when the running request takes longer.
+ *
+ * The responses are kept in memory, at most IDEMPOTENCY_MAX_KEYS of them and
+ * for IDEMPOTENCY_TTL_MS. With IDEMPOTENCY_DB_STORE the keys are also claimed
+ * and the responses kept in the IdempotentResponse table, so that a retry
+ * reaching another application instance is recognized too.
+ */
+@Component
+public class IdempotencyStore {
+
+	private static final long MAX_KEYS = Long.getLong("IDEMPOTENCY_MAX_KEYS", 100000L);
+	private static final long TTL = Long.getLong("IDEMPOTENCY_TTL_MS", 86400000L);
+	private static final long WAIT = Long.getLong("IDEMPOTENCY_WAIT_MS", 10000L);
+	private static final boolean DB_STORE = Boolean.getBoolean("IDEMPOTENCY_DB_STORE");
+	private static final long POLL_INTERVAL = 100L;
+	private static final long CLAIM_TIMEOUT = 60000L;
+	private static final int MAX_CLAIM_ATTEMPTS = 10;
+
+	private final IdempotencyDAO idempotencyDAO;
+	private final long wait;
+	private final Cache<String, IdempotentResponse> responses;
+	private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+
+	@Autowired
+	public IdempotencyStore(IdempotencyDAO idempotencyDAO) {
+		this(DB_STORE ? idempotencyDAO : null, MAX_KEYS, TTL, WAIT);
+	}
+
+	/*
+	 * A null DAO keeps the responses in memory only
+	 */
+	public IdempotencyStore(IdempotencyDAO idempotencyDAO, long maxKeys, long ttl, long wait) {
+		this.idempotencyDAO = idempotencyDAO;
+		this.wait = wait;
+		this.responses = Caffeine.newBuilder().maximumSize(maxKeys).expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+				.build();
+	}
+
+	/*
+	 * Claim the key for the request with the given body fingerprint. Returns null
+	 * when the caller holds the claim and must run the request, otherwise the
+	 * response kept for the key, or the pending claim of another request, whose
+	 * fingerprint may differ from the caller's.
+	 */
+	public IdempotentResponse begin(String key, String fingerprint) {
+		final long deadline = System.currentTimeMillis() + this.wait;
+		while (true) {
+			IdempotentResponse kept = this.responses.getIfPresent(key);
+			if (null != kept) {
+				return kept;
+			}
+			Flight flight = new Flight(fingerprint);
+			Flight running = this.flights.putIfAbsent(key, flight);
+			if (null == running) {
+				// the response may have been kept between the lookup and the claim
+				kept = this.responses.getIfPresent(key);
+				if (null == kept && null != this.idempotencyDAO) {
+					kept = claimInDatabase(key, fingerprint, deadline);
+				}
+				if (null != kept) {
+					this.flights.remove(key, flight);
+					flight.done.complete(kept.isPending() ? null : kept);
+				}
+				return kept;
+			}
+			if (!running.fingerprint.equals(fingerprint)) {
+				return running.pending(key);
+			}
+			IdempotentResponse response = await(running, deadline - System.currentTimeMillis());
+			if (null != response) {
+				return response;
+			}
+			if (running.done.isDone()) {
+				// the running request was abandoned, the key can be claimed again
+				continue;
+			}
+			return running.pending(key);
+		}
+	}
+
+	/*
+	 * Keep the response of the request holding the claim of its key, and hand it
+	 * to the requests waiting for it
+	 */
+	public void complete(String key, IdempotentResponse response) {
+		try {
+			if (null != this.idempotencyDAO) {
+				this.idempotencyDAO.saveResponse(response);
+			}
+			this.responses.put(key, response);
+		} finally {
+			release(key, response);
+		}
+	}
+
+	/*
+	 * Release the claim of the key without keeping a response, the next request
+	 * of the key runs again
+	 */
+	public void abandon(String key) {
+		try {
+			if (null != this.idempotencyDAO) {
+				this.idempotencyDAO.deleteClaim(key, new Date());
+			}
+		} finally {
+			release(key, null);
+		}
+	}
+
+	/*
+	 * Drop the responses kept in the database for longer than IDEMPOTENCY_TTL_MS,
+	 * the memory ones expire by themselves
+	 */
+	@Scheduled(initialDelay = 3600000L, fixedDelay = 3600000L)
+	public void purgeResponses() {
+		if (null != this.idempotencyDAO) {
+			this.idempotencyDAO.deleteResponsesBefore(new Date(System.currentTimeMillis() - TTL));
+		}
+	}
+
+	private void release(String key, IdempotentResponse response) {
+		Flight flight = this.flights.remove(key);
+		if (null != flight) {
+			flight.done.complete(response);
+		}
+	}
+
+	/*
+	 * Claim the key in the table, or wait for the instance holding it. A claim
+	 * older than CLAIM_TIMEOUT belongs to a request that will never complete and
+	 * is taken over. When the claim keeps being released between the insert and
+	 * the lookup, the key is given up as pending after MAX_CLAIM_ATTEMPTS tries.
+	 */
+	private IdempotentResponse claimInDatabase(String key, String fingerprint, long deadline) {
+		int vanished = 0;
+		while (true) {
+			Date now = new Date();
+			if (this.idempotencyDAO.claimKey(new IdempotentResponse(key, fingerprint, IdempotentResponse.PENDING,
+					null, null, now))) {
+				return null;
+			}
+			IdempotentResponse kept = this.idempotencyDAO.getResponse(key);
+			if (null == kept) {
+				if (++vanished >= MAX_CLAIM_ATTEMPTS || now.getTime() >= deadline) {
+					return new IdempotentResponse(key, fingerprint, IdempotentResponse.PENDING, null, null, now);
+				}
+				pause();
+				continue;
+			}
+			if (!kept.isPending()) {
+				this.responses.put(key, kept);
+				return kept;
+			}
+			if (this.idempotencyDAO.deleteClaim(key, new Date(now.getTime() - CLAIM_TIMEOUT)) > 0) {
+				continue;
+			}
+			if (!kept.getFingerprint().equals(fingerprint) || now.getTime() >= deadline) {
+				return kept;
+			}
+			pause();
+		}
+	}
+
+	private static IdempotentResponse await(Flight flight, long timeout) {
+		try {
+			return flight.done.get(Math.max(timeout, 0L), TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for a running request", e);
+		} catch (ExecutionException | TimeoutException e) {
+			return null;
+		}
+	}
+
+	private static void pause() {
+		try {
+			Thread.sleep(POLL_INTERVAL);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for a running request", e);
+		}
+	}
+
+	/*
+	 * A request of this instance holding the claim of a key
+	 */
+	private static final class Flight {
+
+		private final String fingerprint;
+		private final CompletableFuture<IdempotentResponse> done = new CompletableFuture<>();
+
+		private Flight(String fingerprint) {
+			this.fingerprint = fingerprint;
+		}
+
+		private IdempotentResponse pending(String key) {
+			return new IdempotentResponse(key, this.fingerprint, IdempotentResponse.PENDING, null, null, null);
+		}
+
+	}
+
+	@Override
+	public String toString() {
+		return "IdempotencyStore [running=" + flights.size() + ", kept=" + responses.estimatedSize() + "]";
+	}
+
+}
@@ -0,0 +1,144 @@
+package com.stackroute.keepnote.cache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.stackroute.keepnote.config.ReadWriteRoutingDataSource;
+
+/*
+ * Read-through cache of one list per user, e.g. all the notes of a user. The
+ * cache is bounded by the total number of items of the cached lists and evicts
+ * with Caffeine's W-TinyLFU policy, so the lists of the frequently active users
+ * stay while one-off reads don't push them out. A list is dropped when the user
+ * writes (after the commit), and in any case maxAge after it was loaded, which
+ * bounds how long the writes of other application instances can be missed.
+ *
+ * Each list also has a version, changed by the same invalidations, from which
+ * the controllers answer conditional requests without loading the list. The
+ * version must be read before the list, so that a write committed in between
+ * changes the version and the next request gets the new list.
+ *
+ * Loads run inside the read-only transaction of the caller and so may read
+ * from a replica. A replica lagging behind the write that just invalidated a
+ * list would load it stale again and keep it until maxAge, so a list written
+ * within the replica lag window is loaded from the primary.
+ */
+public class ListCache<T> {
+
+	private static final long REPLICA_LAG = Long.getLong("MYSQL_REPLICA_STICKY_MS", 5000L);
+	private static final long MAX_RECENT_WRITERS = 10000L;
+	private static final long MAX_VERSIONS = 100000L;
+
+	private final String name;
+	private final Cache<String, List<T>> lists;
+	private final Cache<String, Boolean> recentWriters;
+	private final Cache<String, ListVersion> versions;
+	private volatile long allWrittenAt;
+
+	public ListCache(String name, long maxItems, long maxAge) {
+		this.name = name;
+		this.lists = Caffeine.newBuilder().maximumWeight(maxItems)
+				.weigher((String userId, List<T> list) -> 1 + list.size())
+				.expireAfterWrite(maxAge, TimeUnit.MILLISECONDS).recordStats().build();
+		this.recentWriters = Caffeine.newBuilder().maximumSize(MAX_RECENT_WRITERS)
+				.expireAfterWrite(REPLICA_LAG, TimeUnit.MILLISECONDS).build();
+		this.versions = Caffeine.newBuilder().maximumSize(MAX_VERSIONS)
+				.expireAfterWrite(maxAge, TimeUnit.MILLISECONDS).build();
+	}
+
+	/*
+	 * The list of the user, loaded with the loader when it is not cached. Loads of
+	 * the same user are not run concurrently, and a list invalidated while it is
+	 * loaded is dropped once the load ends. The returned list is shared between
+	 * callers and cannot be modified.
+	 */
+	public List<T> get(String userId, Function<String, List<T>> loader) {
+		return this.lists.get(userId, key -> {
+			if (this.isRecentlyWritten(key)) {
+				ReadWriteRoutingDataSource.stickToPrimary();
+			}
+			List<T> list = loader.apply(key);
+			return null == list ? null : Collections.unmodifiableList(list);
+		});
+	}
+
+	/*
+	 * The current version of the list of the user. A version is kept for at most
+	 * maxAge like the lists, after which a new one is started. Starting a version
+	 * drops the cached list, so that the list served under a version is never
+	 * older than the version itself.
+	 */
+	public ListVersion getVersion(String userId) {
+		return this.versions.get(userId, key -> {
+			this.lists.invalidate(key);
+			return ListVersion.current();
+		});
+	}
+
+	/*
+	 * Drop the list of the user once the current transaction commits. A write
+	 * whose owner is not known drops every list.
+	 */
+	public void invalidate(String userId) {
+		if (null == userId) {
+			this.invalidateAll();
+			return;
+		}
+		AfterCommit.run(() -> {
+			this.recentWriters.put(userId, Boolean.TRUE);
+			this.versions.asMap().compute(userId, (key, previous) -> ListVersion.after(previous));
+			this.lists.invalidate(userId);
+		});
+	}
+
+	public void invalidateAll() {
+		AfterCommit.run(() -> {
+			this.allWrittenAt = System.currentTimeMillis();
+			this.versions.invalidateAll();
+			this.lists.invalidateAll();
+		});
+	}
+
+	private boolean isRecentlyWritten(String userId) {
+		return null != this.recentWriters.getIfPresent(userId)
+				|| System.currentTimeMillis() - this.allWrittenAt < REPLICA_LAG;
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public CacheStats getStats() {
+		return this.lists.stats();
+	}
+
+	public long getSize() {
+		return this.lists.estimatedSize();
+	}
+
+	public double getHitRate() {
+		return this.lists.stats().hitRate();
+	}
+
+	public long getEvictionCount() {
+		return this.lists.stats().evictionCount();
+	}
+
+	public double getAverageLoadMillis() {
+		return this.lists.stats().averageLoadPenalty() / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	@Override
+	public String toString() {
+		CacheStats stats = this.getStats();
+		return "ListCache [name=" + name + ", size=" + getSize() + ", hits=" + stats.hitCount() + ", misses="
+				+ stats.missCount() + ", hitRate=" + stats.hitRate() + ", evictions=" + stats.evictionCount()
+				+ ", avgLoadMillis=" + getAverageLoadMillis() + ", loadFailures=" + stats.loadFailureCount() + "]";
+	}
+
+}
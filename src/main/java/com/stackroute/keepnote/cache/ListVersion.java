@@ -0,0 +1,68 @@
+package com.stackroute.keepnote.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * The version of the list of a user, used as the validator of the HTTP
+ * responses built from it. The version numbers of all lists and users come from
+ * one counter starting at a random value, so a tag never matches another list,
+ * another user, or the lists of an earlier run of the application.
+ *
+ * Last-Modified only has a precision of one second, so the next version of a
+ * list is always at least one second after the previous one. Otherwise two
+ * writes within the same second would share a Last-Modified, and a client
+ * revalidating with If-Modified-Since would miss the second one.
+ */
+public final class ListVersion {
+
+	private static final AtomicLong COUNTER = new AtomicLong(ThreadLocalRandom.current().nextLong());
+
+	private final long version;
+	private final long lastModified;
+
+	private ListVersion(long lastModified) {
+		this.version = COUNTER.incrementAndGet();
+		this.lastModified = lastModified;
+	}
+
+	/*
+	 * The version of a list whose last change is not known, as of now
+	 */
+	static ListVersion current() {
+		return new ListVersion(System.currentTimeMillis() / 1000 * 1000);
+	}
+
+	/*
+	 * The version following a write of the list
+	 */
+	static ListVersion after(ListVersion previous) {
+		long now = System.currentTimeMillis() / 1000 * 1000;
+		return new ListVersion(null == previous ? now : Math.max(now, previous.lastModified + 1000));
+	}
+
+	/*
+	 * The strong entity tag, quoted
+	 */
+	public String getTag() {
+		return "\"" + Long.toHexString(this.version) + "\"";
+	}
+
+	/*
+	 * The strong entity tag of one item of the list, as of this version of the
+	 * list
+	 */
+	public String getTag(int id) {
+		return "\"" + Long.toHexString(this.version) + "-" + id + "\"";
+	}
+
+	public long getLastModified() {
+		return this.lastModified;
+	}
+
+	@Override
+	public String toString() {
+		return "ListVersion [tag=" + getTag() + ", lastModified=" + lastModified + "]";
+	}
+
+}
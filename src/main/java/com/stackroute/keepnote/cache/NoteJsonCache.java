@@ -0,0 +1,136 @@
+package com.stackroute.keepnote.cache;
+
+import java.io.UncheckedIOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.stackroute.keepnote.model.Note;
+
+/*
+ * Cache of the UTF-8 JSON of each note, as the JSON message converter writes it,
+ * so that the notes listed again and again by GET /note are serialized once and
+ * then copied to the response as they are.
+ *
+ * The JSON is cached by note id along with the version of the note it was
+ * written from: the updatedAt of the note, of its category and of its reminder.
+ * Every write of an item stamps its own updatedAt, so an updated category or
+ * reminder changes the version of its notes as loaded next, and deleting one
+ * stamps its notes too. A note of another version is written again, so a stale
+ * JSON is not served whichever path changed the note. The note writes of
+ * NoteService and SyncService also drop the JSON of the notes they update or
+ * delete once committed, which frees it at once and covers two writes within
+ * the same millisecond. The cache is bounded by the total size of the JSON,
+ * NOTE_JSON_CACHE_MAX_BYTES.
+ */
+@Component
+public class NoteJsonCache {
+
+	private static final long MAX_BYTES = Long.getLong("NOTE_JSON_CACHE_MAX_BYTES", 64L * 1024 * 1024);
+	private static final long MAX_AGE = Long.getLong("LIST_CACHE_MAX_AGE_MS", 600000L);
+
+	private final Cache<Integer, Fragment> fragments;
+	private final ObjectWriter writer;
+
+	public NoteJsonCache() {
+		this(MAX_BYTES, MAX_AGE);
+	}
+
+	public NoteJsonCache(long maxBytes, long maxAge) {
+		this.fragments = Caffeine.newBuilder().maximumWeight(maxBytes)
+				.weigher((Integer noteId, Fragment fragment) -> fragment.json.length)
+				.expireAfterAccess(maxAge, TimeUnit.MILLISECONDS).recordStats().build();
+		this.writer = Jackson2ObjectMapperBuilder.json().build().writerFor(Note.class);
+	}
+
+	/*
+	 * The JSON of the note, written and cached when the cached one is missing or of
+	 * another version. A note never stored has no version and is not cached. The
+	 * returned array is shared and must not be modified.
+	 */
+	public byte[] get(Note note) {
+		if (null == note.getUpdatedAt()) {
+			return this.encode(note);
+		}
+		Fragment fragment = this.fragments.getIfPresent(note.getNoteId());
+		if (null == fragment || !fragment.isVersionOf(note)) {
+			fragment = new Fragment(note, this.encode(note));
+			this.fragments.put(note.getNoteId(), fragment);
+		}
+		return fragment.json;
+	}
+
+	/*
+	 * Drop the JSON of the note once the current transaction commits
+	 */
+	public void invalidate(int noteId) {
+		AfterCommit.run(() -> this.fragments.invalidate(noteId));
+	}
+
+	public void invalidateAll() {
+		AfterCommit.run(this.fragments::invalidateAll);
+	}
+
+	private byte[] encode(Note note) {
+		try {
+			return this.writer.writeValueAsBytes(note);
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public CacheStats getStats() {
+		return this.fragments.stats();
+	}
+
+	public long getSize() {
+		return this.fragments.estimatedSize();
+	}
+
+	@Override
+	public String toString() {
+		CacheStats stats = this.getStats();
+		return "NoteJsonCache [size=" + getSize() + ", hits=" + stats.hitCount() + ", misses=" + stats.missCount()
+				+ ", hitRate=" + stats.hitRate() + ", evictions=" + stats.evictionCount() + "]";
+	}
+
+	/*
+	 * The JSON of a note and the updatedAt of the note, category and reminder it
+	 * was written from
+	 */
+	private static final class Fragment {
+
+		private final long noteVersion;
+		private final long categoryVersion;
+		private final long reminderVersion;
+		private final byte[] json;
+
+		private Fragment(Note note, byte[] json) {
+			this.noteVersion = version(note.getUpdatedAt());
+			this.categoryVersion = null == note.getCategory() ? -1L : version(note.getCategory().getUpdatedAt());
+			this.reminderVersion = null == note.getReminder() ? -1L : version(note.getReminder().getUpdatedAt());
+			this.json = json;
+		}
+
+		private boolean isVersionOf(Note note) {
+			return this.noteVersion == version(note.getUpdatedAt())
+					&& this.categoryVersion == (null == note.getCategory() ? -1L
+							: version(note.getCategory().getUpdatedAt()))
+					&& this.reminderVersion == (null == note.getReminder() ? -1L
+							: version(note.getReminder().getUpdatedAt()));
+		}
+
+		private static long version(Date updatedAt) {
+			return null == updatedAt ? 0L : updatedAt.getTime();
+		}
+
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.stackroute.keepnote.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/*
+ * Coalesces concurrent identical reads: while a load of a key is running, the
+ * other callers asking for the same key wait for it and get its result (or its
+ * exception) instead of running the same query. Nothing is kept once the load
+ * ends, the next caller loads again. The waiting callers hold no connection,
+ * so a burst of identical requests costs one query and one connection.
+ *
+ * A caller that starts after a write has committed must not get the result of
+ * a load started before it, so the write paths call forget(key), which lets the
+ * callers coming after the commit start a load of their own.
+ */
+public class SingleFlight<K, V> {
+
+	private final ConcurrentMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+	private final LongAdder loadCount = new LongAdder();
+	private final LongAdder sharedCount = new LongAdder();
+
+	public V load(K key, Function<K, V> loader) {
+		CompletableFuture<V> flight = new CompletableFuture<>();
+		CompletableFuture<V> running = this.flights.putIfAbsent(key, flight);
+		if (null != running) {
+			this.sharedCount.increment();
+			return join(running);
+		}
+		this.loadCount.increment();
+		try {
+			V value = loader.apply(key);
+			flight.complete(value);
+			return value;
+		} catch (RuntimeException | Error e) {
+			flight.completeExceptionally(e);
+			throw e;
+		} finally {
+			this.flights.remove(key, flight);
+		}
+	}
+
+	/*
+	 * Stop sharing the running load of the key, once the current transaction
+	 * commits
+	 */
+	public void forget(K key) {
+		AfterCommit.run(() -> this.flights.remove(key));
+	}
+
+	private static <V> V join(CompletableFuture<V> flight) {
+		try {
+			return flight.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for a shared load", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/*
+	 * The number of loads run, and the number of callers served by the load of
+	 * another caller
+	 */
+	public long getLoadCount() {
+		return this.loadCount.sum();
+	}
+
+	public long getSharedCount() {
+		return this.sharedCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "SingleFlight [running=" + flights.size() + ", loads=" + getLoadCount() + ", shared="
+				+ getSharedCount() + "]";
+	}
+
+}
@@ -0,0 +1,74 @@
+package com.stackroute.keepnote.cache;
+
+import org.springframework.stereotype.Component;
+
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.Reminder;
+
+/*
+ * The caches of the note, category and reminder lists of the users, used by the
+ * services in front of their getAll...ByUserId reads. Each cache holds at most
+ * LIST_CACHE_MAX_ITEMS items and keeps a list at most LIST_CACHE_MAX_AGE_MS.
+ */
+@Component
+public class UserListCache {
+
+	private static final long MAX_ITEMS = Long.getLong("LIST_CACHE_MAX_ITEMS", 200000L);
+	private static final long MAX_AGE = Long.getLong("LIST_CACHE_MAX_AGE_MS", 600000L);
+
+	private final ListCache<Note> notes;
+	private final ListCache<Category> categories;
+	private final ListCache<Reminder> reminders;
+
+	public UserListCache() {
+		this(MAX_ITEMS, MAX_AGE);
+	}
+
+	public UserListCache(long maxItems, long maxAge) {
+		this.notes = new ListCache<>("notes", maxItems, maxAge);
+		this.categories = new ListCache<>("categories", maxItems, maxAge);
+		this.reminders = new ListCache<>("reminders", maxItems, maxAge);
+	}
+
+	public ListCache<Note> getNotes() {
+		return this.notes;
+	}
+
+	public ListCache<Category> getCategories() {
+		return this.categories;
+	}
+
+	public ListCache<Reminder> getReminders() {
+		return this.reminders;
+	}
+
+	/*
+	 * Drop the lists made stale by a write of the user, after the commit. A null
+	 * user, when the owner of the written row is not known, drops the lists of
+	 * every user.
+	 */
+	public void invalidateNotes(String userId) {
+		this.notes.invalidate(userId);
+	}
+
+	/*
+	 * The cached notes embed their category and reminder, so the notes of the user
+	 * go too
+	 */
+	public void invalidateCategories(String userId) {
+		this.categories.invalidate(userId);
+		this.notes.invalidate(userId);
+	}
+
+	public void invalidateReminders(String userId) {
+		this.reminders.invalidate(userId);
+		this.notes.invalidate(userId);
+	}
+
+	@Override
+	public String toString() {
+		return "UserListCache [" + notes + ", " + categories + ", " + reminders + "]";
+	}
+
+}
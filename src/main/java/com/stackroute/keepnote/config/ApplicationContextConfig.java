@@ -1,24 +1,37 @@
 package com.stackroute.keepnote.config;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 import javax.sql.DataSource;
 
-import org.apache.commons.dbcp.BasicDataSource;
+import org.flywaydb.core.Flyway;
 import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.hibernate5.HibernateTransactionManager;
 import org.springframework.orm.hibernate5.LocalSessionFactoryBean;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.IdempotentResponse;
 import com.stackroute.keepnote.model.Note;
 import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.Tombstone;
 import com.stackroute.keepnote.model.User;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 
 /*This class will contain the application-context for the application. 
  * Define the following annotations:
@@ -36,6 +49,7 @@ import com.stackroute.keepnote.model.User;
 @Configuration
 @ComponentScan(basePackages = { "com.stackroute.keepnote" })
 @EnableAsync
+@EnableScheduling
 @EnableTransactionManagement
 @EnableAspectJAutoProxy
 public class ApplicationContextConfig {
@@ -51,8 +65,39 @@ public class ApplicationContextConfig {
 	private static final String USERNAME = System.getProperty("MYSQL_USER", "root");
 	private static final String PASSWORD = System.getProperty("MYSQL_PASSWORD", "root");
 
-	private final String url = new StringBuilder().append("jdbc:mysql://").append(HOST).append(PORT).append("/")
-			.append(DBNAME).append("?verifyServerCertificate=false&useSSL=false&requireSSL=false").toString();
+	/*
+	 * Comma separated replica hosts serving the read-only transactions, the same
+	 * database name and credentials are used as for the primary
+	 */
+	private static final String REPLICA_HOSTS = System.getProperty("MYSQL_REPLICA_HOSTS", "");
+
+	/*
+	 * Connection pool tuning, overridable with system properties in the same way
+	 * as the connection details above
+	 */
+	private static final int POOL_MAX_SIZE = Integer.getInteger("MYSQL_POOL_MAX_SIZE", 20);
+	private static final int POOL_MIN_IDLE = Integer.getInteger("MYSQL_POOL_MIN_IDLE", 5);
+	private static final long POOL_CONNECTION_TIMEOUT = Long.getLong("MYSQL_POOL_CONNECTION_TIMEOUT_MS", 5000L);
+	private static final long POOL_VALIDATION_TIMEOUT = Long.getLong("MYSQL_POOL_VALIDATION_TIMEOUT_MS", 2000L);
+	private static final long POOL_IDLE_TIMEOUT = Long.getLong("MYSQL_POOL_IDLE_TIMEOUT_MS", 600000L);
+	private static final long POOL_MAX_LIFETIME = Long.getLong("MYSQL_POOL_MAX_LIFETIME_MS", 1800000L);
+	private static final long POOL_LEAK_DETECTION = Long.getLong("MYSQL_POOL_LEAK_DETECTION_MS", 0L);
+
+	/*
+	 * Second-level cache settings, the region sizes and eviction are configured in
+	 * the ehcache configuration file
+	 */
+	private static final String L2_CACHE_ENABLED = System.getProperty("HIBERNATE_L2_CACHE", "true");
+	private static final String L2_CACHE_CONFIG = System.getProperty("HIBERNATE_L2_CACHE_CONFIG", "/ehcache.xml");
+	private static final String STATISTICS_ENABLED = System.getProperty("HIBERNATE_STATISTICS", "true");
+	private static final String JDBC_BATCH_SIZE = System.getProperty("HIBERNATE_JDBC_BATCH_SIZE", "50");
+
+	/*
+	 * Schema migrations are applied at startup unless disabled, in which case they
+	 * are only validated and have to be applied separately (e.g. flyway migrate)
+	 */
+	private static final boolean MIGRATE_ON_STARTUP = Boolean
+			.parseBoolean(System.getProperty("SCHEMA_MIGRATE_ON_STARTUP", "true"));
 
 	/*
 	 * Use this configuration while submitting solution in hobbes and CI
@@ -63,27 +108,118 @@ public class ApplicationContextConfig {
 	 * dataSource.setUsername(System.getenv("MYSQL_USER"))
 	 * dataSource.setPassword(System.getenv("MYSQL_PASSWORD"))
 	 */
+	@Bean(destroyMethod = "close")
+	public HikariDataSource primaryDataSource(PoolMetricsTrackerFactory poolMetricsTrackerFactory) {
+		return createPool("keepnote-primary", HOST, false, poolMetricsTrackerFactory);
+	}
+
+	/*
+	 * Define the bean routing read-only transactions to the replica pools (round
+	 * robin) and the rest to the primary. Without replica hosts everything goes to
+	 * the primary.
+	 */
+	@Bean(destroyMethod = "close")
+	public ReadWriteRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+			PoolMetricsTrackerFactory poolMetricsTrackerFactory) {
+		List<DataSource> replicas = new ArrayList<>();
+		for (String replicaHost : REPLICA_HOSTS.split(",")) {
+			if (!replicaHost.trim().isEmpty()) {
+				replicas.add(createPool("keepnote-replica-" + replicas.size(), replicaHost.trim(), true,
+						poolMetricsTrackerFactory));
+			}
+		}
+		return new ReadWriteRoutingDataSource(primaryDataSource, replicas);
+	}
+
+	/*
+	 * Define the DataSource used by Hibernate. The routing decision depends on the
+	 * transaction, which the lazy proxy lets Spring set up before a physical
+	 * connection is fetched.
+	 */
+	@Bean
+	@Primary
+	public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+		return new LazyConnectionDataSourceProxy(routingDataSource);
+	}
+
+	private HikariDataSource createPool(String poolName, String host, boolean readOnly,
+			PoolMetricsTrackerFactory poolMetricsTrackerFactory) {
+		HikariConfig config = new HikariConfig();
+		config.setPoolName(poolName);
+		config.setReadOnly(readOnly);
+		config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+		config.setJdbcUrl(new StringBuilder().append("jdbc:mysql://").append(host).append(PORT).append("/")
+				.append(DBNAME).append("?verifyServerCertificate=false&useSSL=false&requireSSL=false").toString());
+		config.setUsername(USERNAME);
+		config.setPassword(PASSWORD);
+		config.setMaximumPoolSize(POOL_MAX_SIZE);
+		// a minimum idle count keeps the pool warm instead of opening connections on demand
+		config.setMinimumIdle(Math.min(POOL_MIN_IDLE, POOL_MAX_SIZE));
+		config.setConnectionTimeout(POOL_CONNECTION_TIMEOUT);
+		config.setValidationTimeout(POOL_VALIDATION_TIMEOUT);
+		config.setIdleTimeout(POOL_IDLE_TIMEOUT);
+		config.setMaxLifetime(POOL_MAX_LIFETIME);
+		config.setLeakDetectionThreshold(POOL_LEAK_DETECTION);
+		config.setRegisterMbeans(true);
+		config.setMetricsTrackerFactory(poolMetricsTrackerFactory);
+		// driver side statement caching recommended for MySQL Connector/J
+		config.addDataSourceProperty("cachePrepStmts", "true");
+		config.addDataSourceProperty("prepStmtCacheSize", "250");
+		config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+		config.addDataSourceProperty("useServerPrepStmts", "true");
+		// send a JDBC batch of inserts as one multi-row statement
+		config.addDataSourceProperty("rewriteBatchedStatements", "true");
+		// a statement with a fetch size reads its rows through a server side cursor
+		// instead of buffering the whole result set
+		config.addDataSourceProperty("useCursorFetch", "true");
+		return new HikariDataSource(config);
+	}
+
+	/*
+	 * Define the bean collecting wait time, active/idle counts and timeouts of the
+	 * connection pool
+	 */
+	@Bean
+	public PoolMetricsTrackerFactory poolMetricsTrackerFactory() {
+		return new PoolMetricsTrackerFactory();
+	}
+
+	/*
+	 * Define the bean for the versioned schema migrations in db/migration. The
+	 * schema is owned by these scripts, Hibernate only validates it. Databases
+	 * created earlier by hbm2ddl have no migration history, they are baselined at
+	 * version 0 so that every script still runs against them.
+	 */
 	@Bean
-	public DataSource dataSource() {
-		BasicDataSource ds = new BasicDataSource();
-		ds.setDriverClassName("com.mysql.cj.jdbc.Driver");
-		System.out.println(this.url + " -- " + USERNAME + " -- " + PASSWORD);
-		ds.setUrl(url);
-		ds.setUsername(USERNAME);
-		ds.setPassword(PASSWORD);
-		return ds;
+	public Flyway flyway(@Qualifier("primaryDataSource") DataSource dataSource) {
+		Flyway flyway = Flyway.configure().dataSource(dataSource).locations("classpath:db/migration")
+				.baselineOnMigrate(true).baselineVersion("0").load();
+		if (MIGRATE_ON_STARTUP) {
+			flyway.migrate();
+		} else {
+			flyway.validate();
+		}
+		return flyway;
 	}
 
 	/*
 	 * create a getter for Hibernate properties here we have to mention 1. show_sql
-	 * 2. Dialect 3. hbm2ddl
+	 * 2. Dialect 3. hbm2ddl 4. second-level cache and statistics 5. JDBC batching
 	 */
 	@Bean
 	public Properties hibernateProperties() {
 		Properties prop = new Properties();
 		prop.put("hibernate.show_sql", "true");
-		prop.put("hibernate.hbm2ddl.auto", "update");
+		prop.put("hibernate.hbm2ddl.auto", "validate");
 		prop.put("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
+		prop.put("hibernate.cache.use_second_level_cache", L2_CACHE_ENABLED);
+		prop.put("hibernate.cache.use_query_cache", "false");
+		prop.put("hibernate.cache.region.factory_class", "org.hibernate.cache.ehcache.SingletonEhCacheRegionFactory");
+		prop.put("net.sf.ehcache.configurationResourceName", L2_CACHE_CONFIG);
+		prop.put("hibernate.generate_statistics", STATISTICS_ENABLED);
+		prop.put("hibernate.jdbc.batch_size", JDBC_BATCH_SIZE);
+		prop.put("hibernate.order_inserts", "true");
+		prop.put("hibernate.order_updates", "true");
 		return prop;
 	}
 
@@ -92,14 +228,25 @@ public class ApplicationContextConfig {
 	 * class through which we get sessions and perform database operations.
 	 */
 	@Bean
+	@DependsOn("flyway")
 	public LocalSessionFactoryBean sessionFactory(DataSource dataSource, Properties hibernateProperties) {
 		LocalSessionFactoryBean factoryBean = new LocalSessionFactoryBean();
 		factoryBean.setDataSource(dataSource);
 		factoryBean.setHibernateProperties(hibernateProperties);
-		factoryBean.setAnnotatedClasses(Category.class, Note.class, Reminder.class, User.class);
+		factoryBean.setAnnotatedClasses(Category.class, IdempotentResponse.class, Note.class, Reminder.class,
+				Tombstone.class, User.class);
 		return factoryBean;
 	}
 
+	/*
+	 * Define the bean for the Jackson ObjectMapper, configured like the one Spring
+	 * MVC uses for the JSON responses
+	 */
+	@Bean
+	public ObjectMapper objectMapper() {
+		return Jackson2ObjectMapperBuilder.json().build();
+	}
+
 	/*
 	 * Define the bean for Transaction Manager. HibernateTransactionManager handles
 	 * transaction in Spring. The application that uses single hibernate session
@@ -0,0 +1,618 @@
+package com.stackroute.keepnote.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/*
+ * This filter compresses the responses of COMPRESSION_MIN_SIZE bytes or more
+ * with gzip or deflate, whichever the client prefers in Accept-Encoding, e.g.
+ * the note lists of GET /note. The first bytes of a response are held back
+ * until the threshold is reached, a smaller response goes out as is, with its
+ * Content-Length, a larger one is compressed while it is written, so streamed
+ * responses like /note/export are compressed without being buffered. Only
+ * textual content types are compressed, and responses already encoded are left
+ * alone.
+ *
+ * The Deflaters come from a DeflaterPool per format. The ratio and the CPU time
+ * spent compressing are kept per endpoint, see getAllEndpointMetrics().
+ */
+@Component
+public class CompressionFilter extends OncePerRequestFilter {
+
+	public static final String GZIP = "gzip";
+	public static final String DEFLATE = "deflate";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CompressionFilter.class);
+
+	private static final int MIN_SIZE = Integer.getInteger("COMPRESSION_MIN_SIZE", 1024);
+	private static final int LEVEL = Integer.getInteger("COMPRESSION_LEVEL", Deflater.DEFAULT_COMPRESSION);
+	private static final int POOL_SIZE = Integer.getInteger("COMPRESSION_POOL_SIZE", 32);
+	private static final int BUFFER_SIZE = 8192;
+	private static final String UNMAPPED = "unmapped";
+	private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+	private static final boolean CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported()
+			&& THREADS.isThreadCpuTimeEnabled();
+
+	private final int minSize;
+	private final DeflaterPool gzipPool;
+	private final DeflaterPool deflatePool;
+	private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+	public CompressionFilter() {
+		this(MIN_SIZE, LEVEL, POOL_SIZE);
+	}
+
+	public CompressionFilter(int minSize, int level, int poolSize) {
+		this.minSize = Math.max(minSize, 1);
+		this.gzipPool = new DeflaterPool(level, true, poolSize);
+		this.deflatePool = new DeflaterPool(level, false, poolSize);
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return "HEAD".equals(request.getMethod());
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		String encoding = negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+		if (null == encoding) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		CompressingResponse compressing = new CompressingResponse(response, encoding);
+		boolean completed = false;
+		try {
+			filterChain.doFilter(request, compressing);
+			completed = true;
+		} finally {
+			compressing.finish(completed);
+		}
+		CompressingStream stream = compressing.stream;
+		if (null != stream && null != stream.deflater) {
+			Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+			String endpoint = request.getMethod() + " " + (null != pattern ? pattern : UNMAPPED);
+			EndpointMetrics metrics = this.endpoints.computeIfAbsent(endpoint, EndpointMetrics::new);
+			metrics.record(stream.bytesIn, stream.counted.count, stream.cpuNanos);
+			LOGGER.debug("{} compressed {} bytes to {} with {}", endpoint, stream.bytesIn, stream.counted.count,
+					encoding);
+		}
+	}
+
+	/*
+	 * The content coding to use for the Accept-Encoding of a request, null when
+	 * the response must not be compressed. The highest quality wins, gzip on a
+	 * tie. "*" stands for the codings not listed.
+	 */
+	public static String negotiate(String acceptEncoding) {
+		if (null == acceptEncoding) {
+			return null;
+		}
+		double gzip = -1d;
+		double deflate = -1d;
+		double any = -1d;
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parts = coding.split(";");
+			String name = parts[0].trim().toLowerCase(Locale.ROOT);
+			double quality = 1d;
+			for (int i = 1; i < parts.length; i++) {
+				String parameter = parts[i].trim();
+				if (parameter.startsWith("q=")) {
+					try {
+						quality = Double.parseDouble(parameter.substring(2));
+					} catch (NumberFormatException e) {
+						quality = 0d;
+					}
+				}
+			}
+			if (GZIP.equals(name)) {
+				gzip = quality;
+			} else if (DEFLATE.equals(name)) {
+				deflate = quality;
+			} else if ("*".equals(name)) {
+				any = quality;
+			}
+		}
+		gzip = gzip < 0d ? any : gzip;
+		deflate = deflate < 0d ? any : deflate;
+		String encoding = null;
+		if (gzip > 0d && gzip >= deflate) {
+			encoding = GZIP;
+		} else if (deflate > 0d) {
+			encoding = DEFLATE;
+		}
+		return encoding;
+	}
+
+	public EndpointMetrics getEndpointMetrics(String endpoint) {
+		return this.endpoints.get(endpoint);
+	}
+
+	/*
+	 * The metrics of every endpoint having compressed at least one response, by
+	 * HTTP method and URL pattern, e.g. "GET /note"
+	 */
+	public Map<String, EndpointMetrics> getAllEndpointMetrics() {
+		return this.endpoints;
+	}
+
+	public DeflaterPool getGzipPool() {
+		return this.gzipPool;
+	}
+
+	public DeflaterPool getDeflatePool() {
+		return this.deflatePool;
+	}
+
+	private static long cpuTime() {
+		return CPU_TIME ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+	}
+
+	private static boolean isCompressible(String contentType) {
+		if (null == contentType) {
+			return false;
+		}
+		String type = contentType.toLowerCase(Locale.ROOT);
+		return type.startsWith("text/") || type.contains("json") || type.contains("xml")
+				|| type.contains("javascript");
+	}
+
+	/*
+	 * The response handed to the rest of the chain. The Content-Length set by the
+	 * application is held back until it is known whether the body is compressed,
+	 * and so is the body itself, in the CompressingStream.
+	 */
+	private final class CompressingResponse extends HttpServletResponseWrapper {
+
+		private final String encoding;
+		private CompressingStream stream;
+		private PrintWriter writer;
+		private long contentLength = -1L;
+
+		private CompressingResponse(HttpServletResponse response, String encoding) {
+			super(response);
+			this.encoding = encoding;
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			if (null != this.writer) {
+				throw new IllegalStateException("getWriter() has already been called for this response");
+			}
+			return stream();
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			if (null == this.writer) {
+				if (null != this.stream) {
+					throw new IllegalStateException("getOutputStream() has already been called for this response");
+				}
+				this.writer = new PrintWriter(new OutputStreamWriter(stream(), getCharacterEncoding()));
+			}
+			return this.writer;
+		}
+
+		@Override
+		public void setContentLength(int len) {
+			setContentLengthLong(len);
+		}
+
+		@Override
+		public void setContentLengthLong(long len) {
+			if (null != this.stream && this.stream.isPassThrough()) {
+				super.setContentLengthLong(len);
+			} else {
+				this.contentLength = len;
+			}
+		}
+
+		@Override
+		public void setHeader(String name, String value) {
+			if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+				setContentLengthLong(Long.parseLong(value));
+			} else {
+				super.setHeader(name, value);
+			}
+		}
+
+		@Override
+		public void addHeader(String name, String value) {
+			if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+				setContentLengthLong(Long.parseLong(value));
+			} else {
+				super.addHeader(name, value);
+			}
+		}
+
+		@Override
+		public void setIntHeader(String name, int value) {
+			if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+				setContentLengthLong(value);
+			} else {
+				super.setIntHeader(name, value);
+			}
+		}
+
+		@Override
+		public void addIntHeader(String name, int value) {
+			if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+				setContentLengthLong(value);
+			} else {
+				super.addIntHeader(name, value);
+			}
+		}
+
+		/*
+		 * Committing the response before the body is known to be compressed or not
+		 * would send the headers too early, the flush then waits for the decision
+		 */
+		@Override
+		public void flushBuffer() throws IOException {
+			if (null != this.writer) {
+				this.writer.flush();
+			}
+			if (null == this.stream || this.stream.isDecided()) {
+				if (null != this.stream) {
+					this.stream.flush();
+				}
+				super.flushBuffer();
+			}
+		}
+
+		@Override
+		public void resetBuffer() {
+			if (null != this.stream) {
+				this.stream.resetBuffer();
+			}
+			super.resetBuffer();
+		}
+
+		@Override
+		public void reset() {
+			if (null != this.stream) {
+				this.stream.resetBuffer();
+			}
+			this.contentLength = -1L;
+			super.reset();
+		}
+
+		private CompressingStream stream() {
+			if (null == this.stream) {
+				this.stream = new CompressingStream(this);
+			}
+			return this.stream;
+		}
+
+		/*
+		 * Send what is held back and end the compression. After a failure the
+		 * Deflater is only given back to its pool, the container answers the error.
+		 */
+		private void finish(boolean completed) throws IOException {
+			if (!completed) {
+				if (null != this.stream) {
+					this.stream.release();
+				}
+				return;
+			}
+			if (null != this.writer) {
+				this.writer.flush();
+			}
+			if (null != this.stream) {
+				this.stream.finish();
+			} else if (this.contentLength >= 0L) {
+				super.setContentLengthLong(this.contentLength);
+			}
+		}
+
+		private void passThrough(long bufferedLength) {
+			if (this.contentLength >= 0L) {
+				super.setContentLengthLong(this.contentLength);
+			} else if (bufferedLength >= 0L) {
+				super.setContentLengthLong(bufferedLength);
+			}
+		}
+
+		private boolean startCompression() {
+			int status = getStatus();
+			if (status < 200 || status == HttpServletResponse.SC_NO_CONTENT
+					|| status == HttpServletResponse.SC_NOT_MODIFIED || containsHeader(HttpHeaders.CONTENT_ENCODING)
+					|| !isCompressible(getContentType())) {
+				return false;
+			}
+			super.setHeader(HttpHeaders.CONTENT_ENCODING, this.encoding);
+			// the compressed body is another representation, a strong ETag would claim
+			// byte equality with the uncompressed one
+			String etag = getHeader(HttpHeaders.ETAG);
+			if (null != etag && etag.startsWith("\"")) {
+				super.setHeader(HttpHeaders.ETAG, "W/" + etag);
+			}
+			return true;
+		}
+
+	}
+
+	/*
+	 * The body of a CompressingResponse. It holds the first bytes until there are
+	 * minSize of them, or until the end of the response, and then either
+	 * compresses everything written or passes it through.
+	 */
+	private final class CompressingStream extends ServletOutputStream {
+
+		private final CompressingResponse response;
+		private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		private OutputStream target;
+		private boolean passThrough;
+		private boolean finished;
+
+		private Deflater deflater;
+		private DeflaterOutputStream deflating;
+		private CountingOutputStream counted;
+		private CRC32 crc;
+		private long bytesIn;
+		private long cpuNanos;
+
+		private CompressingStream(CompressingResponse response) {
+			this.response = response;
+		}
+
+		private boolean isDecided() {
+			return null != this.target;
+		}
+
+		private boolean isPassThrough() {
+			return this.passThrough;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (this.finished) {
+				throw new IOException("the response has been written already");
+			}
+			if (null == this.target) {
+				if (this.buffer.size() + len < CompressionFilter.this.minSize) {
+					this.buffer.write(b, off, len);
+					return;
+				}
+				decide(true);
+			}
+			writeTarget(b, off, len);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (null != this.target && !this.finished) {
+				this.target.flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			finish();
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			throw new UnsupportedOperationException();
+		}
+
+		private void resetBuffer() {
+			if (null == this.target) {
+				this.buffer.reset();
+			}
+		}
+
+		private void decide(boolean large) throws IOException {
+			OutputStream out = this.response.getResponse().getOutputStream();
+			if (large && this.response.startCompression()) {
+				this.deflater = (GZIP.equals(this.response.encoding) ? gzipPool : deflatePool).acquire();
+				this.counted = new CountingOutputStream(out);
+				if (GZIP.equals(this.response.encoding)) {
+					this.counted.write(GZIP_HEADER);
+					this.crc = new CRC32();
+				}
+				this.deflating = new DeflaterOutputStream(this.counted, this.deflater, BUFFER_SIZE, true);
+				this.target = this.deflating;
+			} else {
+				this.passThrough = true;
+				this.response.passThrough(large ? -1L : this.buffer.size());
+				this.target = out;
+			}
+			byte[] held = this.buffer.toByteArray();
+			this.buffer = null;
+			if (held.length > 0) {
+				writeTarget(held, 0, held.length);
+			}
+		}
+
+		private void writeTarget(byte[] b, int off, int len) throws IOException {
+			if (null == this.deflating) {
+				this.target.write(b, off, len);
+				return;
+			}
+			long start = cpuTime();
+			if (null != this.crc) {
+				this.crc.update(b, off, len);
+			}
+			this.deflating.write(b, off, len);
+			this.bytesIn += len;
+			this.cpuNanos += cpuTime() - start;
+		}
+
+		private void finish() throws IOException {
+			if (this.finished) {
+				return;
+			}
+			try {
+				if (null == this.target) {
+					if (this.buffer.size() > 0) {
+						decide(false);
+					} else {
+						this.response.passThrough(-1L);
+					}
+				}
+				this.finished = true;
+				if (null != this.deflating) {
+					long start = cpuTime();
+					this.deflating.finish();
+					if (null != this.crc) {
+						writeIntLE(this.crc.getValue());
+						writeIntLE(this.bytesIn);
+					}
+					this.cpuNanos += cpuTime() - start;
+				}
+			} finally {
+				release();
+			}
+		}
+
+		private void release() {
+			this.finished = true;
+			if (null != this.deflating) {
+				(null != this.crc ? gzipPool : deflatePool).release(this.deflater);
+				this.deflating = null;
+			}
+		}
+
+		private void writeIntLE(long value) throws IOException {
+			this.counted.write((int) value & 0xff);
+			this.counted.write((int) (value >> 8) & 0xff);
+			this.counted.write((int) (value >> 16) & 0xff);
+			this.counted.write((int) (value >> 24) & 0xff);
+		}
+
+	}
+
+	private static final class CountingOutputStream extends FilterOutputStream {
+
+		private long count;
+
+		private CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			this.out.write(b);
+			this.count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			this.out.write(b, off, len);
+			this.count += len;
+		}
+
+	}
+
+	/*
+	 * The compression of the responses of one endpoint: how many were
+	 * compressed, their size before and after, and the CPU time spent in the
+	 * Deflaters (wall time where the JVM does not measure thread CPU time)
+	 */
+	public static class EndpointMetrics {
+
+		private final String endpoint;
+		private final LongAdder responseCount = new LongAdder();
+		private final LongAdder bytesIn = new LongAdder();
+		private final LongAdder bytesOut = new LongAdder();
+		private final LongAdder cpuNanos = new LongAdder();
+
+		EndpointMetrics(String endpoint) {
+			this.endpoint = endpoint;
+		}
+
+		void record(long in, long out, long nanos) {
+			this.responseCount.increment();
+			this.bytesIn.add(in);
+			this.bytesOut.add(out);
+			this.cpuNanos.add(nanos);
+		}
+
+		public String getEndpoint() {
+			return this.endpoint;
+		}
+
+		public long getResponseCount() {
+			return this.responseCount.sum();
+		}
+
+		public long getBytesIn() {
+			return this.bytesIn.sum();
+		}
+
+		public long getBytesOut() {
+			return this.bytesOut.sum();
+		}
+
+		/*
+		 * Uncompressed size over compressed size, e.g. 5.0 when the responses were
+		 * sent in a fifth of their size
+		 */
+		public double getCompressionRatio() {
+			long out = getBytesOut();
+			return out == 0L ? 0d : (double) getBytesIn() / out;
+		}
+
+		public double getTotalCpuMillis() {
+			return (double) this.cpuNanos.sum() / TimeUnit.MILLISECONDS.toNanos(1);
+		}
+
+		public double getAverageCpuMillis() {
+			long count = getResponseCount();
+			return count == 0L ? 0d : getTotalCpuMillis() / count;
+		}
+
+		@Override
+		public String toString() {
+			return "EndpointMetrics [endpoint=" + endpoint + ", responses=" + getResponseCount() + ", bytesIn="
+					+ getBytesIn() + ", bytesOut=" + getBytesOut() + ", ratio=" + getCompressionRatio()
+					+ ", avgCpuMillis=" + getAverageCpuMillis() + "]";
+		}
+
+	}
+
+}
@@ -0,0 +1,66 @@
+package com.stackroute.keepnote.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+/*
+ * A bounded pool of Deflaters of one compression level and format. A Deflater
+ * holds a few hundred kilobytes of native memory that is only given back by
+ * end() or by the finalizer, so allocating one per response churns native
+ * memory under load. A released Deflater is reset and kept for the next
+ * response, unless the pool is full, then it is ended right away.
+ */
+public class DeflaterPool {
+
+	private final int level;
+	private final boolean nowrap;
+	private final BlockingQueue<Deflater> idle;
+	private final LongAdder createdCount = new LongAdder();
+
+	/*
+	 * "nowrap" gives raw deflate data, as wrapped by gzip, instead of the zlib
+	 * format of the "deflate" content coding
+	 */
+	public DeflaterPool(int level, boolean nowrap, int capacity) {
+		this.level = level;
+		this.nowrap = nowrap;
+		this.idle = new ArrayBlockingQueue<>(capacity);
+	}
+
+	public Deflater acquire() {
+		Deflater deflater = this.idle.poll();
+		if (null == deflater) {
+			this.createdCount.increment();
+			deflater = new Deflater(this.level, this.nowrap);
+		}
+		return deflater;
+	}
+
+	public void release(Deflater deflater) {
+		deflater.reset();
+		if (!this.idle.offer(deflater)) {
+			deflater.end();
+		}
+	}
+
+	/*
+	 * The number of Deflaters allocated since the pool was created, and the
+	 * number waiting in the pool
+	 */
+	public long getCreatedCount() {
+		return this.createdCount.sum();
+	}
+
+	public int getIdleCount() {
+		return this.idle.size();
+	}
+
+	@Override
+	public String toString() {
+		return "DeflaterPool [level=" + level + ", nowrap=" + nowrap + ", created=" + getCreatedCount() + ", idle="
+				+ getIdleCount() + "]";
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.stackroute.keepnote.config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import com.stackroute.keepnote.cache.EncodedNotes;
+
+/*
+ * Writes EncodedNotes as JSON from the cached JSON of the notes, straight to the
+ * response stream. It only writes application/json, the other media types are
+ * left to the Jackson converters after it, and it never reads.
+ */
+public class EncodedNotesHttpMessageConverter extends AbstractHttpMessageConverter<EncodedNotes> {
+
+	public EncodedNotesHttpMessageConverter() {
+		super(StandardCharsets.UTF_8, MediaType.APPLICATION_JSON);
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return EncodedNotes.class.isAssignableFrom(clazz);
+	}
+
+	@Override
+	protected boolean canRead(MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	protected EncodedNotes readInternal(Class<? extends EncodedNotes> clazz, HttpInputMessage inputMessage) {
+		throw new HttpMessageNotReadableException("EncodedNotes cannot be read");
+	}
+
+	@Override
+	protected Long getContentLength(EncodedNotes notes, MediaType contentType) {
+		return notes.getContentLength();
+	}
+
+	@Override
+	protected void writeInternal(EncodedNotes notes, HttpOutputMessage outputMessage) throws IOException {
+		notes.writeTo(outputMessage.getBody());
+	}
+
+}
@@ -0,0 +1,205 @@
+package com.stackroute.keepnote.config;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.stackroute.keepnote.cache.IdempotencyStore;
+import com.stackroute.keepnote.model.IdempotentResponse;
+
+/*
+ * This filter makes the creates of notes, categories, reminders and users safe
+ * to retry. A POST to one of them carrying an Idempotency-Key header runs once
+ * per key and user: a retry gets the status and body of the first response,
+ * marked with Idempotent-Replayed, without reaching the controller. A retry
+ * sent while the first request still runs waits for its response. A key sent
+ * again with another body is answered 422, a key still running after the wait
+ * 409.
+ *
+ * The responses of 401 and of server errors are not kept, the request runs
+ * again when retried, e.g. once logged in or once the database is back.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+	public static final String KEY_HEADER = "Idempotency-Key";
+	public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+	private static final String SESSION_ATTR = "loggedInUserId";
+	private static final int MAX_KEY_LENGTH = 255;
+	private static final Set<String> PATHS = new HashSet<>(
+			Arrays.asList("/note", "/category", "/reminder", "/user/register"));
+
+	private final IdempotencyStore idempotencyStore;
+
+	@Autowired
+	public IdempotencyFilter(IdempotencyStore idempotencyStore) {
+		this.idempotencyStore = idempotencyStore;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !"POST".equals(request.getMethod()) || null == request.getHeader(KEY_HEADER)
+				|| !PATHS.contains(pathOf(request));
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		String idempotencyKey = request.getHeader(KEY_HEADER).trim();
+		if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+			response.setStatus(HttpStatus.BAD_REQUEST.value());
+			return;
+		}
+		byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+		HttpSession session = request.getSession(false);
+		Object userId = null != session ? session.getAttribute(SESSION_ATTR) : null;
+		String key = sha256((userId + "\n" + pathOf(request) + "\n" + idempotencyKey)
+				.getBytes(StandardCharsets.UTF_8));
+		String fingerprint = sha256(body);
+
+		IdempotentResponse previous = this.idempotencyStore.begin(key, fingerprint);
+		if (null == previous) {
+			run(new CachedBodyRequest(request, body), response, filterChain, key, fingerprint);
+		} else if (!previous.getFingerprint().equals(fingerprint)) {
+			response.setStatus(HttpStatus.UNPROCESSABLE_ENTITY.value());
+		} else if (previous.isPending()) {
+			response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+			response.setStatus(HttpStatus.CONFLICT.value());
+		} else {
+			replay(previous, response);
+		}
+	}
+
+	/*
+	 * Run the request holding the claim of the key and keep its response, or
+	 * release the key when the response is not kept or the request failed
+	 */
+	private void run(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain, String key,
+			String fingerprint) throws ServletException, IOException {
+		ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+		boolean kept = false;
+		try {
+			filterChain.doFilter(request, wrapper);
+			int status = wrapper.getStatus();
+			if (status != HttpStatus.UNAUTHORIZED.value() && status < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+				this.idempotencyStore.complete(key, new IdempotentResponse(key, fingerprint, status,
+						wrapper.getContentType(), wrapper.getContentAsByteArray(), new Date()));
+				kept = true;
+			}
+		} finally {
+			if (!kept) {
+				this.idempotencyStore.abandon(key);
+			}
+			wrapper.copyBodyToResponse();
+		}
+	}
+
+	private static void replay(IdempotentResponse previous, HttpServletResponse response) throws IOException {
+		response.setStatus(previous.getStatus());
+		response.setHeader(REPLAYED_HEADER, "true");
+		if (null != previous.getContentType()) {
+			response.setContentType(previous.getContentType());
+		}
+		if (null != previous.getBody() && previous.getBody().length > 0) {
+			response.setContentLength(previous.getBody().length);
+			response.getOutputStream().write(previous.getBody());
+		}
+	}
+
+	private static String pathOf(HttpServletRequest request) {
+		return request.getRequestURI().substring(request.getContextPath().length());
+	}
+
+	private static String sha256(byte[] bytes) {
+		try {
+			StringBuilder hex = new StringBuilder(64);
+			for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+				hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/*
+	 * The request with its body read already, handed to the controller again
+	 */
+	private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+		private final byte[] body;
+
+		private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+			super(request);
+			this.body = body;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			final ByteArrayInputStream in = new ByteArrayInputStream(this.body);
+			return new ServletInputStream() {
+
+				@Override
+				public int read() {
+					return in.read();
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) {
+					return in.read(b, off, len);
+				}
+
+				@Override
+				public boolean isFinished() {
+					return in.available() == 0;
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				@Override
+				public void setReadListener(ReadListener readListener) {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		@Override
+		public BufferedReader getReader() {
+			String encoding = getCharacterEncoding();
+			Charset charset = null != encoding ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+			return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+		}
+
+	}
+
+}
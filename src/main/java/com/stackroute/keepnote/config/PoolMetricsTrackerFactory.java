@@ -0,0 +1,136 @@
+package com.stackroute.keepnote.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/*
+ * This class collects the connection pool metrics reported by HikariCP. For
+ * every pool it keeps the time callers waited for a connection, how long
+ * connections were held, the number of acquisition timeouts and the current
+ * active/idle/pending counts, so that pool starvation can be told apart from
+ * application errors.
+ */
+public class PoolMetricsTrackerFactory implements MetricsTrackerFactory {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PoolMetricsTrackerFactory.class);
+
+	private final Map<String, PoolMetrics> pools = new ConcurrentHashMap<>();
+
+	@Override
+	public IMetricsTracker create(String poolName, PoolStats poolStats) {
+		PoolMetrics metrics = new PoolMetrics(poolName, poolStats);
+		this.pools.put(poolName, metrics);
+		return metrics;
+	}
+
+	/*
+	 * Retrieve the metrics of a specific pool, null if the pool is unknown
+	 */
+	public PoolMetrics getPoolMetrics(String poolName) {
+		return this.pools.get(poolName);
+	}
+
+	/*
+	 * Retrieve the metrics of all pools created through this factory
+	 */
+	public Map<String, PoolMetrics> getAllPoolMetrics() {
+		return this.pools;
+	}
+
+	public static class PoolMetrics implements IMetricsTracker {
+
+		private final String poolName;
+		private final PoolStats poolStats;
+		private final LongAdder acquireCount = new LongAdder();
+		private final LongAdder acquireNanos = new LongAdder();
+		private final LongAccumulator maxAcquireNanos = new LongAccumulator(Long::max, 0L);
+		private final LongAdder usageCount = new LongAdder();
+		private final LongAdder usageMillis = new LongAdder();
+		private final LongAdder timeoutCount = new LongAdder();
+
+		PoolMetrics(String poolName, PoolStats poolStats) {
+			this.poolName = poolName;
+			this.poolStats = poolStats;
+		}
+
+		@Override
+		public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+			this.acquireCount.increment();
+			this.acquireNanos.add(elapsedAcquiredNanos);
+			this.maxAcquireNanos.accumulate(elapsedAcquiredNanos);
+		}
+
+		@Override
+		public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+			this.usageCount.increment();
+			this.usageMillis.add(elapsedBorrowedMillis);
+		}
+
+		@Override
+		public void recordConnectionTimeout() {
+			this.timeoutCount.increment();
+			LOGGER.warn("connection pool exhausted -- {}", this);
+		}
+
+		public String getPoolName() {
+			return this.poolName;
+		}
+
+		public int getActiveConnections() {
+			return this.poolStats.getActiveConnections();
+		}
+
+		public int getIdleConnections() {
+			return this.poolStats.getIdleConnections();
+		}
+
+		public int getPendingThreads() {
+			return this.poolStats.getPendingThreads();
+		}
+
+		public int getTotalConnections() {
+			return this.poolStats.getTotalConnections();
+		}
+
+		public long getTimeoutCount() {
+			return this.timeoutCount.sum();
+		}
+
+		public long getAcquireCount() {
+			return this.acquireCount.sum();
+		}
+
+		public double getAverageWaitMillis() {
+			long count = this.acquireCount.sum();
+			return count == 0 ? 0d : (double) this.acquireNanos.sum() / count / TimeUnit.MILLISECONDS.toNanos(1);
+		}
+
+		public double getMaxWaitMillis() {
+			return (double) this.maxAcquireNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+		}
+
+		public double getAverageUsageMillis() {
+			long count = this.usageCount.sum();
+			return count == 0 ? 0d : (double) this.usageMillis.sum() / count;
+		}
+
+		@Override
+		public String toString() {
+			return "PoolMetrics [poolName=" + poolName + ", active=" + getActiveConnections() + ", idle="
+					+ getIdleConnections() + ", pending=" + getPendingThreads() + ", acquired=" + getAcquireCount()
+					+ ", avgWaitMillis=" + getAverageWaitMillis() + ", maxWaitMillis=" + getMaxWaitMillis()
+					+ ", avgUsageMillis=" + getAverageUsageMillis() + ", timeouts=" + getTimeoutCount() + "]";
+		}
+	}
+
+}
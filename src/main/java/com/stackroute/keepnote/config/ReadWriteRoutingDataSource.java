@@ -0,0 +1,109 @@
+package com.stackroute.keepnote.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+ * This DataSource sends the connections of read-only transactions to one of the
+ * replicas (round robin) and everything else to the primary. The routing
+ * decision needs the transaction to be set up already, so this DataSource has
+ * to be wrapped in a LazyConnectionDataSourceProxy, which fetches the target
+ * connection only when the first statement runs.
+ *
+ * Read-your-writes: once a thread has written to the primary, its following
+ * read-only transactions stay on the primary until reset() is called at the end
+ * of the request. stickToPrimary() forces the same for a whole request, e.g.
+ * shortly after a write done by a previous request of the same user.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+	public static final String PRIMARY = "primary";
+	public static final String REPLICA = "replica-";
+
+	private static final ThreadLocal<Boolean> WROTE = new ThreadLocal<>();
+	private static final ThreadLocal<Boolean> STICKY = new ThreadLocal<>();
+
+	private final List<String> replicaKeys = new ArrayList<>();
+	private final List<DataSource> replicas;
+	private final AtomicInteger nextReplica = new AtomicInteger();
+
+	public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+		this.replicas = replicas;
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(PRIMARY, primary);
+		for (int i = 0; i < replicas.size(); i++) {
+			this.replicaKeys.add(REPLICA + i);
+			targets.put(REPLICA + i, replicas.get(i));
+		}
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+			return PRIMARY;
+		}
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			markWritten();
+			return PRIMARY;
+		}
+		if (this.replicaKeys.isEmpty() || hasWritten() || Boolean.TRUE.equals(STICKY.get())) {
+			return PRIMARY;
+		}
+		return this.replicaKeys.get(Math.floorMod(this.nextReplica.getAndIncrement(), this.replicaKeys.size()));
+	}
+
+	/*
+	 * Tell whether the current thread has opened a read-write connection since the
+	 * last reset
+	 */
+	public static boolean hasWritten() {
+		return Boolean.TRUE.equals(WROTE.get());
+	}
+
+	/*
+	 * Record a write made on the primary outside of a Spring transaction, e.g.
+	 * through a StatelessSession of its own, so that the reads that follow in the
+	 * same request still see it
+	 */
+	public static void markWritten() {
+		WROTE.set(Boolean.TRUE);
+	}
+
+	/*
+	 * Route every transaction of the current thread to the primary until reset
+	 */
+	public static void stickToPrimary() {
+		STICKY.set(Boolean.TRUE);
+	}
+
+	public static void reset() {
+		WROTE.remove();
+		STICKY.remove();
+	}
+
+	/*
+	 * The replica pools are created for this DataSource only, close them with it.
+	 * The primary is a bean of its own.
+	 */
+	@Override
+	public void close() throws IOException {
+		for (DataSource replica : this.replicas) {
+			if (replica instanceof Closeable) {
+				((Closeable) replica).close();
+			}
+		}
+	}
+
+}
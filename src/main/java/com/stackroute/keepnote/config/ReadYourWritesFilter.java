@@ -0,0 +1,48 @@
+package com.stackroute.keepnote.config;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/*
+ * This filter scopes the read-your-writes routing of ReadWriteRoutingDataSource
+ * to a request. When a request writes, the time is kept in the HTTP session,
+ * and the requests of the same session that follow within the replica lag
+ * window read from the primary too, so a user always sees their own changes.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+	public static final String LAST_WRITE_ATTR = "lastWriteAt";
+
+	private static final long STICKY_WINDOW = Long.getLong("MYSQL_REPLICA_STICKY_MS", 5000L);
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		HttpSession session = request.getSession(false);
+		if (null != session) {
+			Object lastWrite = session.getAttribute(LAST_WRITE_ATTR);
+			if (lastWrite instanceof Long && System.currentTimeMillis() - (Long) lastWrite < STICKY_WINDOW) {
+				ReadWriteRoutingDataSource.stickToPrimary();
+			}
+		}
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			if (ReadWriteRoutingDataSource.hasWritten()) {
+				session = request.getSession(false);
+				if (null != session) {
+					session.setAttribute(LAST_WRITE_ATTR, System.currentTimeMillis());
+				}
+			}
+			ReadWriteRoutingDataSource.reset();
+		}
+	}
+
+}
@@ -1,5 +1,8 @@
 package com.stackroute.keepnote.config;
 
+import javax.servlet.Filter;
+
+import org.springframework.web.filter.DelegatingFilterProxy;
 import org.springframework.web.servlet.support.AbstractAnnotationConfigDispatcherServletInitializer;
 
 public class WebApplicationInitializer extends AbstractAnnotationConfigDispatcherServletInitializer {
@@ -22,6 +25,18 @@ public class WebApplicationInitializer extends AbstractAnnotationConfigDispatche
 		return new String[] {"/"};
 	}
 
+	/*
+	 * The CompressionFilter and the IdempotencyFilter are beans of the root
+	 * context, reached through proxies looking them up by name. Compression comes
+	 * first so that it applies to the replayed responses too.
+	 */
+	@Override
+	protected Filter[] getServletFilters() {
+
+		return new Filter[] {new DelegatingFilterProxy("compressionFilter"), new ReadYourWritesFilter(),
+				new DelegatingFilterProxy("idempotencyFilter")};
+	}
+
 	
 
 }
@@ -0,0 +1,83 @@
+package com.stackroute.keepnote.config;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/*
+ * The Spring MVC configuration of the controllers. Besides JSON, the request
+ * and response bodies may be CBOR (application/cbor) or Smile
+ * (application/x-jackson-smile), binary encodings of the same Jackson data
+ * model which are smaller and cheaper to write and parse than text. A client
+ * gets them by sending the media type in Accept, or in Content-Type for a
+ * request body. JSON stays the default: it comes first among the converters,
+ * so it is chosen when the client accepts anything. As the body of every
+ * response depends on Accept, every response says so with "Vary: Accept", and
+ * the entity tags of the conditional GETs name the format too.
+ *
+ * Ahead of them all, EncodedNotesHttpMessageConverter writes the JSON of the
+ * notes listed by GET /note from the cached JSON of each note.
+ */
+@Configuration
+@EnableWebMvc
+public class WebMvcConfig implements WebMvcConfigurer {
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(varyOnAccept());
+	}
+
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+				|| converter instanceof MappingJackson2SmileHttpMessageConverter);
+		int json = converters.size() - 1;
+		while (json >= 0 && !(converters.get(json) instanceof MappingJackson2HttpMessageConverter)) {
+			json--;
+		}
+		converters.addAll(json >= 0 ? json + 1 : converters.size(), binaryConverters());
+		converters.removeIf(converter -> converter instanceof EncodedNotesHttpMessageConverter);
+		converters.add(0, new EncodedNotesHttpMessageConverter());
+	}
+
+	/*
+	 * The converters of the binary formats, with the same Jackson settings as the
+	 * JSON one
+	 */
+	public static List<HttpMessageConverter<?>> binaryConverters() {
+		return Arrays.asList(
+				new MappingJackson2SmileHttpMessageConverter(Jackson2ObjectMapperBuilder.smile().build()),
+				new MappingJackson2CborHttpMessageConverter(Jackson2ObjectMapperBuilder.cbor().build()));
+	}
+
+	/*
+	 * Adds "Vary: Accept" before the handler runs, so that the 304 answers and the
+	 * errors have it too
+	 */
+	public static HandlerInterceptor varyOnAccept() {
+		return new HandlerInterceptor() {
+			@Override
+			public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+				if (!response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT)) {
+					response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+				}
+				return true;
+			}
+		};
+	}
+
+}
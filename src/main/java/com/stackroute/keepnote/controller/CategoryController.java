@@ -6,16 +6,22 @@ import javax.servlet.http.HttpSession;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
+import com.stackroute.keepnote.model.BatchItemResult;
 import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.FieldSelection;
+import com.stackroute.keepnote.model.KeysetPage;
 import com.stackroute.keepnote.service.CategoryService;
 
 /*
@@ -73,6 +79,44 @@ public class CategoryController {
 		return response;
 	}
 
+	/*
+	 * Define a handler method which will create several categories at once by reading
+	 * an array of category objects from the request body. The loggedIn userID is
+	 * taken as the creator of every category, and every category gets its own result in
+	 * the response. This handler method should return any one of the status
+	 * messages basis on different situations: 1. 201(CREATED) - If all categories
+	 * were created. 2. 207(MULTI STATUS) - If some categories were rejected. 3.
+	 * 400(BAD REQUEST) - If the array is empty or holds more than
+	 * BatchItemResult.MAX_ITEMS categories. 4. 401(UNAUTHORIZED) - If the user trying
+	 * to perform the action has not logged in.
+	 * 
+	 * This handler method should map to the URL "/category/batch" using HTTP POST
+	 * method
+	 */
+	@PostMapping("/category/batch")
+	public ResponseEntity<Object> createCategories(@RequestBody List<Category> categories, HttpSession session) {
+		ResponseEntity<Object> response = null;
+		if (null != session && null != session.getAttribute(SESSION_ATTR)) {
+			if (categories.isEmpty() || categories.size() > BatchItemResult.MAX_ITEMS) {
+				response = new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+			} else {
+				try {
+					List<BatchItemResult> results = this.categoryService.createCategories(categories,
+							session.getAttribute(SESSION_ATTR).toString());
+					response = new ResponseEntity<>(results,
+							BatchItemResult.allCreated(results) ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS);
+				} catch (CannotCreateTransactionException e) {
+					throw e;
+				} catch (Exception e) {
+					response = new ResponseEntity<>(HttpStatus.CONFLICT);
+				}
+			}
+		} else {
+			response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+		}
+		return response;
+	}
+
 	/*
 	 * Define a handler method which will delete a category from a database.
 	 * 
@@ -89,9 +133,13 @@ public class CategoryController {
 	public ResponseEntity<Object> deleteCategory(@PathVariable int id, HttpSession session) {
 		ResponseEntity<Object> response = null;
 		if (null != session && null != session.getAttribute(SESSION_ATTR)) {
-			if (this.categoryService.deleteCategory(id)) {
-				response = new ResponseEntity<>(HttpStatus.OK);
-			} else {
+			try {
+				if (this.categoryService.deleteCategory(id, session.getAttribute(SESSION_ATTR).toString())) {
+					response = new ResponseEntity<>(HttpStatus.OK);
+				} else {
+					response = new ResponseEntity<>(HttpStatus.NOT_FOUND);
+				}
+			} catch (CategoryNotFoundException e) {
 				response = new ResponseEntity<>(HttpStatus.NOT_FOUND);
 			}
 		} else {
@@ -120,7 +168,8 @@ public class CategoryController {
 		ResponseEntity<Object> response = null;
 		try {
 			if (null != session.getAttribute(SESSION_ATTR)) {
-				if (null != this.categoryService.updateCategory(category, id)) {
+				if (null != this.categoryService.updateCategory(category, id,
+						session.getAttribute(SESSION_ATTR).toString())) {
 					response = new ResponseEntity<>(HttpStatus.OK);
 				} else {
 					response = new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -130,6 +179,8 @@ public class CategoryController {
 			}
 		} catch (CategoryNotFoundException e) {
 			response = new ResponseEntity<>(HttpStatus.NOT_FOUND);
+		} catch (CannotCreateTransactionException e) {
+			throw e;
 		} catch (Exception e) {
 			response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
 		}
@@ -145,15 +196,44 @@ public class CategoryController {
 	 * in.
 	 * 
 	 * 
-	 * This handler method should map to the URL "/category" using HTTP GET method
+	 * This handler method should map to the URL "/category" using HTTP GET method.
+	 * When the "after" cursor or the "limit" request parameter is present, one
+	 * page of categories is returned along with the cursor of the next page, and
+	 * 400(BAD REQUEST) is returned for a malformed cursor. Conditional requests
+	 * are answered from the version of the categories of the user, with
+	 * 304(NOT MODIFIED) when they did not change. "fields" narrows the categories
+	 * down to the listed properties, e.g. "fields=categoryName", the id being
+	 * always included, with 400(BAD REQUEST) for an unknown property.
 	 */
 	@GetMapping("/category")
-	public ResponseEntity<Object> getCategory(HttpSession session) {
+	public ResponseEntity<Object> getCategory(@RequestParam(required = false) String after,
+			@RequestParam(required = false) Integer limit, @RequestParam(required = false) String fields,
+			HttpSession session, ServletWebRequest webRequest) {
 		ResponseEntity<Object> response = null;
 		if (null != session && null != session.getAttribute(SESSION_ATTR)) {
 			final String userId = session.getAttribute(SESSION_ATTR).toString();
-			List<Category> categoryList = this.categoryService.getAllCategoryByUserId(userId);
-			response = new ResponseEntity<>(categoryList, HttpStatus.OK);
+			final boolean paged = null != after || null != limit;
+			try {
+				FieldSelection selection = null != fields
+						? FieldSelection.parse(fields, FieldSelection.CATEGORY_FIELDS) : null;
+				if (ConditionalRequests.isNotModified(webRequest, this.categoryService.getCategoriesVersion(userId))) {
+					response = new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+				} else if (null != selection) {
+					response = new ResponseEntity<>(
+							paged ? this.categoryService.getCategoryFieldsByUserId(userId, selection, after, limit)
+									: this.categoryService.getCategoryFieldsByUserId(userId, selection),
+							HttpStatus.OK);
+				} else if (!paged) {
+					List<Category> categoryList = this.categoryService.getAllCategoryByUserId(userId);
+					response = new ResponseEntity<>(categoryList, HttpStatus.OK);
+				} else {
+					KeysetPage<Category> categoryPage = this.categoryService.getCategoriesByUserId(userId, after,
+							limit);
+					response = new ResponseEntity<>(categoryPage, HttpStatus.OK);
+				}
+			} catch (IllegalArgumentException e) {
+				response = new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+			}
 		} else {
 			response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
 		}
@@ -0,0 +1,129 @@
+package com.stackroute.keepnote.controller;
+
+import java.util.Enumeration;
+import java.util.List;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.stackroute.keepnote.cache.ListVersion;
+
+/*
+ * Conditional GET support shared by the controllers. The validators come from
+ * the list versions of the service layer, so a client that already has the
+ * current representation gets a 304 before anything is read or serialized.
+ * The responses are private to the logged-in user and must be revalidated
+ * every time, otherwise browsers would reuse them heuristically because of
+ * Last-Modified.
+ *
+ * The same URL is served in JSON, Smile or CBOR depending on Accept, so the
+ * entity tags name the format: a JSON tag stays as the version gives it, the
+ * tags of the binary formats get the format appended, and a client holding one
+ * format never gets a 304 for another.
+ */
+final class ConditionalRequests {
+
+	private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+	private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+	private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+
+	private ConditionalRequests() {
+	}
+
+	/*
+	 * Check the request against the version of a whole list. No version, e.g. from
+	 * a mocked service, means no validation.
+	 */
+	static boolean isNotModified(ServletWebRequest request, ListVersion version) {
+		return null != version && isNotModified(request, version.getTag(), version.getLastModified());
+	}
+
+	/*
+	 * Check If-None-Match, or If-Modified-Since without it, against the
+	 * validators, which are added to the response in any case
+	 */
+	static boolean isNotModified(ServletWebRequest request, String tag, long lastModified) {
+		HttpServletResponse response = request.getResponse();
+		if (null != response) {
+			response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+		}
+		return request.checkNotModified(representationTag(request, tag), lastModified);
+	}
+
+	/*
+	 * Tell whether If-None-Match lists the tag, without setting anything on the
+	 * response. Used before the resource is read, when it is not yet known
+	 * whether the tag applies to it.
+	 */
+	static boolean hasTag(ServletWebRequest request, String tag) {
+		final String expected = representationTag(request, tag);
+		Enumeration<String> headers = request.getRequest().getHeaders(HttpHeaders.IF_NONE_MATCH);
+		while (null != headers && headers.hasMoreElements()) {
+			for (String candidate : headers.nextElement().split(",")) {
+				candidate = candidate.trim();
+				if (candidate.startsWith("W/")) {
+					candidate = candidate.substring(2);
+				}
+				if (expected.equals(candidate)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	static HttpHeaders notModifiedHeaders(ServletWebRequest request, String tag, long lastModified) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setETag(representationTag(request, tag));
+		headers.setLastModified(lastModified);
+		headers.setCacheControl(CACHE_CONTROL);
+		return headers;
+	}
+
+	/*
+	 * The tag of the version in the format the response is written in
+	 */
+	static String representationTag(ServletWebRequest request, String tag) {
+		final String format = binaryFormat(request.getHeader(HttpHeaders.ACCEPT));
+		return null == format ? tag : tag.substring(0, tag.length() - 1) + "-" + format + "\"";
+	}
+
+	/*
+	 * The binary format negotiated for the Accept header, the way the message
+	 * converters are chosen: the preferred acceptable media type decides, and
+	 * JSON comes before Smile and CBOR among the converters. Null for JSON.
+	 */
+	private static String binaryFormat(String accept) {
+		String format = null;
+		if (null != accept && !accept.trim().isEmpty()) {
+			try {
+				List<MediaType> acceptable = MediaType.parseMediaTypes(accept);
+				MediaType.sortBySpecificityAndQuality(acceptable);
+				for (MediaType mediaType : acceptable) {
+					if (mediaType.getQualityValue() == 0d) {
+						continue;
+					}
+					if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+						break;
+					} else if (mediaType.includes(SMILE)) {
+						format = "smile";
+						break;
+					} else if (mediaType.includes(CBOR)) {
+						format = "cbor";
+						break;
+					}
+				}
+			} catch (InvalidMediaTypeException e) {
+				// not acceptable anyway, the converters answer 406
+				format = null;
+			}
+		}
+		return format;
+	}
+
+}
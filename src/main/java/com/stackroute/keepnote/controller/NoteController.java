@@ -1,22 +1,43 @@
 package com.stackroute.keepnote.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stackroute.keepnote.cache.EncodedNotes;
+import com.stackroute.keepnote.cache.NoteJsonCache;
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
 import com.stackroute.keepnote.exception.NoteNotFoundException;
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
+import com.stackroute.keepnote.model.BatchItemResult;
+import com.stackroute.keepnote.model.FieldSelection;
+import com.stackroute.keepnote.model.ImportSummary;
 import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.NoteSearchHit;
+import com.stackroute.keepnote.model.Suggestion;
 import com.stackroute.keepnote.service.NoteService;
 
 /*
@@ -32,6 +53,8 @@ import com.stackroute.keepnote.service.NoteService;
 public class NoteController {
 
 	private static final String SESSION_ATTR = "loggedInUserId";
+	private static final String SUMMARY_VIEW = "summary";
+	private static final String NDJSON = "application/x-ndjson";
 
 	/*
 	 * Autowiring should be implemented for the NoteService. (Use Constructor-based
@@ -39,10 +62,14 @@ public class NoteController {
 	 * keyword
 	 */
 	private NoteService noteService;
+	private ObjectMapper objectMapper;
+	private NoteJsonCache noteJsonCache;
 
 	@Autowired
-	public NoteController(NoteService noteService) {
+	public NoteController(NoteService noteService, ObjectMapper objectMapper, NoteJsonCache noteJsonCache) {
 		this.noteService = noteService;
+		this.objectMapper = objectMapper;
+		this.noteJsonCache = noteJsonCache;
 	}
 
 	/*
@@ -70,6 +97,8 @@ public class NoteController {
 				}
 			} catch (ReminderNotFoundException | CategoryNotFoundException e) {
 				response = new ResponseEntity<>(HttpStatus.CONFLICT);
+			} catch (CannotCreateTransactionException e) {
+				throw e;
 			} catch (Exception e) {
 				response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
 			}
@@ -79,6 +108,83 @@ public class NoteController {
 		return response;
 	}
 
+	/*
+	 * Define a handler method which will create several notes at once by reading
+	 * an array of note objects from the request body. The loggedIn userID is
+	 * taken as the creator of every note, and every note gets its own result in
+	 * the response. This handler method should return any one of the status
+	 * messages basis on different situations: 1. 201(CREATED) - If all notes
+	 * were created. 2. 207(MULTI STATUS) - If some notes were rejected. 3.
+	 * 400(BAD REQUEST) - If the array is empty or holds more than
+	 * BatchItemResult.MAX_ITEMS notes. 4. 401(UNAUTHORIZED) - If the user trying
+	 * to perform the action has not logged in.
+	 * 
+	 * This handler method should map to the URL "/note/batch" using HTTP POST
+	 * method
+	 */
+	@PostMapping("/note/batch")
+	public ResponseEntity<Object> createNotes(@RequestBody List<Note> notes, HttpSession session) {
+		ResponseEntity<Object> response = null;
+		if (null != session && null != session.getAttribute(SESSION_ATTR)) {
+			if (notes.isEmpty() || notes.size() > BatchItemResult.MAX_ITEMS) {
+				response = new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+			} else {
+				try {
+					List<BatchItemResult> results = this.noteService.createNotes(notes,
+							session.getAttribute(SESSION_ATTR).toString());
+					response = new ResponseEntity<>(results,
+							BatchItemResult.allCreated(results) ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS);
+				} catch (CannotCreateTransactionException e) {
+					throw e;
+				} catch (Exception e) {
+					response = new ResponseEntity<>(HttpStatus.CONFLICT);
+				}
+			}
+		} else {
+			response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+		}
+		return response;
+	}
+
+	/*
+	 * Define a handler method which will import notes of the loggedIn user from
+	 * newline delimited JSON, one note per line, e.g. exported from another note
+	 * application. The body is parsed one note at a time and the notes are stored
+	 * in chunks of "chunkSize" notes (ImportSummary.DEFAULT_CHUNK_SIZE by default),
+	 * each chunk committed on its own. The response is the ImportSummary of the
+	 * import. This handler method should return any one of the status messages
+	 * basis on different situations: 1. 200(OK) - If the whole body was read. 2.
+	 * 400(BAD REQUEST) - If a note could not be read, the notes before it are
+	 * stored and the summary tells where the import stopped. 3.
+	 * 401(UNAUTHORIZED) - If the user trying to perform the action has not logged
+	 * in.
+	 * 
+	 * This handler method should map to the URL "/note/import" using HTTP POST
+	 * method
+	 */
+	@PostMapping("/note/import")
+	public ResponseEntity<Object> importNotes(@RequestParam(required = false) Integer chunkSize,
+			HttpSession session, HttpServletRequest request) {
+		ResponseEntity<Object> response = null;
+		if (null != session && null != session.getAttribute(SESSION_ATTR)) {
+			try (MappingIterator<Note> notes = this.objectMapper.readerFor(Note.class)
+					.readValues(request.getInputStream())) {
+				ImportSummary summary = this.noteService.importNotes(notes,
+						session.getAttribute(SESSION_ATTR).toString(), ImportSummary.clampChunkSize(chunkSize));
+				response = new ResponseEntity<>(summary, summary.isComplete() ? HttpStatus.OK : HttpStatus.BAD_REQUEST);
+			} catch (JsonProcessingException e) {
+				response = new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+			} catch (CannotCreateTransactionException e) {
+				throw e;
+			} catch (Exception e) {
+				response = new ResponseEntity<>(HttpStatus.CONFLICT);
+			}
+		} else {
+			response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+		}
+		return response;
+	}
+
 	/*
 	 * Define a handler method which will delete a note from a database handle
 	 * NoteNotFoundException as well. This handler method should return any one of
@@ -95,7 +201,7 @@ public class NoteController {
 		ResponseEntity<Object> response = null;
 		try {
 			if (null != session.getAttribute(SESSION_ATTR)) {
-				if (this.noteService.deleteNote(id)) {
+				if (this.noteService.deleteNote(id, session.getAttribute(SESSION_ATTR).toString())) {
 					response = new ResponseEntity<>(HttpStatus.OK);
 				} else {
 					response = new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -105,6 +211,8 @@ public class NoteController {
 			}
 		} catch (NoteNotFoundException e) {
 			response = new ResponseEntity<>(HttpStatus.NOT_FOUND);
+		} catch (CannotCreateTransactionException e) {
+			throw e;
 		} catch (Exception e) {
 			response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
 		}
@@ -131,7 +239,7 @@ public class NoteController {
 		try {
 			if (null != session.getAttribute(SESSION_ATTR)
 					&& session.getAttribute(SESSION_ATTR).equals(note.getCreatedBy())) {
-				if (null != this.noteService.updateNote(note, id)) {
+				if (null != this.noteService.updateNote(note, id, note.getCreatedBy())) {
 					response = new ResponseEntity<>(HttpStatus.OK);
 				} else {
 					response = new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -141,12 +249,126 @@ public class NoteController {
 			}
 		} catch (ReminderNotFoundException | NoteNotFoundException | CategoryNotFoundException e) {
 			response = new ResponseEntity<>(HttpStatus.NOT_FOUND);
+		} catch (CannotCreateTransactionException e) {
+			throw e;
 		} catch (Exception e) {
 			response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
 		}
 		return response;
 	}
 
+	/*
+	 * Define a handler method which will export all notes of the loggedIn user as
+	 * newline delimited JSON, one note per line. The notes are written to the
+	 * response while they are read from the database, so the export runs in
+	 * constant memory however many notes the user has. This handler method should
+	 * return any one of the status messages basis on different situations: 1.
+	 * 200(OK) - with the notes. 2. 401(UNAUTHORIZED) - If the user trying to
+	 * perform the action has not logged in.
+	 * 
+	 * This handler method should map to the URL "/note/export" using HTTP GET
+	 * method
+	 */
+	@GetMapping("/note/export")
+	public void exportNotes(HttpSession session, HttpServletResponse response) throws IOException {
+		if (null == session || null == session.getAttribute(SESSION_ATTR)) {
+			response.setStatus(HttpStatus.UNAUTHORIZED.value());
+			return;
+		}
+		response.setContentType(NDJSON);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+			generator.setRootValueSeparator(null);
+			this.noteService.exportNotesByUserId(session.getAttribute(SESSION_ATTR).toString(), note -> {
+				try {
+					generator.writeObject(note);
+					generator.writeRaw('\n');
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/*
+	 * Define a handler method which will search the notes of the loggedIn user for
+	 * the words of the "q" request parameter, in their title and content. The
+	 * best "limit" notes (NoteSearchHit.DEFAULT_LIMIT by default) are returned,
+	 * best first, each with its highlighted title and a highlighted snippet of
+	 * its content. This handler method should return any one of the status
+	 * messages basis on different situations: 1. 200(OK) - with the matching
+	 * notes. 2. 400(BAD REQUEST) - If "q" is missing or blank. 3.
+	 * 401(UNAUTHORIZED) - If the user trying to perform the action has not logged
+	 * in, or the search failed.
+	 * 
+	 * This handler method should map to the URL "/note/search" using HTTP GET
+	 * method
+	 */
+	@GetMapping("/note/search")
+	public ResponseEntity<Object> searchNotes(@RequestParam(required = false) String q,
+			@RequestParam(required = false) Integer limit, HttpSession session) {
+		ResponseEntity<Object> response = null;
+		if (null != session && null != session.getAttribute(SESSION_ATTR)) {
+			if (null == q || q.trim().isEmpty()) {
+				response = new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+			} else {
+				try {
+					List<NoteSearchHit> hits = this.noteService.searchNotes(
+							session.getAttribute(SESSION_ATTR).toString(), q, NoteSearchHit.clampLimit(limit));
+					response = new ResponseEntity<>(hits, HttpStatus.OK);
+				} catch (CannotCreateTransactionException e) {
+					throw e;
+				} catch (Exception e) {
+					response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+				}
+			}
+		} else {
+			response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+		}
+		return response;
+	}
+
+	/*
+	 * Define a handler method which will suggest the notes and categories of the
+	 * loggedIn user while they type, matching the "prefix" request parameter
+	 * against the words of the note titles and category names, with a few typos
+	 * allowed in longer prefixes. At most "limit" suggestions
+	 * (Suggestion.DEFAULT_LIMIT by default) are returned, best first. This
+	 * handler method should return any one of the status messages basis on
+	 * different situations: 1. 200(OK) - with the suggestions. 2. 400(BAD
+	 * REQUEST) - If "prefix" is missing or blank. 3. 401(UNAUTHORIZED) - If the
+	 * user trying to perform the action has not logged in, or the suggestion
+	 * failed.
+	 * 
+	 * This handler method should map to the URL "/note/suggest" using HTTP GET
+	 * method
+	 */
+	@GetMapping("/note/suggest")
+	public ResponseEntity<Object> suggest(@RequestParam(required = false) String prefix,
+			@RequestParam(required = false) Integer limit, HttpSession session) {
+		ResponseEntity<Object> response = null;
+		if (null != session && null != session.getAttribute(SESSION_ATTR)) {
+			if (null == prefix || prefix.trim().isEmpty()) {
+				response = new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+			} else {
+				try {
+					response = new ResponseEntity<>(this.noteService.suggest(
+							session.getAttribute(SESSION_ATTR).toString(), prefix, Suggestion.clampLimit(limit)),
+							HttpStatus.OK);
+				} catch (CannotCreateTransactionException e) {
+					throw e;
+				} catch (Exception e) {
+					response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+				}
+			}
+		} else {
+			response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+		}
+		return response;
+	}
+
 	/*
 	 * Define a handler method which will get us the notes by a userId.
 	 * 
@@ -156,14 +378,56 @@ public class NoteController {
 	 * in.
 	 * 
 	 * 
-	 * This handler method should map to the URL "/note" using HTTP GET method
+	 * This handler method should map to the URL "/note" using HTTP GET method.
+	 * When the "after" cursor or the "limit" request parameter is present, one
+	 * page of notes is returned along with the cursor of the next page, and
+	 * 400(BAD REQUEST) is returned for a malformed cursor. With "view=summary"
+	 * only the note summaries (without content) are listed. With "fields", e.g.
+	 * "fields=noteTitle,noteStatus", only these properties of the notes and their
+	 * ids are read and returned, the category and reminder being available as
+	 * "categoryId" and "reminderId". An unknown property, or "fields" along with
+	 * "view", is answered 400(BAD REQUEST). All the notes of the user are
+	 * written in JSON from the cached JSON of each note, see NoteJsonCache.
+	 * 
+	 * Every variant is validated with the version of the notes of the user: the
+	 * response has its ETag and Last-Modified, and 304(NOT MODIFIED) is returned
+	 * before any note is read when If-None-Match or If-Modified-Since shows that
+	 * the client has the current version.
 	 */
 	@GetMapping("/note")
-	public ResponseEntity<Object> getNote(HttpSession session) {
+	public ResponseEntity<Object> getNote(@RequestParam(required = false) String after,
+			@RequestParam(required = false) Integer limit, @RequestParam(required = false) String view,
+			@RequestParam(required = false) String fields, HttpSession session, ServletWebRequest webRequest) {
 		ResponseEntity<Object> response = null;
 		if (null != session && null != session.getAttribute(SESSION_ATTR)) {
 			final String userId = session.getAttribute(SESSION_ATTR).toString();
-			response = new ResponseEntity<>(this.noteService.getAllNotesByUserId(userId), HttpStatus.OK);
+			final boolean paged = null != after || null != limit;
+			try {
+				FieldSelection selection = null != fields ? FieldSelection.parse(fields, FieldSelection.NOTE_FIELDS)
+						: null;
+				if (null != view && (!SUMMARY_VIEW.equals(view) || null != selection)) {
+					response = new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+				} else if (ConditionalRequests.isNotModified(webRequest, this.noteService.getNotesVersion(userId))) {
+					response = new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+				} else if (null != selection) {
+					response = new ResponseEntity<>(
+							paged ? this.noteService.getNoteFieldsByUserId(userId, selection, after, limit)
+									: this.noteService.getNoteFieldsByUserId(userId, selection),
+							HttpStatus.OK);
+				} else if (SUMMARY_VIEW.equals(view)) {
+					response = new ResponseEntity<>(paged ? this.noteService.getNoteSummariesByUserId(userId, after, limit)
+							: this.noteService.getNoteSummariesByUserId(userId), HttpStatus.OK);
+				} else if (!paged) {
+					List<Note> notes = this.noteService.getAllNotesByUserId(userId);
+					response = new ResponseEntity<>(null == notes ? null : new EncodedNotes(notes, this.noteJsonCache),
+							HttpStatus.OK);
+				} else {
+					response = new ResponseEntity<>(this.noteService.getNotesByUserId(userId, after, limit),
+							HttpStatus.OK);
+				}
+			} catch (IllegalArgumentException e) {
+				response = new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+			}
 		} else {
 			response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
 		}
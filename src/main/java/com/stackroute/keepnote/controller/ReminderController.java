@@ -7,15 +7,22 @@ import javax.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import com.stackroute.keepnote.cache.ListVersion;
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
+import com.stackroute.keepnote.model.BatchItemResult;
+import com.stackroute.keepnote.model.FieldSelection;
+import com.stackroute.keepnote.model.KeysetPage;
 import com.stackroute.keepnote.model.Reminder;
 import com.stackroute.keepnote.service.ReminderService;
 
@@ -88,6 +95,44 @@ public class ReminderController {
 		return response;
 	}
 
+	/*
+	 * Define a handler method which will create several reminders at once by reading
+	 * an array of reminder objects from the request body. The loggedIn userID is
+	 * taken as the creator of every reminder, and every reminder gets its own result in
+	 * the response. This handler method should return any one of the status
+	 * messages basis on different situations: 1. 201(CREATED) - If all reminders
+	 * were created. 2. 207(MULTI STATUS) - If some reminders were rejected. 3.
+	 * 400(BAD REQUEST) - If the array is empty or holds more than
+	 * BatchItemResult.MAX_ITEMS reminders. 4. 401(UNAUTHORIZED) - If the user trying
+	 * to perform the action has not logged in.
+	 * 
+	 * This handler method should map to the URL "/reminder/batch" using HTTP POST
+	 * method
+	 */
+	@PostMapping("/reminder/batch")
+	public ResponseEntity<Object> createReminders(@RequestBody List<Reminder> reminders, HttpSession session) {
+		ResponseEntity<Object> response = null;
+		if (null != session && null != session.getAttribute(SESSION_ATTR)) {
+			if (reminders.isEmpty() || reminders.size() > BatchItemResult.MAX_ITEMS) {
+				response = new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+			} else {
+				try {
+					List<BatchItemResult> results = this.reminderService.createReminders(reminders,
+							session.getAttribute(SESSION_ATTR).toString());
+					response = new ResponseEntity<>(results,
+							BatchItemResult.allCreated(results) ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS);
+				} catch (CannotCreateTransactionException e) {
+					throw e;
+				} catch (Exception e) {
+					response = new ResponseEntity<>(HttpStatus.CONFLICT);
+				}
+			}
+		} else {
+			response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+		}
+		return response;
+	}
+
 	/*
 	 * Define a handler method which will delete a reminder from a database.
 	 * 
@@ -104,9 +149,13 @@ public class ReminderController {
 	public ResponseEntity<Object> deleteReminder(@PathVariable int id, HttpSession session) {
 		ResponseEntity<Object> response = null;
 		if (null != session && null != session.getAttribute(SESSION_ATTR)) {
-			if (this.reminderService.deleteReminder(id)) {
-				response = new ResponseEntity<>(HttpStatus.OK);
-			} else {
+			try {
+				if (this.reminderService.deleteReminder(id, session.getAttribute(SESSION_ATTR).toString())) {
+					response = new ResponseEntity<>(HttpStatus.OK);
+				} else {
+					response = new ResponseEntity<>(HttpStatus.NOT_FOUND);
+				}
+			} catch (ReminderNotFoundException e) {
 				response = new ResponseEntity<>(HttpStatus.NOT_FOUND);
 			}
 		} else {
@@ -136,7 +185,8 @@ public class ReminderController {
 		try {
 			if (null != session && null != session.getAttribute(SESSION_ATTR)) {
 				if (session.getAttribute(SESSION_ATTR).equals(reminder.getReminderCreatedBy())
-						&& (null != this.reminderService.updateReminder(reminder, id))) {
+						&& (null != this.reminderService.updateReminder(reminder, id,
+								reminder.getReminderCreatedBy()))) {
 					response = new ResponseEntity<>(HttpStatus.OK);
 				} else {
 					response = new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -146,6 +196,8 @@ public class ReminderController {
 			}
 		} catch (ReminderNotFoundException e) {
 			response = new ResponseEntity<>(HttpStatus.NOT_FOUND);
+		} catch (CannotCreateTransactionException e) {
+			throw e;
 		} catch (Exception e) {
 			response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
 		}
@@ -161,15 +213,45 @@ public class ReminderController {
 	 * in.
 	 * 
 	 * 
-	 * This handler method should map to the URL "/reminder" using HTTP GET method
+	 * This handler method should map to the URL "/reminder" using HTTP GET method.
+	 * When the "after" cursor or the "limit" request parameter is present, one
+	 * page of reminders is returned along with the cursor of the next page, and
+	 * 400(BAD REQUEST) is returned for a malformed cursor. The responses carry the
+	 * ETag and Last-Modified of the reminders of the user, and 304(NOT MODIFIED)
+	 * is returned without reading them when the client has the current version.
+	 * With "fields", e.g. "fields=reminderName,reminderType", each reminder only
+	 * has these properties and its id, and 400(BAD REQUEST) is returned for an
+	 * unknown property.
 	 */
 	@GetMapping("/reminder")
-	public ResponseEntity<Object> getReminder(HttpSession session) {
+	public ResponseEntity<Object> getReminder(@RequestParam(required = false) String after,
+			@RequestParam(required = false) Integer limit, @RequestParam(required = false) String fields,
+			HttpSession session, ServletWebRequest webRequest) {
 		ResponseEntity<Object> response = null;
 		if (null != session && null != session.getAttribute(SESSION_ATTR)) {
 			final String userId = session.getAttribute(SESSION_ATTR).toString();
-			List<Reminder> reminderList = this.reminderService.getAllReminderByUserId(userId);
-			response = new ResponseEntity<>(reminderList, HttpStatus.OK);
+			final boolean paged = null != after || null != limit;
+			try {
+				FieldSelection selection = null != fields
+						? FieldSelection.parse(fields, FieldSelection.REMINDER_FIELDS) : null;
+				if (ConditionalRequests.isNotModified(webRequest, this.reminderService.getRemindersVersion(userId))) {
+					response = new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+				} else if (null != selection) {
+					response = new ResponseEntity<>(
+							paged ? this.reminderService.getReminderFieldsByUserId(userId, selection, after, limit)
+									: this.reminderService.getReminderFieldsByUserId(userId, selection),
+							HttpStatus.OK);
+				} else if (!paged) {
+					List<Reminder> reminderList = this.reminderService.getAllReminderByUserId(userId);
+					response = new ResponseEntity<>(reminderList, HttpStatus.OK);
+				} else {
+					KeysetPage<Reminder> reminderPage = this.reminderService.getRemindersByUserId(userId, after,
+							limit);
+					response = new ResponseEntity<>(reminderPage, HttpStatus.OK);
+				}
+			} catch (IllegalArgumentException e) {
+				response = new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+			}
 		} else {
 			response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
 		}
@@ -185,17 +267,36 @@ public class ReminderController {
 	 * with specified reminderId is not found. This handler method should map to the
 	 * URL "/reminder/{id}" using HTTP GET method where "id" should be replaced by a
 	 * valid reminderId without {}
+	 * 
+	 * A reminder of the logged-in user is tagged with the version of their
+	 * reminders, and a client sending back the current tag gets 304(NOT MODIFIED)
+	 * before the reminder is read. A reminder of another user is answered
+	 * 404(NOT FOUND), as if it did not exist.
 	 */
 	@GetMapping("/reminder/{id}")
-	public ResponseEntity<Object> getReminderById(@PathVariable int id, HttpSession session) {
+	public ResponseEntity<Object> getReminderById(@PathVariable int id, HttpSession session,
+			ServletWebRequest webRequest) {
 		ResponseEntity<Object> response = null;
 		if (null != session && null != session.getAttribute(SESSION_ATTR)) {
+			final String userId = session.getAttribute(SESSION_ATTR).toString();
+			final ListVersion version = this.reminderService.getRemindersVersion(userId);
+			final String tag = null == version ? null : version.getTag(id);
 			try {
-				Reminder reminder = this.reminderService.getReminderById(id);
-				if (null != reminder) {
-					response = new ResponseEntity<>(HttpStatus.OK);
+				if (null != tag && ConditionalRequests.hasTag(webRequest, tag)) {
+					response = new ResponseEntity<>(
+							ConditionalRequests.notModifiedHeaders(webRequest, tag, version.getLastModified()),
+							HttpStatus.NOT_MODIFIED);
 				} else {
-					response = new ResponseEntity<>(HttpStatus.NOT_FOUND);
+					Reminder reminder = this.reminderService.getReminderById(id);
+					boolean owned = null != reminder && userId.equals(reminder.getReminderCreatedBy());
+					if (owned && null != tag
+							&& ConditionalRequests.isNotModified(webRequest, tag, version.getLastModified())) {
+						response = new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+					} else if (owned) {
+						response = new ResponseEntity<>(reminder, HttpStatus.OK);
+					} else {
+						response = new ResponseEntity<>(HttpStatus.NOT_FOUND);
+					}
 				}
 			} catch (ReminderNotFoundException e) {
 				response = new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -0,0 +1,23 @@
+package com.stackroute.keepnote.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+/*
+ * Answers 503(SERVICE UNAVAILABLE) for every handler method whose transaction
+ * could not start because the connection pool gave no connection in time. The
+ * client can retry later, unlike the 401, 404 or 409 a handler gives for an
+ * error of its own, so the handlers catching Exception let this one through.
+ */
+@ControllerAdvice
+public class ServiceUnavailableAdvice {
+
+	@ExceptionHandler(CannotCreateTransactionException.class)
+	public ResponseEntity<Object> connectionUnavailable(CannotCreateTransactionException e) {
+		return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+	}
+
+}
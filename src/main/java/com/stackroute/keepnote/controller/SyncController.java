@@ -0,0 +1,109 @@
+package com.stackroute.keepnote.controller;
+
+import java.util.List;
+
+import javax.servlet.http.HttpSession;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.stackroute.keepnote.model.BatchItemResult;
+import com.stackroute.keepnote.model.SyncChanges;
+import com.stackroute.keepnote.model.SyncMutation;
+import com.stackroute.keepnote.model.SyncMutationResult;
+import com.stackroute.keepnote.service.SyncService;
+
+/*
+ * Delta synchronization for the clients keeping a local copy of the notes,
+ * categories and reminders of the user. Instead of downloading every list on
+ * each poll, a client sends the watermark of its previous sync and gets only
+ * what changed since. The changes made offline go back the other way in one
+ * request.
+ */
+@RestController
+public class SyncController {
+
+	private static final String SESSION_ATTR = "loggedInUserId";
+
+	private SyncService syncService;
+
+	@Autowired
+	public SyncController(SyncService syncService) {
+		this.syncService = syncService;
+	}
+
+	/*
+	 * Define a handler method which will return the notes, categories and
+	 * reminders of the loggedIn user changed after the watermark given in the
+	 * "since" request parameter, the ids of the ones deleted since, and the
+	 * watermark for the next call. Without a watermark, or with one older than
+	 * the tombstones, everything is returned with "reset" set. This handler
+	 * method should return any one of the status messages basis on different
+	 * situations: 1. 200(OK) - With the changes. 2. 400(BAD REQUEST) - If the
+	 * watermark is not a number. 3. 401(UNAUTHORIZED) - If the user trying to
+	 * perform the action has not logged in.
+	 *
+	 * This handler method should map to the URL "/sync" using HTTP GET method
+	 */
+	@GetMapping("/sync")
+	public ResponseEntity<Object> getChanges(@RequestParam(value = "since", required = false) Long since,
+			HttpSession session) {
+		ResponseEntity<Object> response = null;
+		if (null != session && null != session.getAttribute(SESSION_ATTR)) {
+			SyncChanges changes = this.syncService.getChanges(session.getAttribute(SESSION_ATTR).toString(), since);
+			response = new ResponseEntity<>(changes, HttpStatus.OK);
+		} else {
+			response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+		}
+		return response;
+	}
+
+	/*
+	 * Define a handler method which will apply the mutations queued by a client
+	 * of the loggedIn user while offline: an ordered array of creates, updates and
+	 * deletes of notes, categories and reminders, applied in one transaction. The
+	 * response holds one result per mutation and the ids given to the items
+	 * created under a temporary id. This handler method should return any one of
+	 * the status messages basis on different situations: 1. 200(OK) - If every
+	 * mutation was applied. 2. 207(MULTI STATUS) - If some mutations were
+	 * rejected, the others are applied. 3. 400(BAD REQUEST) - If the array is
+	 * empty or holds more than BatchItemResult.MAX_ITEMS mutations. 4.
+	 * 401(UNAUTHORIZED) - If the user trying to perform the action has not logged
+	 * in. 5. 409(CONFLICT) - If the mutations could not be stored, none is
+	 * applied.
+	 *
+	 * This handler method should map to the URL "/sync/mutations" using HTTP POST
+	 * method
+	 */
+	@PostMapping("/sync/mutations")
+	public ResponseEntity<Object> applyMutations(@RequestBody List<SyncMutation> mutations, HttpSession session) {
+		ResponseEntity<Object> response = null;
+		if (null != session && null != session.getAttribute(SESSION_ATTR)) {
+			if (mutations.isEmpty() || mutations.size() > BatchItemResult.MAX_ITEMS) {
+				response = new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+			} else {
+				try {
+					SyncMutationResult result = this.syncService.applyMutations(mutations,
+							session.getAttribute(SESSION_ATTR).toString());
+					response = new ResponseEntity<>(result, BatchItemResult.noneRejected(result.getResults())
+							? HttpStatus.OK : HttpStatus.MULTI_STATUS);
+				} catch (CannotCreateTransactionException e) {
+					throw e;
+				} catch (Exception e) {
+					response = new ResponseEntity<>(HttpStatus.CONFLICT);
+				}
+			}
+		} else {
+			response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+		}
+		return response;
+	}
+
+}
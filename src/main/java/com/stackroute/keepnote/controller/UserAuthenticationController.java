@@ -5,6 +5,7 @@ import javax.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -61,6 +62,8 @@ public class UserAuthenticationController {
 			} else {
 				response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
 			}
+		} catch (CannotCreateTransactionException e) {
+			throw e;
 		} catch (Exception e) {
 			response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
 		}
@@ -5,6 +5,7 @@ import javax.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -65,6 +66,8 @@ public class UserController {
 		try {
 			this.userService.registerUser(user);
 			response = new ResponseEntity<>(HttpStatus.CREATED);
+		} catch (CannotCreateTransactionException e) {
+			throw e;
 		} catch (Exception e) {
 			response = new ResponseEntity<>(HttpStatus.CONFLICT);
 		}
@@ -97,6 +100,8 @@ public class UserController {
 			}
 		} catch (NullPointerException e) {
 			response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+		} catch (CannotCreateTransactionException e) {
+			throw e;
 		} catch (Exception e) {
 			response = new ResponseEntity<>(HttpStatus.NOT_FOUND);
 		}
@@ -128,6 +133,8 @@ public class UserController {
 			} else {
 				response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
 			}
+		} catch (CannotCreateTransactionException e) {
+			throw e;
 		} catch (Exception e) {
 			response = new ResponseEntity<>(HttpStatus.NOT_FOUND);
 		}
@@ -160,6 +167,8 @@ public class UserController {
 			}
 		} catch (UserNotFoundException e) {
 			response = new ResponseEntity<>(HttpStatus.NOT_FOUND);
+		} catch (CannotCreateTransactionException e) {
+			throw e;
 		} catch (Exception e) {
 			response = new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
 		}
@@ -1,9 +1,13 @@
 package com.stackroute.keepnote.dao;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
 import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.FieldSelection;
 
 public interface CategoryDAO {
 
@@ -14,11 +18,30 @@ public interface CategoryDAO {
 
 	public boolean createCategory(Category category);
 
+	public void createCategories(List<Category> categories);
+
 	public boolean deleteCategory(int noteId);
 
 	public boolean updateCategory(Category category);
 
+	public int updateCategoryByOwner(Category category, String userId);
+
+	public int deleteCategoryByOwner(int categoryId, String userId);
+
 	public Category getCategoryById(int categoryId) throws CategoryNotFoundException;
 
+	public List<Category> getCategoriesByIds(String userId, Collection<Integer> categoryIds);
+
+	public void updateCategories(List<Category> categories);
+
+	public void deleteCategories(List<Category> categories);
+
 	public List<Category> getAllCategoryByUserId(String userId);
+
+	public List<Category> getCategoriesUpdatedSince(String userId, Date since);
+
+	public List<Category> getCategoriesByUserIdAfter(String userId, int afterCategoryId, int maxResults);
+
+	public List<Map<String, Object>> getCategoryFieldsByUserId(String userId, FieldSelection fields,
+			int afterCategoryId, int maxResults);
 }
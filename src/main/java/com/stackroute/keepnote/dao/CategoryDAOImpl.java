@@ -1,16 +1,25 @@
 package com.stackroute.keepnote.dao;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
-import javax.transaction.Transactional;
+import javax.persistence.Tuple;
 
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.query.Query;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
 import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.FieldSelection;
+import com.stackroute.keepnote.model.Tombstone;
 
 /*
  * This class is implementing the UserDAO interface. This class has to be annotated with 
@@ -19,7 +28,8 @@ import com.stackroute.keepnote.model.Category;
  * thus clarifying it's role.
  * @Transactional - The transactional annotation itself defines the scope of a single database 
  * 					transaction. The database transaction happens inside the scope of a persistence 
- * 					context.  
+ * 					context. The DAO methods join the transaction opened by the service layer,
+ * 					and changes are flushed once when it commits.
  * */
 
 @Repository
@@ -43,13 +53,32 @@ public class CategoryDAOImpl implements CategoryDAO {
 	 */
 	public boolean createCategory(Category category) {
 		Session session = this.sessionFactory.getCurrentSession();
-		session.clear();
+		category.setUpdatedAt(new Date());
 		session.save(category);
-		session.flush();
 		return Boolean.TRUE;
 
 	}
 
+	/*
+	 * Create several categories at once. The inserts are sent in JDBC batches of
+	 * hibernate.jdbc.batch_size statements, and the session is flushed and cleared
+	 * after every batch so that it does not grow with the number of categories.
+	 */
+	public void createCategories(List<Category> categories) {
+		Session session = this.sessionFactory.getCurrentSession();
+		int batchSize = Math.max(1, this.sessionFactory.getSessionFactoryOptions().getJdbcBatchSize());
+		Date now = new Date();
+		for (int i = 0; i < categories.size(); i++) {
+			categories.get(i).setUpdatedAt(now);
+			session.save(categories.get(i));
+			if ((i + 1) % batchSize == 0) {
+				session.flush();
+				session.clear();
+			}
+		}
+
+	}
+
 	/*
 	 * Remove an existing category
 	 */
@@ -58,9 +87,12 @@ public class CategoryDAOImpl implements CategoryDAO {
 		try {
 			Category category = this.getCategoryById(categoryId);
 			Session session = this.sessionFactory.getCurrentSession();
-			session.clear();
+			Date now = new Date();
+			this.touchNotesOfCategory(session, categoryId, now);
 			session.delete(category);
-			session.flush();
+			if (null != category.getCategoryCreatedBy()) {
+				session.save(new Tombstone(Tombstone.CATEGORY, categoryId, category.getCategoryCreatedBy(), now));
+			}
 		} catch (CategoryNotFoundException e) {
 			flag = Boolean.FALSE;
 		}
@@ -76,9 +108,8 @@ public class CategoryDAOImpl implements CategoryDAO {
 		try {
 			if (null != this.getCategoryById(category.getCategoryId())) {
 				Session session = this.sessionFactory.getCurrentSession();
-				session.clear();
-				session.update(category);
-				session.flush();
+				category.setUpdatedAt(new Date());
+				session.merge(category);
 			}
 		} catch (CategoryNotFoundException e) {
 			flag = Boolean.FALSE;
@@ -86,6 +117,91 @@ public class CategoryDAOImpl implements CategoryDAO {
 		return flag;
 
 	}
+	/*
+	 * Update an existing category owned by the given user in a single statement,
+	 * returns the number of rows updated (0 when the category does not exist or is
+	 * owned by another user)
+	 */
+	public int updateCategoryByOwner(Category category, String userId) {
+		final String hql = "update Category set categoryName = :categoryName, categoryDescription = :categoryDescription, "
+				+ "updatedAt = :updatedAt where categoryId = :categoryId and categoryCreatedBy = :userId";
+		return this.sessionFactory.getCurrentSession().createQuery(hql)
+				.setParameter("categoryName", category.getCategoryName())
+				.setParameter("categoryDescription", category.getCategoryDescription())
+				.setParameter("updatedAt", new Date())
+				.setParameter("categoryId", category.getCategoryId()).setParameter("userId", userId).executeUpdate();
+
+	}
+
+	/*
+	 * Remove an existing category owned by the given user in a single statement,
+	 * returns the number of rows deleted
+	 */
+	public int deleteCategoryByOwner(int categoryId, String userId) {
+		final String hql = "delete from Category where categoryId = :categoryId and categoryCreatedBy = :userId";
+		final String owned = "select count(category) from Category category "
+				+ "where category.categoryId = :categoryId and category.categoryCreatedBy = :userId";
+		Session session = this.sessionFactory.getCurrentSession();
+		Date now = new Date();
+		int deleted = 0;
+		if (session.createQuery(owned, Long.class).setParameter("categoryId", categoryId)
+				.setParameter("userId", userId).uniqueResult() > 0) {
+			this.touchNotesOfCategory(session, categoryId, now);
+			deleted = session.createQuery(hql).setParameter("categoryId", categoryId).setParameter("userId", userId)
+					.executeUpdate();
+		}
+		if (deleted > 0) {
+			session.save(new Tombstone(Tombstone.CATEGORY, categoryId, userId, now));
+		}
+		return deleted;
+
+	}
+
+	/*
+	 * Write the changes made to several categories read in the current session,
+	 * in JDBC batches at flush
+	 */
+	public void updateCategories(List<Category> categories) {
+		Session session = this.sessionFactory.getCurrentSession();
+		Date now = new Date();
+		for (Category category : categories) {
+			category.setUpdatedAt(now);
+			session.merge(category);
+		}
+
+	}
+
+	/*
+	 * Remove several categories read in the current session, each leaving a
+	 * tombstone. Their notes are touched with one statement for all of them.
+	 */
+	public void deleteCategories(List<Category> categories) {
+		final String hql = "update Note set updatedAt = :updatedAt where category.categoryId in (:categoryIds)";
+		Session session = this.sessionFactory.getCurrentSession();
+		Date now = new Date();
+		List<Integer> categoryIds = new ArrayList<>(categories.size());
+		categories.forEach(category -> categoryIds.add(category.getCategoryId()));
+		session.createQuery(hql).setParameter("updatedAt", now).setParameterList("categoryIds", categoryIds)
+				.executeUpdate();
+		for (Category category : categories) {
+			session.delete(category);
+			session.save(new Tombstone(Tombstone.CATEGORY, category.getCategoryId(), category.getCategoryCreatedBy(),
+					now));
+		}
+
+	}
+
+	/*
+	 * The foreign key of Note clears the category of its notes when the category
+	 * is deleted, which changes the notes without going through this code. Their
+	 * updatedAt is set beforehand so that GET /sync sends them again.
+	 */
+	private void touchNotesOfCategory(Session session, int categoryId, Date now) {
+		final String hql = "update Note set updatedAt = :updatedAt where category.categoryId = :categoryId";
+		session.createQuery(hql).setParameter("updatedAt", now).setParameter("categoryId", categoryId)
+				.executeUpdate();
+	}
+
 	/*
 	 * Retrieve details of a specific category
 	 */
@@ -100,6 +216,17 @@ public class CategoryDAOImpl implements CategoryDAO {
 
 	}
 
+	/*
+	 * Retrieve the categories of a user among the given categoryIds, in no
+	 * particular order
+	 */
+	public List<Category> getCategoriesByIds(String userId, Collection<Integer> categoryIds) {
+		final String hql = "From Category category where categoryCreatedBy = :userId and categoryId in (:categoryIds)";
+		return this.sessionFactory.getCurrentSession().createQuery(hql, Category.class)
+				.setParameter("userId", userId).setParameterList("categoryIds", categoryIds).getResultList();
+
+	}
+
 	/*
 	 * Retrieve details of all categories by userId
 	 */
@@ -109,4 +236,44 @@ public class CategoryDAOImpl implements CategoryDAO {
 
 	}
 
+	/*
+	 * Retrieve the categories of a user changed after the given time
+	 */
+	public List<Category> getCategoriesUpdatedSince(String userId, Date since) {
+		final String hql = "From Category category where categoryCreatedBy = :userId and updatedAt > :since";
+		return this.sessionFactory.getCurrentSession().createQuery(hql, Category.class)
+				.setParameter("userId", userId).setParameter("since", since).getResultList();
+
+	}
+
+	/*
+	 * Retrieve one page of categories by userId, ordered by categoryId and starting
+	 * after the given categoryId (keyset pagination)
+	 */
+	public List<Category> getCategoriesByUserIdAfter(String userId, int afterCategoryId, int maxResults) {
+		final String hql = "From Category category where categoryCreatedBy = :userId and categoryId > :afterCategoryId order by categoryId";
+		return this.sessionFactory.getCurrentSession().createQuery(hql, Category.class)
+				.setParameter("userId", userId).setParameter("afterCategoryId", afterCategoryId)
+				.setMaxResults(maxResults).getResultList();
+
+	}
+
+	/*
+	 * Retrieve the selected fields of the categorys of a user, ordered by categoryId
+	 * and starting after the given one, at most maxResults of them or all of them
+	 * for 0
+	 */
+	public List<Map<String, Object>> getCategoryFieldsByUserId(String userId, FieldSelection fields,
+			int afterCategoryId, int maxResults) {
+		final String hql = fields.selectClause(field -> "category." + field) + "FROM Category category "
+				+ "where category.categoryCreatedBy = :userId and category.categoryId > :afterCategoryId order by category.categoryId";
+		Query<Tuple> query = this.sessionFactory.getCurrentSession().createQuery(hql, Tuple.class)
+				.setParameter("userId", userId).setParameter("afterCategoryId", afterCategoryId);
+		if (maxResults > 0) {
+			query.setMaxResults(maxResults);
+		}
+		return query.getResultList().stream().map(fields::toMap).collect(Collectors.toList());
+
+	}
+
 }
@@ -0,0 +1,19 @@
+package com.stackroute.keepnote.dao;
+
+import java.util.Date;
+
+import com.stackroute.keepnote.model.IdempotentResponse;
+
+public interface IdempotencyDAO {
+
+	public boolean claimKey(IdempotentResponse pending);
+
+	public IdempotentResponse getResponse(String idempotencyKey);
+
+	public void saveResponse(IdempotentResponse response);
+
+	public int deleteClaim(String idempotencyKey, Date claimedBefore);
+
+	public int deleteResponsesBefore(Date before);
+
+}
@@ -0,0 +1,85 @@
+package com.stackroute.keepnote.dao;
+
+import java.util.Date;
+
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.stackroute.keepnote.model.IdempotentResponse;
+
+/*
+ * This class is implementing the IdempotencyDAO interface. Every method runs
+ * in a transaction of its own, started from the IdempotencyFilter before and
+ * after the request it guards, so a claim is visible to the other application
+ * instances as soon as it is made.
+ */
+@Repository
+@Transactional
+public class IdempotencyDAOImpl implements IdempotencyDAO {
+
+	private final SessionFactory sessionFactory;
+
+	@Autowired
+	public IdempotencyDAOImpl(SessionFactory sessionFactory) {
+		this.sessionFactory = sessionFactory;
+	}
+
+	/*
+	 * Insert the pending response of a key unless the key has a row already. The
+	 * primary key decides between concurrent claims, a losing insert is ignored
+	 * instead of failing the transaction. The statement is declared to touch this
+	 * entity only, otherwise Hibernate would empty the whole second-level cache.
+	 * Returns true if the key was claimed.
+	 */
+	public boolean claimKey(IdempotentResponse pending) {
+		final String sql = "insert ignore into IdempotentResponse (idempotencyKey, fingerprint, status, createdAt) "
+				+ "values (:idempotencyKey, :fingerprint, :status, :createdAt)";
+		return this.sessionFactory.getCurrentSession().createNativeQuery(sql)
+				.addSynchronizedEntityClass(IdempotentResponse.class)
+				.setParameter("idempotencyKey", pending.getIdempotencyKey())
+				.setParameter("fingerprint", pending.getFingerprint()).setParameter("status", pending.getStatus())
+				.setParameter("createdAt", pending.getCreatedAt()).executeUpdate() > 0;
+
+	}
+
+	public IdempotentResponse getResponse(String idempotencyKey) {
+		return this.sessionFactory.getCurrentSession().get(IdempotentResponse.class, idempotencyKey);
+
+	}
+
+	/*
+	 * Store the response of a claimed key over its pending row
+	 */
+	public void saveResponse(IdempotentResponse response) {
+		this.sessionFactory.getCurrentSession().merge(response);
+
+	}
+
+	/*
+	 * Release a key still pending since before the given time, when its request
+	 * ended without a response worth keeping or its instance went away. Returns
+	 * the number of rows deleted.
+	 */
+	public int deleteClaim(String idempotencyKey, Date claimedBefore) {
+		final String hql = "delete from IdempotentResponse where idempotencyKey = :idempotencyKey and status = :status"
+				+ " and createdAt <= :claimedBefore";
+		return this.sessionFactory.getCurrentSession().createQuery(hql)
+				.setParameter("idempotencyKey", idempotencyKey).setParameter("status", IdempotentResponse.PENDING)
+				.setParameter("claimedBefore", claimedBefore).executeUpdate();
+
+	}
+
+	/*
+	 * Remove the responses older than the given time in a single statement,
+	 * returns the number of rows deleted
+	 */
+	public int deleteResponsesBefore(Date before) {
+		final String hql = "delete from IdempotentResponse where createdAt < :before";
+		return this.sessionFactory.getCurrentSession().createQuery(hql).setParameter("before", before)
+				.executeUpdate();
+
+	}
+
+}
@@ -1,9 +1,15 @@
 package com.stackroute.keepnote.dao;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import com.stackroute.keepnote.exception.NoteNotFoundException;
+import com.stackroute.keepnote.model.FieldSelection;
 import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.NoteSummary;
 
 public interface NoteDAO {
 
@@ -14,12 +20,39 @@ public interface NoteDAO {
 
 	public boolean createNote(Note note);
 
+	public void createNotes(List<Note> notes);
+
+	public void insertNotes(List<Note> notes);
+
 	public boolean deleteNote(int noteId)throws NoteNotFoundException;
 
 	public List<Note> getAllNotesByUserId(String userId);
 
+	public List<Note> getNotesUpdatedSince(String userId, Date since);
+
+	public List<Note> getNotesByUserIdAfter(String userId, int afterNoteId, int maxResults);
+
+	public List<NoteSummary> getNoteSummariesByUserId(String userId);
+
+	public void streamNotesByUserId(String userId, Consumer<Note> consumer);
+
+	public List<Map<String, Object>> getNoteFieldsByUserId(String userId, FieldSelection fields, int afterNoteId,
+			int maxResults);
+
+	public List<NoteSummary> getNoteSummariesByUserIdAfter(String userId, int afterNoteId, int maxResults);
+
 	public Note getNoteById(int noteId) throws NoteNotFoundException;
 
+	public List<Note> getNotesByIds(String userId, Collection<Integer> noteIds);
+
 	public boolean UpdateNote(Note note);
 
+	public void updateNotes(List<Note> notes);
+
+	public void deleteNotes(List<Note> notes);
+
+	public int updateNoteByOwner(Note note, String userId);
+
+	public int deleteNoteByOwner(int noteId, String userId);
+
 }
@@ -1,16 +1,34 @@
 package com.stackroute.keepnote.dao;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
-import javax.transaction.Transactional;
+import javax.persistence.Tuple;
 
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.query.Query;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.stackroute.keepnote.config.ReadWriteRoutingDataSource;
 import com.stackroute.keepnote.exception.NoteNotFoundException;
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.FieldSelection;
 import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.NoteSummary;
+import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.Tombstone;
 
 /*
  * This class is implementing the UserDAO interface. This class has to be annotated with 
@@ -19,7 +37,8 @@ import com.stackroute.keepnote.model.Note;
  * thus clarifying it's role.
  * @Transactional - The transactional annotation itself defines the scope of a single database 
  * 					transaction. The database transaction happens inside the scope of a persistence 
- * 					context.  
+ * 					context. The DAO methods join the transaction opened by the service layer,
+ * 					and changes are flushed once when it commits.
  * */
 
 @Repository
@@ -31,6 +50,12 @@ public class NoteDAOImpl implements NoteDAO {
 	 * constructor-based autowiring.
 	 */
 
+	private static final String SUMMARY_SELECT = "select new com.stackroute.keepnote.model.NoteSummary("
+			+ "note.noteId, note.noteTitle, note.noteStatus, note.noteCreatedAt, note.category.id, "
+			+ "note.reminder.id) FROM Note note ";
+
+	private static final int STREAM_FETCH_SIZE = 500;
+
 	private final SessionFactory sessionFactory;
 
 	@Autowired
@@ -39,17 +64,39 @@ public class NoteDAOImpl implements NoteDAO {
 	}
 
 	/*
-	 * Create a new note
+	 * Create a new note. Every write path stamps updatedAt, which GET /sync relies
+	 * on, and every delete leaves a tombstone in the same transaction.
 	 */
 
 	public boolean createNote(Note note) {
 		Session session = this.sessionFactory.getCurrentSession();
+		note.setUpdatedAt(new Date());
 		session.save(note);
-		session.flush();
 		return Boolean.TRUE;
 
 	}
 
+	/*
+	 * Create several notes at once. The inserts are sent in JDBC batches of
+	 * hibernate.jdbc.batch_size statements, and the session is flushed and cleared
+	 * after every batch so that it does not grow with the number of notes.
+	 */
+
+	public void createNotes(List<Note> notes) {
+		Session session = this.sessionFactory.getCurrentSession();
+		int batchSize = Math.max(1, this.sessionFactory.getSessionFactoryOptions().getJdbcBatchSize());
+		Date now = new Date();
+		for (int i = 0; i < notes.size(); i++) {
+			notes.get(i).setUpdatedAt(now);
+			session.save(notes.get(i));
+			if ((i + 1) % batchSize == 0) {
+				session.flush();
+				session.clear();
+			}
+		}
+
+	}
+
 	/*
 	 * Remove an existing note
 	 */
@@ -59,9 +106,10 @@ public class NoteDAOImpl implements NoteDAO {
 		try {
 			Note note = this.getNoteById(noteId);
 			Session session = this.sessionFactory.getCurrentSession();
-			session.clear();
 			session.delete(note);
-			session.flush();
+			if (null != note.getCreatedBy()) {
+				session.save(new Tombstone(Tombstone.NOTE, noteId, note.getCreatedBy(), new Date()));
+			}
 		} catch (NoteNotFoundException e) {
 			flag = Boolean.FALSE;
 		}
@@ -69,12 +117,153 @@ public class NoteDAOImpl implements NoteDAO {
 	}
 
 	/*
-	 * Retrieve details of all notes by userId
+	 * Retrieve details of all notes by userId. Category and reminder are fetched
+	 * in the same statement to avoid one extra select per note.
 	 */
 
 	public List<Note> getAllNotesByUserId(String userId) {
-		final String hql = "FROM Note note where createdBy =  :userId";
-		return this.sessionFactory.getCurrentSession().createQuery(hql).setParameter("userId", userId).getResultList();
+		final String hql = "select note FROM Note note left join fetch note.category left join fetch note.reminder "
+				+ "where note.createdBy = :userId";
+		return this.sessionFactory.getCurrentSession().createQuery(hql, Note.class).setParameter("userId", userId)
+				.getResultList();
+
+	}
+
+	/*
+	 * Retrieve the notes of a user changed after the given time, through the
+	 * (createdBy, updatedAt) index
+	 */
+
+	public List<Note> getNotesUpdatedSince(String userId, Date since) {
+		final String hql = "select note FROM Note note left join fetch note.category left join fetch note.reminder "
+				+ "where note.createdBy = :userId and note.updatedAt > :since";
+		return this.sessionFactory.getCurrentSession().createQuery(hql, Note.class).setParameter("userId", userId)
+				.setParameter("since", since).getResultList();
+
+	}
+
+	/*
+	 * Retrieve one page of notes by userId, ordered by noteId and starting after
+	 * the given noteId (keyset pagination)
+	 */
+
+	public List<Note> getNotesByUserIdAfter(String userId, int afterNoteId, int maxResults) {
+		final String hql = "select note FROM Note note left join fetch note.category left join fetch note.reminder "
+				+ "where note.createdBy = :userId and note.noteId > :afterNoteId order by note.noteId";
+		return this.sessionFactory.getCurrentSession().createQuery(hql, Note.class).setParameter("userId", userId)
+				.setParameter("afterNoteId", afterNoteId).setMaxResults(maxResults).getResultList();
+
+	}
+
+	/*
+	 * Retrieve the selected fields of the notes of a user, ordered by noteId and
+	 * starting after the given noteId, at most maxResults of them or all of them
+	 * for 0. Only the selected columns are read, and the category and reminder
+	 * tables are joined only for their ids, when asked for.
+	 */
+	public List<Map<String, Object>> getNoteFieldsByUserId(String userId, FieldSelection fields, int afterNoteId,
+			int maxResults) {
+		StringBuilder hql = new StringBuilder(fields.selectClause(field -> "categoryId".equals(field)
+				? "category.categoryId" : "reminderId".equals(field) ? "reminder.reminderId" : "note." + field));
+		hql.append("FROM Note note ");
+		if (fields.contains("categoryId")) {
+			hql.append("left join note.category category ");
+		}
+		if (fields.contains("reminderId")) {
+			hql.append("left join note.reminder reminder ");
+		}
+		hql.append("where note.createdBy = :userId and note.noteId > :afterNoteId order by note.noteId");
+		Query<Tuple> query = this.sessionFactory.getCurrentSession().createQuery(hql.toString(), Tuple.class)
+				.setParameter("userId", userId).setParameter("afterNoteId", afterNoteId);
+		if (maxResults > 0) {
+			query.setMaxResults(maxResults);
+		}
+		return query.getResultList().stream().map(fields::toMap).collect(Collectors.toList());
+
+	}
+
+	/*
+	 * Retrieve the summary of all notes by userId. Only the listed columns are
+	 * selected and the rows are turned into NoteSummary objects directly, so no
+	 * entity is hydrated or tracked by the session.
+	 */
+
+	public List<NoteSummary> getNoteSummariesByUserId(String userId) {
+		final String hql = SUMMARY_SELECT + "where note.createdBy = :userId order by note.noteId";
+		return this.sessionFactory.getCurrentSession().createQuery(hql, NoteSummary.class)
+				.setParameter("userId", userId).getResultList();
+
+	}
+
+	/*
+	 * Retrieve one page of note summaries by userId, ordered by noteId and
+	 * starting after the given noteId (keyset pagination)
+	 */
+
+	public List<NoteSummary> getNoteSummariesByUserIdAfter(String userId, int afterNoteId, int maxResults) {
+		final String hql = SUMMARY_SELECT + "where note.createdBy = :userId and note.noteId > :afterNoteId "
+				+ "order by note.noteId";
+		return this.sessionFactory.getCurrentSession().createQuery(hql, NoteSummary.class)
+				.setParameter("userId", userId).setParameter("afterNoteId", afterNoteId).setMaxResults(maxResults)
+				.getResultList();
+
+	}
+
+	/*
+	 * Hand every note of a user to the consumer, one at a time and ordered by
+	 * noteId. The notes are read through a forward-only cursor of a stateless
+	 * session sharing the connection of the current transaction, so neither the
+	 * result set nor a persistence context holds more than one fetch of rows.
+	 */
+
+	public void streamNotesByUserId(String userId, Consumer<Note> consumer) {
+		final String hql = "select note FROM Note note left join fetch note.category left join fetch note.reminder "
+				+ "where note.createdBy = :userId order by note.noteId";
+		this.sessionFactory.getCurrentSession().doWork(connection -> {
+			StatelessSession session = this.sessionFactory.openStatelessSession(connection);
+			try (ScrollableResults results = session.createQuery(hql, Note.class).setParameter("userId", userId)
+					.setFetchSize(STREAM_FETCH_SIZE).setReadOnly(true).scroll(ScrollMode.FORWARD_ONLY)) {
+				while (results.next()) {
+					consumer.accept((Note) results.get(0));
+				}
+			} finally {
+				session.close();
+			}
+		});
+
+	}
+
+	/*
+	 * Insert a chunk of imported notes in a transaction of its own, committed when
+	 * the method returns whatever the caller does. The notes go through a
+	 * StatelessSession, which keeps no persistence context and skips dirty
+	 * checking, so importing many chunks does not accumulate state. The session
+	 * runs its own transaction on a connection of its own, the caller's being
+	 * suspended, and its commit executes the last JDBC batch of inserts. The
+	 * routing DataSource does not see that transaction, so the write is recorded
+	 * for it once committed.
+	 */
+
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void insertNotes(List<Note> notes) {
+		StatelessSession session = this.sessionFactory.openStatelessSession();
+		Transaction transaction = session.beginTransaction();
+		try {
+			Date now = new Date();
+			for (Note note : notes) {
+				note.setUpdatedAt(now);
+				session.insert(note);
+			}
+			transaction.commit();
+			ReadWriteRoutingDataSource.markWritten();
+		} catch (RuntimeException e) {
+			if (transaction.getStatus().canRollback()) {
+				transaction.rollback();
+			}
+			throw e;
+		} finally {
+			session.close();
+		}
 
 	}
 
@@ -83,9 +272,10 @@ public class NoteDAOImpl implements NoteDAO {
 	 */
 
 	public Note getNoteById(int noteId) throws NoteNotFoundException {
-		Session session = this.sessionFactory.getCurrentSession();
-		Note note = session.get(Note.class, noteId);
-		session.flush();
+		final String hql = "select note FROM Note note left join fetch note.category left join fetch note.reminder "
+				+ "where note.noteId = :noteId";
+		Note note = this.sessionFactory.getCurrentSession().createQuery(hql, Note.class)
+				.setParameter("noteId", noteId).uniqueResult();
 		if (null == note) {
 			throw new NoteNotFoundException("note not found exception");
 		}
@@ -93,6 +283,18 @@ public class NoteDAOImpl implements NoteDAO {
 
 	}
 
+	/*
+	 * Retrieve the notes of a user among the given noteIds, in no particular order
+	 */
+
+	public List<Note> getNotesByIds(String userId, Collection<Integer> noteIds) {
+		final String hql = "select note FROM Note note left join fetch note.category left join fetch note.reminder "
+				+ "where note.createdBy = :userId and note.noteId in (:noteIds)";
+		return this.sessionFactory.getCurrentSession().createQuery(hql, Note.class).setParameter("userId", userId)
+				.setParameterList("noteIds", noteIds).getResultList();
+
+	}
+
 	/*
 	 * Update an existing note
 	 */
@@ -102,9 +304,8 @@ public class NoteDAOImpl implements NoteDAO {
 		try {
 			if(null!=this.getNoteById(note.getNoteId())) {
 				Session session=this.sessionFactory.getCurrentSession();
-				session.clear();
-				session.update(note);
-				session.flush();
+				note.setUpdatedAt(new Date());
+				session.merge(note);
 			}
 		} catch (NoteNotFoundException e) {
 			flag=Boolean.FALSE;
@@ -113,4 +314,75 @@ public class NoteDAOImpl implements NoteDAO {
 
 	}
 
+	/*
+	 * Write the changes made to several notes read in the current session. The
+	 * updates are sent in JDBC batches when the session is flushed.
+	 */
+
+	public void updateNotes(List<Note> notes) {
+		Session session = this.sessionFactory.getCurrentSession();
+		Date now = new Date();
+		for (Note note : notes) {
+			note.setUpdatedAt(now);
+			session.merge(note);
+		}
+
+	}
+
+	/*
+	 * Remove several notes read in the current session, each leaving a tombstone.
+	 * The deletes and the tombstone inserts are sent in JDBC batches when the
+	 * session is flushed.
+	 */
+
+	public void deleteNotes(List<Note> notes) {
+		Session session = this.sessionFactory.getCurrentSession();
+		Date now = new Date();
+		for (Note note : notes) {
+			session.delete(note);
+			session.save(new Tombstone(Tombstone.NOTE, note.getNoteId(), note.getCreatedBy(), now));
+		}
+
+	}
+
+	/*
+	 * Update an existing note owned by the given user in a single statement,
+	 * returns the number of rows updated (0 when the note does not exist or is
+	 * owned by another user)
+	 */
+
+	public int updateNoteByOwner(Note note, String userId) {
+		final String hql = "update Note set noteTitle = :noteTitle, noteContent = :noteContent, noteStatus = :noteStatus, "
+				+ "category = :category, reminder = :reminder, updatedAt = :updatedAt where noteId = :noteId and createdBy = :userId";
+		Session session = this.sessionFactory.getCurrentSession();
+		Category category = null == note.getCategory() ? null
+				: session.load(Category.class, note.getCategory().getCategoryId());
+		Reminder reminder = null == note.getReminder() ? null
+				: session.load(Reminder.class, note.getReminder().getReminderId());
+		return session.createQuery(hql).setParameter("noteTitle", note.getNoteTitle())
+				.setParameter("noteContent", note.getNoteContent()).setParameter("noteStatus", note.getNoteStatus())
+				.setParameter("category", category)
+				.setParameter("reminder", reminder).setParameter("updatedAt", new Date())
+				.setParameter("noteId", note.getNoteId())
+				.setParameter("userId", userId).executeUpdate();
+
+	}
+
+	/*
+	 * Remove an existing note owned by the given user in a single statement,
+	 * returns the number of rows deleted
+	 */
+
+	public int deleteNoteByOwner(int noteId, String userId) {
+		final String hql = "delete from Note where noteId = :noteId and createdBy = :userId";
+		Session session = this.sessionFactory.getCurrentSession();
+		int deleted = session.createQuery(hql).setParameter("noteId", noteId).setParameter("userId", userId)
+				.executeUpdate();
+		if (deleted > 0) {
+			session.save(new Tombstone(Tombstone.NOTE, noteId, userId, new Date()));
+		}
+		return deleted;
+
+	}
+
 }
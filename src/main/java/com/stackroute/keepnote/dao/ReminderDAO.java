@@ -1,8 +1,12 @@
 package com.stackroute.keepnote.dao;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
+import com.stackroute.keepnote.model.FieldSelection;
 import com.stackroute.keepnote.model.Reminder;
 
 public interface ReminderDAO {
@@ -13,11 +17,30 @@ public interface ReminderDAO {
 
 	public boolean createReminder(Reminder reminder);
 
+	public void createReminders(List<Reminder> reminders);
+
 	public boolean updateReminder(Reminder reminder);
 
 	public boolean deleteReminder(int reminderId);
 
+	public int updateReminderByOwner(Reminder reminder, String userId);
+
+	public int deleteReminderByOwner(int reminderId, String userId);
+
 	public Reminder getReminderById(int reminderId) throws ReminderNotFoundException;
 
+	public List<Reminder> getRemindersByIds(String userId, Collection<Integer> reminderIds);
+
+	public void updateReminders(List<Reminder> reminders);
+
+	public void deleteReminders(List<Reminder> reminders);
+
 	public List<Reminder> getAllReminderByUserId(String userId);
+
+	public List<Reminder> getRemindersUpdatedSince(String userId, Date since);
+
+	public List<Reminder> getRemindersByUserIdAfter(String userId, int afterReminderId, int maxResults);
+
+	public List<Map<String, Object>> getReminderFieldsByUserId(String userId, FieldSelection fields,
+			int afterReminderId, int maxResults);
 }
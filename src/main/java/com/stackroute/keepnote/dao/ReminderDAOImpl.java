@@ -1,16 +1,25 @@
 package com.stackroute.keepnote.dao;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
-import javax.transaction.Transactional;
+import javax.persistence.Tuple;
 
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.query.Query;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
 import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.FieldSelection;
+import com.stackroute.keepnote.model.Tombstone;
 
 /*
  * This class is implementing the UserDAO interface. This class has to be annotated with 
@@ -19,7 +28,8 @@ import com.stackroute.keepnote.model.Reminder;
  * thus clarifying it's role.
  * @Transactional - The transactional annotation itself defines the scope of a single database 
  * 					transaction. The database transaction happens inside the scope of a persistence 
- * 					context.  
+ * 					context. The DAO methods join the transaction opened by the service layer,
+ * 					and changes are flushed once when it commits.
  * */
 @Repository
 @Transactional
@@ -43,11 +53,32 @@ public class ReminderDAOImpl implements ReminderDAO {
 
 	public boolean createReminder(Reminder reminder) {
 		Session session = this.sessionFactory.getCurrentSession();
+		reminder.setUpdatedAt(new Date());
 		session.save(reminder);
-		session.flush();
 		return Boolean.TRUE;
 	}
 
+	/*
+	 * Create several reminders at once. The inserts are sent in JDBC batches of
+	 * hibernate.jdbc.batch_size statements, and the session is flushed and cleared
+	 * after every batch so that it does not grow with the number of reminders.
+	 */
+
+	public void createReminders(List<Reminder> reminders) {
+		Session session = this.sessionFactory.getCurrentSession();
+		int batchSize = Math.max(1, this.sessionFactory.getSessionFactoryOptions().getJdbcBatchSize());
+		Date now = new Date();
+		for (int i = 0; i < reminders.size(); i++) {
+			reminders.get(i).setUpdatedAt(now);
+			session.save(reminders.get(i));
+			if ((i + 1) % batchSize == 0) {
+				session.flush();
+				session.clear();
+			}
+		}
+
+	}
+
 	/*
 	 * Update an existing reminder
 	 */
@@ -57,9 +88,8 @@ public class ReminderDAOImpl implements ReminderDAO {
 		try {
 			if (null != this.getReminderById(reminder.getReminderId())) {
 				Session session = this.sessionFactory.getCurrentSession();
-				session.clear();
-				session.update(reminder);
-				session.flush();
+				reminder.setUpdatedAt(new Date());
+				session.merge(reminder);
 			}
 		} catch (ReminderNotFoundException ex) {
 			flag = Boolean.FALSE;
@@ -77,9 +107,12 @@ public class ReminderDAOImpl implements ReminderDAO {
 		try {
 			Reminder reminder = this.getReminderById(reminderId);
 			Session session = this.sessionFactory.getCurrentSession();
-			session.clear();
+			Date now = new Date();
+			this.touchNotesOfReminder(session, reminderId, now);
 			session.delete(reminder);
-			session.flush();
+			if (null != reminder.getReminderCreatedBy()) {
+				session.save(new Tombstone(Tombstone.REMINDER, reminderId, reminder.getReminderCreatedBy(), now));
+			}
 		} catch (ReminderNotFoundException e) {
 			flag = Boolean.FALSE;
 		}
@@ -87,6 +120,95 @@ public class ReminderDAOImpl implements ReminderDAO {
 
 	}
 
+	/*
+	 * Update an existing reminder owned by the given user in a single statement,
+	 * returns the number of rows updated (0 when the reminder does not exist or is
+	 * owned by another user)
+	 */
+
+	public int updateReminderByOwner(Reminder reminder, String userId) {
+		final String hql = "update Reminder set reminderName = :reminderName, reminderDescription = :reminderDescription, "
+				+ "reminderType = :reminderType, updatedAt = :updatedAt where reminderId = :reminderId "
+				+ "and reminderCreatedBy = :userId";
+		return this.sessionFactory.getCurrentSession().createQuery(hql)
+				.setParameter("reminderName", reminder.getReminderName())
+				.setParameter("reminderDescription", reminder.getReminderDescription())
+				.setParameter("reminderType", reminder.getReminderType()).setParameter("updatedAt", new Date())
+				.setParameter("reminderId", reminder.getReminderId()).setParameter("userId", userId).executeUpdate();
+
+	}
+
+	/*
+	 * Remove an existing reminder owned by the given user in a single statement,
+	 * returns the number of rows deleted
+	 */
+
+	public int deleteReminderByOwner(int reminderId, String userId) {
+		final String hql = "delete from Reminder where reminderId = :reminderId and reminderCreatedBy = :userId";
+		final String owned = "select count(reminder) from Reminder reminder "
+				+ "where reminder.reminderId = :reminderId and reminder.reminderCreatedBy = :userId";
+		Session session = this.sessionFactory.getCurrentSession();
+		Date now = new Date();
+		int deleted = 0;
+		if (session.createQuery(owned, Long.class).setParameter("reminderId", reminderId)
+				.setParameter("userId", userId).uniqueResult() > 0) {
+			this.touchNotesOfReminder(session, reminderId, now);
+			deleted = session.createQuery(hql).setParameter("reminderId", reminderId).setParameter("userId", userId)
+					.executeUpdate();
+		}
+		if (deleted > 0) {
+			session.save(new Tombstone(Tombstone.REMINDER, reminderId, userId, now));
+		}
+		return deleted;
+
+	}
+
+	/*
+	 * Write the changes made to several reminders read in the current session,
+	 * in JDBC batches at flush
+	 */
+
+	public void updateReminders(List<Reminder> reminders) {
+		Session session = this.sessionFactory.getCurrentSession();
+		Date now = new Date();
+		for (Reminder reminder : reminders) {
+			reminder.setUpdatedAt(now);
+			session.merge(reminder);
+		}
+
+	}
+
+	/*
+	 * Remove several reminders read in the current session, each leaving a
+	 * tombstone, after touching their notes in one statement
+	 */
+
+	public void deleteReminders(List<Reminder> reminders) {
+		final String hql = "update Note set updatedAt = :updatedAt where reminder.reminderId in (:reminderIds)";
+		Session session = this.sessionFactory.getCurrentSession();
+		Date now = new Date();
+		List<Integer> reminderIds = new ArrayList<>(reminders.size());
+		reminders.forEach(reminder -> reminderIds.add(reminder.getReminderId()));
+		session.createQuery(hql).setParameter("updatedAt", now).setParameterList("reminderIds", reminderIds)
+				.executeUpdate();
+		for (Reminder reminder : reminders) {
+			session.delete(reminder);
+			session.save(new Tombstone(Tombstone.REMINDER, reminder.getReminderId(), reminder.getReminderCreatedBy(),
+					now));
+		}
+
+	}
+
+	/*
+	 * Deleting the reminder clears it from its notes through the foreign key, so
+	 * the notes are marked as changed first
+	 */
+	private void touchNotesOfReminder(Session session, int reminderId, Date now) {
+		final String hql = "update Note set updatedAt = :updatedAt where reminder.reminderId = :reminderId";
+		session.createQuery(hql).setParameter("updatedAt", now).setParameter("reminderId", reminderId)
+				.executeUpdate();
+	}
+
 	/*
 	 * Retrieve details of a specific reminder
 	 */
@@ -94,7 +216,6 @@ public class ReminderDAOImpl implements ReminderDAO {
 	public Reminder getReminderById(int reminderId) throws ReminderNotFoundException {
 		Session session = this.sessionFactory.getCurrentSession();
 		Reminder reminder = session.get(Reminder.class, reminderId);
-		session.flush();
 		if (null == reminder) {
 			throw new ReminderNotFoundException("reminder not found exception");
 		}
@@ -102,6 +223,18 @@ public class ReminderDAOImpl implements ReminderDAO {
 
 	}
 
+	/*
+	 * Retrieve the reminders of a user among the given reminderIds, in no
+	 * particular order
+	 */
+
+	public List<Reminder> getRemindersByIds(String userId, Collection<Integer> reminderIds) {
+		final String hql = "FROM Reminder reminder where reminderCreatedBy = :userId and reminderId in (:reminderIds)";
+		return this.sessionFactory.getCurrentSession().createQuery(hql, Reminder.class)
+				.setParameter("userId", userId).setParameterList("reminderIds", reminderIds).getResultList();
+
+	}
+
 	/*
 	 * Retrieve details of all reminders by userId
 	 */
@@ -112,4 +245,43 @@ public class ReminderDAOImpl implements ReminderDAO {
 				.createQuery(hql).setParameter("userId", userId).getResultList();
 	}
 
+	/*
+	 * Retrieve the reminders of a user changed after the given time
+	 */
+	public List<Reminder> getRemindersUpdatedSince(String userId, Date since) {
+		final String hql = "FROM Reminder reminder where reminderCreatedBy = :userId and updatedAt > :since";
+		return this.sessionFactory.getCurrentSession().createQuery(hql, Reminder.class)
+				.setParameter("userId", userId).setParameter("since", since).getResultList();
+	}
+
+	/*
+	 * Retrieve one page of reminders by userId, ordered by reminderId and starting
+	 * after the given reminderId (keyset pagination)
+	 */
+
+	public List<Reminder> getRemindersByUserIdAfter(String userId, int afterReminderId, int maxResults) {
+		final String hql = "FROM Reminder reminder where reminderCreatedBy = :userId and reminderId > :afterReminderId order by reminderId";
+		return this.sessionFactory.getCurrentSession().createQuery(hql, Reminder.class)
+				.setParameter("userId", userId).setParameter("afterReminderId", afterReminderId)
+				.setMaxResults(maxResults).getResultList();
+	}
+
+	/*
+	 * Retrieve the selected fields of the reminders of a user, ordered by reminderId
+	 * and starting after the given one, at most maxResults of them or all of them
+	 * for 0
+	 */
+	public List<Map<String, Object>> getReminderFieldsByUserId(String userId, FieldSelection fields,
+			int afterReminderId, int maxResults) {
+		final String hql = fields.selectClause(field -> "reminder." + field) + "FROM Reminder reminder "
+				+ "where reminder.reminderCreatedBy = :userId and reminder.reminderId > :afterReminderId order by reminder.reminderId";
+		Query<Tuple> query = this.sessionFactory.getCurrentSession().createQuery(hql, Tuple.class)
+				.setParameter("userId", userId).setParameter("afterReminderId", afterReminderId);
+		if (maxResults > 0) {
+			query.setMaxResults(maxResults);
+		}
+		return query.getResultList().stream().map(fields::toMap).collect(Collectors.toList());
+
+	}
+
 }
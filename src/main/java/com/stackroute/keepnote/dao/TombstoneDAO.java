@@ -0,0 +1,14 @@
+package com.stackroute.keepnote.dao;
+
+import java.util.Date;
+import java.util.List;
+
+import com.stackroute.keepnote.model.Tombstone;
+
+public interface TombstoneDAO {
+
+	public List<Tombstone> getTombstonesSince(String userId, Date since);
+
+	public int deleteTombstonesBefore(Date before);
+
+}
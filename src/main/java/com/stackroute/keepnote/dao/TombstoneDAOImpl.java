@@ -0,0 +1,51 @@
+package com.stackroute.keepnote.dao;
+
+import java.util.Date;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.stackroute.keepnote.model.Tombstone;
+
+/*
+ * This class is implementing the TombstoneDAO interface. The tombstones are
+ * written by the note, category and reminder DAOs along with the deletes, this
+ * class only reads and purges them.
+ */
+@Repository
+@Transactional
+public class TombstoneDAOImpl implements TombstoneDAO {
+
+	private final SessionFactory sessionFactory;
+
+	@Autowired
+	public TombstoneDAOImpl(SessionFactory sessionFactory) {
+		this.sessionFactory = sessionFactory;
+	}
+
+	/*
+	 * Retrieve the deletes of a user after the given time, through the (ownerId,
+	 * deletedAt) index
+	 */
+	public List<Tombstone> getTombstonesSince(String userId, Date since) {
+		final String hql = "From Tombstone tombstone where ownerId = :userId and deletedAt > :since";
+		return this.sessionFactory.getCurrentSession().createQuery(hql, Tombstone.class)
+				.setParameter("userId", userId).setParameter("since", since).getResultList();
+
+	}
+
+	/*
+	 * Remove the tombstones older than the given time in a single statement,
+	 * returns the number of rows deleted
+	 */
+	public int deleteTombstonesBefore(Date before) {
+		final String hql = "delete from Tombstone where deletedAt < :before";
+		return this.sessionFactory.getCurrentSession().createQuery(hql).setParameter("before", before)
+				.executeUpdate();
+
+	}
+
+}
@@ -1,11 +1,10 @@
 package com.stackroute.keepnote.dao;
 
-import javax.transaction.Transactional;
-
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.stackroute.keepnote.exception.UserNotFoundException;
 import com.stackroute.keepnote.model.User;
@@ -17,7 +16,8 @@ import com.stackroute.keepnote.model.User;
  * thus clarifying it's role.
  * @Transactional - The transactional annotation itself defines the scope of a single database 
  * 					transaction. The database transaction happens inside the scope of a persistence 
- * 					context.  
+ * 					context. The DAO methods join the transaction opened by the service layer,
+ * 					and changes are flushed once when it commits.
  * */
 @Repository
 @Transactional
@@ -42,7 +42,6 @@ public class UserDaoImpl implements UserDAO {
 	public boolean registerUser(User user) {
 		Session session = this.sessionFactory.getCurrentSession();
 		session.save(user);
-		session.flush();
 		return true;
 	}
 
@@ -55,9 +54,7 @@ public class UserDaoImpl implements UserDAO {
 		if (null != this.getUserById(user.getUserId())) {
 			// update user
 			Session session = this.sessionFactory.getCurrentSession();
-			session.clear();
-			session.update(user);
-			session.flush();
+			session.merge(user);
 			flag = Boolean.TRUE;
 		}
 		return flag;
@@ -70,7 +67,6 @@ public class UserDaoImpl implements UserDAO {
 	public User getUserById(String userId) {
 		Session session = this.sessionFactory.getCurrentSession();
 		User user = session.get(User.class, userId);
-		session.flush();
 		return user;
 	}
 
@@ -101,7 +97,6 @@ public class UserDaoImpl implements UserDAO {
 		if (null != user) {
 			Session session = this.sessionFactory.getCurrentSession();
 			session.delete(user);
-			session.flush();
 		} else {
 			flag = Boolean.FALSE;
 		}
@@ -0,0 +1,104 @@
+package com.stackroute.keepnote.model;
+
+import java.util.List;
+
+/*
+ * The class "BatchItemResult" reports the outcome of one item of a batch create
+ * request, or of one operation of a batch of mutations. Results are returned in
+ * the order of the request items, "index" is the position of the item in the
+ * request, "id" the id of the created, updated or deleted item and "message"
+ * the reason a rejected item was not applied. A batch holds at most MAX_ITEMS
+ * items.
+ */
+public class BatchItemResult {
+
+	public static final String CREATED = "CREATED";
+	public static final String UPDATED = "UPDATED";
+	public static final String DELETED = "DELETED";
+	public static final String REJECTED = "REJECTED";
+	public static final int MAX_ITEMS = 500;
+
+	private int index;
+	private String status;
+	private Integer id;
+	private String message;
+
+	public BatchItemResult() {
+
+	}
+
+	public BatchItemResult(int index, String status, Integer id, String message) {
+		this.index = index;
+		this.status = status;
+		this.id = id;
+		this.message = message;
+	}
+
+	public static BatchItemResult created(int index, int id) {
+		return new BatchItemResult(index, CREATED, id, null);
+	}
+
+	public static BatchItemResult updated(int index, int id) {
+		return new BatchItemResult(index, UPDATED, id, null);
+	}
+
+	public static BatchItemResult deleted(int index, int id) {
+		return new BatchItemResult(index, DELETED, id, null);
+	}
+
+	public static BatchItemResult rejected(int index, String message) {
+		return new BatchItemResult(index, REJECTED, null, message);
+	}
+
+	/*
+	 * Tell whether every item of a batch was created
+	 */
+	public static boolean allCreated(List<BatchItemResult> results) {
+		return results.stream().allMatch(result -> CREATED.equals(result.getStatus()));
+	}
+
+	/*
+	 * Tell whether no item of a batch was rejected
+	 */
+	public static boolean noneRejected(List<BatchItemResult> results) {
+		return results.stream().noneMatch(result -> REJECTED.equals(result.getStatus()));
+	}
+
+	public int getIndex() {
+		return this.index;
+	}
+
+	public void setIndex(int index) {
+		this.index = index;
+	}
+
+	public String getStatus() {
+		return this.status;
+	}
+
+	public void setStatus(String status) {
+		this.status = status;
+	}
+
+	public Integer getId() {
+		return this.id;
+	}
+
+	public void setId(Integer id) {
+		this.id = id;
+	}
+
+	public String getMessage() {
+		return this.message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchItemResult [index=" + index + ", status=" + status + ", id=" + id + ", message=" + message + "]";
+	}
+
+}
@@ -3,13 +3,20 @@ package com.stackroute.keepnote.model;
 import java.util.Date;
 import java.util.List;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 /*
  * The class "Category" will be acting as the data model for the Category Table in the database. 
@@ -19,6 +26,10 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
  * Java object to recreate it as a table in your database.
  */
 @Entity
+@BatchSize(size = 50)
+@JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Category {
 	/*
 	 * This class should have six fields
@@ -32,12 +43,20 @@ public class Category {
 	 * and @JsonIgnore
 	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.AUTO)
+	@GeneratedValue(generator = "categoryIdGenerator")
+	@GenericGenerator(name = "categoryIdGenerator", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+			@Parameter(name = "table_name", value = IdAllocation.TABLE_NAME),
+			@Parameter(name = "segment_column_name", value = IdAllocation.SEGMENT_COLUMN),
+			@Parameter(name = "value_column_name", value = IdAllocation.VALUE_COLUMN),
+			@Parameter(name = "segment_value", value = "Category"),
+			@Parameter(name = "increment_size", value = IdAllocation.BLOCK_SIZE),
+			@Parameter(name = "optimizer", value = "pooled-lo") })
 	private int categoryId;
 	private String categoryName;
 	private String categoryDescription;
 	private String categoryCreatedBy;
 	private Date categoryCreationDate;
+	private Date updatedAt;
 	
 	@OneToMany
 	@JsonIgnore
@@ -105,11 +124,19 @@ public class Category {
 		return this.notes;
 	}
 
+	public Date getUpdatedAt() {
+		return this.updatedAt;
+	}
+
+	public void setUpdatedAt(Date updatedAt) {
+		this.updatedAt = updatedAt;
+	}
+
 	@Override
 	public String toString() {
 		return "Category [categoryId=" + categoryId + ", categoryName=" + categoryName + ", categoryDescription="
 				+ categoryDescription + ", categoryCreatedBy=" + categoryCreatedBy + ", categoryCreationDate="
-				+ categoryCreationDate + ", notes=" + notes + "]";
+				+ categoryCreationDate + ", updatedAt=" + updatedAt + ", notes=" + notes + "]";
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.stackroute.keepnote.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.UnaryOperator;
+
+import javax.persistence.Tuple;
+
+/*
+ * The class "FieldSelection" is the list of properties asked for with the
+ * "fields" request parameter of a listing, e.g. "fields=noteTitle,noteStatus".
+ * The DAOs select only these columns and return one map per row, holding only
+ * these properties, so nothing else is read from the database or written to
+ * the response. The id of the item is always selected, first, since a client
+ * needs it to refer to the item and the pages are keyed on it. The nested
+ * category and reminder of a note are only available through their ids.
+ */
+public class FieldSelection {
+
+	public static final List<String> NOTE_FIELDS = Collections.unmodifiableList(Arrays.asList("noteId",
+			"noteTitle", "noteContent", "noteStatus", "noteCreatedAt", "updatedAt", "createdBy", "categoryId",
+			"reminderId"));
+	public static final List<String> CATEGORY_FIELDS = Collections.unmodifiableList(Arrays.asList("categoryId",
+			"categoryName", "categoryDescription", "categoryCreationDate", "categoryCreatedBy", "updatedAt"));
+	public static final List<String> REMINDER_FIELDS = Collections.unmodifiableList(Arrays.asList("reminderId",
+			"reminderName", "reminderDescription", "reminderType", "reminderCreationDate", "reminderCreatedBy",
+			"updatedAt"));
+
+	private final List<String> fields;
+
+	private FieldSelection(List<String> fields) {
+		this.fields = Collections.unmodifiableList(fields);
+	}
+
+	/*
+	 * Parse the comma separated "fields" parameter against the fields available
+	 * for the type of item, the id of the item being the first of them. Throws
+	 * IllegalArgumentException for an empty or unknown field.
+	 */
+	public static FieldSelection parse(String fields, List<String> available) {
+		List<String> selected = new ArrayList<>();
+		selected.add(available.get(0));
+		for (String field : fields.split(",", -1)) {
+			field = field.trim();
+			if (!available.contains(field)) {
+				throw new IllegalArgumentException("unknown field: " + field);
+			}
+			if (!selected.contains(field)) {
+				selected.add(field);
+			}
+		}
+		return new FieldSelection(selected);
+	}
+
+	public List<String> getFields() {
+		return this.fields;
+	}
+
+	public boolean contains(String field) {
+		return this.fields.contains(field);
+	}
+
+	/*
+	 * The select clause of a query of the fields, each one aliased with its name,
+	 * given the HQL path of a field
+	 */
+	public String selectClause(UnaryOperator<String> path) {
+		StringJoiner select = new StringJoiner(", ", "select ", " ");
+		for (String field : this.fields) {
+			select.add(path.apply(field) + " as " + field);
+		}
+		return select.toString();
+	}
+
+	/*
+	 * The row of a query selecting the fields aliased with their names, in the
+	 * order of the selection
+	 */
+	public Map<String, Object> toMap(Tuple row) {
+		Map<String, Object> item = new LinkedHashMap<>();
+		for (String field : this.fields) {
+			item.put(field, row.get(field));
+		}
+		return item;
+	}
+
+	@Override
+	public String toString() {
+		return "FieldSelection [fields=" + fields + "]";
+	}
+
+}
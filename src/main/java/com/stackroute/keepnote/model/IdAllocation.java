@@ -0,0 +1,21 @@
+package com.stackroute.keepnote.model;
+
+/*
+ * The class "IdAllocation" describes the table from which Note, Category and
+ * Reminder ids are allocated. Every entity owns one row (segment) of the table,
+ * and each application node reserves a block of BLOCK_SIZE ids at a time
+ * (pooled-lo optimizer), so the table is touched once per block instead of
+ * once per insert.
+ */
+public final class IdAllocation {
+
+	public static final String TABLE_NAME = "id_allocation";
+	public static final String SEGMENT_COLUMN = "segment_name";
+	public static final String VALUE_COLUMN = "next_val";
+	public static final String BLOCK_SIZE = "50";
+
+	private IdAllocation() {
+		// constants only
+	}
+
+}
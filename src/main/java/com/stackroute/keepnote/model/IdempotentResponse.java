@@ -0,0 +1,105 @@
+package com.stackroute.keepnote.model;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+
+/*
+ * The class "IdempotentResponse" is the outcome of a POST sent with an
+ * Idempotency-Key header, kept so that a retry of the request gets the same
+ * response without running it again. "idempotencyKey" is a hash of the key,
+ * the user and the URL, "fingerprint" a hash of the request body, so that a key
+ * reused for another request is detected. A status of 0 marks a request still
+ * running, its response is not known yet.
+ */
+@Entity
+public class IdempotentResponse {
+
+	public static final int PENDING = 0;
+
+	@Id
+	private String idempotencyKey;
+	private String fingerprint;
+	private int status;
+	private String contentType;
+	@Lob
+	private byte[] body;
+	private Date createdAt;
+
+	public IdempotentResponse() {
+
+	}
+
+	public IdempotentResponse(String idempotencyKey, String fingerprint, int status, String contentType, byte[] body,
+			Date createdAt) {
+		this.idempotencyKey = idempotencyKey;
+		this.fingerprint = fingerprint;
+		this.status = status;
+		this.contentType = contentType;
+		this.body = body;
+		this.createdAt = createdAt;
+	}
+
+	public boolean isPending() {
+		return PENDING == this.status;
+	}
+
+	public String getIdempotencyKey() {
+		return this.idempotencyKey;
+	}
+
+	public void setIdempotencyKey(String idempotencyKey) {
+		this.idempotencyKey = idempotencyKey;
+	}
+
+	public String getFingerprint() {
+		return this.fingerprint;
+	}
+
+	public void setFingerprint(String fingerprint) {
+		this.fingerprint = fingerprint;
+	}
+
+	public int getStatus() {
+		return this.status;
+	}
+
+	public void setStatus(int status) {
+		this.status = status;
+	}
+
+	public String getContentType() {
+		return this.contentType;
+	}
+
+	public void setContentType(String contentType) {
+		this.contentType = contentType;
+	}
+
+	public byte[] getBody() {
+		return this.body;
+	}
+
+	public void setBody(byte[] body) {
+		this.body = body;
+	}
+
+	public Date getCreatedAt() {
+		return this.createdAt;
+	}
+
+	public void setCreatedAt(Date createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	@Override
+	public String toString() {
+		return "IdempotentResponse [idempotencyKey=" + idempotencyKey + ", fingerprint=" + fingerprint + ", status="
+				+ status + ", contentType=" + contentType + ", body=" + Arrays.toString(body) + ", createdAt="
+				+ createdAt + "]";
+	}
+
+}
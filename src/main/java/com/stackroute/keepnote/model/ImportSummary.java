@@ -0,0 +1,125 @@
+package com.stackroute.keepnote.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * The class "ImportSummary" reports the progress of a bulk import. Notes are
+ * committed in chunks, so "imported" counts the notes already stored even when
+ * the import stopped early. "complete" is false when the input could not be
+ * read to its end, "failedAt" is then the position of the item that could not
+ * be read and "message" the reason. At most MAX_ERRORS rejected items are
+ * listed in "errors", "rejected" counts all of them.
+ */
+public class ImportSummary {
+
+	public static final int DEFAULT_CHUNK_SIZE = 500;
+	public static final int MAX_CHUNK_SIZE = 5000;
+	public static final int MAX_ERRORS = 100;
+
+	private int imported;
+	private int rejected;
+	private int chunks;
+	private boolean complete = true;
+	private Integer failedAt;
+	private String message;
+	private List<BatchItemResult> errors = new ArrayList<>();
+
+	/*
+	 * Clamp a requested chunk size into 1..MAX_CHUNK_SIZE, null means
+	 * DEFAULT_CHUNK_SIZE
+	 */
+	public static int clampChunkSize(Integer chunkSize) {
+		if (null == chunkSize) {
+			return DEFAULT_CHUNK_SIZE;
+		}
+		return Math.max(1, Math.min(chunkSize, MAX_CHUNK_SIZE));
+	}
+
+	/*
+	 * Count a committed chunk of the given number of notes
+	 */
+	public void addChunk(int notes) {
+		this.chunks++;
+		this.imported += notes;
+	}
+
+	public void addRejected(BatchItemResult result) {
+		this.rejected++;
+		if (this.errors.size() < MAX_ERRORS) {
+			this.errors.add(result);
+		}
+	}
+
+	/*
+	 * Mark the import as stopped at the given item
+	 */
+	public void fail(int failedAt, String message) {
+		this.complete = false;
+		this.failedAt = failedAt;
+		this.message = message;
+	}
+
+	public int getImported() {
+		return this.imported;
+	}
+
+	public void setImported(int imported) {
+		this.imported = imported;
+	}
+
+	public int getRejected() {
+		return this.rejected;
+	}
+
+	public void setRejected(int rejected) {
+		this.rejected = rejected;
+	}
+
+	public int getChunks() {
+		return this.chunks;
+	}
+
+	public void setChunks(int chunks) {
+		this.chunks = chunks;
+	}
+
+	public boolean isComplete() {
+		return this.complete;
+	}
+
+	public void setComplete(boolean complete) {
+		this.complete = complete;
+	}
+
+	public Integer getFailedAt() {
+		return this.failedAt;
+	}
+
+	public void setFailedAt(Integer failedAt) {
+		this.failedAt = failedAt;
+	}
+
+	public String getMessage() {
+		return this.message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	public List<BatchItemResult> getErrors() {
+		return this.errors;
+	}
+
+	public void setErrors(List<BatchItemResult> errors) {
+		this.errors = errors;
+	}
+
+	@Override
+	public String toString() {
+		return "ImportSummary [imported=" + imported + ", rejected=" + rejected + ", chunks=" + chunks + ", complete="
+				+ complete + ", failedAt=" + failedAt + ", message=" + message + "]";
+	}
+
+}
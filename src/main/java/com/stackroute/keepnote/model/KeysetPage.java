@@ -0,0 +1,103 @@
+package com.stackroute.keepnote.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/*
+ * The class "KeysetPage" holds one page of a keyset (cursor) paginated listing.
+ * Rows are ordered by their id, and the "next" cursor is an opaque token
+ * encoding the last id of this page. It is null when there are no more rows.
+ * Clients pass it back as the "after" request parameter to fetch the next page.
+ */
+public class KeysetPage<T> {
+
+	public static final int DEFAULT_LIMIT = 50;
+	public static final int MAX_LIMIT = 500;
+
+	private static final String CURSOR_PREFIX = "k:";
+
+	private List<T> items;
+	private String next;
+
+	public KeysetPage() {
+
+	}
+
+	public KeysetPage(List<T> items, String next) {
+		this.items = items;
+		this.next = next;
+	}
+
+	public List<T> getItems() {
+		return this.items;
+	}
+
+	public void setItems(List<T> items) {
+		this.items = items;
+	}
+
+	public String getNext() {
+		return this.next;
+	}
+
+	public void setNext(String next) {
+		this.next = next;
+	}
+
+	/*
+	 * Encode the id of the last row of a page into an opaque cursor
+	 */
+	public static String encodeCursor(int lastId) {
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/*
+	 * Decode a cursor produced by encodeCursor, a null or empty cursor means the
+	 * first page. Throws IllegalArgumentException for a malformed cursor.
+	 */
+	public static int decodeCursor(String cursor) {
+		if (null == cursor || cursor.isEmpty()) {
+			return 0;
+		}
+		try {
+			String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			if (!decoded.startsWith(CURSOR_PREFIX)) {
+				throw new IllegalArgumentException("invalid cursor");
+			}
+			return Integer.parseInt(decoded.substring(CURSOR_PREFIX.length()));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("invalid cursor", e);
+		}
+	}
+
+	/*
+	 * Clamp a requested page size into 1..MAX_LIMIT, null means DEFAULT_LIMIT
+	 */
+	public static int clampLimit(Integer limit) {
+		if (null == limit) {
+			return DEFAULT_LIMIT;
+		}
+		return Math.max(1, Math.min(limit, MAX_LIMIT));
+	}
+
+	/*
+	 * Build a page from rows fetched with one extra row beyond the limit, the
+	 * presence of the extra row tells whether another page exists
+	 */
+	public static <T> KeysetPage<T> of(List<T> rows, int limit, ToIntFunction<T> idOf) {
+		if (rows.size() > limit) {
+			List<T> items = rows.subList(0, limit);
+			return new KeysetPage<>(items, encodeCursor(idOf.applyAsInt(items.get(limit - 1))));
+		}
+		return new KeysetPage<>(rows, null);
+	}
+
+	@Override
+	public String toString() {
+		return "KeysetPage [items=" + items + ", next=" + next + "]";
+	}
+
+}
@@ -3,11 +3,14 @@ package com.stackroute.keepnote.model;
 import java.util.Date;
 
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 /*
  * The class "Note" will be acting as the data model for the Note Table in the database. 
  * Please note that this class is annotated with @Entity annotation. 
@@ -25,22 +28,31 @@ public class Note {
 	 * getters and setters for the fields along with the no-arg , parameterized
 	 * constructor and toString method. The value of createdAt should not be
 	 * accepted from the user but should be always initialized with the system date.
-	 * annotate category and reminder field with @ManyToOne.
+	 * annotate category and reminder field with @ManyToOne. Both are fetched
+	 * lazily, listings fetch-join them and lone proxies are loaded in batches.
 	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.AUTO)
+	@GeneratedValue(generator = "noteIdGenerator")
+	@GenericGenerator(name = "noteIdGenerator", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+			@Parameter(name = "table_name", value = IdAllocation.TABLE_NAME),
+			@Parameter(name = "segment_column_name", value = IdAllocation.SEGMENT_COLUMN),
+			@Parameter(name = "value_column_name", value = IdAllocation.VALUE_COLUMN),
+			@Parameter(name = "segment_value", value = "Note"),
+			@Parameter(name = "increment_size", value = IdAllocation.BLOCK_SIZE),
+			@Parameter(name = "optimizer", value = "pooled-lo") })
 	private int noteId;
 	private String noteTitle;
 	private String noteContent;
 	private String noteStatus;
 	private Date noteCreatedAt;
 	
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	private Category category;
 
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	private Reminder reminder;
 	private String createdBy;
+	private Date updatedAt;
 
 	public Note() {
 
@@ -123,11 +135,23 @@ public class Note {
 		this.category = category;
 	}
 
+	/*
+	 * The time of the last change, set by the DAOs on every write whatever the
+	 * client sends
+	 */
+	public Date getUpdatedAt() {
+		return this.updatedAt;
+	}
+
+	public void setUpdatedAt(Date updatedAt) {
+		this.updatedAt = updatedAt;
+	}
+
 	@Override
 	public String toString() {
 		return "Note [noteId=" + noteId + ", noteTitle=" + noteTitle + ", noteContent=" + noteContent + ", noteStatus="
 				+ noteStatus + ", noteCreatedAt=" + noteCreatedAt + ", category=" + category + ", reminder=" + reminder
-				+ ", createdBy=" + createdBy + "]";
+				+ ", createdBy=" + createdBy + ", updatedAt=" + updatedAt + "]";
 	}
 
 }
@@ -0,0 +1,78 @@
+package com.stackroute.keepnote.model;
+
+/*
+ * The class "NoteSearchHit" is one result of a note search, best results come
+ * first. "title" and "snippet" are HTML fragments: the note title and an
+ * excerpt of the note content, escaped, with the matched terms wrapped in
+ * <em> tags. "score" is the relevance of the note to the query.
+ */
+public class NoteSearchHit {
+
+	public static final int DEFAULT_LIMIT = 20;
+	public static final int MAX_LIMIT = 100;
+
+	private int noteId;
+	private String title;
+	private String snippet;
+	private double score;
+
+	public NoteSearchHit() {
+
+	}
+
+	public NoteSearchHit(int noteId, String title, String snippet, double score) {
+		this.noteId = noteId;
+		this.title = title;
+		this.snippet = snippet;
+		this.score = score;
+	}
+
+	/*
+	 * Clamp a requested number of results into 1..MAX_LIMIT, null means
+	 * DEFAULT_LIMIT
+	 */
+	public static int clampLimit(Integer limit) {
+		if (null == limit) {
+			return DEFAULT_LIMIT;
+		}
+		return Math.max(1, Math.min(limit, MAX_LIMIT));
+	}
+
+	public int getNoteId() {
+		return this.noteId;
+	}
+
+	public void setNoteId(int noteId) {
+		this.noteId = noteId;
+	}
+
+	public String getTitle() {
+		return this.title;
+	}
+
+	public void setTitle(String title) {
+		this.title = title;
+	}
+
+	public String getSnippet() {
+		return this.snippet;
+	}
+
+	public void setSnippet(String snippet) {
+		this.snippet = snippet;
+	}
+
+	public double getScore() {
+		return this.score;
+	}
+
+	public void setScore(double score) {
+		this.score = score;
+	}
+
+	@Override
+	public String toString() {
+		return "NoteSearchHit [noteId=" + noteId + ", title=" + title + ", score=" + score + "]";
+	}
+
+}
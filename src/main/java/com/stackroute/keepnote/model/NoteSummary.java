@@ -0,0 +1,89 @@
+package com.stackroute.keepnote.model;
+
+import java.util.Date;
+
+/*
+ * The class "NoteSummary" is a read-only projection of a Note used by the
+ * summary listing. It carries only the columns a note list renders and the ids
+ * of the category and reminder, without the note content. It is not an entity,
+ * instances are built directly from the selected columns by the DAO query.
+ */
+public class NoteSummary {
+
+	private int noteId;
+	private String noteTitle;
+	private String noteStatus;
+	private Date noteCreatedAt;
+	private Integer categoryId;
+	private Integer reminderId;
+
+	public NoteSummary() {
+
+	}
+
+	public NoteSummary(int noteId, String noteTitle, String noteStatus, Date noteCreatedAt, Integer categoryId,
+			Integer reminderId) {
+		this.noteId = noteId;
+		this.noteTitle = noteTitle;
+		this.noteStatus = noteStatus;
+		this.noteCreatedAt = noteCreatedAt;
+		this.categoryId = categoryId;
+		this.reminderId = reminderId;
+	}
+
+	public int getNoteId() {
+		return this.noteId;
+	}
+
+	public void setNoteId(int noteId) {
+		this.noteId = noteId;
+	}
+
+	public String getNoteTitle() {
+		return this.noteTitle;
+	}
+
+	public void setNoteTitle(String noteTitle) {
+		this.noteTitle = noteTitle;
+	}
+
+	public String getNoteStatus() {
+		return this.noteStatus;
+	}
+
+	public void setNoteStatus(String noteStatus) {
+		this.noteStatus = noteStatus;
+	}
+
+	public Date getNoteCreatedAt() {
+		return this.noteCreatedAt;
+	}
+
+	public void setNoteCreatedAt(Date noteCreatedAt) {
+		this.noteCreatedAt = noteCreatedAt;
+	}
+
+	public Integer getCategoryId() {
+		return this.categoryId;
+	}
+
+	public void setCategoryId(Integer categoryId) {
+		this.categoryId = categoryId;
+	}
+
+	public Integer getReminderId() {
+		return this.reminderId;
+	}
+
+	public void setReminderId(Integer reminderId) {
+		this.reminderId = reminderId;
+	}
+
+	@Override
+	public String toString() {
+		return "NoteSummary [noteId=" + noteId + ", noteTitle=" + noteTitle + ", noteStatus=" + noteStatus
+				+ ", noteCreatedAt=" + noteCreatedAt + ", categoryId=" + categoryId + ", reminderId=" + reminderId
+				+ "]";
+	}
+
+}
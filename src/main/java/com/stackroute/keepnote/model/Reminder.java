@@ -3,13 +3,20 @@ package com.stackroute.keepnote.model;
 import java.util.Date;
 import java.util.List;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 /*
  * The class "Reminder" will be acting as the data model for the Reminder Table in the database. 
@@ -19,6 +26,10 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
  * Java object to recreate it as a table in your database.
  */
 @Entity
+@BatchSize(size = 50)
+@JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Reminder {
 	/*
 	 * This class should have seven fields
@@ -32,13 +43,21 @@ public class Reminder {
 	 * and @JsonIgnore
 	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.AUTO)
+	@GeneratedValue(generator = "reminderIdGenerator")
+	@GenericGenerator(name = "reminderIdGenerator", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+			@Parameter(name = "table_name", value = IdAllocation.TABLE_NAME),
+			@Parameter(name = "segment_column_name", value = IdAllocation.SEGMENT_COLUMN),
+			@Parameter(name = "value_column_name", value = IdAllocation.VALUE_COLUMN),
+			@Parameter(name = "segment_value", value = "Reminder"),
+			@Parameter(name = "increment_size", value = IdAllocation.BLOCK_SIZE),
+			@Parameter(name = "optimizer", value = "pooled-lo") })
 	private int reminderId;
 	private String reminderName;
 	private String reminderDescription;
 	private String reminderType;
 	private String reminderCreatedBy;
 	private Date reminderCreationDate;
+	private Date updatedAt;
 	
 	@OneToMany
 	@JsonIgnore
@@ -116,11 +135,19 @@ public class Reminder {
 		this.notes = notes;
 	}
 
+	public Date getUpdatedAt() {
+		return this.updatedAt;
+	}
+
+	public void setUpdatedAt(Date updatedAt) {
+		this.updatedAt = updatedAt;
+	}
+
 	@Override
 	public String toString() {
 		return "Reminder [reminderId=" + reminderId + ", reminderName=" + reminderName + ", reminderDescription="
 				+ reminderDescription + ", reminderType=" + reminderType + ", reminderCreatedBy=" + reminderCreatedBy
-				+ ", reminderCreationDate=" + reminderCreationDate + ", notes=" + notes + "]";
+				+ ", reminderCreationDate=" + reminderCreationDate + ", updatedAt=" + updatedAt + ", notes=" + notes + "]";
 	}
 	
 }
@@ -0,0 +1,69 @@
+package com.stackroute.keepnote.model;
+
+/*
+ * The class "Suggestion" is one entry of the search-as-you-type list: a note,
+ * by its title, or a category, by its name. "type" tells which one "id"
+ * refers to.
+ */
+public class Suggestion {
+
+	public static final String NOTE = "note";
+	public static final String CATEGORY = "category";
+	public static final int DEFAULT_LIMIT = 10;
+	public static final int MAX_LIMIT = 50;
+
+	private String type;
+	private int id;
+	private String text;
+
+	public Suggestion() {
+
+	}
+
+	public Suggestion(String type, int id, String text) {
+		this.type = type;
+		this.id = id;
+		this.text = text;
+	}
+
+	/*
+	 * Clamp a requested number of suggestions into 1..MAX_LIMIT, null means
+	 * DEFAULT_LIMIT
+	 */
+	public static int clampLimit(Integer limit) {
+		if (null == limit) {
+			return DEFAULT_LIMIT;
+		}
+		return Math.max(1, Math.min(limit, MAX_LIMIT));
+	}
+
+	public String getType() {
+		return this.type;
+	}
+
+	public void setType(String type) {
+		this.type = type;
+	}
+
+	public int getId() {
+		return this.id;
+	}
+
+	public void setId(int id) {
+		this.id = id;
+	}
+
+	public String getText() {
+		return this.text;
+	}
+
+	public void setText(String text) {
+		this.text = text;
+	}
+
+	@Override
+	public String toString() {
+		return "Suggestion [type=" + type + ", id=" + id + ", text=" + text + "]";
+	}
+
+}
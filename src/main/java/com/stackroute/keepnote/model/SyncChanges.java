@@ -0,0 +1,93 @@
+package com.stackroute.keepnote.model;
+
+import java.util.List;
+
+/*
+ * The class "SyncChanges" is the answer to GET /sync: the notes, categories and
+ * reminders of the user changed since the watermark sent by the client, the
+ * ones deleted since then, and the watermark to send next time.
+ *
+ * A client applies the changes as upserts and the deletes by type and id, in
+ * any order. Changes near the watermark may be sent twice, applying them again
+ * is harmless. When "reset" is set the client's watermark was too old (or
+ * missing), the lists hold everything the user has and the client replaces its
+ * local copy with them.
+ */
+public class SyncChanges {
+
+	private List<Note> notes;
+	private List<Category> categories;
+	private List<Reminder> reminders;
+	private List<Tombstone> deleted;
+	private long watermark;
+	private boolean reset;
+
+	public SyncChanges() {
+
+	}
+
+	public SyncChanges(List<Note> notes, List<Category> categories, List<Reminder> reminders,
+			List<Tombstone> deleted, long watermark, boolean reset) {
+		this.notes = notes;
+		this.categories = categories;
+		this.reminders = reminders;
+		this.deleted = deleted;
+		this.watermark = watermark;
+		this.reset = reset;
+	}
+
+	public List<Note> getNotes() {
+		return this.notes;
+	}
+
+	public void setNotes(List<Note> notes) {
+		this.notes = notes;
+	}
+
+	public List<Category> getCategories() {
+		return this.categories;
+	}
+
+	public void setCategories(List<Category> categories) {
+		this.categories = categories;
+	}
+
+	public List<Reminder> getReminders() {
+		return this.reminders;
+	}
+
+	public void setReminders(List<Reminder> reminders) {
+		this.reminders = reminders;
+	}
+
+	public List<Tombstone> getDeleted() {
+		return this.deleted;
+	}
+
+	public void setDeleted(List<Tombstone> deleted) {
+		this.deleted = deleted;
+	}
+
+	public long getWatermark() {
+		return this.watermark;
+	}
+
+	public void setWatermark(long watermark) {
+		this.watermark = watermark;
+	}
+
+	public boolean isReset() {
+		return this.reset;
+	}
+
+	public void setReset(boolean reset) {
+		this.reset = reset;
+	}
+
+	@Override
+	public String toString() {
+		return "SyncChanges [notes=" + notes + ", categories=" + categories + ", reminders=" + reminders
+				+ ", deleted=" + deleted + ", watermark=" + watermark + ", reset=" + reset + "]";
+	}
+
+}
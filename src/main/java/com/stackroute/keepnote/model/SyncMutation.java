@@ -0,0 +1,122 @@
+package com.stackroute.keepnote.model;
+
+/*
+ * The class "SyncMutation" is one operation of a POST /sync/mutations request:
+ * the create, update or delete of a note, category or reminder made by a
+ * client while offline.
+ *
+ * The target of an update or delete is either an existing item, by its "id",
+ * or an item created by an earlier operation of the same request, by its
+ * "tempId". A create may carry a "tempId" chosen by the client, the response
+ * maps it to the id of the created item. The new state of the item comes in
+ * "note", "category" or "reminder" depending on the type. A note may refer to
+ * a category or reminder created earlier in the request with
+ * "categoryTempId" and "reminderTempId", instead of their ids.
+ */
+public class SyncMutation {
+
+	public static final String CREATE = "create";
+	public static final String UPDATE = "update";
+	public static final String DELETE = "delete";
+
+	private String op;
+	private String type;
+	private Integer id;
+	private String tempId;
+	private Note note;
+	private Category category;
+	private Reminder reminder;
+	private String categoryTempId;
+	private String reminderTempId;
+
+	public SyncMutation() {
+
+	}
+
+	public SyncMutation(String op, String type, Integer id, String tempId) {
+		this.op = op;
+		this.type = type;
+		this.id = id;
+		this.tempId = tempId;
+	}
+
+	public String getOp() {
+		return this.op;
+	}
+
+	public void setOp(String op) {
+		this.op = op;
+	}
+
+	public String getType() {
+		return this.type;
+	}
+
+	public void setType(String type) {
+		this.type = type;
+	}
+
+	public Integer getId() {
+		return this.id;
+	}
+
+	public void setId(Integer id) {
+		this.id = id;
+	}
+
+	public String getTempId() {
+		return this.tempId;
+	}
+
+	public void setTempId(String tempId) {
+		this.tempId = tempId;
+	}
+
+	public Note getNote() {
+		return this.note;
+	}
+
+	public void setNote(Note note) {
+		this.note = note;
+	}
+
+	public Category getCategory() {
+		return this.category;
+	}
+
+	public void setCategory(Category category) {
+		this.category = category;
+	}
+
+	public Reminder getReminder() {
+		return this.reminder;
+	}
+
+	public void setReminder(Reminder reminder) {
+		this.reminder = reminder;
+	}
+
+	public String getCategoryTempId() {
+		return this.categoryTempId;
+	}
+
+	public void setCategoryTempId(String categoryTempId) {
+		this.categoryTempId = categoryTempId;
+	}
+
+	public String getReminderTempId() {
+		return this.reminderTempId;
+	}
+
+	public void setReminderTempId(String reminderTempId) {
+		this.reminderTempId = reminderTempId;
+	}
+
+	@Override
+	public String toString() {
+		return "SyncMutation [op=" + op + ", type=" + type + ", id=" + id + ", tempId=" + tempId + ", note=" + note
+				+ ", category=" + category + ", reminder=" + reminder + ", categoryTempId=" + categoryTempId
+				+ ", reminderTempId=" + reminderTempId + "]";
+	}
+
+}
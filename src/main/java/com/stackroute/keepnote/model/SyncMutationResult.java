@@ -0,0 +1,46 @@
+package com.stackroute.keepnote.model;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+ * The class "SyncMutationResult" answers POST /sync/mutations: one result per
+ * operation, in the order of the request, and the ids given to the items
+ * created under a temporary id of the client ("ids", from tempId to id).
+ */
+public class SyncMutationResult {
+
+	private List<BatchItemResult> results;
+	private Map<String, Integer> ids;
+
+	public SyncMutationResult() {
+
+	}
+
+	public SyncMutationResult(List<BatchItemResult> results, Map<String, Integer> ids) {
+		this.results = results;
+		this.ids = ids;
+	}
+
+	public List<BatchItemResult> getResults() {
+		return this.results;
+	}
+
+	public void setResults(List<BatchItemResult> results) {
+		this.results = results;
+	}
+
+	public Map<String, Integer> getIds() {
+		return this.ids;
+	}
+
+	public void setIds(Map<String, Integer> ids) {
+		this.ids = ids;
+	}
+
+	@Override
+	public String toString() {
+		return "SyncMutationResult [results=" + results + ", ids=" + ids + "]";
+	}
+
+}
@@ -0,0 +1,103 @@
+package com.stackroute.keepnote.model;
+
+import java.util.Date;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/*
+ * The class "Tombstone" records the delete of a note, category or reminder, so
+ * that a client synchronizing with GET /sync learns about it. It is written by
+ * the DAOs in the transaction of the delete, and dropped once older than
+ * SYNC_TOMBSTONE_RETENTION_DAYS. The ids come from the id allocation table
+ * like the other entities, an identity column would insert every tombstone
+ * right away and break the JDBC batches of the deletes.
+ */
+@Entity
+public class Tombstone {
+
+	public static final String NOTE = "note";
+	public static final String CATEGORY = "category";
+	public static final String REMINDER = "reminder";
+
+	@Id
+	@GeneratedValue(generator = "tombstoneIdGenerator")
+	@GenericGenerator(name = "tombstoneIdGenerator", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+			@Parameter(name = "table_name", value = IdAllocation.TABLE_NAME),
+			@Parameter(name = "segment_column_name", value = IdAllocation.SEGMENT_COLUMN),
+			@Parameter(name = "value_column_name", value = IdAllocation.VALUE_COLUMN),
+			@Parameter(name = "segment_value", value = "Tombstone"),
+			@Parameter(name = "increment_size", value = IdAllocation.BLOCK_SIZE),
+			@Parameter(name = "optimizer", value = "pooled-lo") })
+	@JsonIgnore
+	private long tombstoneId;
+	private String entityType;
+	private int entityId;
+	@JsonIgnore
+	private String ownerId;
+	private Date deletedAt;
+
+	public Tombstone() {
+
+	}
+
+	public Tombstone(String entityType, int entityId, String ownerId, Date deletedAt) {
+		this.entityType = entityType;
+		this.entityId = entityId;
+		this.ownerId = ownerId;
+		this.deletedAt = deletedAt;
+	}
+
+	public long getTombstoneId() {
+		return this.tombstoneId;
+	}
+
+	public void setTombstoneId(long tombstoneId) {
+		this.tombstoneId = tombstoneId;
+	}
+
+	public String getEntityType() {
+		return this.entityType;
+	}
+
+	public void setEntityType(String entityType) {
+		this.entityType = entityType;
+	}
+
+	public int getEntityId() {
+		return this.entityId;
+	}
+
+	public void setEntityId(int entityId) {
+		this.entityId = entityId;
+	}
+
+	public String getOwnerId() {
+		return this.ownerId;
+	}
+
+	public void setOwnerId(String ownerId) {
+		this.ownerId = ownerId;
+	}
+
+	public Date getDeletedAt() {
+		return this.deletedAt;
+	}
+
+	public void setDeletedAt(Date deletedAt) {
+		this.deletedAt = deletedAt;
+	}
+
+	@Override
+	public String toString() {
+		return "Tombstone [tombstoneId=" + tombstoneId + ", entityType=" + entityType + ", entityId=" + entityId
+				+ ", ownerId=" + ownerId + ", deletedAt=" + deletedAt + "]";
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.stackroute.keepnote.search;
+
+import java.util.Set;
+
+/*
+ * Builds the highlighted fragments of search results. The text is HTML escaped
+ * and every occurrence of a query term is wrapped in OPEN/CLOSE, so a client
+ * can render the fragment as is.
+ */
+public final class Highlighter {
+
+	public static final String OPEN = "<em>";
+	public static final String CLOSE = "</em>";
+
+	private static final String ELLIPSIS = "\u2026";
+
+	private Highlighter() {
+
+	}
+
+	/*
+	 * The whole text with the terms highlighted
+	 */
+	public static String highlight(String text, Set<String> terms) {
+		if (null == text) {
+			return null;
+		}
+		return excerpt(text, terms, 0, text.length());
+	}
+
+	/*
+	 * About "width" characters of the text around the first occurrence of a
+	 * term, or from the start of the text when no term occurs in it
+	 */
+	public static String snippet(String text, Set<String> terms, int width) {
+		if (null == text) {
+			return null;
+		}
+		if (text.length() <= width) {
+			return excerpt(text, terms, 0, text.length());
+		}
+		int[] matches = { -1 };
+		Tokenizer.scan(text, 0, text.length(), (start, end) -> {
+			if (matches[0] < 0 && terms.contains(Tokenizer.normalize(text.substring(start, end)))) {
+				matches[0] = start;
+			}
+		});
+		int first = Math.max(0, matches[0]);
+		int start = Math.max(0, Math.min(first - width / 4, text.length() - width));
+		while (start > 0 && start < first && !Character.isWhitespace(text.charAt(start - 1))) {
+			start++;
+		}
+		int end = Math.min(text.length(), start + width);
+		return (start > 0 ? ELLIPSIS : "") + excerpt(text, terms, start, end)
+				+ (end < text.length() ? ELLIPSIS : "");
+	}
+
+	private static String excerpt(String text, Set<String> terms, int start, int end) {
+		StringBuilder fragment = new StringBuilder(end - start + 16);
+		int[] position = { start };
+		Tokenizer.scan(text, start, end, (termStart, termEnd) -> {
+			if (terms.contains(Tokenizer.normalize(text.substring(termStart, termEnd)))) {
+				escape(text, position[0], termStart, fragment);
+				fragment.append(OPEN);
+				escape(text, termStart, termEnd, fragment);
+				fragment.append(CLOSE);
+				position[0] = termEnd;
+			}
+		});
+		escape(text, position[0], end, fragment);
+		return fragment.toString();
+	}
+
+	private static void escape(String text, int start, int end, StringBuilder fragment) {
+		for (int i = start; i < end; i++) {
+			char c = text.charAt(i);
+			switch (c) {
+			case '<':
+				fragment.append("&lt;");
+				break;
+			case '>':
+				fragment.append("&gt;");
+				break;
+			case '&':
+				fragment.append("&amp;");
+				break;
+			case '"':
+				fragment.append("&quot;");
+				break;
+			case '\'':
+				fragment.append("&#39;");
+				break;
+			default:
+				fragment.append(c);
+			}
+		}
+	}
+
+}
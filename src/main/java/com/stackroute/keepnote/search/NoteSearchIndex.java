@@ -0,0 +1,86 @@
+package com.stackroute.keepnote.search;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+
+import com.stackroute.keepnote.cache.AfterCommit;
+import com.stackroute.keepnote.model.Note;
+
+/*
+ * In-memory full-text index of the notes, one UserNoteIndex per user. The index
+ * of a user is built from the database by their first search and then kept up
+ * to date by the note writes of the service layer, applied after their
+ * transaction commits. The indexes of the SEARCH_INDEX_MAX_USERS users that
+ * searched last are kept, and an index is rebuilt from the database once it is
+ * older than SEARCH_INDEX_MAX_AGE_MS, which bounds how long writes made through
+ * other application instances can be missed.
+ */
+@Component
+public class NoteSearchIndex {
+
+	private static final int MAX_USERS = Integer.getInteger("SEARCH_INDEX_MAX_USERS", 1000);
+	private static final long MAX_AGE = Long.getLong("SEARCH_INDEX_MAX_AGE_MS", 600000L);
+
+	private final UserIndexCache<UserNoteIndex> indexes;
+
+	public NoteSearchIndex() {
+		this(MAX_USERS, MAX_AGE);
+	}
+
+	public NoteSearchIndex(int maxUsers, long maxAge) {
+		this.indexes = new UserIndexCache<>(maxUsers, maxAge, UserNoteIndex::new);
+	}
+
+	/*
+	 * Search the notes of a user, loading their index with the loader first when
+	 * it is not in memory yet
+	 */
+	public List<UserNoteIndex.Hit> search(String userId, Collection<String> terms, int limit,
+			Consumer<Consumer<Note>> loader) {
+		UserNoteIndex index = this.indexes.getOrCreate(userId);
+		index.load(loader);
+		return index.search(terms, limit);
+	}
+
+	/*
+	 * Add or replace a note in the index of the user owning it
+	 */
+	public void index(String userId, Note note) {
+		int noteId = note.getNoteId();
+		String title = note.getNoteTitle();
+		String content = note.getNoteContent();
+		AfterCommit.run(() -> {
+			UserNoteIndex index = this.indexes.get(userId);
+			if (null != index) {
+				index.put(noteId, title, content);
+			}
+		});
+	}
+
+	public void remove(String userId, int noteId) {
+		AfterCommit.run(() -> {
+			UserNoteIndex index = this.indexes.get(userId);
+			if (null != index) {
+				index.remove(noteId);
+			}
+		});
+	}
+
+	/*
+	 * Remove a note whose owner is not known
+	 */
+	public void remove(int noteId) {
+		AfterCommit.run(() -> this.indexes.values().forEach(index -> index.remove(noteId)));
+	}
+
+	/*
+	 * Drop the index of a user, their next search rebuilds it from the database
+	 */
+	public void evict(String userId) {
+		this.indexes.evict(userId);
+	}
+
+}
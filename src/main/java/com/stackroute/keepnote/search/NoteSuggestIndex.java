@@ -0,0 +1,95 @@
+package com.stackroute.keepnote.search;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+
+import com.stackroute.keepnote.cache.AfterCommit;
+import com.stackroute.keepnote.model.Suggestion;
+
+/*
+ * In-memory search-as-you-type index over the note titles and category names,
+ * one UserSuggestIndex per user. Like NoteSearchIndex, the index of a user is
+ * loaded from the database by their first lookup, kept up to date by the
+ * committed writes of the service layer, and reloaded once older than
+ * SUGGEST_INDEX_MAX_AGE_MS. The indexes of SUGGEST_INDEX_MAX_USERS users are
+ * kept.
+ */
+@Component
+public class NoteSuggestIndex {
+
+	private static final int MAX_USERS = Integer.getInteger("SUGGEST_INDEX_MAX_USERS", 1000);
+	private static final long MAX_AGE = Long.getLong("SUGGEST_INDEX_MAX_AGE_MS", 600000L);
+
+	private final UserIndexCache<UserSuggestIndex> indexes;
+
+	public NoteSuggestIndex() {
+		this(MAX_USERS, MAX_AGE);
+	}
+
+	public NoteSuggestIndex(int maxUsers, long maxAge) {
+		this.indexes = new UserIndexCache<>(maxUsers, maxAge, UserSuggestIndex::new);
+	}
+
+	public List<Suggestion> suggest(String userId, String prefix, int limit, Consumer<UserSuggestIndex> loader) {
+		UserSuggestIndex index = this.indexes.getOrCreate(userId);
+		index.load(loader);
+		return index.suggest(prefix, limit);
+	}
+
+	public void putNote(String userId, int noteId, String title) {
+		AfterCommit.run(() -> {
+			UserSuggestIndex index = this.indexes.get(userId);
+			if (null != index) {
+				index.putNote(noteId, title);
+			}
+		});
+	}
+
+	public void removeNote(String userId, int noteId) {
+		AfterCommit.run(() -> {
+			UserSuggestIndex index = this.indexes.get(userId);
+			if (null != index) {
+				index.removeNote(noteId);
+			}
+		});
+	}
+
+	/*
+	 * Remove a note whose owner is not known
+	 */
+	public void removeNote(int noteId) {
+		AfterCommit.run(() -> this.indexes.values().forEach(index -> index.removeNote(noteId)));
+	}
+
+	public void putCategory(String userId, int categoryId, String name) {
+		AfterCommit.run(() -> {
+			UserSuggestIndex index = this.indexes.get(userId);
+			if (null != index) {
+				index.putCategory(categoryId, name);
+			}
+		});
+	}
+
+	public void removeCategory(String userId, int categoryId) {
+		AfterCommit.run(() -> {
+			UserSuggestIndex index = this.indexes.get(userId);
+			if (null != index) {
+				index.removeCategory(categoryId);
+			}
+		});
+	}
+
+	/*
+	 * Remove a category whose owner is not known
+	 */
+	public void removeCategory(int categoryId) {
+		AfterCommit.run(() -> this.indexes.values().forEach(index -> index.removeCategory(categoryId)));
+	}
+
+	public void evict(String userId) {
+		this.indexes.evict(userId);
+	}
+
+}
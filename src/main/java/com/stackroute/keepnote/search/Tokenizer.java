@@ -0,0 +1,70 @@
+package com.stackroute.keepnote.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/*
+ * Splits text into the terms of the search index: runs of letters and digits,
+ * lower-cased. Very long runs (encoded data, URLs without separators) are not
+ * worth indexing and are skipped. Queries go through the same tokenizer, so a
+ * query term matches exactly the terms the notes were indexed with.
+ */
+public final class Tokenizer {
+
+	public static final int MAX_TERM_LENGTH = 40;
+
+	/*
+	 * Receives the position of every term of a text, end excluded
+	 */
+	public interface TermVisitor {
+		void visit(int start, int end);
+	}
+
+	private Tokenizer() {
+
+	}
+
+	public static List<String> tokenize(String text) {
+		List<String> terms = new ArrayList<>();
+		if (null != text) {
+			scan(text, 0, text.length(), (start, end) -> terms.add(normalize(text.substring(start, end))));
+		}
+		return terms;
+	}
+
+	public static String normalize(String term) {
+		return term.toLowerCase(Locale.ROOT);
+	}
+
+	/*
+	 * Visit the terms found between "from" and "to"
+	 */
+	public static void scan(String text, int from, int to, TermVisitor visitor) {
+		int start = -1;
+		int i = from;
+		while (i < to) {
+			int codePoint = text.codePointAt(i);
+			int next = i + Character.charCount(codePoint);
+			if (Character.isLetterOrDigit(codePoint)) {
+				if (start < 0) {
+					start = i;
+				}
+			} else if (start >= 0) {
+				visitTerm(start, i, visitor);
+				start = -1;
+			}
+			i = next;
+		}
+		if (start >= 0) {
+			visitTerm(start, Math.min(i, to), visitor);
+		}
+	}
+
+	private static void visitTerm(int start, int end, TermVisitor visitor) {
+		if (end - start <= MAX_TERM_LENGTH) {
+			visitor.visit(start, end);
+		}
+	}
+
+}
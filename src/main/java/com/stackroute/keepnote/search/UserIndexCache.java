@@ -0,0 +1,83 @@
+package com.stackroute.keepnote.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/*
+ * Holds one in-memory index per user for the maxUsers users that used theirs
+ * last. An index older than maxAge is replaced by a new, empty one the next
+ * time it is asked for, so that it gets loaded again from the database.
+ */
+public class UserIndexCache<T> {
+
+	private final long maxAge;
+	private final Supplier<T> factory;
+	private final Map<String, Entry<T>> entries;
+
+	public UserIndexCache(int maxUsers, long maxAge, Supplier<T> factory) {
+		this.maxAge = maxAge;
+		this.factory = factory;
+		this.entries = new LinkedHashMap<String, Entry<T>>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry<T>> eldest) {
+				return size() > maxUsers;
+			}
+		};
+	}
+
+	/*
+	 * The index of the user, null when it is not in memory
+	 */
+	public T get(String userId) {
+		synchronized (this.entries) {
+			Entry<T> entry = this.entries.get(userId);
+			return null == entry ? null : entry.index;
+		}
+	}
+
+	/*
+	 * The index of the user, a new one when it is not in memory or too old
+	 */
+	public T getOrCreate(String userId) {
+		synchronized (this.entries) {
+			Entry<T> entry = this.entries.get(userId);
+			if (null == entry || System.currentTimeMillis() - entry.createdAt > this.maxAge) {
+				entry = new Entry<>(this.factory.get());
+				this.entries.put(userId, entry);
+			}
+			return entry.index;
+		}
+	}
+
+	public List<T> values() {
+		List<T> indexes = new ArrayList<>();
+		synchronized (this.entries) {
+			this.entries.values().forEach(entry -> indexes.add(entry.index));
+		}
+		return indexes;
+	}
+
+	public void evict(String userId) {
+		synchronized (this.entries) {
+			this.entries.remove(userId);
+		}
+	}
+
+	private static final class Entry<T> {
+
+		private final T index;
+		private final long createdAt = System.currentTimeMillis();
+
+		private Entry(T index) {
+			this.index = index;
+		}
+
+	}
+
+}
@@ -0,0 +1,245 @@
+package com.stackroute.keepnote.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+import com.stackroute.keepnote.model.Note;
+
+/*
+ * The inverted index of the notes of one user, ranked with BM25. Every indexed
+ * note gets a document number, numbers only grow, and every term maps to its
+ * posting list: parallel arrays of document numbers and term frequencies.
+ * Title terms count TITLE_WEIGHT times. A removed or replaced note only marks
+ * its document dead, the posting lists are compacted once a quarter of the
+ * documents are dead.
+ *
+ * The index starts empty and is loaded from the database by the first search
+ * (see load), all methods are synchronized so a search never sees a half
+ * loaded index.
+ */
+public class UserNoteIndex {
+
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+	private static final int TITLE_WEIGHT = 2;
+	private static final int MIN_COMPACTION = 1024;
+
+	private static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::getScore)
+			.thenComparingInt(Hit::getNoteId);
+
+	private final Map<String, Postings> postings = new HashMap<>();
+	private final Map<Integer, Integer> documents = new HashMap<>();
+	private int[] noteIds = new int[64];
+	private int[] lengths = new int[64];
+	private int documentCount;
+	private int deadCount;
+	private long totalLength;
+	private boolean loaded;
+
+	/*
+	 * Fill the index from the database once. The loader streams every note of the
+	 * user to the consumer it is given. Changes recorded before the load are
+	 * replaced by the state read from the database, which already contains them.
+	 */
+	public synchronized void load(Consumer<Consumer<Note>> loader) {
+		if (!this.loaded) {
+			loader.accept(note -> this.put(note.getNoteId(), note.getNoteTitle(), note.getNoteContent()));
+			this.loaded = true;
+		}
+	}
+
+	public synchronized void put(int noteId, String title, String content) {
+		this.remove(noteId);
+		Map<String, int[]> frequencies = new HashMap<>();
+		for (String term : Tokenizer.tokenize(title)) {
+			frequencies.computeIfAbsent(term, key -> new int[1])[0] += TITLE_WEIGHT;
+		}
+		for (String term : Tokenizer.tokenize(content)) {
+			frequencies.computeIfAbsent(term, key -> new int[1])[0]++;
+		}
+		if (this.documentCount == this.noteIds.length) {
+			this.noteIds = Arrays.copyOf(this.noteIds, this.documentCount * 2);
+			this.lengths = Arrays.copyOf(this.lengths, this.documentCount * 2);
+		}
+		int document = this.documentCount++;
+		int length = 0;
+		for (Map.Entry<String, int[]> frequency : frequencies.entrySet()) {
+			this.postings.computeIfAbsent(frequency.getKey(), term -> new Postings()).add(document,
+					frequency.getValue()[0]);
+			length += frequency.getValue()[0];
+		}
+		this.noteIds[document] = noteId;
+		this.lengths[document] = length;
+		this.documents.put(noteId, document);
+		this.totalLength += length;
+	}
+
+	public synchronized void remove(int noteId) {
+		Integer document = this.documents.remove(noteId);
+		if (null == document) {
+			return;
+		}
+		this.totalLength -= this.lengths[document];
+		this.lengths[document] = -1;
+		this.deadCount++;
+		if (this.deadCount >= MIN_COMPACTION && this.deadCount * 4 > this.documentCount) {
+			this.compact();
+		}
+	}
+
+	/*
+	 * Rank the notes containing any of the terms and return the best "limit" of
+	 * them, best first. Only the posting lists of the query terms are read, and a
+	 * bounded heap keeps the top hits.
+	 */
+	public synchronized List<Hit> search(Collection<String> terms, int limit) {
+		int noteCount = this.documents.size();
+		if (0 == noteCount || limit < 1) {
+			return Collections.emptyList();
+		}
+		double averageLength = (double) this.totalLength / noteCount;
+		double[] scores = new double[this.documentCount];
+		for (String term : terms) {
+			Postings notes = this.postings.get(term);
+			if (null == notes) {
+				continue;
+			}
+			int frequency = notes.liveCount(this.lengths);
+			double idf = Math.log(1 + (noteCount - frequency + 0.5) / (frequency + 0.5));
+			for (int i = 0; i < notes.size; i++) {
+				int document = notes.documents[i];
+				int length = this.lengths[document];
+				if (length >= 0) {
+					int termFrequency = notes.frequencies[i];
+					double norm = K1 * (1 - B + B * length / averageLength);
+					scores[document] += idf * termFrequency * (K1 + 1) / (termFrequency + norm);
+				}
+			}
+		}
+		PriorityQueue<Hit> top = new PriorityQueue<>(limit, RANKING);
+		for (int document = 0; document < this.documentCount; document++) {
+			if (scores[document] > 0) {
+				if (top.size() < limit) {
+					top.add(new Hit(this.noteIds[document], scores[document]));
+				} else if (scores[document] > top.peek().getScore()
+						|| scores[document] == top.peek().getScore() && this.noteIds[document] > top.peek().getNoteId()) {
+					top.poll();
+					top.add(new Hit(this.noteIds[document], scores[document]));
+				}
+			}
+		}
+		List<Hit> hits = new ArrayList<>(top);
+		hits.sort(RANKING.reversed());
+		return hits;
+	}
+
+	public synchronized int size() {
+		return this.documents.size();
+	}
+
+	/*
+	 * Renumber the live documents from 0 and drop the dead ones from the posting
+	 * lists
+	 */
+	private void compact() {
+		int[] renumbered = new int[this.documentCount];
+		int live = 0;
+		for (int document = 0; document < this.documentCount; document++) {
+			if (this.lengths[document] < 0) {
+				renumbered[document] = -1;
+			} else {
+				renumbered[document] = live;
+				this.noteIds[live] = this.noteIds[document];
+				this.lengths[live] = this.lengths[document];
+				this.documents.put(this.noteIds[live], live);
+				live++;
+			}
+		}
+		Iterator<Postings> lists = this.postings.values().iterator();
+		while (lists.hasNext()) {
+			if (0 == lists.next().renumber(renumbered)) {
+				lists.remove();
+			}
+		}
+		this.documentCount = live;
+		this.deadCount = 0;
+	}
+
+	/*
+	 * The posting list of a term, ordered by document number
+	 */
+	private static final class Postings {
+
+		private int[] documents = new int[2];
+		private int[] frequencies = new int[2];
+		private int size;
+
+		void add(int document, int frequency) {
+			if (this.size == this.documents.length) {
+				this.documents = Arrays.copyOf(this.documents, this.size * 2);
+				this.frequencies = Arrays.copyOf(this.frequencies, this.size * 2);
+			}
+			this.documents[this.size] = document;
+			this.frequencies[this.size] = frequency;
+			this.size++;
+		}
+
+		int liveCount(int[] lengths) {
+			int live = 0;
+			for (int i = 0; i < this.size; i++) {
+				if (lengths[this.documents[i]] >= 0) {
+					live++;
+				}
+			}
+			return live;
+		}
+
+		int renumber(int[] renumbered) {
+			int kept = 0;
+			for (int i = 0; i < this.size; i++) {
+				int document = renumbered[this.documents[i]];
+				if (document >= 0) {
+					this.documents[kept] = document;
+					this.frequencies[kept] = this.frequencies[i];
+					kept++;
+				}
+			}
+			this.size = kept;
+			return kept;
+		}
+
+	}
+
+	/*
+	 * A matching note and its BM25 score
+	 */
+	public static class Hit {
+
+		private final int noteId;
+		private final double score;
+
+		public Hit(int noteId, double score) {
+			this.noteId = noteId;
+			this.score = score;
+		}
+
+		public int getNoteId() {
+			return this.noteId;
+		}
+
+		public double getScore() {
+			return this.score;
+		}
+
+	}
+
+}
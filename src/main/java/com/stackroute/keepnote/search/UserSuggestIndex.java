@@ -0,0 +1,324 @@
+package com.stackroute.keepnote.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.stackroute.keepnote.model.Suggestion;
+
+/*
+ * The suggestion index of one user over their note titles and category names.
+ * Every word of a title is cut into trigrams, padded at the start so that the
+ * first letters of a word form trigrams of their own, and every trigram maps
+ * to the entries containing it.
+ *
+ * A query is matched as the prefix of a word of the title, allowing a few
+ * edits (see maxEdits). Each edit changes at most three trigrams of the query,
+ * so only the entries sharing enough trigrams with the query are candidates,
+ * and only those are checked with the edit distance. Entries are numbered like
+ * the documents of UserNoteIndex, removed ones are marked dead and compacted
+ * once they are a quarter of the entries.
+ */
+public class UserSuggestIndex {
+
+	private static final String PADDING = "  ";
+	private static final int MIN_COMPACTION = 1024;
+
+	private final Map<String, Entries> trigrams = new HashMap<>();
+	private final Map<Long, Integer> keys = new HashMap<>();
+	private String[] texts = new String[64];
+	private String[] labels = new String[64];
+	private String[] types = new String[64];
+	private int[] ids = new int[64];
+	private int entryCount;
+	private int deadCount;
+	private boolean loaded;
+
+	/*
+	 * Fill the index from the database once, the loader puts every note and
+	 * category of the user
+	 */
+	public synchronized void load(Consumer<UserSuggestIndex> loader) {
+		if (!this.loaded) {
+			loader.accept(this);
+			this.loaded = true;
+		}
+	}
+
+	public synchronized void putNote(int noteId, String title) {
+		this.put(Suggestion.NOTE, noteId, title);
+	}
+
+	public synchronized void putCategory(int categoryId, String name) {
+		this.put(Suggestion.CATEGORY, categoryId, name);
+	}
+
+	public synchronized void removeNote(int noteId) {
+		this.remove(key(Suggestion.NOTE, noteId));
+	}
+
+	public synchronized void removeCategory(int categoryId) {
+		this.remove(key(Suggestion.CATEGORY, categoryId));
+	}
+
+	/*
+	 * The entries with a word starting with the query, or starting with it after
+	 * at most maxEdits edits, best first: fewest edits, then matches at the start
+	 * of the title, then shorter titles. Exact matches rank before any match with
+	 * an edit, so the slower typo tolerant pass only runs when there are fewer
+	 * than "limit" exact matches.
+	 */
+	public synchronized List<Suggestion> suggest(String prefix, int limit) {
+		String query = String.join(" ", Tokenizer.tokenize(prefix));
+		if (query.isEmpty() || 0 == this.keys.size()) {
+			return new ArrayList<>();
+		}
+		Set<String> queryTrigrams = trigrams(query);
+		List<long[]> matches = this.match(query, queryTrigrams, 0, queryTrigrams.size(), limit);
+		int maxEdits = maxEdits(query.length());
+		if (matches.size() < limit && maxEdits > 0) {
+			matches = this.match(query, queryTrigrams, maxEdits,
+					Math.max(1, queryTrigrams.size() - 3 * maxEdits), limit);
+		}
+		List<Suggestion> suggestions = new ArrayList<>(matches.size());
+		for (long[] match : matches) {
+			int entry = (int) match[2];
+			suggestions.add(new Suggestion(this.types[entry], this.ids[entry], this.labels[entry]));
+		}
+		return suggestions;
+	}
+
+	/*
+	 * The best "limit" entries sharing at least "threshold" trigrams with the
+	 * query and matching it within maxEdits, as {rank, length, entry}
+	 */
+	private List<long[]> match(String query, Set<String> queryTrigrams, int maxEdits, int threshold, int limit) {
+		int[] shared = new int[this.entryCount];
+		for (String trigram : queryTrigrams) {
+			Entries entries = this.trigrams.get(trigram);
+			if (null != entries) {
+				for (int i = 0; i < entries.size; i++) {
+					shared[entries.entries[i]]++;
+				}
+			}
+		}
+		Comparator<long[]> ranking = Comparator.<long[]>comparingLong(match -> match[0])
+				.thenComparingLong(match -> match[1]).thenComparingLong(match -> -this.ids[(int) match[2]]);
+		PriorityQueue<long[]> top = new PriorityQueue<>(limit, ranking.reversed());
+		int[][] rows = new int[2][query.length() + maxEdits + 1];
+		for (int entry = 0; entry < this.entryCount; entry++) {
+			if (shared[entry] >= threshold && null != this.texts[entry]) {
+				int rank = rank(query, this.texts[entry], maxEdits, rows);
+				if (rank >= 0) {
+					long[] match = { rank, this.texts[entry].length(), entry };
+					if (top.size() < limit) {
+						top.add(match);
+					} else if (ranking.compare(match, top.peek()) < 0) {
+						top.poll();
+						top.add(match);
+					}
+				}
+			}
+		}
+		List<long[]> matches = new ArrayList<>(top);
+		matches.sort(ranking);
+		return matches;
+	}
+
+	public synchronized int size() {
+		return this.keys.size();
+	}
+
+	/*
+	 * The edits allowed for a query of the given length: none up to three
+	 * letters, where any word would be a match after one edit, then one, and two
+	 * from eight letters
+	 */
+	static int maxEdits(int length) {
+		return length <= 3 ? 0 : length < 8 ? 1 : 2;
+	}
+
+	/*
+	 * 2 * edits, plus one when the best match is not at the start of the text.
+	 * -1 when no word of the text starts within maxEdits of the query.
+	 */
+	static int rank(String query, String text, int maxEdits, int[][] rows) {
+		int best = -1;
+		int start = 0;
+		while (true) {
+			int edits = prefixDistance(query, text, start, maxEdits, rows);
+			if (edits >= 0) {
+				int rank = 2 * edits + (0 == start ? 0 : 1);
+				if (best < 0 || rank < best) {
+					best = rank;
+				}
+			}
+			int space = text.indexOf(' ', start);
+			if (0 == best || space < 0) {
+				return best;
+			}
+			start = space + 1;
+		}
+	}
+
+	/*
+	 * The edit distance between the query and the closest prefix of the text
+	 * from "start", or -1 when it is above maxEdits. A prefix longer than the
+	 * query by more than maxEdits cannot be close enough, so only that many
+	 * characters of the text are compared, and the computation stops as soon as
+	 * a whole row is above maxEdits. "rows" are two arrays of at least
+	 * query.length() + maxEdits + 1 values to compute in.
+	 */
+	static int prefixDistance(String query, String text, int start, int maxEdits, int[][] rows) {
+		if (text.startsWith(query, start)) {
+			return 0;
+		}
+		if (0 == maxEdits) {
+			return -1;
+		}
+		int columns = Math.min(text.length() - start, query.length() + maxEdits);
+		int[] previous = rows[0];
+		int[] current = rows[1];
+		for (int j = 0; j <= columns; j++) {
+			previous[j] = j;
+		}
+		for (int i = 1; i <= query.length(); i++) {
+			current[0] = i;
+			int rowMin = i;
+			for (int j = 1; j <= columns; j++) {
+				int cost = query.charAt(i - 1) == text.charAt(start + j - 1) ? 0 : 1;
+				current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+				rowMin = Math.min(rowMin, current[j]);
+			}
+			if (rowMin > maxEdits) {
+				return -1;
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		int best = Integer.MAX_VALUE;
+		for (int j = 0; j <= columns; j++) {
+			best = Math.min(best, previous[j]);
+		}
+		return best <= maxEdits ? best : -1;
+	}
+
+	private void put(String type, int id, String label) {
+		long key = key(type, id);
+		this.remove(key);
+		String text = String.join(" ", Tokenizer.tokenize(label));
+		if (text.isEmpty()) {
+			return;
+		}
+		if (this.entryCount == this.texts.length) {
+			int capacity = this.entryCount * 2;
+			this.texts = Arrays.copyOf(this.texts, capacity);
+			this.labels = Arrays.copyOf(this.labels, capacity);
+			this.types = Arrays.copyOf(this.types, capacity);
+			this.ids = Arrays.copyOf(this.ids, capacity);
+		}
+		int entry = this.entryCount++;
+		this.texts[entry] = text;
+		this.labels[entry] = label;
+		this.types[entry] = type;
+		this.ids[entry] = id;
+		this.keys.put(key, entry);
+		for (String trigram : trigrams(text)) {
+			this.trigrams.computeIfAbsent(trigram, gram -> new Entries()).add(entry);
+		}
+	}
+
+	private void remove(long key) {
+		Integer entry = this.keys.remove(key);
+		if (null == entry) {
+			return;
+		}
+		this.texts[entry] = null;
+		this.labels[entry] = null;
+		this.deadCount++;
+		if (this.deadCount >= MIN_COMPACTION && this.deadCount * 4 > this.entryCount) {
+			this.compact();
+		}
+	}
+
+	private void compact() {
+		int[] renumbered = new int[this.entryCount];
+		int live = 0;
+		for (int entry = 0; entry < this.entryCount; entry++) {
+			if (null == this.texts[entry]) {
+				renumbered[entry] = -1;
+			} else {
+				renumbered[entry] = live;
+				this.texts[live] = this.texts[entry];
+				this.labels[live] = this.labels[entry];
+				this.types[live] = this.types[entry];
+				this.ids[live] = this.ids[entry];
+				this.keys.put(key(this.types[live], this.ids[live]), live);
+				live++;
+			}
+		}
+		Arrays.fill(this.texts, live, this.entryCount, null);
+		Arrays.fill(this.labels, live, this.entryCount, null);
+		Iterator<Entries> lists = this.trigrams.values().iterator();
+		while (lists.hasNext()) {
+			if (0 == lists.next().renumber(renumbered)) {
+				lists.remove();
+			}
+		}
+		this.entryCount = live;
+		this.deadCount = 0;
+	}
+
+	private static Set<String> trigrams(String text) {
+		Set<String> trigrams = new HashSet<>();
+		for (String word : text.split(" ")) {
+			String padded = PADDING + word;
+			for (int i = 0; i + 3 <= padded.length(); i++) {
+				trigrams.add(padded.substring(i, i + 3));
+			}
+		}
+		return trigrams;
+	}
+
+	private static long key(String type, int id) {
+		return (Suggestion.NOTE.equals(type) ? 0L : 1L << 32) | (id & 0xffffffffL);
+	}
+
+	/*
+	 * The entries containing a trigram, in ascending order
+	 */
+	private static final class Entries {
+
+		private int[] entries = new int[2];
+		private int size;
+
+		void add(int entry) {
+			if (this.size == this.entries.length) {
+				this.entries = Arrays.copyOf(this.entries, this.size * 2);
+			}
+			this.entries[this.size++] = entry;
+		}
+
+		int renumber(int[] renumbered) {
+			int kept = 0;
+			for (int i = 0; i < this.size; i++) {
+				if (renumbered[this.entries[i]] >= 0) {
+					this.entries[kept++] = renumbered[this.entries[i]];
+				}
+			}
+			this.size = kept;
+			return kept;
+		}
+
+	}
+
+}
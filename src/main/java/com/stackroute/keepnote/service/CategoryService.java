@@ -1,9 +1,14 @@
 package com.stackroute.keepnote.service;
 
 import java.util.List;
+import java.util.Map;
 
+import com.stackroute.keepnote.cache.ListVersion;
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
+import com.stackroute.keepnote.model.BatchItemResult;
 import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.FieldSelection;
+import com.stackroute.keepnote.model.KeysetPage;
 
 public interface CategoryService {
 
@@ -13,12 +18,27 @@ public interface CategoryService {
 	 */
 	public boolean createCategory(Category category);
 
+	public List<BatchItemResult> createCategories(List<Category> categories, String userId);
+
 	public boolean deleteCategory(int noteId);
 
+	public boolean deleteCategory(int categoryId, String userId) throws CategoryNotFoundException;
+
 	public Category updateCategory(Category category, int id) throws CategoryNotFoundException;
 
+	public Category updateCategory(Category category, int id, String userId) throws CategoryNotFoundException;
+
 	public Category getCategoryById(int categoryId) throws CategoryNotFoundException;
 
 	public List<Category> getAllCategoryByUserId(String userId);
 
+	public ListVersion getCategoriesVersion(String userId);
+
+	public KeysetPage<Category> getCategoriesByUserId(String userId, String after, Integer limit);
+
+	public List<Map<String, Object>> getCategoryFieldsByUserId(String userId, FieldSelection fields);
+
+	public KeysetPage<Map<String, Object>> getCategoryFieldsByUserId(String userId, FieldSelection fields,
+			String after, Integer limit);
+
 }
@@ -1,13 +1,24 @@
 package com.stackroute.keepnote.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.stackroute.keepnote.cache.ListVersion;
+import com.stackroute.keepnote.cache.UserListCache;
 import com.stackroute.keepnote.dao.CategoryDAO;
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
+import com.stackroute.keepnote.model.BatchItemResult;
 import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.FieldSelection;
+import com.stackroute.keepnote.model.KeysetPage;
+import com.stackroute.keepnote.search.NoteSuggestIndex;
 
 /*
 * Service classes are used here to implement additional business logic/validation 
@@ -17,8 +28,11 @@ import com.stackroute.keepnote.model.Category;
 * to use @Service over @Component in service-layer classes because it specifies intent 
 * better. Additionally, tool support and additional behavior might rely on it in the 
 * future.
+* @Transactional - Transactions start here rather than in the DAO; the getters are 
+* read-only.
 * */
 @Service
+@Transactional(rollbackFor = Exception.class)
 public class CategoryServiceImpl implements CategoryService {
 	/*
 	 * Autowiring should be implemented for the CategoryDAO. (Use Constructor-based
@@ -27,10 +41,14 @@ public class CategoryServiceImpl implements CategoryService {
 	 */
 
 	private final CategoryDAO categoryDAO;
+	private final NoteSuggestIndex suggestIndex;
+	private final UserListCache listCache;
 
 	@Autowired
-	public CategoryServiceImpl(CategoryDAO categoryDAO) {
+	public CategoryServiceImpl(CategoryDAO categoryDAO, NoteSuggestIndex suggestIndex, UserListCache listCache) {
 		this.categoryDAO = categoryDAO;
+		this.suggestIndex = suggestIndex;
+		this.listCache = listCache;
 	}
 
 	/*
@@ -40,20 +58,69 @@ public class CategoryServiceImpl implements CategoryService {
 		boolean flag = Boolean.TRUE;
 		if (!this.categoryDAO.createCategory(category)) {
 			flag = Boolean.FALSE;
+		} else {
+			this.suggestIndex.putCategory(category.getCategoryCreatedBy(), category.getCategoryId(),
+					category.getCategoryName());
+			this.listCache.invalidateCategories(category.getCategoryCreatedBy());
 		}
 		return flag;
 	}
 
+	/*
+	 * This method should be used to save several categories of the given user in
+	 * one batch. Empty items are rejected, results are returned in request order.
+	 */
+	public List<BatchItemResult> createCategories(List<Category> categories, String userId) {
+		BatchItemResult[] results = new BatchItemResult[categories.size()];
+		List<Category> accepted = new ArrayList<>(categories.size());
+		for (int i = 0; i < categories.size(); i++) {
+			Category category = categories.get(i);
+			if (null == category) {
+				results[i] = BatchItemResult.rejected(i, "invalid category");
+			} else {
+				category.setCategoryCreatedBy(userId);
+				accepted.add(category);
+			}
+		}
+		this.categoryDAO.createCategories(accepted);
+		accepted.forEach(category -> this.suggestIndex.putCategory(userId, category.getCategoryId(),
+				category.getCategoryName()));
+		this.listCache.invalidateCategories(userId);
+		for (int i = 0; i < categories.size(); i++) {
+			if (null == results[i]) {
+				results[i] = BatchItemResult.created(i, categories.get(i).getCategoryId());
+			}
+		}
+		return Arrays.asList(results);
+	}
+
 	/* This method should be used to delete an existing category. */
 	public boolean deleteCategory(int categoryId) {
 		boolean flag = Boolean.TRUE;
 		if (!this.categoryDAO.deleteCategory(categoryId)) {
 			flag = Boolean.FALSE;
+		} else {
+			this.suggestIndex.removeCategory(categoryId);
+			this.listCache.invalidateCategories(null);
 		}
 		return flag;
 
 	}
 
+	/*
+	 * This method should be used to delete an existing category owned by the given
+	 * user, in a single statement.
+	 */
+	public boolean deleteCategory(int categoryId, String userId) throws CategoryNotFoundException {
+		if (0 == this.categoryDAO.deleteCategoryByOwner(categoryId, userId)) {
+			throw new CategoryNotFoundException("category not found exception");
+		}
+		this.suggestIndex.removeCategory(userId, categoryId);
+		this.listCache.invalidateCategories(userId);
+		return Boolean.TRUE;
+
+	}
+
 	/*
 	 * This method should be used to update a existing category.
 	 */
@@ -62,6 +129,9 @@ public class CategoryServiceImpl implements CategoryService {
 		Category oldCategory = this.categoryDAO.getCategoryById(id);
 		if (null != oldCategory) {
 			this.categoryDAO.updateCategory(category);
+			this.suggestIndex.putCategory(category.getCategoryCreatedBy(), category.getCategoryId(),
+					category.getCategoryName());
+			this.listCache.invalidateCategories(category.getCategoryCreatedBy());
 		} else {
 			throw new CategoryNotFoundException("category not found exception");
 		}
@@ -70,9 +140,26 @@ public class CategoryServiceImpl implements CategoryService {
 
 	}
 
+	/*
+	 * This method should be used to update an existing category owned by the given
+	 * user, in a single statement.
+	 */
+
+	public Category updateCategory(Category category, int id, String userId) throws CategoryNotFoundException {
+		category.setCategoryId(id);
+		if (0 == this.categoryDAO.updateCategoryByOwner(category, userId)) {
+			throw new CategoryNotFoundException("category not found exception");
+		}
+		this.suggestIndex.putCategory(userId, id, category.getCategoryName());
+		this.listCache.invalidateCategories(userId);
+		return category;
+
+	}
+
 	/*
 	 * This method should be used to get a category by categoryId.
 	 */
+	@Transactional(readOnly = true)
 	public Category getCategoryById(int categoryId) throws CategoryNotFoundException {
 		Category category = this.categoryDAO.getCategoryById(categoryId);
 		if (null == category) {
@@ -83,11 +170,66 @@ public class CategoryServiceImpl implements CategoryService {
 	}
 
 	/*
-	 * This method should be used to get a category by userId.
+	 * This method should be used to get a category by userId, through the list
+	 * cache.
 	 */
 
+	@Transactional(readOnly = true)
 	public List<Category> getAllCategoryByUserId(String userId) {
-		return this.categoryDAO.getAllCategoryByUserId(userId);
+		return this.listCache.getCategories().get(userId, this.categoryDAO::getAllCategoryByUserId);
+
+	}
+
+	/*
+	 * This method should be used to get the version of the categories of a user,
+	 * from memory.
+	 */
+
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public ListVersion getCategoriesVersion(String userId) {
+		return this.listCache.getCategories().getVersion(userId);
+
+	}
+
+	/*
+	 * This method should be used to get one page of categories by userId. One row
+	 * more than the limit is fetched to find out whether a next page exists.
+	 */
+
+	@Transactional(readOnly = true)
+	public KeysetPage<Category> getCategoriesByUserId(String userId, String after, Integer limit) {
+		int afterCategoryId = KeysetPage.decodeCursor(after);
+		int pageSize = KeysetPage.clampLimit(limit);
+		List<Category> categories = this.categoryDAO.getCategoriesByUserIdAfter(userId, afterCategoryId,
+				pageSize + 1);
+		return KeysetPage.of(categories, pageSize, Category::getCategoryId);
+
+	}
+
+	/*
+	 * This method should be used to get the selected fields of all categories by
+	 * userId.
+	 */
+
+	@Transactional(readOnly = true)
+	public List<Map<String, Object>> getCategoryFieldsByUserId(String userId, FieldSelection fields) {
+		return this.categoryDAO.getCategoryFieldsByUserId(userId, fields, 0, 0);
+
+	}
+
+	/*
+	 * This method should be used to get one page of the selected fields of the
+	 * categories by userId, the id being always selected.
+	 */
+
+	@Transactional(readOnly = true)
+	public KeysetPage<Map<String, Object>> getCategoryFieldsByUserId(String userId, FieldSelection fields,
+			String after, Integer limit) {
+		int afterCategoryId = KeysetPage.decodeCursor(after);
+		int pageSize = KeysetPage.clampLimit(limit);
+		List<Map<String, Object>> rows = this.categoryDAO.getCategoryFieldsByUserId(userId, fields, afterCategoryId,
+				pageSize + 1);
+		return KeysetPage.of(rows, pageSize, row -> (Integer) row.get("categoryId"));
 
 	}
 
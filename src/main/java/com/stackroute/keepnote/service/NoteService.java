@@ -1,11 +1,22 @@
 package com.stackroute.keepnote.service;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import com.stackroute.keepnote.cache.ListVersion;
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
 import com.stackroute.keepnote.exception.NoteNotFoundException;
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
+import com.stackroute.keepnote.model.BatchItemResult;
+import com.stackroute.keepnote.model.FieldSelection;
+import com.stackroute.keepnote.model.ImportSummary;
+import com.stackroute.keepnote.model.KeysetPage;
 import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.NoteSearchHit;
+import com.stackroute.keepnote.model.NoteSummary;
+import com.stackroute.keepnote.model.Suggestion;
 
 public interface NoteService {
 	/*
@@ -14,12 +25,40 @@ public interface NoteService {
 	 */
 	public boolean createNote(Note note) throws ReminderNotFoundException, CategoryNotFoundException;
 
+	public List<BatchItemResult> createNotes(List<Note> notes, String userId);
+
+	public ImportSummary importNotes(Iterator<Note> notes, String userId, int chunkSize);
+
 	public boolean deleteNote(int noteId)throws NoteNotFoundException;
 
+	public boolean deleteNote(int noteId, String userId) throws NoteNotFoundException;
+
 	public List<Note> getAllNotesByUserId(String userId);
 
+	public ListVersion getNotesVersion(String userId);
+
+	public KeysetPage<Note> getNotesByUserId(String userId, String after, Integer limit);
+
+	public List<NoteSummary> getNoteSummariesByUserId(String userId);
+
+	public List<NoteSearchHit> searchNotes(String userId, String query, int limit);
+
+	public List<Suggestion> suggest(String userId, String prefix, int limit);
+
+	public void exportNotesByUserId(String userId, Consumer<Note> consumer);
+
+	public KeysetPage<NoteSummary> getNoteSummariesByUserId(String userId, String after, Integer limit);
+
+	public List<Map<String, Object>> getNoteFieldsByUserId(String userId, FieldSelection fields);
+
+	public KeysetPage<Map<String, Object>> getNoteFieldsByUserId(String userId, FieldSelection fields,
+			String after, Integer limit);
+
 	public Note getNoteById(int noteId) throws NoteNotFoundException;
 
 	public Note updateNote(Note note, int id)
 			throws ReminderNotFoundException, NoteNotFoundException, CategoryNotFoundException;
+
+	public Note updateNote(Note note, int id, String userId)
+			throws ReminderNotFoundException, NoteNotFoundException, CategoryNotFoundException;
 }
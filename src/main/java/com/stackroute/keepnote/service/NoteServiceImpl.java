@@ -1,18 +1,46 @@
 package com.stackroute.keepnote.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.stackroute.keepnote.cache.ListVersion;
+import com.stackroute.keepnote.cache.NoteJsonCache;
+import com.stackroute.keepnote.cache.UserListCache;
 import com.stackroute.keepnote.dao.CategoryDAO;
 import com.stackroute.keepnote.dao.NoteDAO;
 import com.stackroute.keepnote.dao.ReminderDAO;
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
 import com.stackroute.keepnote.exception.NoteNotFoundException;
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
+import com.stackroute.keepnote.model.BatchItemResult;
 import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.FieldSelection;
+import com.stackroute.keepnote.model.ImportSummary;
+import com.stackroute.keepnote.model.KeysetPage;
 import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.NoteSearchHit;
+import com.stackroute.keepnote.model.NoteSummary;
 import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.Suggestion;
+import com.stackroute.keepnote.search.Highlighter;
+import com.stackroute.keepnote.search.NoteSearchIndex;
+import com.stackroute.keepnote.search.NoteSuggestIndex;
+import com.stackroute.keepnote.search.Tokenizer;
+import com.stackroute.keepnote.search.UserNoteIndex;
 
 /*
 * Service classes are used here to implement additional business logic/validation 
@@ -22,14 +50,20 @@ import com.stackroute.keepnote.model.Reminder;
 * to use @Service over @Component in service-layer classes because it specifies intent 
 * better. Additionally, tool support and additional behavior might rely on it in the 
 * future.
+* @Transactional - Each service method runs in one transaction, so the checks and the 
+* write it issues share a single connection and are flushed once at commit. The 
+* read methods run read-only (no flush, read-only JDBC connection).
 * */
 
 @Service
+@Transactional(rollbackFor = Exception.class)
 public class NoteServiceImpl implements NoteService {
 
 	private static final String REM_EXP_MSG = "reminder not found exception";
 	private static final String CAT_EXP_MSG = "category not found exception";
 	private static final String NOTE_EXP_MSG = "note not found exception";
+	private static final String INVALID_MSG = "invalid note";
+	private static final int SNIPPET_LENGTH = 160;
 
 	/*
 	 * Autowiring should be implemented for the NoteDAO,CategoryDAO,ReminderDAO.
@@ -40,11 +74,21 @@ public class NoteServiceImpl implements NoteService {
 	private final NoteDAO noteDAO;
 	private final CategoryDAO categoryDAO;
 	private final ReminderDAO reminderDAO;
+	private final NoteSearchIndex searchIndex;
+	private final NoteSuggestIndex suggestIndex;
+	private final UserListCache listCache;
+	private final NoteJsonCache noteJsonCache;
 
-	public NoteServiceImpl(NoteDAO noteDAO, CategoryDAO categoryDAO, ReminderDAO reminderDAO) {
+	public NoteServiceImpl(NoteDAO noteDAO, CategoryDAO categoryDAO, ReminderDAO reminderDAO,
+			NoteSearchIndex searchIndex, NoteSuggestIndex suggestIndex, UserListCache listCache,
+			NoteJsonCache noteJsonCache) {
 		this.noteDAO = noteDAO;
 		this.categoryDAO = categoryDAO;
 		this.reminderDAO = reminderDAO;
+		this.searchIndex = searchIndex;
+		this.suggestIndex = suggestIndex;
+		this.listCache = listCache;
+		this.noteJsonCache = noteJsonCache;
 	}
 
 	/*
@@ -66,7 +110,131 @@ public class NoteServiceImpl implements NoteService {
 		} catch (CategoryNotFoundException e) {
 			throw new CategoryNotFoundException(CAT_EXP_MSG);
 		}
-		return this.noteDAO.createNote(note);
+		boolean created = this.noteDAO.createNote(note);
+		this.indexNote(note.getCreatedBy(), note);
+		this.listCache.invalidateNotes(note.getCreatedBy());
+		return created;
+	}
+
+	/*
+	 * This method should be used to save several notes of the given user. The
+	 * referenced reminders and categories of all notes are checked with one query
+	 * each, notes referring to a missing one are rejected and the others are
+	 * inserted together. Results are returned in the order of the notes.
+	 */
+
+	public List<BatchItemResult> createNotes(List<Note> notes, String userId) {
+		BatchItemResult[] results = new BatchItemResult[notes.size()];
+		List<Note> accepted = this.acceptNotes(notes, userId, results);
+		this.noteDAO.createNotes(accepted);
+		accepted.forEach(note -> this.indexNote(userId, note));
+		this.listCache.invalidateNotes(userId);
+		for (int i = 0; i < notes.size(); i++) {
+			if (null == results[i]) {
+				results[i] = BatchItemResult.created(i, notes.get(i).getNoteId());
+			}
+		}
+		return Arrays.asList(results);
+
+	}
+
+	/*
+	 * This method should be used to import a stream of notes of the given user. The
+	 * notes are read one at a time and stored in chunks of chunkSize notes, each
+	 * chunk in a transaction of its own, so only one chunk is held in memory and a
+	 * failure keeps the chunks stored before it. When a note cannot be read, the
+	 * notes read before it are stored and the import stops there.
+	 */
+
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public ImportSummary importNotes(Iterator<Note> notes, String userId, int chunkSize) {
+		ImportSummary summary = new ImportSummary();
+		List<Note> chunk = new ArrayList<>(chunkSize);
+		int read = 0;
+		while (summary.isComplete()) {
+			try {
+				if (!notes.hasNext()) {
+					break;
+				}
+				chunk.add(notes.next());
+			} catch (RuntimeException e) {
+				summary.fail(read, INVALID_MSG);
+				break;
+			}
+			read++;
+			if (chunk.size() == chunkSize) {
+				this.importChunk(chunk, read - chunk.size(), userId, summary);
+				chunk = new ArrayList<>(chunkSize);
+			}
+		}
+		if (!chunk.isEmpty()) {
+			this.importChunk(chunk, read - chunk.size(), userId, summary);
+		}
+		return summary;
+
+	}
+
+	private void importChunk(List<Note> chunk, int firstIndex, String userId, ImportSummary summary) {
+		BatchItemResult[] results = new BatchItemResult[chunk.size()];
+		List<Note> accepted = this.acceptNotes(chunk, userId, results);
+		if (!accepted.isEmpty()) {
+			this.noteDAO.insertNotes(accepted);
+			accepted.forEach(note -> this.indexNote(userId, note));
+			this.listCache.invalidateNotes(userId);
+		}
+		summary.addChunk(accepted.size());
+		for (BatchItemResult result : results) {
+			if (null != result) {
+				result.setIndex(firstIndex + result.getIndex());
+				summary.addRejected(result);
+			}
+		}
+	}
+
+	/*
+	 * Check the reminders and categories referenced by the notes with one query
+	 * each. Notes referring to a missing one get a rejected result at their
+	 * position, the others are returned, owned by the given user.
+	 */
+	private List<Note> acceptNotes(List<Note> notes, String userId, BatchItemResult[] results) {
+		Set<Integer> reminderIds = new HashSet<>();
+		Set<Integer> categoryIds = new HashSet<>();
+		for (Note note : notes) {
+			if (null != note && null != note.getReminder()) {
+				reminderIds.add(note.getReminder().getReminderId());
+			}
+			if (null != note && null != note.getCategory()) {
+				categoryIds.add(note.getCategory().getCategoryId());
+			}
+		}
+		Set<Integer> existingReminderIds = new HashSet<>();
+		if (!reminderIds.isEmpty()) {
+			this.reminderDAO.getRemindersByIds(userId, reminderIds)
+					.forEach(reminder -> existingReminderIds.add(reminder.getReminderId()));
+		}
+		Set<Integer> existingCategoryIds = new HashSet<>();
+		if (!categoryIds.isEmpty()) {
+			this.categoryDAO.getCategoriesByIds(userId, categoryIds)
+					.forEach(category -> existingCategoryIds.add(category.getCategoryId()));
+		}
+
+		List<Note> accepted = new ArrayList<>(notes.size());
+		for (int i = 0; i < notes.size(); i++) {
+			Note note = notes.get(i);
+			if (null == note) {
+				results[i] = BatchItemResult.rejected(i, INVALID_MSG);
+			} else if (null != note.getReminder()
+					&& !existingReminderIds.contains(note.getReminder().getReminderId())) {
+				results[i] = BatchItemResult.rejected(i, REM_EXP_MSG);
+			} else if (null != note.getCategory()
+					&& !existingCategoryIds.contains(note.getCategory().getCategoryId())) {
+				results[i] = BatchItemResult.rejected(i, CAT_EXP_MSG);
+			} else {
+				note.setCreatedBy(userId);
+				accepted.add(note);
+			}
+		}
+		return accepted;
 	}
 
 	/* This method should be used to delete an existing note. */
@@ -77,24 +245,191 @@ public class NoteServiceImpl implements NoteService {
 			if (!this.noteDAO.deleteNote(noteId)) {
 				throw new NoteNotFoundException(NOTE_EXP_MSG);
 			}
+			this.searchIndex.remove(noteId);
+			this.suggestIndex.removeNote(noteId);
+			this.listCache.invalidateNotes(null);
+			this.noteJsonCache.invalidate(noteId);
 		} catch (NoteNotFoundException e) {
 			flag = Boolean.FALSE;
 		}
 		return flag;
 
 	}
+
 	/*
-	 * This method should be used to get a note by userId.
+	 * This method should be used to delete an existing note owned by the given
+	 * user. The note is deleted in a single statement, and no deleted row means
+	 * the note does not exist for this user.
 	 */
 
+	public boolean deleteNote(int noteId, String userId) throws NoteNotFoundException {
+		if (0 == this.noteDAO.deleteNoteByOwner(noteId, userId)) {
+			throw new NoteNotFoundException(NOTE_EXP_MSG);
+		}
+		this.unindexNote(userId, noteId);
+		this.listCache.invalidateNotes(userId);
+		this.noteJsonCache.invalidate(noteId);
+		return Boolean.TRUE;
+
+	}
+
+	/*
+	 * This method should be used to get a note by userId. The list is served from
+	 * the list cache, which every note write of the user invalidates.
+	 */
+
+	@Transactional(readOnly = true)
 	public List<Note> getAllNotesByUserId(String userId) {
-		return this.noteDAO.getAllNotesByUserId(userId);
+		return this.listCache.getNotes().get(userId, this.noteDAO::getAllNotesByUserId);
+
+	}
+
+	/*
+	 * This method should be used to get the version of the notes of a user, which
+	 * changes with every note write of the user. It is read from memory, without
+	 * a transaction.
+	 */
+
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public ListVersion getNotesVersion(String userId) {
+		return this.listCache.getNotes().getVersion(userId);
+
+	}
+
+	/*
+	 * This method should be used to get one page of notes by userId. One row more
+	 * than the limit is fetched to find out whether a next page exists.
+	 */
+
+	@Transactional(readOnly = true)
+	public KeysetPage<Note> getNotesByUserId(String userId, String after, Integer limit) {
+		int afterNoteId = KeysetPage.decodeCursor(after);
+		int pageSize = KeysetPage.clampLimit(limit);
+		List<Note> notes = this.noteDAO.getNotesByUserIdAfter(userId, afterNoteId, pageSize + 1);
+		return KeysetPage.of(notes, pageSize, Note::getNoteId);
+
+	}
+
+	/*
+	 * This method should be used to get the summary of all notes by userId.
+	 */
+
+	@Transactional(readOnly = true)
+	public List<NoteSummary> getNoteSummariesByUserId(String userId) {
+		return this.noteDAO.getNoteSummariesByUserId(userId);
+
+	}
+
+	/*
+	 * This method should be used to get one page of note summaries by userId.
+	 */
+
+	@Transactional(readOnly = true)
+	public KeysetPage<NoteSummary> getNoteSummariesByUserId(String userId, String after, Integer limit) {
+		int afterNoteId = KeysetPage.decodeCursor(after);
+		int pageSize = KeysetPage.clampLimit(limit);
+		List<NoteSummary> summaries = this.noteDAO.getNoteSummariesByUserIdAfter(userId, afterNoteId, pageSize + 1);
+		return KeysetPage.of(summaries, pageSize, NoteSummary::getNoteId);
+
+	}
+
+	/*
+	 * This method should be used to get the selected fields of all notes by
+	 * userId.
+	 */
+
+	@Transactional(readOnly = true)
+	public List<Map<String, Object>> getNoteFieldsByUserId(String userId, FieldSelection fields) {
+		return this.noteDAO.getNoteFieldsByUserId(userId, fields, 0, 0);
+
+	}
+
+	/*
+	 * This method should be used to get one page of the selected fields of the
+	 * notes by userId, the id being always selected.
+	 */
+
+	@Transactional(readOnly = true)
+	public KeysetPage<Map<String, Object>> getNoteFieldsByUserId(String userId, FieldSelection fields,
+			String after, Integer limit) {
+		int afterNoteId = KeysetPage.decodeCursor(after);
+		int pageSize = KeysetPage.clampLimit(limit);
+		List<Map<String, Object>> rows = this.noteDAO.getNoteFieldsByUserId(userId, fields, afterNoteId,
+				pageSize + 1);
+		return KeysetPage.of(rows, pageSize, row -> (Integer) row.get("noteId"));
+
+	}
+
+	/*
+	 * This method should be used to search the notes of a user. The ranked noteIds
+	 * come from the search index, and only the notes of the returned hits are read
+	 * from the database to build their highlighted title and snippet. A note
+	 * deleted since it was ranked is left out.
+	 */
+
+	@Transactional(readOnly = true)
+	public List<NoteSearchHit> searchNotes(String userId, String query, int limit) {
+		Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+		if (terms.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<UserNoteIndex.Hit> hits = this.searchIndex.search(userId, terms, limit,
+				consumer -> this.noteDAO.streamNotesByUserId(userId, consumer));
+		if (hits.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Map<Integer, Note> notes = new HashMap<>();
+		for (Note note : this.noteDAO.getNotesByIds(userId,
+				hits.stream().map(UserNoteIndex.Hit::getNoteId).collect(Collectors.toList()))) {
+			notes.put(note.getNoteId(), note);
+		}
+		List<NoteSearchHit> results = new ArrayList<>(hits.size());
+		for (UserNoteIndex.Hit hit : hits) {
+			Note note = notes.get(hit.getNoteId());
+			if (null != note) {
+				results.add(new NoteSearchHit(note.getNoteId(), Highlighter.highlight(note.getNoteTitle(), terms),
+						Highlighter.snippet(note.getNoteContent(), terms, SNIPPET_LENGTH), hit.getScore()));
+			}
+		}
+		return results;
+
+	}
+
+	/*
+	 * This method should be used to suggest the notes and categories of a user
+	 * whose title or name has a word starting with the prefix, tolerating typos.
+	 * The suggestion index of the user is loaded from the note summaries and the
+	 * categories the first time.
+	 */
+
+	@Transactional(readOnly = true)
+	public List<Suggestion> suggest(String userId, String prefix, int limit) {
+		return this.suggestIndex.suggest(userId, prefix, limit, index -> {
+			for (NoteSummary summary : this.noteDAO.getNoteSummariesByUserId(userId)) {
+				index.putNote(summary.getNoteId(), summary.getNoteTitle());
+			}
+			for (Category category : this.categoryDAO.getAllCategoryByUserId(userId)) {
+				index.putCategory(category.getCategoryId(), category.getCategoryName());
+			}
+		});
+
+	}
+
+	/*
+	 * This method should be used to export all notes of a user. The notes are
+	 * handed to the consumer while they are read, instead of being collected.
+	 */
+
+	@Transactional(readOnly = true)
+	public void exportNotesByUserId(String userId, Consumer<Note> consumer) {
+		this.noteDAO.streamNotesByUserId(userId, consumer);
 
 	}
 
 	/*
 	 * This method should be used to get a note by noteId.
 	 */
+	@Transactional(readOnly = true)
 	public Note getNoteById(int noteId) throws NoteNotFoundException {
 		Note note = this.noteDAO.getNoteById(noteId);
 		if (null == note) {
@@ -124,6 +459,9 @@ public class NoteServiceImpl implements NoteService {
 				this.categoryDAO.getCategoryById(category.getCategoryId());
 			}
 			this.noteDAO.UpdateNote(note);
+			this.indexNote(note.getCreatedBy(), note);
+			this.listCache.invalidateNotes(note.getCreatedBy());
+			this.noteJsonCache.invalidate(id);
 		} catch (ReminderNotFoundException e) {
 			throw new ReminderNotFoundException(REM_EXP_MSG);
 		} catch (CategoryNotFoundException e) {
@@ -134,4 +472,51 @@ public class NoteServiceImpl implements NoteService {
 
 	}
 
+	/*
+	 * This method should be used to update an existing note owned by the given
+	 * user. The note is updated in a single statement, and no updated row means the
+	 * note does not exist for this user.
+	 */
+
+	public Note updateNote(Note note, int id, String userId)
+			throws ReminderNotFoundException, NoteNotFoundException, CategoryNotFoundException {
+		Reminder reminder = note.getReminder();
+		Category category = note.getCategory();
+		try {
+			if (null != reminder) {
+				this.reminderDAO.getReminderById(reminder.getReminderId());
+			}
+			if (null != category) {
+				this.categoryDAO.getCategoryById(category.getCategoryId());
+			}
+		} catch (ReminderNotFoundException e) {
+			throw new ReminderNotFoundException(REM_EXP_MSG);
+		} catch (CategoryNotFoundException e) {
+			throw new CategoryNotFoundException(CAT_EXP_MSG);
+		}
+		note.setNoteId(id);
+		if (0 == this.noteDAO.updateNoteByOwner(note, userId)) {
+			throw new NoteNotFoundException(NOTE_EXP_MSG);
+		}
+		this.indexNote(userId, note);
+		this.listCache.invalidateNotes(userId);
+		this.noteJsonCache.invalidate(id);
+		return note;
+
+	}
+
+	/*
+	 * Bring the search and suggestion indexes up to date with a written note, once
+	 * the transaction commits
+	 */
+	private void indexNote(String userId, Note note) {
+		this.searchIndex.index(userId, note);
+		this.suggestIndex.putNote(userId, note.getNoteId(), note.getNoteTitle());
+	}
+
+	private void unindexNote(String userId, int noteId) {
+		this.searchIndex.remove(userId, noteId);
+		this.suggestIndex.removeNote(userId, noteId);
+	}
+
 }
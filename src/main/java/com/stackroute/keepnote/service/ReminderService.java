@@ -1,8 +1,13 @@
 package com.stackroute.keepnote.service;
 
 import java.util.List;
+import java.util.Map;
 
+import com.stackroute.keepnote.cache.ListVersion;
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
+import com.stackroute.keepnote.model.BatchItemResult;
+import com.stackroute.keepnote.model.FieldSelection;
+import com.stackroute.keepnote.model.KeysetPage;
 import com.stackroute.keepnote.model.Reminder;
 
 public interface ReminderService {
@@ -12,11 +17,26 @@ public interface ReminderService {
 	 */
 	public boolean createReminder(Reminder reminder);
 
+	public List<BatchItemResult> createReminders(List<Reminder> reminders, String userId);
+
 	public Reminder updateReminder(Reminder reminder, int id) throws ReminderNotFoundException;
 
+	public Reminder updateReminder(Reminder reminder, int id, String userId) throws ReminderNotFoundException;
+
 	public boolean deleteReminder(int reminderId);
 
+	public boolean deleteReminder(int reminderId, String userId) throws ReminderNotFoundException;
+
 	public Reminder getReminderById(int reminderId) throws ReminderNotFoundException;
 
 	public List<Reminder> getAllReminderByUserId(String userId);
+
+	public ListVersion getRemindersVersion(String userId);
+
+	public KeysetPage<Reminder> getRemindersByUserId(String userId, String after, Integer limit);
+
+	public List<Map<String, Object>> getReminderFieldsByUserId(String userId, FieldSelection fields);
+
+	public KeysetPage<Map<String, Object>> getReminderFieldsByUserId(String userId, FieldSelection fields,
+			String after, Integer limit);
 }
@@ -1,12 +1,22 @@
 package com.stackroute.keepnote.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.stackroute.keepnote.cache.ListVersion;
+import com.stackroute.keepnote.cache.UserListCache;
 import com.stackroute.keepnote.dao.ReminderDAO;
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
+import com.stackroute.keepnote.model.BatchItemResult;
+import com.stackroute.keepnote.model.FieldSelection;
+import com.stackroute.keepnote.model.KeysetPage;
 import com.stackroute.keepnote.model.Reminder;
 
 /*
@@ -17,9 +27,11 @@ import com.stackroute.keepnote.model.Reminder;
 * to use @Service over @Component in service-layer classes because it specifies intent 
 * better. Additionally, tool support and additional behavior might rely on it in the 
 * future.
+* @Transactional - One transaction per service call, read-only for the getters.
 * */
 
 @Service
+@Transactional(rollbackFor = Exception.class)
 public class ReminderServiceImpl implements ReminderService {
 
 	/*
@@ -29,10 +41,12 @@ public class ReminderServiceImpl implements ReminderService {
 	 */
 
 	private final ReminderDAO reminderDAO;
+	private final UserListCache listCache;
 
 	@Autowired
-	public ReminderServiceImpl(ReminderDAO reminderDAO) {
+	public ReminderServiceImpl(ReminderDAO reminderDAO, UserListCache listCache) {
 		this.reminderDAO = reminderDAO;
+		this.listCache = listCache;
 	}
 
 	/*
@@ -43,11 +57,40 @@ public class ReminderServiceImpl implements ReminderService {
 		boolean flag = Boolean.FALSE;
 		if (this.reminderDAO.createReminder(reminder)) {
 			flag = Boolean.TRUE;
+			this.listCache.invalidateReminders(reminder.getReminderCreatedBy());
 		}
 		return flag;
 
 	}
 
+	/*
+	 * This method should be used to save several reminders of the given user in
+	 * one batch. Empty items are rejected, results are returned in request order.
+	 */
+
+	public List<BatchItemResult> createReminders(List<Reminder> reminders, String userId) {
+		BatchItemResult[] results = new BatchItemResult[reminders.size()];
+		List<Reminder> accepted = new ArrayList<>(reminders.size());
+		for (int i = 0; i < reminders.size(); i++) {
+			Reminder reminder = reminders.get(i);
+			if (null == reminder) {
+				results[i] = BatchItemResult.rejected(i, "invalid reminder");
+			} else {
+				reminder.setReminderCreatedBy(userId);
+				accepted.add(reminder);
+			}
+		}
+		this.reminderDAO.createReminders(accepted);
+		this.listCache.invalidateReminders(userId);
+		for (int i = 0; i < reminders.size(); i++) {
+			if (null == results[i]) {
+				results[i] = BatchItemResult.created(i, reminders.get(i).getReminderId());
+			}
+		}
+		return Arrays.asList(results);
+
+	}
+
 	/*
 	 * This method should be used to update a existing reminder.
 	 */
@@ -58,7 +101,22 @@ public class ReminderServiceImpl implements ReminderService {
 			throw new ReminderNotFoundException("reminder not found exception");
 		} else {
 			this.reminderDAO.updateReminder(reminder);
+			this.listCache.invalidateReminders(reminder.getReminderCreatedBy());
+		}
+		return reminder;
+	}
+
+	/*
+	 * This method should be used to update an existing reminder owned by the given
+	 * user, in a single statement.
+	 */
+
+	public Reminder updateReminder(Reminder reminder, int id, String userId) throws ReminderNotFoundException {
+		reminder.setReminderId(id);
+		if (0 == this.reminderDAO.updateReminderByOwner(reminder, userId)) {
+			throw new ReminderNotFoundException("reminder not found exception");
 		}
+		this.listCache.invalidateReminders(userId);
 		return reminder;
 	}
 
@@ -68,14 +126,29 @@ public class ReminderServiceImpl implements ReminderService {
 		boolean flag = Boolean.FALSE;
 		if (this.reminderDAO.deleteReminder(reminderId)) {
 			flag = Boolean.TRUE;
+			this.listCache.invalidateReminders(null);
 		}
 		return flag;
 	}
 
+	/*
+	 * This method should be used to delete an existing reminder owned by the given
+	 * user, in a single statement.
+	 */
+
+	public boolean deleteReminder(int reminderId, String userId) throws ReminderNotFoundException {
+		if (0 == this.reminderDAO.deleteReminderByOwner(reminderId, userId)) {
+			throw new ReminderNotFoundException("reminder not found exception");
+		}
+		this.listCache.invalidateReminders(userId);
+		return Boolean.TRUE;
+	}
+
 	/*
 	 * This method should be used to get a reminder by reminderId.
 	 */
 
+	@Transactional(readOnly = true)
 	public Reminder getReminderById(int reminderId) throws ReminderNotFoundException {
 		Reminder reminder = this.reminderDAO.getReminderById(reminderId);
 		if (null == reminder) {
@@ -86,11 +159,66 @@ public class ReminderServiceImpl implements ReminderService {
 	}
 
 	/*
-	 * This method should be used to get a reminder by userId.
+	 * This method should be used to get a reminder by userId, served from the list
+	 * cache.
 	 */
 
+	@Transactional(readOnly = true)
 	public List<Reminder> getAllReminderByUserId(String userId) {
-		return this.reminderDAO.getAllReminderByUserId(userId);
+		return this.listCache.getReminders().get(userId, this.reminderDAO::getAllReminderByUserId);
+
+	}
+
+	/*
+	 * This method should be used to get the version of the reminders of a user,
+	 * from memory.
+	 */
+
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public ListVersion getRemindersVersion(String userId) {
+		return this.listCache.getReminders().getVersion(userId);
+
+	}
+
+	/*
+	 * This method should be used to get one page of reminders by userId. One row
+	 * more than the limit is fetched to find out whether a next page exists.
+	 */
+
+	@Transactional(readOnly = true)
+	public KeysetPage<Reminder> getRemindersByUserId(String userId, String after, Integer limit) {
+		int afterReminderId = KeysetPage.decodeCursor(after);
+		int pageSize = KeysetPage.clampLimit(limit);
+		List<Reminder> reminders = this.reminderDAO.getRemindersByUserIdAfter(userId, afterReminderId,
+				pageSize + 1);
+		return KeysetPage.of(reminders, pageSize, Reminder::getReminderId);
+
+	}
+
+	/*
+	 * This method should be used to get the selected fields of all reminders by
+	 * userId.
+	 */
+
+	@Transactional(readOnly = true)
+	public List<Map<String, Object>> getReminderFieldsByUserId(String userId, FieldSelection fields) {
+		return this.reminderDAO.getReminderFieldsByUserId(userId, fields, 0, 0);
+
+	}
+
+	/*
+	 * This method should be used to get one page of the selected fields of the
+	 * reminders by userId, the id being always selected.
+	 */
+
+	@Transactional(readOnly = true)
+	public KeysetPage<Map<String, Object>> getReminderFieldsByUserId(String userId, FieldSelection fields,
+			String after, Integer limit) {
+		int afterReminderId = KeysetPage.decodeCursor(after);
+		int pageSize = KeysetPage.clampLimit(limit);
+		List<Map<String, Object>> rows = this.reminderDAO.getReminderFieldsByUserId(userId, fields, afterReminderId,
+				pageSize + 1);
+		return KeysetPage.of(rows, pageSize, row -> (Integer) row.get("reminderId"));
 
 	}
 }
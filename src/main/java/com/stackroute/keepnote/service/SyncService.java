@@ -0,0 +1,17 @@
+package com.stackroute.keepnote.service;
+
+import java.util.List;
+
+import com.stackroute.keepnote.model.SyncChanges;
+import com.stackroute.keepnote.model.SyncMutation;
+import com.stackroute.keepnote.model.SyncMutationResult;
+
+public interface SyncService {
+
+	public SyncChanges getChanges(String userId, Long since);
+
+	public SyncMutationResult applyMutations(List<SyncMutation> mutations, String userId);
+
+	public int purgeTombstones();
+
+}
@@ -0,0 +1,515 @@
+package com.stackroute.keepnote.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.stackroute.keepnote.cache.NoteJsonCache;
+import com.stackroute.keepnote.cache.UserListCache;
+import com.stackroute.keepnote.dao.CategoryDAO;
+import com.stackroute.keepnote.dao.NoteDAO;
+import com.stackroute.keepnote.dao.ReminderDAO;
+import com.stackroute.keepnote.dao.TombstoneDAO;
+import com.stackroute.keepnote.model.BatchItemResult;
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.SyncChanges;
+import com.stackroute.keepnote.model.SyncMutation;
+import com.stackroute.keepnote.model.SyncMutationResult;
+import com.stackroute.keepnote.model.Tombstone;
+import com.stackroute.keepnote.search.NoteSearchIndex;
+import com.stackroute.keepnote.search.NoteSuggestIndex;
+
+/*
+ * Delta synchronization of the notes, categories and reminders of a user. The
+ * watermark is a time in epoch milliseconds: the changes are the rows whose
+ * updatedAt, and the deletes the tombstones whose deletedAt, are after it.
+ *
+ * A row can become visible after a read that started later than its updatedAt:
+ * its transaction commits late, the replica serving the read lags behind, or
+ * the clock of the application instance that wrote it is behind. The watermark
+ * returned therefore stays SYNC_SAFETY_WINDOW_MS behind the start of the read,
+ * which has to exceed all three. The rows changed within the window are sent
+ * again by the next sync.
+ *
+ * Tombstones are kept SYNC_TOMBSTONE_RETENTION_DAYS, a client whose watermark
+ * is older gets everything again with "reset" set.
+ *
+ * The mutations queued by a client while offline are applied together, in one
+ * transaction: the items they target are read with one query per type, the
+ * operations are replayed in memory, and the resulting inserts, updates and
+ * deletes are left to the session, which sends them in JDBC batches at commit.
+ */
+@Service
+@Transactional(rollbackFor = Exception.class)
+public class SyncServiceImpl implements SyncService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SyncServiceImpl.class);
+
+	private static final long SAFETY_WINDOW = Long.getLong("SYNC_SAFETY_WINDOW_MS", 10000L);
+	private static final long RETENTION = TimeUnit.DAYS.toMillis(Long.getLong("SYNC_TOMBSTONE_RETENTION_DAYS", 30L));
+	private static final long PURGE_INTERVAL = 3600000L;
+
+	private static final String INVALID_MSG = "invalid mutation";
+	private static final String NOTE_MSG = "note not found exception";
+	private static final String CATEGORY_MSG = "category not found exception";
+	private static final String REMINDER_MSG = "reminder not found exception";
+
+	private final NoteDAO noteDAO;
+	private final CategoryDAO categoryDAO;
+	private final ReminderDAO reminderDAO;
+	private final TombstoneDAO tombstoneDAO;
+	private final NoteSearchIndex searchIndex;
+	private final NoteSuggestIndex suggestIndex;
+	private final UserListCache listCache;
+	private final NoteJsonCache noteJsonCache;
+
+	@Autowired
+	public SyncServiceImpl(NoteDAO noteDAO, CategoryDAO categoryDAO, ReminderDAO reminderDAO,
+			TombstoneDAO tombstoneDAO, NoteSearchIndex searchIndex, NoteSuggestIndex suggestIndex,
+			UserListCache listCache, NoteJsonCache noteJsonCache) {
+		this.noteDAO = noteDAO;
+		this.categoryDAO = categoryDAO;
+		this.reminderDAO = reminderDAO;
+		this.tombstoneDAO = tombstoneDAO;
+		this.searchIndex = searchIndex;
+		this.suggestIndex = suggestIndex;
+		this.listCache = listCache;
+		this.noteJsonCache = noteJsonCache;
+	}
+
+	/*
+	 * The changes of the user after the watermark "since", or everything when it
+	 * is missing or older than the tombstones
+	 */
+	@Transactional(readOnly = true)
+	public SyncChanges getChanges(String userId, Long since) {
+		long start = System.currentTimeMillis();
+		boolean reset = null == since || since <= 0 || since < start - RETENTION;
+		List<Note> notes;
+		List<Category> categories;
+		List<Reminder> reminders;
+		List<Tombstone> deleted;
+		if (reset) {
+			notes = this.noteDAO.getAllNotesByUserId(userId);
+			categories = this.categoryDAO.getAllCategoryByUserId(userId);
+			reminders = this.reminderDAO.getAllReminderByUserId(userId);
+			deleted = Collections.emptyList();
+		} else {
+			Date after = new Date(since);
+			notes = this.noteDAO.getNotesUpdatedSince(userId, after);
+			categories = this.categoryDAO.getCategoriesUpdatedSince(userId, after);
+			reminders = this.reminderDAO.getRemindersUpdatedSince(userId, after);
+			deleted = this.tombstoneDAO.getTombstonesSince(userId, after);
+		}
+		long watermark = reset ? start - SAFETY_WINDOW : Math.max(since, start - SAFETY_WINDOW);
+		return new SyncChanges(notes, categories, reminders, deleted, watermark, reset);
+
+	}
+
+	/*
+	 * Apply the mutations of the user in order. An operation whose target does not
+	 * exist for the user, was deleted by an earlier operation, or refers to a
+	 * missing category or reminder is rejected and the others still apply. Each
+	 * operation gets a result at its position, with the id of its item once the
+	 * items are saved.
+	 */
+	public SyncMutationResult applyMutations(List<SyncMutation> mutations, String userId) {
+		MutationBatch batch = new MutationBatch(userId);
+		this.loadTargets(mutations, batch);
+		BatchItemResult[] results = new BatchItemResult[mutations.size()];
+		for (int i = 0; i < mutations.size(); i++) {
+			results[i] = this.replay(i, mutations.get(i), batch);
+		}
+		this.write(batch);
+		Map<String, Integer> ids = new LinkedHashMap<>();
+		for (Map.Entry<Integer, Object> applied : batch.items.entrySet()) {
+			BatchItemResult result = results[applied.getKey()];
+			String tempId = mutations.get(applied.getKey()).getTempId();
+			result.setId(idOf(applied.getValue()));
+			if (BatchItemResult.CREATED.equals(result.getStatus()) && null != tempId) {
+				ids.put(tempId, result.getId());
+			}
+		}
+		return new SyncMutationResult(Arrays.asList(results), ids);
+
+	}
+
+	/*
+	 * Read the existing items targeted or referred to by the mutations, with one
+	 * query per type. Only the items of the user are read, the others count as
+	 * missing.
+	 */
+	private void loadTargets(List<SyncMutation> mutations, MutationBatch batch) {
+		Set<Integer> noteIds = new HashSet<>();
+		Set<Integer> categoryIds = new HashSet<>();
+		Set<Integer> reminderIds = new HashSet<>();
+		for (SyncMutation mutation : mutations) {
+			Note note = null == mutation ? null : mutation.getNote();
+			if (null != mutation && null != mutation.getId()) {
+				if (Tombstone.NOTE.equals(mutation.getType())) {
+					noteIds.add(mutation.getId());
+				} else if (Tombstone.CATEGORY.equals(mutation.getType())) {
+					categoryIds.add(mutation.getId());
+				} else if (Tombstone.REMINDER.equals(mutation.getType())) {
+					reminderIds.add(mutation.getId());
+				}
+			}
+			if (null != note && null != note.getCategory()) {
+				categoryIds.add(note.getCategory().getCategoryId());
+			}
+			if (null != note && null != note.getReminder()) {
+				reminderIds.add(note.getReminder().getReminderId());
+			}
+		}
+		if (!noteIds.isEmpty()) {
+			this.noteDAO.getNotesByIds(batch.userId, noteIds)
+					.forEach(note -> batch.notes.put(note.getNoteId(), note));
+		}
+		if (!categoryIds.isEmpty()) {
+			this.categoryDAO.getCategoriesByIds(batch.userId, categoryIds)
+					.forEach(category -> batch.categories.put(category.getCategoryId(), category));
+		}
+		if (!reminderIds.isEmpty()) {
+			this.reminderDAO.getRemindersByIds(batch.userId, reminderIds)
+					.forEach(reminder -> batch.reminders.put(reminder.getReminderId(), reminder));
+		}
+	}
+
+	/*
+	 * Replay one mutation on the items of the batch
+	 */
+	private BatchItemResult replay(int index, SyncMutation mutation, MutationBatch batch) {
+		BatchItemResult result = null;
+		String type = null == mutation ? null : mutation.getType();
+		if (!Arrays.asList(SyncMutation.CREATE, SyncMutation.UPDATE, SyncMutation.DELETE)
+				.contains(null == mutation ? null : mutation.getOp())) {
+			result = BatchItemResult.rejected(index, INVALID_MSG);
+		} else if (Tombstone.NOTE.equals(type)) {
+			result = this.replayNote(index, mutation, batch);
+		} else if (Tombstone.CATEGORY.equals(type)) {
+			result = this.replayCategory(index, mutation, batch);
+		} else if (Tombstone.REMINDER.equals(type)) {
+			result = this.replayReminder(index, mutation, batch);
+		} else {
+			result = BatchItemResult.rejected(index, INVALID_MSG);
+		}
+		return result;
+	}
+
+	/*
+	 * A note without category or reminder in the changes has none after an
+	 * update, like with PUT /note/{id}
+	 */
+	private BatchItemResult replayNote(int index, SyncMutation mutation, MutationBatch batch) {
+		BatchItemResult result = null;
+		Note changes = mutation.getNote();
+		Note target = batch.find(mutation, batch.notes, batch.noteTemps);
+		Category category = null == changes ? null
+				: batch.find(null == changes.getCategory() ? null : changes.getCategory().getCategoryId(),
+						mutation.getCategoryTempId(), batch.categories, batch.categoryTemps);
+		Reminder reminder = null == changes ? null
+				: batch.find(null == changes.getReminder() ? null : changes.getReminder().getReminderId(),
+						mutation.getReminderTempId(), batch.reminders, batch.reminderTemps);
+		if (SyncMutation.DELETE.equals(mutation.getOp())) {
+			result = null == target ? BatchItemResult.rejected(index, NOTE_MSG) : batch.delete(index, target);
+		} else if (null == changes) {
+			result = BatchItemResult.rejected(index, INVALID_MSG);
+		} else if (SyncMutation.UPDATE.equals(mutation.getOp()) && null == target) {
+			result = BatchItemResult.rejected(index, NOTE_MSG);
+		} else if (null == category && (null != changes.getCategory() || null != mutation.getCategoryTempId())) {
+			result = BatchItemResult.rejected(index, CATEGORY_MSG);
+		} else if (null == reminder && (null != changes.getReminder() || null != mutation.getReminderTempId())) {
+			result = BatchItemResult.rejected(index, REMINDER_MSG);
+		} else if (SyncMutation.CREATE.equals(mutation.getOp())) {
+			changes.setNoteId(0);
+			changes.setCategory(category);
+			changes.setReminder(reminder);
+			changes.setCreatedBy(batch.userId);
+			changes.setNoteCreatedAt(new Date());
+			result = batch.create(index, mutation.getTempId(), batch.noteTemps, changes);
+		} else {
+			target.setNoteTitle(changes.getNoteTitle());
+			target.setNoteContent(changes.getNoteContent());
+			target.setNoteStatus(changes.getNoteStatus());
+			target.setCategory(category);
+			target.setReminder(reminder);
+			result = batch.update(index, target);
+		}
+		return result;
+	}
+
+	private BatchItemResult replayCategory(int index, SyncMutation mutation, MutationBatch batch) {
+		BatchItemResult result = null;
+		Category changes = mutation.getCategory();
+		Category target = batch.find(mutation, batch.categories, batch.categoryTemps);
+		if (SyncMutation.DELETE.equals(mutation.getOp())) {
+			result = null == target ? BatchItemResult.rejected(index, CATEGORY_MSG) : batch.delete(index, target);
+		} else if (null == changes) {
+			result = BatchItemResult.rejected(index, INVALID_MSG);
+		} else if (SyncMutation.CREATE.equals(mutation.getOp())) {
+			changes.setCategoryId(0);
+			changes.setCategoryCreatedBy(batch.userId);
+			changes.setCategoryCreationDate(new Date());
+			result = batch.create(index, mutation.getTempId(), batch.categoryTemps, changes);
+		} else if (null == target) {
+			result = BatchItemResult.rejected(index, CATEGORY_MSG);
+		} else {
+			target.setCategoryName(changes.getCategoryName());
+			target.setCategoryDescription(changes.getCategoryDescription());
+			result = batch.update(index, target);
+		}
+		return result;
+	}
+
+	private BatchItemResult replayReminder(int index, SyncMutation mutation, MutationBatch batch) {
+		BatchItemResult result = null;
+		Reminder changes = mutation.getReminder();
+		Reminder target = batch.find(mutation, batch.reminders, batch.reminderTemps);
+		if (SyncMutation.DELETE.equals(mutation.getOp())) {
+			result = null == target ? BatchItemResult.rejected(index, REMINDER_MSG) : batch.delete(index, target);
+		} else if (null == changes) {
+			result = BatchItemResult.rejected(index, INVALID_MSG);
+		} else if (SyncMutation.CREATE.equals(mutation.getOp())) {
+			changes.setReminderId(0);
+			changes.setReminderCreatedBy(batch.userId);
+			changes.setReminderCreationDate(new Date());
+			result = batch.create(index, mutation.getTempId(), batch.reminderTemps, changes);
+		} else if (null == target) {
+			result = BatchItemResult.rejected(index, REMINDER_MSG);
+		} else {
+			target.setReminderName(changes.getReminderName());
+			target.setReminderDescription(changes.getReminderDescription());
+			target.setReminderType(changes.getReminderType());
+			result = batch.update(index, target);
+		}
+		return result;
+	}
+
+	/*
+	 * Hand the outcome of the replay to the DAOs: the new categories and reminders
+	 * before the notes that may refer to them, and the notes deleted before their
+	 * categories and reminders. An item created and deleted by the same batch is
+	 * inserted and deleted, so that both operations get its id. The indexes and
+	 * caches of the user follow after the commit, only the lists of the types
+	 * the batch changed being dropped.
+	 */
+	private void write(MutationBatch batch) {
+		List<Note> deletedNotes = batch.deleted(Note.class);
+		List<Category> deletedCategories = batch.deleted(Category.class);
+		List<Reminder> deletedReminders = batch.deleted(Reminder.class);
+		batch.created(Category.class).forEach(this.categoryDAO::createCategory);
+		batch.created(Reminder.class).forEach(this.reminderDAO::createReminder);
+		batch.created(Note.class).forEach(this.noteDAO::createNote);
+		this.noteDAO.updateNotes(batch.updated(Note.class));
+		this.categoryDAO.updateCategories(batch.updated(Category.class));
+		this.reminderDAO.updateReminders(batch.updated(Reminder.class));
+		if (!deletedNotes.isEmpty()) {
+			this.noteDAO.deleteNotes(deletedNotes);
+		}
+		if (!deletedCategories.isEmpty()) {
+			this.categoryDAO.deleteCategories(deletedCategories);
+		}
+		if (!deletedReminders.isEmpty()) {
+			this.reminderDAO.deleteReminders(deletedReminders);
+		}
+
+		for (Note note : batch.written(Note.class)) {
+			this.searchIndex.index(batch.userId, note);
+			this.suggestIndex.putNote(batch.userId, note.getNoteId(), note.getNoteTitle());
+			this.noteJsonCache.invalidate(note.getNoteId());
+		}
+		for (Note note : deletedNotes) {
+			this.searchIndex.remove(batch.userId, note.getNoteId());
+			this.suggestIndex.removeNote(batch.userId, note.getNoteId());
+			this.noteJsonCache.invalidate(note.getNoteId());
+		}
+		for (Category category : batch.written(Category.class)) {
+			this.suggestIndex.putCategory(batch.userId, category.getCategoryId(), category.getCategoryName());
+		}
+		for (Category category : deletedCategories) {
+			this.suggestIndex.removeCategory(batch.userId, category.getCategoryId());
+		}
+		if (batch.hasChanged(Category.class)) {
+			this.listCache.invalidateCategories(batch.userId);
+		}
+		if (batch.hasChanged(Reminder.class)) {
+			this.listCache.invalidateReminders(batch.userId);
+		}
+		if (batch.hasChanged(Note.class)) {
+			this.listCache.invalidateNotes(batch.userId);
+		}
+	}
+
+	private static int idOf(Object item) {
+		int id;
+		if (item instanceof Note) {
+			id = ((Note) item).getNoteId();
+		} else if (item instanceof Category) {
+			id = ((Category) item).getCategoryId();
+		} else {
+			id = ((Reminder) item).getReminderId();
+		}
+		return id;
+	}
+
+	/*
+	 * Drop the tombstones past the retention, every PURGE_INTERVAL
+	 */
+	@Scheduled(initialDelay = PURGE_INTERVAL, fixedDelay = PURGE_INTERVAL)
+	public int purgeTombstones() {
+		int purged = this.tombstoneDAO.deleteTombstonesBefore(new Date(System.currentTimeMillis() - RETENTION));
+		LOGGER.info("purged {} tombstones", purged);
+		return purged;
+
+	}
+
+	/*
+	 * The state of the items of one batch of mutations while it is replayed. The
+	 * existing items are entities of the current session and the created ones are
+	 * not saved yet, so the mutations only change them in memory. Items are
+	 * compared by identity.
+	 */
+	private static final class MutationBatch {
+
+		private final String userId;
+		private final Map<Integer, Note> notes = new HashMap<>();
+		private final Map<Integer, Category> categories = new HashMap<>();
+		private final Map<Integer, Reminder> reminders = new HashMap<>();
+		private final Map<String, Note> noteTemps = new HashMap<>();
+		private final Map<String, Category> categoryTemps = new HashMap<>();
+		private final Map<String, Reminder> reminderTemps = new HashMap<>();
+		private final Map<Integer, Object> items = new LinkedHashMap<>();
+		private final Set<Object> created = new LinkedHashSet<>();
+		private final Set<Object> updated = new LinkedHashSet<>();
+		private final Set<Object> deleted = new LinkedHashSet<>();
+
+		private MutationBatch(String userId) {
+			this.userId = userId;
+		}
+
+		private <T> T find(SyncMutation mutation, Map<Integer, T> existing, Map<String, T> temps) {
+			return SyncMutation.CREATE.equals(mutation.getOp()) ? null
+					: this.find(mutation.getId(), mutation.getTempId(), existing, temps);
+		}
+
+		/*
+		 * An item by id, or by the temporary id given to it by an earlier create.
+		 * Null when it does not exist for the user or was deleted.
+		 */
+		private <T> T find(Integer id, String tempId, Map<Integer, T> existing, Map<String, T> temps) {
+			T item = null;
+			if (null != id) {
+				item = existing.get(id);
+			} else if (null != tempId) {
+				item = temps.get(tempId);
+			}
+			return null == item || this.deleted.contains(item) ? null : item;
+		}
+
+		private <T> BatchItemResult create(int index, String tempId, Map<String, T> temps, T item) {
+			this.created.add(item);
+			if (null != tempId) {
+				temps.put(tempId, item);
+			}
+			return this.applied(index, BatchItemResult.CREATED, item);
+		}
+
+		private BatchItemResult update(int index, Object item) {
+			this.touch(item);
+			return this.applied(index, BatchItemResult.UPDATED, item);
+		}
+
+		/*
+		 * Delete an item, and take it out of the notes of the batch referring to it.
+		 * The foreign keys do the same for the other notes.
+		 */
+		private BatchItemResult delete(int index, Object item) {
+			this.deleted.add(item);
+			this.updated.remove(item);
+			List<Note> batchNotes = new ArrayList<>(this.notes.values());
+			batchNotes.addAll(this.created(Note.class));
+			for (Note note : batchNotes) {
+				if (item == note.getCategory()) {
+					note.setCategory(null);
+					this.touch(note);
+				}
+				if (item == note.getReminder()) {
+					note.setReminder(null);
+					this.touch(note);
+				}
+			}
+			return this.applied(index, BatchItemResult.DELETED, item);
+		}
+
+		private void touch(Object item) {
+			if (!this.created.contains(item) && !this.deleted.contains(item)) {
+				this.updated.add(item);
+			}
+		}
+
+		private BatchItemResult applied(int index, String status, Object item) {
+			this.items.put(index, item);
+			return new BatchItemResult(index, status, null, null);
+		}
+
+		private <T> List<T> created(Class<T> type) {
+			return select(this.created, type);
+		}
+
+		private <T> List<T> updated(Class<T> type) {
+			return select(this.updated, type);
+		}
+
+		private <T> List<T> deleted(Class<T> type) {
+			return select(this.deleted, type);
+		}
+
+		/*
+		 * The items created or updated, and not deleted afterwards
+		 */
+		private <T> List<T> written(Class<T> type) {
+			List<T> written = this.created(type);
+			written.addAll(this.updated(type));
+			written.removeIf(this.deleted::contains);
+			return written;
+		}
+
+		/*
+		 * Whether the batch creates, updates or deletes any item of the type
+		 */
+		private boolean hasChanged(Class<?> type) {
+			return !select(this.created, type).isEmpty() || !select(this.updated, type).isEmpty()
+					|| !select(this.deleted, type).isEmpty();
+		}
+
+		private static <T> List<T> select(Set<Object> items, Class<T> type) {
+			List<T> selected = new ArrayList<>();
+			for (Object item : items) {
+				if (type.isInstance(item)) {
+					selected.add(type.cast(item));
+				}
+			}
+			return selected;
+		}
+
+	}
+
+}
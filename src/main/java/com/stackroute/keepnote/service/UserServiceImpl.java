@@ -4,7 +4,9 @@ import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.stackroute.keepnote.cache.SingleFlight;
 import com.stackroute.keepnote.dao.UserDAO;
 import com.stackroute.keepnote.exception.UserAlreadyExistException;
 import com.stackroute.keepnote.exception.UserNotFoundException;
@@ -18,8 +20,11 @@ import com.stackroute.keepnote.model.User;
 * to use @Service over @Component in service-layer classes because it specifies intent 
 * better. Additionally, tool support and additional behavior might rely on it in the 
 * future.
+* @Transactional - registerUser checks and inserts in the same transaction; lookups 
+* and validation are read-only.
 * */
 @Service
+@Transactional(rollbackFor = Exception.class)
 public class UserServiceImpl implements UserService {
 
 	/*
@@ -29,6 +34,7 @@ public class UserServiceImpl implements UserService {
 	 */
 
 	private final UserDAO userDAO;
+	private final SingleFlight<String, User> userLoads = new SingleFlight<>();
 
 	@Autowired
 	public UserServiceImpl(UserDAO userDAO) {
@@ -44,6 +50,7 @@ public class UserServiceImpl implements UserService {
 			throw new UserAlreadyExistException("user already exists exception");
 		}
 		this.userDAO.registerUser(user);
+		this.userLoads.forget(user.getUserId());
 		return Boolean.TRUE;
 	}
 
@@ -55,16 +62,20 @@ public class UserServiceImpl implements UserService {
 		if (!this.userDAO.updateUser(user)) {
 			throw new Exception("exception");
 		}
-		return this.getUserById(userId);
+		this.userLoads.forget(userId);
+		return Optional.ofNullable(this.userDAO.getUserById(userId))
+				.orElseThrow(() -> new UserNotFoundException("user not found exception"));
 
 	}
 
 	/*
-	 * This method should be used to get a user by userId.
+	 * This method should be used to get a user by userId. Concurrent lookups of
+	 * the same user share one read.
 	 */
 
+	@Transactional(readOnly = true)
 	public User getUserById(String userId) throws UserNotFoundException {
-		return Optional.ofNullable(this.userDAO.getUserById(userId))
+		return Optional.ofNullable(this.userLoads.load(userId, this.userDAO::getUserById))
 				.orElseThrow(() -> new UserNotFoundException("user not found exception"));
 	}
 
@@ -72,6 +83,7 @@ public class UserServiceImpl implements UserService {
 	 * This method should be used to validate a user using userId and password.
 	 */
 
+	@Transactional(readOnly = true)
 	public boolean validateUser(String userId, String password) throws UserNotFoundException {
 		boolean validate = this.userDAO.validateUser(userId, password);
 		if (!validate) {
@@ -83,6 +95,7 @@ public class UserServiceImpl implements UserService {
 
 	/* This method should be used to delete an existing user. */
 	public boolean deleteUser(String userId) {
+		this.userLoads.forget(userId);
 		return this.userDAO.deleteUser(userId);
 
 	}
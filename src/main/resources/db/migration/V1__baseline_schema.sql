@@ -0,0 +1,68 @@
+-- Baseline schema of the KeepNote application, matching the entity mappings.
+-- Tables are created only when missing, so that databases created earlier by
+-- hibernate.hbm2ddl.auto=update are adopted as they are; V2 then brings both
+-- kinds of database to the same state.
+
+CREATE TABLE IF NOT EXISTS User (
+  userId varchar(255) NOT NULL,
+  userAddedDate datetime DEFAULT NULL,
+  userMobile varchar(255) DEFAULT NULL,
+  userName varchar(255) DEFAULT NULL,
+  userPassword varchar(255) DEFAULT NULL,
+  PRIMARY KEY (userId)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS Category (
+  categoryId int(11) NOT NULL,
+  categoryCreatedBy varchar(255) DEFAULT NULL,
+  categoryCreationDate datetime DEFAULT NULL,
+  categoryDescription varchar(255) DEFAULT NULL,
+  categoryName varchar(255) DEFAULT NULL,
+  PRIMARY KEY (categoryId)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS Reminder (
+  reminderId int(11) NOT NULL,
+  reminderCreatedBy varchar(255) DEFAULT NULL,
+  reminderCreationDate datetime DEFAULT NULL,
+  reminderDescription varchar(255) DEFAULT NULL,
+  reminderName varchar(255) DEFAULT NULL,
+  reminderType varchar(255) DEFAULT NULL,
+  PRIMARY KEY (reminderId)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS Note (
+  noteId int(11) NOT NULL,
+  createdBy varchar(255) DEFAULT NULL,
+  noteContent varchar(255) DEFAULT NULL,
+  noteCreatedAt datetime DEFAULT NULL,
+  noteStatus varchar(255) DEFAULT NULL,
+  noteTitle varchar(255) DEFAULT NULL,
+  category_categoryId int(11) DEFAULT NULL,
+  reminder_reminderId int(11) DEFAULT NULL,
+  PRIMARY KEY (noteId)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS Category_Note (
+  Category_categoryId int(11) NOT NULL,
+  notes_noteId int(11) NOT NULL,
+  UNIQUE KEY UK_Category_Note_notes_noteId (notes_noteId)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS Reminder_Note (
+  Reminder_reminderId int(11) NOT NULL,
+  notes_noteId int(11) NOT NULL,
+  UNIQUE KEY UK_Reminder_Note_notes_noteId (notes_noteId)
+) ENGINE=InnoDB;
+
+-- pooled id allocation (see IdAllocation), one row per entity
+CREATE TABLE IF NOT EXISTS id_allocation (
+  segment_name varchar(255) NOT NULL,
+  next_val bigint(20) DEFAULT NULL,
+  PRIMARY KEY (segment_name)
+) ENGINE=InnoDB;
+
+-- start every segment after the highest id already stored
+INSERT IGNORE INTO id_allocation (segment_name, next_val) SELECT 'Note', COALESCE(MAX(noteId), 0) + 1 FROM Note;
+INSERT IGNORE INTO id_allocation (segment_name, next_val) SELECT 'Category', COALESCE(MAX(categoryId), 0) + 1 FROM Category;
+INSERT IGNORE INTO id_allocation (segment_name, next_val) SELECT 'Reminder', COALESCE(MAX(reminderId), 0) + 1 FROM Reminder;
@@ -0,0 +1,39 @@
+-- Tables created by hbm2ddl with MySQL5Dialect use MyISAM, which ignores
+-- transactions and foreign keys. Convert them (a no-op rebuild for tables
+-- created by V1).
+ALTER TABLE User ENGINE=InnoDB;
+ALTER TABLE Category ENGINE=InnoDB;
+ALTER TABLE Reminder ENGINE=InnoDB;
+ALTER TABLE Note ENGINE=InnoDB;
+ALTER TABLE Category_Note ENGINE=InnoDB;
+ALTER TABLE Reminder_Note ENGINE=InnoDB;
+ALTER TABLE id_allocation ENGINE=InnoDB;
+
+-- Every listing filters on the owner and pages or sorts by id, so the owner
+-- column leads and the id follows: "where owner = ? and id > ? order by id"
+-- is answered by an index range scan without a sort.
+CREATE INDEX IX_Note_createdBy_noteId ON Note (createdBy, noteId);
+CREATE INDEX IX_Category_createdBy_categoryId ON Category (categoryCreatedBy, categoryId);
+CREATE INDEX IX_Reminder_createdBy_reminderId ON Reminder (reminderCreatedBy, reminderId);
+
+-- MyISAM never enforced the references, drop dangling ones before adding the
+-- constraints
+UPDATE Note SET category_categoryId = NULL
+  WHERE category_categoryId IS NOT NULL AND category_categoryId NOT IN (SELECT categoryId FROM Category);
+UPDATE Note SET reminder_reminderId = NULL
+  WHERE reminder_reminderId IS NOT NULL AND reminder_reminderId NOT IN (SELECT reminderId FROM Reminder);
+DELETE FROM Category_Note
+  WHERE Category_categoryId NOT IN (SELECT categoryId FROM Category) OR notes_noteId NOT IN (SELECT noteId FROM Note);
+DELETE FROM Reminder_Note
+  WHERE Reminder_reminderId NOT IN (SELECT reminderId FROM Reminder) OR notes_noteId NOT IN (SELECT noteId FROM Note);
+
+-- deleting a category or reminder leaves its notes without one
+ALTER TABLE Note
+  ADD CONSTRAINT FK_Note_category FOREIGN KEY (category_categoryId) REFERENCES Category (categoryId) ON DELETE SET NULL,
+  ADD CONSTRAINT FK_Note_reminder FOREIGN KEY (reminder_reminderId) REFERENCES Reminder (reminderId) ON DELETE SET NULL;
+ALTER TABLE Category_Note
+  ADD CONSTRAINT FK_Category_Note_category FOREIGN KEY (Category_categoryId) REFERENCES Category (categoryId) ON DELETE CASCADE,
+  ADD CONSTRAINT FK_Category_Note_note FOREIGN KEY (notes_noteId) REFERENCES Note (noteId) ON DELETE CASCADE;
+ALTER TABLE Reminder_Note
+  ADD CONSTRAINT FK_Reminder_Note_reminder FOREIGN KEY (Reminder_reminderId) REFERENCES Reminder (reminderId) ON DELETE CASCADE,
+  ADD CONSTRAINT FK_Reminder_Note_note FOREIGN KEY (notes_noteId) REFERENCES Note (noteId) ON DELETE CASCADE;
@@ -0,0 +1,28 @@
+-- Delta sync (GET /sync): every note, category and reminder carries the time
+-- of its last change, maintained by the DAOs. Existing rows count as changed
+-- when they were created, or now when that is not known.
+ALTER TABLE Note ADD COLUMN updatedAt datetime(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3);
+ALTER TABLE Category ADD COLUMN updatedAt datetime(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3);
+ALTER TABLE Reminder ADD COLUMN updatedAt datetime(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3);
+UPDATE Note SET updatedAt = noteCreatedAt WHERE noteCreatedAt IS NOT NULL;
+UPDATE Category SET updatedAt = categoryCreationDate WHERE categoryCreationDate IS NOT NULL;
+UPDATE Reminder SET updatedAt = reminderCreationDate WHERE reminderCreationDate IS NOT NULL;
+
+-- "where owner = ? and updatedAt > ?" is an index range scan over the changed
+-- rows only, whatever the number of rows of the user
+CREATE INDEX IX_Note_createdBy_updatedAt ON Note (createdBy, updatedAt);
+CREATE INDEX IX_Category_createdBy_updatedAt ON Category (categoryCreatedBy, updatedAt);
+CREATE INDEX IX_Reminder_createdBy_updatedAt ON Reminder (reminderCreatedBy, updatedAt);
+
+-- one row per deleted note, category or reminder, kept for
+-- SYNC_TOMBSTONE_RETENTION_DAYS so that clients learn about the deletes
+CREATE TABLE Tombstone (
+  tombstoneId bigint(20) NOT NULL AUTO_INCREMENT,
+  entityType varchar(16) NOT NULL,
+  entityId int(11) NOT NULL,
+  ownerId varchar(255) NOT NULL,
+  deletedAt datetime(3) NOT NULL,
+  PRIMARY KEY (tombstoneId),
+  KEY IX_Tombstone_ownerId_deletedAt (ownerId, deletedAt),
+  KEY IX_Tombstone_deletedAt (deletedAt)
+) ENGINE=InnoDB;
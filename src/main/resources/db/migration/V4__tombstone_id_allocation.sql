@@ -0,0 +1,4 @@
+-- Tombstone ids are allocated from id_allocation (see IdAllocation) so that
+-- tombstones are inserted in JDBC batches, start after the ids already used
+INSERT IGNORE INTO id_allocation (segment_name, next_val)
+  SELECT 'Tombstone', COALESCE(MAX(tombstoneId), 0) + 1 FROM Tombstone;
@@ -0,0 +1,14 @@
+-- responses of the POSTs sent with an Idempotency-Key header, shared by the
+-- application instances when IDEMPOTENCY_DB_STORE is set. The primary key is
+-- what makes a key claimed by one request only; rows are purged after
+-- IDEMPOTENCY_TTL_MS.
+CREATE TABLE IdempotentResponse (
+  idempotencyKey varchar(64) NOT NULL,
+  fingerprint varchar(64) NOT NULL,
+  status int(11) NOT NULL,
+  contentType varchar(255) DEFAULT NULL,
+  body longblob DEFAULT NULL,
+  createdAt datetime(3) NOT NULL,
+  PRIMARY KEY (idempotencyKey),
+  KEY IX_IdempotentResponse_createdAt (createdAt)
+) ENGINE=InnoDB;
@@ -0,0 +1,105 @@
+package com.stackroute.keepnote.test.cache;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.stackroute.keepnote.cache.IdempotencyStore;
+import com.stackroute.keepnote.dao.IdempotencyDAO;
+import com.stackroute.keepnote.model.IdempotentResponse;
+
+public class IdempotencyStoreTest {
+
+	private IdempotencyStore store;
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		store = new IdempotencyStore(null, 100L, 60000L, 5000L);
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testConcurrentDuplicatesWaitForTheFirstResponse() throws Exception {
+		assertNull(store.begin("key-1", "body-1"));
+		List<Future<IdempotentResponse>> duplicates = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			duplicates.add(executor.submit(() -> store.begin("key-1", "body-1")));
+		}
+		Thread.sleep(50);
+		for (Future<IdempotentResponse> duplicate : duplicates) {
+			assertFalse(duplicate.isDone());
+		}
+		store.complete("key-1", response("key-1", "body-1", 201));
+		for (Future<IdempotentResponse> duplicate : duplicates) {
+			assertEquals(201, duplicate.get(5, TimeUnit.SECONDS).getStatus());
+		}
+		assertEquals(201, store.begin("key-1", "body-1").getStatus());
+	}
+
+	@Test
+	public void testAbandonedKeyIsClaimedAgain() throws Exception {
+		assertNull(store.begin("key-1", "body-1"));
+		Future<IdempotentResponse> duplicate = executor.submit(() -> store.begin("key-1", "body-1"));
+		Thread.sleep(50);
+		store.abandon("key-1");
+		assertNull(duplicate.get(5, TimeUnit.SECONDS));
+		store.complete("key-1", response("key-1", "body-1", 201));
+		assertEquals(201, store.begin("key-1", "body-1").getStatus());
+	}
+
+	@Test
+	public void testKeyReusedWithAnotherBody() {
+		assertNull(store.begin("key-1", "body-1"));
+		IdempotentResponse running = store.begin("key-1", "body-2");
+		assertTrue(running.isPending());
+		assertEquals("body-1", running.getFingerprint());
+		store.complete("key-1", response("key-1", "body-1", 201));
+		assertEquals("body-1", store.begin("key-1", "body-2").getFingerprint());
+	}
+
+	@Test
+	public void testPendingAfterTheWait() {
+		store = new IdempotencyStore(null, 100L, 60000L, 50L);
+		assertNull(store.begin("key-1", "body-1"));
+		IdempotentResponse running = store.begin("key-1", "body-1");
+		assertTrue(running.isPending());
+		assertNull(store.begin("key-2", "body-1"));
+	}
+
+	@Test
+	public void testVanishingClaimIsGivenUp() {
+		IdempotencyDAO idempotencyDAO = mock(IdempotencyDAO.class);
+		when(idempotencyDAO.claimKey(any())).thenReturn(false);
+		store = new IdempotencyStore(idempotencyDAO, 100L, 60000L, 5000L);
+		IdempotentResponse running = store.begin("key-1", "body-1");
+		assertTrue(running.isPending());
+		verify(idempotencyDAO, times(10)).claimKey(any());
+		when(idempotencyDAO.claimKey(any())).thenReturn(true);
+		assertNull(store.begin("key-1", "body-1"));
+	}
+
+	private static IdempotentResponse response(String key, String fingerprint, int status) {
+		return new IdempotentResponse(key, fingerprint, status, null, new byte[0], new Date());
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.stackroute.keepnote.test.cache;
+
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.stackroute.keepnote.cache.ListCache;
+import com.stackroute.keepnote.cache.ListVersion;
+
+public class ListCacheTest {
+
+	private ListCache<String> cache;
+	private AtomicInteger loads;
+
+	@Before
+	public void setUp() {
+		cache = new ListCache<>("test", 1000, 60000);
+		loads = new AtomicInteger();
+	}
+
+	private List<String> load(String userId) {
+		loads.incrementAndGet();
+		return new ArrayList<>(Arrays.asList(userId + "-1", userId + "-2"));
+	}
+
+	@Test
+	public void testGetLoadsOnce() {
+		assertEquals(Arrays.asList("Jhon123-1", "Jhon123-2"), cache.get("Jhon123", this::load));
+		assertEquals(2, cache.get("Jhon123", this::load).size());
+		cache.get("Jhon456", this::load);
+		assertEquals(2, loads.get());
+		assertEquals(1, cache.getStats().hitCount());
+		assertEquals(2, cache.getStats().missCount());
+		assertEquals(1d / 3, cache.getHitRate(), 0.0001);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testCachedListIsReadOnly() {
+		cache.get("Jhon123", this::load).add("Jhon123-3");
+	}
+
+	@Test
+	public void testInvalidateOnlyDropsTheUser() {
+		cache.get("Jhon123", this::load);
+		cache.get("Jhon456", this::load);
+		cache.invalidate("Jhon123");
+		cache.get("Jhon123", this::load);
+		cache.get("Jhon456", this::load);
+		assertEquals(3, loads.get());
+		cache.invalidate(null);
+		cache.get("Jhon456", this::load);
+		assertEquals(4, loads.get());
+	}
+
+	@Test
+	public void testVersionChangesWithEveryWrite() {
+		ListVersion first = cache.getVersion("Jhon123");
+		assertSame(first, cache.getVersion("Jhon123"));
+		assertNotEquals(first.getTag(), cache.getVersion("Jhon456").getTag());
+		cache.invalidate("Jhon123");
+		ListVersion second = cache.getVersion("Jhon123");
+		cache.invalidate("Jhon123");
+		ListVersion third = cache.getVersion("Jhon123");
+		assertNotEquals(first.getTag(), second.getTag());
+		assertNotEquals(second.getTag(), third.getTag());
+		assertTrue(second.getLastModified() > first.getLastModified());
+		assertTrue(third.getLastModified() > second.getLastModified());
+		assertEquals(0, third.getLastModified() % 1000);
+	}
+
+	@Test
+	public void testNewVersionReloadsTheList() {
+		cache.get("Jhon123", this::load);
+		cache.getVersion("Jhon123");
+		cache.get("Jhon123", this::load);
+		assertEquals(2, loads.get());
+		cache.getVersion("Jhon123");
+		cache.get("Jhon123", this::load);
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void testInvalidateWaitsForTheCommit() {
+		cache.get("Jhon123", this::load);
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		try {
+			cache.invalidate("Jhon123");
+			cache.get("Jhon123", this::load);
+			assertEquals(1, loads.get());
+			for (TransactionSynchronization synchronization : TransactionSynchronizationManager
+					.getSynchronizations()) {
+				synchronization.afterCommit();
+			}
+		} finally {
+			TransactionSynchronizationManager.setActualTransactionActive(false);
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		cache.get("Jhon123", this::load);
+		assertEquals(2, loads.get());
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.stackroute.keepnote.test.cache;
+
+import static org.junit.Assert.*;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import com.stackroute.keepnote.cache.EncodedNotes;
+import com.stackroute.keepnote.cache.NoteJsonCache;
+import com.stackroute.keepnote.config.EncodedNotesHttpMessageConverter;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.test.support.NoteBenchmarks;
+
+/*
+ * Compares the time to write the GET /note response as the list of notes
+ * written by the Jackson converter, and as EncodedNotes written from the cached
+ * JSON of the notes, the cache being warm as for repeated reads. Every build
+ * checks that both write the same bytes.
+ */
+public class NoteJsonCacheBenchmarkTest {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(NoteJsonCacheBenchmarkTest.class);
+
+	private List<Note> notes;
+	private NoteJsonCache cache;
+
+	@Before
+	public void setUp() {
+		notes = NoteBenchmarks.notes();
+		cache = new NoteJsonCache();
+	}
+
+	@Test
+	public void testCachedJsonMatchesJackson() throws Exception {
+		byte[] jackson = write(new MappingJackson2HttpMessageConverter(), notes);
+		byte[] cached = write(new EncodedNotesHttpMessageConverter(), new EncodedNotes(notes, cache));
+		assertArrayEquals(jackson, cached);
+		assertArrayEquals(cached, write(new EncodedNotesHttpMessageConverter(), new EncodedNotes(notes, cache)));
+		assertEquals(NoteBenchmarks.NOTES, cache.getSize());
+		assertEquals(NoteBenchmarks.NOTES, cache.getStats().hitCount());
+	}
+
+	@Test
+	public void benchmarkWrite() throws Exception {
+		NoteBenchmarks.assumeEnabled();
+		measure("Jackson", new MappingJackson2HttpMessageConverter(), () -> notes);
+		measure("Cached", new EncodedNotesHttpMessageConverter(), () -> new EncodedNotes(notes, cache));
+	}
+
+	private <T> void measure(String path, HttpMessageConverter<T> converter, Supplier<Object> body)
+			throws Exception {
+		int length = write(converter, body.get()).length;
+		LOGGER.info(String.format("%-8s %8d bytes  write %7.3f ms", path, length,
+				NoteBenchmarks.measure(() -> write(converter, body.get()))));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> byte[] write(HttpMessageConverter<T> converter, Object body) throws Exception {
+		MockHttpOutputMessage message = new MockHttpOutputMessage();
+		converter.write((T) body, MediaType.APPLICATION_JSON, message);
+		return message.getBodyAsBytes();
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.stackroute.keepnote.test.cache;
+
+import static org.junit.Assert.*;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stackroute.keepnote.cache.EncodedNotes;
+import com.stackroute.keepnote.cache.NoteJsonCache;
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.Reminder;
+
+public class NoteJsonCacheTest {
+
+	private NoteJsonCache cache;
+	private ObjectMapper mapper;
+	private Category category;
+	private Note note;
+
+	@Before
+	public void setUp() {
+		cache = new NoteJsonCache(1024 * 1024, 60000L);
+		mapper = Jackson2ObjectMapperBuilder.json().build();
+		category = new Category(1, "Testing", "All about testing", new Date(), "Jhon123", null);
+		category.setUpdatedAt(new Date(1000L));
+		note = new Note(1, "Testing for Step-3", "Complete testing for step-3", "Active", new Date(), category,
+				new Reminder(), "Jhon123");
+		note.setUpdatedAt(new Date(1000L));
+	}
+
+	@Test
+	public void testJsonIsCachedPerVersion() throws Exception {
+		byte[] json = cache.get(note);
+		assertArrayEquals(mapper.writeValueAsBytes(note), json);
+		assertSame(json, cache.get(note));
+
+		note.setNoteTitle("Changed title");
+		note.setUpdatedAt(new Date(2000L));
+		assertArrayEquals(mapper.writeValueAsBytes(note), cache.get(note));
+		assertEquals(1, cache.getSize());
+
+		category.setCategoryName("Renamed");
+		category.setUpdatedAt(new Date(3000L));
+		assertTrue(new String(cache.get(note), StandardCharsets.UTF_8).contains("Renamed"));
+	}
+
+	@Test
+	public void testInvalidate() {
+		byte[] json = cache.get(note);
+		cache.invalidate(note.getNoteId());
+		assertNotSame(json, cache.get(note));
+		cache.invalidateAll();
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	public void testUnsavedNoteIsNotCached() throws Exception {
+		note.setUpdatedAt(null);
+		assertArrayEquals(mapper.writeValueAsBytes(note), cache.get(note));
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	public void testEncodedNotesWriteJsonArray() throws Exception {
+		Note other = new Note(2, "Testing for Step-4", "Complete testing for step-4", "Active", new Date(), null,
+				null, "Jhon123");
+		other.setUpdatedAt(new Date(1000L));
+		List<Note> notes = Arrays.asList(note, other);
+		EncodedNotes encoded = new EncodedNotes(notes, cache);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		encoded.writeTo(out);
+		assertArrayEquals(mapper.writeValueAsBytes(notes), out.toByteArray());
+		assertEquals(out.size(), encoded.getContentLength());
+		assertEquals(mapper.writeValueAsString(notes), mapper.writeValueAsString(encoded));
+
+		out.reset();
+		new EncodedNotes(Collections.<Note>emptyList(), cache).writeTo(out);
+		assertEquals("[]", out.toString(StandardCharsets.UTF_8.name()));
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.stackroute.keepnote.test.cache;
+
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.stackroute.keepnote.cache.SingleFlight;
+
+public class SingleFlightTest {
+
+	private SingleFlight<String, String> flights;
+	private ExecutorService executor;
+	private AtomicInteger loads;
+
+	@Before
+	public void setUp() {
+		flights = new SingleFlight<>();
+		executor = Executors.newFixedThreadPool(4);
+		loads = new AtomicInteger();
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testConcurrentCallersShareOneLoad() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Future<String> leader = executor.submit(() -> flights.load("Jhon123", key -> {
+			loads.incrementAndGet();
+			started.countDown();
+			await(release);
+			return key + "-user";
+		}));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		List<Future<String>> followers = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			followers.add(executor.submit(() -> flights.load("Jhon123", key -> {
+				loads.incrementAndGet();
+				return "not shared";
+			})));
+		}
+		while (flights.getSharedCount() < 3) {
+			Thread.sleep(1);
+		}
+		release.countDown();
+		assertEquals("Jhon123-user", leader.get(5, TimeUnit.SECONDS));
+		for (Future<String> follower : followers) {
+			assertEquals("Jhon123-user", follower.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, loads.get());
+		assertEquals(1, flights.getLoadCount());
+	}
+
+	@Test
+	public void testFailureIsSharedAndNotKept() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Future<String> leader = executor.submit(() -> flights.load("Jhon123", key -> {
+			started.countDown();
+			await(release);
+			throw new IllegalArgumentException("lost connection");
+		}));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		Future<String> follower = executor.submit(() -> flights.load("Jhon123", key -> "not shared"));
+		while (flights.getSharedCount() < 1) {
+			Thread.sleep(1);
+		}
+		release.countDown();
+		for (Future<String> caller : Arrays.asList(leader, follower)) {
+			try {
+				caller.get(5, TimeUnit.SECONDS);
+				fail();
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof IllegalArgumentException);
+			}
+		}
+		assertEquals("loaded again", flights.load("Jhon123", key -> "loaded again"));
+	}
+
+	@Test
+	public void testSequentialCallersLoadAgain() {
+		flights.load("Jhon123", key -> String.valueOf(loads.incrementAndGet()));
+		assertEquals("2", flights.load("Jhon123", key -> String.valueOf(loads.incrementAndGet())));
+		assertEquals(0, flights.getSharedCount());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,130 @@
+package com.stackroute.keepnote.test.config;
+
+import static org.junit.Assert.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.stackroute.keepnote.config.CompressionFilter;
+
+public class CompressionFilterTest {
+
+	private static final String SMALL = "{\"noteId\":1}";
+
+	private CompressionFilter filter;
+	private String large;
+
+	@Before
+	public void setUp() {
+		filter = new CompressionFilter(256, 6, 2);
+		StringBuilder notes = new StringBuilder("[");
+		for (int i = 0; i < 100; i++) {
+			notes.append(i > 0 ? "," : "").append("{\"noteId\":").append(i)
+					.append(",\"noteTitle\":\"Testing\",\"noteStatus\":\"Active\"}");
+		}
+		large = notes.append(']').toString();
+	}
+
+	@Test
+	public void testLargeResponseIsGzipped() throws Exception {
+		MockHttpServletResponse response = perform("gzip, deflate", large, true);
+		assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+		assertEquals("W/\"v1\"", response.getHeader(HttpHeaders.ETAG));
+		assertTrue(response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+		assertEquals(large, inflate(new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))));
+		CompressionFilter.EndpointMetrics metrics = filter.getEndpointMetrics("GET /note");
+		assertEquals(1, metrics.getResponseCount());
+		assertEquals(large.length(), metrics.getBytesIn());
+		assertEquals(response.getContentAsByteArray().length, metrics.getBytesOut());
+		assertTrue(metrics.getCompressionRatio() > 1d);
+	}
+
+	@Test
+	public void testDeflateWhenPreferred() throws Exception {
+		MockHttpServletResponse response = perform("gzip;q=0.5, deflate", large, false);
+		assertEquals("deflate", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+		assertEquals(large,
+				inflate(new InflaterInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))));
+	}
+
+	@Test
+	public void testSmallResponseIsNotCompressed() throws Exception {
+		MockHttpServletResponse response = perform("gzip", SMALL, false);
+		assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+		assertEquals(SMALL.length(), response.getContentLength());
+		assertEquals(SMALL, response.getContentAsString());
+		assertNull(filter.getEndpointMetrics("GET /note"));
+	}
+
+	@Test
+	public void testNotCompressedWithoutAcceptEncoding() throws Exception {
+		MockHttpServletResponse response = perform(null, large, false);
+		assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+		assertEquals(large, response.getContentAsString());
+		response = perform("identity, gzip;q=0", large, false);
+		assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+	}
+
+	@Test
+	public void testDeflatersAreReused() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			perform("gzip", large, false);
+		}
+		assertEquals(1, filter.getGzipPool().getCreatedCount());
+		assertEquals(1, filter.getGzipPool().getIdleCount());
+		assertEquals(5, filter.getEndpointMetrics("GET /note").getResponseCount());
+	}
+
+	@Test
+	public void testNegotiate() {
+		assertEquals("gzip", CompressionFilter.negotiate("*"));
+		assertEquals("deflate", CompressionFilter.negotiate("deflate"));
+		assertEquals("deflate", CompressionFilter.negotiate("*, gzip;q=0"));
+		assertNull(CompressionFilter.negotiate("br"));
+		assertNull(CompressionFilter.negotiate(""));
+	}
+
+	private MockHttpServletResponse perform(String acceptEncoding, String body, boolean etag) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/note");
+		if (null != acceptEncoding) {
+			request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+				req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/note");
+				resp.setContentType("application/json;charset=UTF-8");
+				if (etag) {
+					resp.setHeader(HttpHeaders.ETAG, "\"v1\"");
+				}
+				resp.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+			}
+		}));
+		return response;
+	}
+
+	private static String inflate(InputStream in) throws IOException {
+		return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,104 @@
+package com.stackroute.keepnote.test.config;
+
+import static org.junit.Assert.*;
+import java.util.Collections;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.stackroute.keepnote.config.ReadWriteRoutingDataSource;
+import com.stackroute.keepnote.config.ReadYourWritesFilter;
+
+/*
+ * Two embedded databases stand in for the primary and the replica, each one
+ * holds a row naming it, so a query tells which database served it.
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate readWrite;
+	private TransactionTemplate readOnly;
+
+	@Before
+	public void setUp() {
+		DataSource primary = createDatabase("primary");
+		DataSource replica = createDatabase("replica");
+		ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(primary,
+				Collections.singletonList(replica));
+		routingDataSource.afterPropertiesSet();
+		DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		readWrite = new TransactionTemplate(transactionManager);
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+	}
+
+	@After
+	public void tearDown() {
+		ReadWriteRoutingDataSource.reset();
+	}
+
+	@Test
+	public void testReadOnlyTransactionUsesReplica() {
+		assertEquals("replica", readOnly.execute(status -> whoAmI()));
+	}
+
+	@Test
+	public void testReadWriteTransactionUsesPrimary() {
+		assertEquals("primary", readWrite.execute(status -> whoAmI()));
+	}
+
+	@Test
+	public void testReadsAfterWriteStickToPrimary() {
+		readWrite.execute(status -> jdbcTemplate.update("INSERT INTO marker (name) VALUES ('written')"));
+		assertEquals("primary", readOnly.execute(status -> whoAmI()));
+		ReadWriteRoutingDataSource.reset();
+		assertEquals("replica", readOnly.execute(status -> whoAmI()));
+	}
+
+	@Test
+	public void testFilterKeepsSessionOnPrimaryAfterWrite() throws Exception {
+		MockHttpSession session = new MockHttpSession();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setSession(session);
+		ReadYourWritesFilter filter = new ReadYourWritesFilter();
+		filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> readWrite
+				.execute(status -> jdbcTemplate.update("INSERT INTO marker (name) VALUES ('written')")));
+		assertNotNull(session.getAttribute(ReadYourWritesFilter.LAST_WRITE_ATTR));
+		assertFalse(ReadWriteRoutingDataSource.hasWritten());
+
+		String[] servedBy = new String[1];
+		request = new MockHttpServletRequest();
+		request.setSession(session);
+		filter.doFilter(request, new MockHttpServletResponse(),
+				(req, res) -> servedBy[0] = readOnly.execute(status -> whoAmI()));
+		assertEquals("primary", servedBy[0]);
+		assertEquals("replica", readOnly.execute(status -> whoAmI()));
+	}
+
+	private String whoAmI() {
+		return jdbcTemplate.queryForObject("SELECT name FROM marker ORDER BY id LIMIT 1", String.class);
+	}
+
+	private DataSource createDatabase(String name) {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:" + name + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+		JdbcTemplate template = new JdbcTemplate(dataSource);
+		template.execute("CREATE TABLE marker (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(20))");
+		template.update("INSERT INTO marker (name) VALUES (?)", name);
+		return dataSource;
+	}
+
+}
@@ -24,9 +24,13 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.CannotCreateTransactionException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stackroute.keepnote.cache.ListVersion;
+import com.stackroute.keepnote.cache.UserListCache;
 import com.stackroute.keepnote.config.ApplicationContextConfig;
 import com.stackroute.keepnote.controller.CategoryController;
+import com.stackroute.keepnote.controller.ServiceUnavailableAdvice;
 import com.stackroute.keepnote.model.Category;
 import com.stackroute.keepnote.model.Note;
 import com.stackroute.keepnote.model.User;
@@ -64,7 +68,8 @@ public class CategoryControllerTest {
 	@Before
 	public void setUp() throws Exception {
 		MockitoAnnotations.initMocks(this);
-		mockMvc = MockMvcBuilders.standaloneSetup(categoryController).build();
+		mockMvc = MockMvcBuilders.standaloneSetup(categoryController)
+				.setControllerAdvice(new ServiceUnavailableAdvice()).build();
 
 		// Creating User object
 		user = new User("Jhon123", "Jhon Simon", "974324567", "123456", new Date());
@@ -110,7 +115,7 @@ public class CategoryControllerTest {
 	@Test
 	public void testDeleteCategorySuccess() throws Exception {
 
-		when(categoryService.deleteCategory(category.getCategoryId())).thenReturn(true);
+		when(categoryService.deleteCategory(category.getCategoryId(), "Jhon123")).thenReturn(true);
 		mockMvc.perform(delete("/category/{id}", category.getCategoryId()).contentType(MediaType.APPLICATION_JSON)
 				.session(session)).andExpect(status().isOk()).andDo(print());
 
@@ -119,16 +124,26 @@ public class CategoryControllerTest {
 	@Test
 	public void testDeleteCategoryFailure() throws Exception {
 
-		when(categoryService.deleteCategory(category.getCategoryId())).thenReturn(false);
+		when(categoryService.deleteCategory(category.getCategoryId(), "Jhon123")).thenReturn(false);
 		mockMvc.perform(delete("/category/{id}", category.getCategoryId()).contentType(MediaType.APPLICATION_JSON)
 				.session(session)).andExpect(status().isNotFound()).andDo(print());
 
 	}
 
+	@Test
+	public void testDeleteCategoryWithoutConnection() throws Exception {
+
+		when(categoryService.deleteCategory(category.getCategoryId(), "Jhon123"))
+				.thenThrow(new CannotCreateTransactionException("Connection is not available"));
+		mockMvc.perform(delete("/category/{id}", category.getCategoryId()).contentType(MediaType.APPLICATION_JSON)
+				.session(session)).andExpect(status().isServiceUnavailable()).andDo(print());
+
+	}
+
 	@Test
 	public void testDeleteCategoryWithoutSessionFailure() throws Exception {
 
-		when(categoryService.deleteCategory(category.getCategoryId())).thenReturn(false);
+		when(categoryService.deleteCategory(category.getCategoryId(), "Jhon123")).thenReturn(false);
 		mockMvc.perform(delete("/category/{id}", category.getCategoryId()).contentType(MediaType.APPLICATION_JSON))
 				.andExpect(status().isUnauthorized()).andDo(print());
 
@@ -137,21 +152,21 @@ public class CategoryControllerTest {
 	@Test
 	
 	public void testUpdateCategorySuccess() throws Exception {
-		when(categoryService.updateCategory(any(), eq(category.getCategoryId()))).thenReturn(category);
+		when(categoryService.updateCategory(any(), eq(category.getCategoryId()), eq("Jhon123"))).thenReturn(category);
 		mockMvc.perform(put("/category/{id}", category.getCategoryId()).contentType(MediaType.APPLICATION_JSON)
 				.content(asJsonString(category)).session(session)).andExpect(status().isOk());
 	}
 
 	@Test
 	public void testUpdateCategoryFailure() throws Exception {
-		when(categoryService.updateCategory(any(), eq(category.getCategoryId()))).thenReturn(null);
+		when(categoryService.updateCategory(any(), eq(category.getCategoryId()), eq("Jhon123"))).thenReturn(null);
 		mockMvc.perform(put("/category/{id}", 2).contentType(MediaType.APPLICATION_JSON).content(asJsonString(category))
 				.session(session)).andExpect(status().isNotFound());
 	}
 
 	@Test
 	public void testUpdateCategoryWithoutSessionFailure() throws Exception {
-		when(categoryService.updateCategory(any(), eq(category.getCategoryId()))).thenReturn(category);
+		when(categoryService.updateCategory(any(), eq(category.getCategoryId()), eq("Jhon123"))).thenReturn(category);
 		mockMvc.perform(put("/category/{id}", category.getCategoryId()).contentType(MediaType.APPLICATION_JSON)
 				.content(asJsonString(category))).andExpect(status().isUnauthorized());
 	}
@@ -170,6 +185,16 @@ public class CategoryControllerTest {
 				.andExpect(status().isOk()).andExpect(jsonPath("$", hasSize(3))).andDo(print());
 	}
 
+	@Test
+	public void testGetAllCategoriesByUserIdNotModified() throws Exception {
+
+		ListVersion version = new UserListCache().getCategories().getVersion("Jhon123");
+		when(categoryService.getCategoriesVersion("Jhon123")).thenReturn(version);
+		mockMvc.perform(get("/category").header("If-None-Match", "W/" + version.getTag()).session(session))
+				.andExpect(status().isNotModified());
+		verify(categoryService, never()).getAllCategoryByUserId("Jhon123");
+	}
+
 	@Test
 	public void testGetAllCategoriesByUserIdWithoutSessionFailure() throws Exception {
 
@@ -2,8 +2,16 @@ package com.stackroute.keepnote.test.controller;
 
 import static org.mockito.Mockito.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.hamcrest.Matchers.hasSize;
@@ -14,21 +22,43 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.mock.web.MockHttpSession;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.CannotCreateTransactionException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.stackroute.keepnote.cache.IdempotencyStore;
+import com.stackroute.keepnote.cache.ListVersion;
+import com.stackroute.keepnote.cache.NoteJsonCache;
+import com.stackroute.keepnote.cache.UserListCache;
 import com.stackroute.keepnote.config.ApplicationContextConfig;
+import com.stackroute.keepnote.config.IdempotencyFilter;
+import com.stackroute.keepnote.config.WebMvcConfig;
 import com.stackroute.keepnote.controller.NoteController;
+import com.stackroute.keepnote.controller.ServiceUnavailableAdvice;
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
+import com.stackroute.keepnote.model.BatchItemResult;
 import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.FieldSelection;
+import com.stackroute.keepnote.model.ImportSummary;
+import com.stackroute.keepnote.model.KeysetPage;
 import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.NoteSearchHit;
+import com.stackroute.keepnote.model.NoteSummary;
 import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.Suggestion;
 import com.stackroute.keepnote.model.User;
 import com.stackroute.keepnote.service.NoteService;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -37,6 +67,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
 @RunWith(SpringRunner.class)
@@ -57,6 +89,10 @@ public class NoteControllerTest {
 	private NoteService noteService;
 	@Autowired
 	private MockHttpSession session;
+	@Spy
+	private ObjectMapper objectMapper = new ObjectMapper();
+	@Spy
+	private NoteJsonCache noteJsonCache = new NoteJsonCache();
 	@InjectMocks
 	private NoteController noteController;
 
@@ -67,7 +103,8 @@ public class NoteControllerTest {
 	public void setUp() throws Exception {
 
 		MockitoAnnotations.initMocks(this);
-		mockMvc = MockMvcBuilders.standaloneSetup(noteController).build();
+		mockMvc = MockMvcBuilders.standaloneSetup(noteController)
+				.setControllerAdvice(new ServiceUnavailableAdvice()).build();
 		// session = new MockHttpSession();
 		// Creating User Object
 		user = new User("Jhon123", "Jhon Simon", "974324567", "123456", new Date());
@@ -129,6 +166,75 @@ public class NoteControllerTest {
 
 	}
 
+	@Test
+	public void testCreateNoteWithIdempotencyKeyRunsOnce() throws Exception {
+
+		MockMvc idempotentMvc = MockMvcBuilders.standaloneSetup(noteController)
+				.addFilters(new IdempotencyFilter(new IdempotencyStore(null, 100L, 60000L, 1000L))).build();
+		Note created = new Note(1, "Testing-1", "Testing Service layer", "Active", new Date(), null, null, "Jhon123");
+		when(noteService.createNote(any())).thenReturn(true);
+		idempotentMvc.perform(post("/note").header(IdempotencyFilter.KEY_HEADER, "note-1")
+				.contentType(MediaType.APPLICATION_JSON).content(asJsonString(created)).session(session))
+				.andExpect(status().isCreated()).andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+		idempotentMvc.perform(post("/note").header(IdempotencyFilter.KEY_HEADER, "note-1")
+				.contentType(MediaType.APPLICATION_JSON).content(asJsonString(created)).session(session))
+				.andExpect(status().isCreated()).andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+				.andDo(print());
+		verify(noteService, times(1)).createNote(any());
+
+	}
+
+	@Test
+	public void testIdempotencyKeyReusedWithAnotherNote() throws Exception {
+
+		MockMvc idempotentMvc = MockMvcBuilders.standaloneSetup(noteController)
+				.addFilters(new IdempotencyFilter(new IdempotencyStore(null, 100L, 60000L, 1000L))).build();
+		Note created = new Note(1, "Testing-1", "Testing Service layer", "Active", new Date(), null, null, "Jhon123");
+		when(noteService.createNote(any())).thenReturn(true);
+		idempotentMvc.perform(post("/note").header(IdempotencyFilter.KEY_HEADER, "note-1")
+				.contentType(MediaType.APPLICATION_JSON).content(asJsonString(created)).session(session))
+				.andExpect(status().isCreated());
+		created.setNoteTitle("Testing-2");
+		idempotentMvc.perform(post("/note").header(IdempotencyFilter.KEY_HEADER, "note-1")
+				.contentType(MediaType.APPLICATION_JSON).content(asJsonString(created)).session(session))
+				.andExpect(status().isUnprocessableEntity()).andDo(print());
+		verify(noteService, times(1)).createNote(any());
+
+	}
+
+	@Test
+	public void testCreateNotesSuccess() throws Exception {
+
+		List<BatchItemResult> results = new ArrayList<>();
+		results.add(BatchItemResult.created(0, 1));
+		when(noteService.createNotes(any(), eq("Jhon123"))).thenReturn(results);
+		mockMvc.perform(post("/note/batch").contentType(MediaType.APPLICATION_JSON)
+				.content(asJsonString(allNotesByUserId)).session(session)).andExpect(status().isCreated())
+				.andExpect(jsonPath("$[0].id").value(1)).andDo(print());
+
+	}
+
+	@Test
+	public void testCreateNotesPartialSuccess() throws Exception {
+
+		List<BatchItemResult> results = new ArrayList<>();
+		results.add(BatchItemResult.created(0, 1));
+		results.add(BatchItemResult.rejected(1, "category not found exception"));
+		when(noteService.createNotes(any(), eq("Jhon123"))).thenReturn(results);
+		mockMvc.perform(post("/note/batch").contentType(MediaType.APPLICATION_JSON)
+				.content(asJsonString(allNotesByUserId)).session(session)).andExpect(status().isMultiStatus())
+				.andExpect(jsonPath("$[1].status").value(BatchItemResult.REJECTED)).andDo(print());
+
+	}
+
+	@Test
+	public void testCreateNotesEmptyBatch() throws Exception {
+
+		mockMvc.perform(post("/note/batch").contentType(MediaType.APPLICATION_JSON).content("[]").session(session))
+				.andExpect(status().isBadRequest()).andDo(print());
+
+	}
+
 	@Test
 	public void testCreateNoteFailure() throws Exception {
 
@@ -152,7 +258,7 @@ public class NoteControllerTest {
 	@Test
 	public void testDeleteNoteSuccess() throws Exception {
 
-		when(noteService.deleteNote(note.getNoteId())).thenReturn(true);
+		when(noteService.deleteNote(note.getNoteId(), "Jhon123")).thenReturn(true);
 		mockMvc.perform(delete("/note/{id}", note.getNoteId()).session(session)).andExpect(status().isOk())
 				.andDo(print());
 
@@ -161,14 +267,23 @@ public class NoteControllerTest {
 	@Test
 	public void testDeleteNoteFailure() throws Exception {
 
-		when(noteService.deleteNote(1)).thenReturn(false);
+		when(noteService.deleteNote(1, "Jhon123")).thenReturn(false);
 		mockMvc.perform(delete("/note/{id}", 1).session(session)).andExpect(status().isNotFound()).andDo(print());
 	}
 
+	@Test
+	public void testDeleteNoteWithoutConnection() throws Exception {
+
+		when(noteService.deleteNote(1, "Jhon123"))
+				.thenThrow(new CannotCreateTransactionException("Connection is not available"));
+		mockMvc.perform(delete("/note/{id}", 1).session(session)).andExpect(status().isServiceUnavailable())
+				.andDo(print());
+	}
+
 	@Test
 	public void testDeleteNoteFailureWithoutSession() throws Exception {
 
-		when(noteService.deleteNote(1)).thenReturn(false);
+		when(noteService.deleteNote(1, "Jhon123")).thenReturn(false);
 		mockMvc.perform(delete("/note/{id}", 1)).andExpect(status().isUnauthorized()).andDo(print());
 	}
 
@@ -178,7 +293,7 @@ public class NoteControllerTest {
 		note = new Note(1, "Testing for Step-3", "Complete testing for step-3", "Active", new Date(), category,
 				reminder, user.getUserId());
 		note.setNoteContent("updating note card");
-		when(noteService.updateNote(any(), eq(1))).thenReturn(note);
+		when(noteService.updateNote(any(), eq(1), eq("Jhon123"))).thenReturn(note);
 		mockMvc.perform(put("/note/{id}", note.getNoteId()).contentType(MediaType.APPLICATION_JSON)
 				.content(asJsonString(note)).session(session)).andExpect(status().isOk()).andDo(print());
 
@@ -187,7 +302,7 @@ public class NoteControllerTest {
 	@Test
 	public void testUpdateNoteFailure() throws ReminderNotFoundException, Exception {
 		note.setNoteContent("updating note card");
-		when(noteService.updateNote(note, note.getNoteId())).thenReturn(null);
+		when(noteService.updateNote(note, note.getNoteId(), "Jhon123")).thenReturn(null);
 		mockMvc.perform(put("/note/{id}", 1).contentType(MediaType.APPLICATION_JSON).content(asJsonString(note))
 				.session(session)).andExpect(status().isNotFound()).andDo(print());
 	}
@@ -196,7 +311,7 @@ public class NoteControllerTest {
 	public void testUpdateNoteFailureWithoutSession() throws ReminderNotFoundException, Exception {
 		// when(noteService.getNoteById(5)).thenReturn(null);
 		note.setNoteContent("updating note card");
-		when(noteService.updateNote(note, note.getNoteId())).thenReturn(note);
+		when(noteService.updateNote(note, note.getNoteId(), "Jhon123")).thenReturn(note);
 		mockMvc.perform(put("/note/{id}", 1).contentType(MediaType.APPLICATION_JSON).content(asJsonString(note)))
 				.andExpect(status().isUnauthorized()).andDo(print());
 	}
@@ -210,6 +325,115 @@ public class NoteControllerTest {
 
 	}
 
+	@Test
+	public void testGetNoteFields() throws Exception {
+
+		Map<String, Object> row = new LinkedHashMap<>();
+		row.put("noteId", 1);
+		row.put("noteTitle", "Testing for Step-3");
+		when(noteService.getNoteFieldsByUserId(eq("Jhon123"), any(FieldSelection.class)))
+				.thenReturn(Collections.singletonList(row));
+		mockMvc.perform(get("/note").param("fields", "noteTitle").session(session)).andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].noteTitle").value("Testing for Step-3"))
+				.andExpect(jsonPath("$[0].noteContent").doesNotExist()).andDo(print());
+		verify(noteService, never()).getAllNotesByUserId("Jhon123");
+		mockMvc.perform(get("/note").param("fields", "noteTitle,password").session(session))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/note").param("fields", "noteTitle").param("view", "summary").session(session))
+				.andExpect(status().isBadRequest());
+
+	}
+
+	@Test
+	public void testGetAllNotesByUserIdFromCachedJson() throws Exception {
+
+		for (Note each : allNotesByUserId) {
+			each.setUpdatedAt(new Date());
+		}
+		when(noteService.getAllNotesByUserId("Jhon123")).thenReturn(allNotesByUserId);
+		String expected = Jackson2ObjectMapperBuilder.json().build().writeValueAsString(allNotesByUserId);
+		MockMvc binaryMvc = binaryMockMvc();
+		for (int i = 0; i < 2; i++) {
+			binaryMvc.perform(get("/note").session(session)).andExpect(status().isOk())
+					.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+					.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, expected.length()))
+					.andExpect(content().string(expected));
+		}
+		assertEquals(3, noteJsonCache.getStats().missCount());
+		assertEquals(3, noteJsonCache.getStats().hitCount());
+
+	}
+
+	@Test
+	public void testGetAllNotesByUserIdTaggedPerFormat() throws Exception {
+
+		ListVersion version = new UserListCache().getNotes().getVersion("Jhon123");
+		when(noteService.getNotesVersion("Jhon123")).thenReturn(version);
+		when(noteService.getAllNotesByUserId("Jhon123")).thenReturn(allNotesByUserId);
+		MockMvc binaryMvc = binaryMockMvc();
+		binaryMvc.perform(get("/note").header("If-None-Match", version.getTag()).session(session))
+				.andExpect(status().isNotModified()).andExpect(header().string(HttpHeaders.VARY, "Accept"));
+		String cborTag = binaryMvc
+				.perform(get("/note").accept("application/cbor").header("If-None-Match", version.getTag())
+						.session(session))
+				.andExpect(status().isOk()).andExpect(content().contentTypeCompatibleWith("application/cbor"))
+				.andExpect(header().string(HttpHeaders.VARY, "Accept")).andReturn().getResponse()
+				.getHeader(HttpHeaders.ETAG);
+		assertNotEquals(version.getTag(), cborTag);
+		binaryMvc.perform(get("/note").accept("application/cbor").header("If-None-Match", cborTag).session(session))
+				.andExpect(status().isNotModified());
+		binaryMvc.perform(get("/note").accept("application/x-jackson-smile").header("If-None-Match", cborTag)
+				.session(session)).andExpect(status().isOk());
+		binaryMvc.perform(get("/note").header("If-None-Match", cborTag).session(session))
+				.andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, version.getTag()));
+
+	}
+
+	@Test
+	public void testGetAllNotesByUserIdAsCbor() throws Exception {
+
+		when(noteService.getAllNotesByUserId("Jhon123")).thenReturn(allNotesByUserId);
+		MockMvc binaryMvc = binaryMockMvc();
+		byte[] body = binaryMvc.perform(get("/note").accept("application/cbor").session(session))
+				.andExpect(status().isOk()).andExpect(content().contentTypeCompatibleWith("application/cbor")).andReturn()
+				.getResponse().getContentAsByteArray();
+		Note[] notes = new ObjectMapper(new CBORFactory()).readValue(body, Note[].class);
+		assertEquals(3, notes.length);
+		assertEquals("Testing for Step-4", notes[1].getNoteTitle());
+		binaryMvc.perform(get("/note").accept(MediaType.ALL).session(session)).andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$", hasSize(3)));
+
+	}
+
+	@Test
+	public void testCreateNoteFromSmile() throws Exception {
+
+		when(noteService.createNote(any())).thenReturn(true);
+		Note created = new Note(1, "Testing-1", "Testing Service layer", "Active", new Date(), null, null, "Jhon123");
+		binaryMockMvc().perform(post("/note").contentType("application/x-jackson-smile")
+				.content(new ObjectMapper(new SmileFactory()).writeValueAsBytes(created)).session(session))
+				.andExpect(status().isCreated());
+		verify(noteService).createNote(argThat(note -> "Testing-1".equals(note.getNoteTitle())));
+
+	}
+
+	@Test
+	public void testGetAllNotesByUserIdNotModified() throws Exception {
+
+		ListVersion version = new UserListCache().getNotes().getVersion("Jhon123");
+		when(noteService.getNotesVersion("Jhon123")).thenReturn(version);
+		when(noteService.getAllNotesByUserId("Jhon123")).thenReturn(allNotesByUserId);
+		mockMvc.perform(get("/note").header("If-None-Match", version.getTag()).session(session))
+				.andExpect(status().isNotModified()).andExpect(content().string(""));
+		mockMvc.perform(get("/note").header("If-Modified-Since", version.getLastModified()).session(session))
+				.andExpect(status().isNotModified());
+		mockMvc.perform(get("/note").header("If-None-Match", "\"0\"").session(session)).andExpect(status().isOk())
+				.andExpect(header().string("ETag", version.getTag())).andExpect(jsonPath("$", hasSize(3)));
+		verify(noteService, times(1)).getAllNotesByUserId("Jhon123");
+
+	}
+
 	@Test
 	public void testGetAllNotesByUserIdFailureWithoutSession() throws Exception {
 
@@ -219,6 +443,173 @@ public class NoteControllerTest {
 
 	}
 
+	@Test
+	public void testGetNotesPageByUserIdSuccess() throws Exception {
+
+		KeysetPage<Note> page = new KeysetPage<>(allNotesByUserId.subList(0, 2), KeysetPage.encodeCursor(2));
+		when(noteService.getNotesByUserId("Jhon123", null, 2)).thenReturn(page);
+		mockMvc.perform(get("/note").param("limit", "2").contentType(MediaType.APPLICATION_JSON).session(session))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.items", hasSize(2)))
+				.andExpect(jsonPath("$.next").value(page.getNext())).andDo(print());
+
+	}
+
+	@Test
+	public void testGetNotesPageByUserIdInvalidCursor() throws Exception {
+
+		when(noteService.getNotesByUserId("Jhon123", "bogus", null)).thenThrow(IllegalArgumentException.class);
+		mockMvc.perform(get("/note").param("after", "bogus").contentType(MediaType.APPLICATION_JSON).session(session))
+				.andExpect(status().isBadRequest()).andDo(print());
+
+	}
+
+	@Test
+	public void testGetNoteSummariesByUserIdSuccess() throws Exception {
+
+		List<NoteSummary> summaries = new ArrayList<>();
+		summaries.add(new NoteSummary(1, "Testing-1", "Active", new Date(), 1, 1));
+		when(noteService.getNoteSummariesByUserId("Jhon123")).thenReturn(summaries);
+		mockMvc.perform(get("/note").param("view", "summary").contentType(MediaType.APPLICATION_JSON).session(session))
+				.andExpect(status().isOk()).andExpect(jsonPath("$", hasSize(1)))
+				.andExpect(jsonPath("$[0].noteContent").doesNotExist()).andDo(print());
+
+	}
+
+	@Test
+	public void testGetNotesByUserIdUnknownView() throws Exception {
+
+		mockMvc.perform(get("/note").param("view", "bogus").contentType(MediaType.APPLICATION_JSON).session(session))
+				.andExpect(status().isBadRequest()).andDo(print());
+
+	}
+
+	@Test
+	public void testExportNotes() throws Exception {
+
+		doAnswer(invocation -> {
+			Consumer<Note> consumer = invocation.getArgument(1);
+			allNotesByUserId.forEach(consumer);
+			return null;
+		}).when(noteService).exportNotesByUserId(eq("Jhon123"), any());
+		String body = mockMvc.perform(get("/note/export").session(session)).andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith("application/x-ndjson")).andReturn().getResponse()
+				.getContentAsString();
+		String[] lines = body.split("\n");
+		assertEquals(3, lines.length);
+		assertEquals("Testing for Step-5", objectMapper.readValue(lines[2], Note.class).getNoteTitle());
+
+	}
+
+	@Test
+	public void testExportNotesUnauthorized() throws Exception {
+
+		mockMvc.perform(get("/note/export")).andExpect(status().isUnauthorized());
+
+	}
+
+	@Test
+	public void testImportNotes() throws Exception {
+
+		StringBuilder body = new StringBuilder();
+		for (Note each : allNotesByUserId) {
+			body.append(asJsonString(each)).append('\n');
+		}
+		when(noteService.importNotes(any(), eq("Jhon123"), eq(ImportSummary.DEFAULT_CHUNK_SIZE)))
+				.thenAnswer(invocation -> {
+					Iterator<Note> notes = invocation.getArgument(0);
+					ImportSummary summary = new ImportSummary();
+					while (notes.hasNext()) {
+						assertNotNull(notes.next().getNoteTitle());
+						summary.addChunk(1);
+					}
+					return summary;
+				});
+		mockMvc.perform(post("/note/import").contentType("application/x-ndjson").content(body.toString())
+				.session(session)).andExpect(status().isOk()).andExpect(jsonPath("$.imported").value(3))
+				.andExpect(jsonPath("$.complete").value(true)).andDo(print());
+
+	}
+
+	@Test
+	public void testImportNotesMalformedBody() throws Exception {
+
+		mockMvc.perform(post("/note/import").contentType("application/x-ndjson").content("not json")
+				.session(session)).andExpect(status().isBadRequest()).andDo(print());
+
+	}
+
+	@Test
+	public void testImportNotesUnauthorized() throws Exception {
+
+		mockMvc.perform(post("/note/import").contentType("application/x-ndjson").content(asJsonString(note)))
+				.andExpect(status().isUnauthorized());
+
+	}
+
+	@Test
+	public void testSearchNotes() throws Exception {
+
+		List<NoteSearchHit> hits = new ArrayList<>();
+		hits.add(new NoteSearchHit(1, "<em>Testing</em>-1", "Testing Controller layer", 1.5));
+		when(noteService.searchNotes("Jhon123", "testing", NoteSearchHit.DEFAULT_LIMIT)).thenReturn(hits);
+		mockMvc.perform(get("/note/search").param("q", "testing").session(session)).andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].noteId").value(1)).andDo(print());
+
+	}
+
+	@Test
+	public void testSearchNotesWithoutQuery() throws Exception {
+
+		mockMvc.perform(get("/note/search").param("q", " ").session(session)).andExpect(status().isBadRequest());
+
+	}
+
+	@Test
+	public void testSearchNotesFailure() throws Exception {
+
+		when(noteService.searchNotes("Jhon123", "testing", NoteSearchHit.DEFAULT_LIMIT))
+				.thenThrow(new IllegalStateException("index unavailable"));
+		mockMvc.perform(get("/note/search").param("q", "testing").session(session))
+				.andExpect(status().isUnauthorized());
+
+	}
+
+	@Test
+	public void testSuggest() throws Exception {
+
+		List<Suggestion> suggestions = new ArrayList<>();
+		suggestions.add(new Suggestion(Suggestion.NOTE, 1, "Testing-1"));
+		when(noteService.suggest("Jhon123", "tes", 5)).thenReturn(suggestions);
+		mockMvc.perform(get("/note/suggest").param("prefix", "tes").param("limit", "5").session(session))
+				.andExpect(status().isOk()).andExpect(jsonPath("$[0].type").value(Suggestion.NOTE)).andDo(print());
+
+	}
+
+	@Test
+	public void testSuggestUnauthorized() throws Exception {
+
+		mockMvc.perform(get("/note/suggest").param("prefix", "tes")).andExpect(status().isUnauthorized());
+
+	}
+
+	@Test
+	public void testSuggestFailure() throws Exception {
+
+		when(noteService.suggest("Jhon123", "tes", Suggestion.DEFAULT_LIMIT))
+				.thenThrow(new IllegalStateException("index unavailable"));
+		mockMvc.perform(get("/note/suggest").param("prefix", "tes").session(session))
+				.andExpect(status().isUnauthorized());
+
+	}
+
+	private MockMvc binaryMockMvc() {
+		List<HttpMessageConverter<?>> converters = new ArrayList<>();
+		converters.add(new MappingJackson2HttpMessageConverter());
+		new WebMvcConfig().extendMessageConverters(converters);
+		return MockMvcBuilders.standaloneSetup(noteController).addInterceptors(WebMvcConfig.varyOnAccept())
+				.setMessageConverters(converters.toArray(new HttpMessageConverter<?>[converters.size()])).build();
+	}
+
 	public static String asJsonString(final Object obj) {
 		try {
 
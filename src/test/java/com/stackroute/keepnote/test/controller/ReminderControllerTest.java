@@ -7,6 +7,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.ArrayList;
@@ -27,10 +29,14 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.CannotCreateTransactionException;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stackroute.keepnote.cache.ListVersion;
+import com.stackroute.keepnote.cache.UserListCache;
 import com.stackroute.keepnote.config.ApplicationContextConfig;
 import com.stackroute.keepnote.controller.ReminderController;
+import com.stackroute.keepnote.controller.ServiceUnavailableAdvice;
 import com.stackroute.keepnote.model.Reminder;
 import com.stackroute.keepnote.model.User;
 import com.stackroute.keepnote.service.ReminderService;
@@ -54,7 +60,8 @@ public class ReminderControllerTest {
 	@Before
 	public void setUp() throws Exception {
 		MockitoAnnotations.initMocks(this);
-		mockMvc = MockMvcBuilders.standaloneSetup(reminderController).build();
+		mockMvc = MockMvcBuilders.standaloneSetup(reminderController)
+				.setControllerAdvice(new ServiceUnavailableAdvice()).build();
 		// Creating User object
 		user = new User("Jhon123", "Jhon Simon", "974324567", "123456", new Date());
 		// creating Session object and setting session
@@ -86,28 +93,28 @@ public class ReminderControllerTest {
 
 	@Test
 	public void testDeleteReminderSuccess() throws Exception {
-		when(reminderService.deleteReminder(reminder.getReminderId())).thenReturn(true);
+		when(reminderService.deleteReminder(reminder.getReminderId(), "Jhon123")).thenReturn(true);
 		mockMvc.perform(delete("/reminder/{id}", reminder.getReminderId()).session(session)).andExpect(status().isOk())
 				.andDo(print());
 	}
 
 	@Test
 	public void testDeleteReminderFailure() throws Exception {
-		when(reminderService.deleteReminder(reminder.getReminderId())).thenReturn(false);
+		when(reminderService.deleteReminder(reminder.getReminderId(), "Jhon123")).thenReturn(false);
 		mockMvc.perform(delete("/reminder/{id}", reminder.getReminderId()).session(session))
 				.andExpect(status().isNotFound()).andDo(print());
 	}
 
 	@Test
 	public void testDeleteReminderWithoutSessionFailure() throws Exception {
-		when(reminderService.deleteReminder(reminder.getReminderId())).thenReturn(false);
+		when(reminderService.deleteReminder(reminder.getReminderId(), "Jhon123")).thenReturn(false);
 		mockMvc.perform(delete("/reminder/{id}", reminder.getReminderId())).andExpect(status().isUnauthorized())
 				.andDo(print());
 	}
 
 	@Test
 	public void testUpdateReminderSuccess() throws Exception {
-		when(reminderService.updateReminder(any(),eq( reminder.getReminderId()))).thenReturn(reminder);
+		when(reminderService.updateReminder(any(),eq( reminder.getReminderId()), eq("Jhon123"))).thenReturn(reminder);
 		reminder.setReminderDescription("updating reminder");
 
 		mockMvc.perform(put("/reminder/{id}", reminder.getReminderId()).contentType(MediaType.APPLICATION_JSON)
@@ -116,7 +123,7 @@ public class ReminderControllerTest {
 
 	@Test
 	public void testUpdateReminderFailure() throws Exception {
-		when(reminderService.updateReminder(any(),eq( reminder.getReminderId()))).thenReturn(null);
+		when(reminderService.updateReminder(any(),eq( reminder.getReminderId()), eq("Jhon123"))).thenReturn(null);
 		reminder.setReminderDescription("updating reminder");
 
 		mockMvc.perform(put("/reminder/{id}", reminder.getReminderId()).contentType(MediaType.APPLICATION_JSON)
@@ -125,7 +132,7 @@ public class ReminderControllerTest {
 
 	@Test
 	public void testUpdateReminderWithoutSessionFailure() throws Exception {
-		when(reminderService.updateReminder(any(),eq( reminder.getReminderId()))).thenReturn(null);
+		when(reminderService.updateReminder(any(),eq( reminder.getReminderId()), eq("Jhon123"))).thenReturn(null);
 		reminder.setReminderDescription("updating reminder");
 
 		mockMvc.perform(put("/reminder/{id}", reminder.getReminderId()).contentType(MediaType.APPLICATION_JSON)
@@ -165,6 +172,45 @@ public class ReminderControllerTest {
 
 	}
 
+	@Test
+	public void testGetAllRemindersNotModified() throws Exception {
+		ListVersion version = new UserListCache().getReminders().getVersion("Jhon123");
+		when(reminderService.getRemindersVersion("Jhon123")).thenReturn(version);
+		mockMvc.perform(get("/reminder").session(session)).andExpect(status().isOk())
+				.andExpect(header().string("ETag", version.getTag()))
+				.andExpect(header().string("Cache-Control", "no-cache, private"));
+		mockMvc.perform(get("/reminder").header("If-None-Match", version.getTag()).session(session))
+				.andExpect(status().isNotModified());
+		verify(reminderService, times(1)).getAllReminderByUserId("Jhon123");
+	}
+
+	@Test
+	public void testGetReminderByIdNotModified() throws Exception {
+		ListVersion version = new UserListCache().getReminders().getVersion("Jhon123");
+		when(reminderService.getRemindersVersion("Jhon123")).thenReturn(version);
+		when(reminderService.getReminderById(reminder.getReminderId())).thenReturn(reminder);
+		String tag = version.getTag(reminder.getReminderId());
+		mockMvc.perform(get("/reminder/{id}", reminder.getReminderId()).session(session))
+				.andExpect(status().isOk()).andExpect(header().string("ETag", tag));
+		mockMvc.perform(get("/reminder/{id}", reminder.getReminderId()).header("If-None-Match", tag).session(session))
+				.andExpect(status().isNotModified()).andExpect(header().string("ETag", tag));
+		verify(reminderService, times(1)).getReminderById(reminder.getReminderId());
+	}
+
+	@Test
+	public void testGetReminderOfAnotherUserNotFound() throws Exception {
+		reminder.setReminderCreatedBy("Jhon456");
+		when(reminderService.getRemindersVersion("Jhon123"))
+				.thenReturn(new UserListCache().getReminders().getVersion("Jhon123"));
+		when(reminderService.getReminderById(reminder.getReminderId())).thenReturn(reminder);
+		mockMvc.perform(get("/reminder/{id}", reminder.getReminderId()).session(session))
+				.andExpect(status().isNotFound()).andExpect(header().doesNotExist("ETag"))
+				.andExpect(content().string(""));
+		when(reminderService.getRemindersVersion("Jhon123")).thenReturn(null);
+		mockMvc.perform(get("/reminder/{id}", reminder.getReminderId()).session(session))
+				.andExpect(status().isNotFound()).andExpect(content().string(""));
+	}
+
 	@Test
 	public void testGetReminderByIdFailure() throws Exception {
 		when(reminderService.getReminderById(reminder.getReminderId())).thenReturn(null);
@@ -173,6 +219,15 @@ public class ReminderControllerTest {
 
 	}
 
+	@Test
+	public void testGetReminderByIdWithoutConnection() throws Exception {
+		when(reminderService.getReminderById(reminder.getReminderId()))
+				.thenThrow(new CannotCreateTransactionException("Connection is not available"));
+		mockMvc.perform(get("/reminder/{id}", reminder.getReminderId()).contentType(MediaType.APPLICATION_JSON)
+				.session(session)).andExpect(status().isServiceUnavailable());
+
+	}
+
 	@Test
 	public void testGetReminderByIdWithoutSessionFailure() throws Exception {
 		when(reminderService.getReminderById(reminder.getReminderId())).thenReturn(null);
@@ -0,0 +1,133 @@
+package com.stackroute.keepnote.test.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import com.stackroute.keepnote.config.ApplicationContextConfig;
+import com.stackroute.keepnote.controller.SyncController;
+import com.stackroute.keepnote.controller.ServiceUnavailableAdvice;
+import com.stackroute.keepnote.model.BatchItemResult;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.SyncChanges;
+import com.stackroute.keepnote.model.SyncMutationResult;
+import com.stackroute.keepnote.model.Tombstone;
+import com.stackroute.keepnote.service.SyncService;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = { ApplicationContextConfig.class })
+@WebAppConfiguration
+public class SyncControllerTest {
+
+	private MockMvc mockMvc;
+	private Note note;
+	@Autowired
+	MockHttpSession session;
+	@Mock
+	SyncService syncService;
+	@InjectMocks
+	SyncController syncController;
+
+	@Before
+	public void setUp() throws Exception {
+		MockitoAnnotations.initMocks(this);
+		mockMvc = MockMvcBuilders.standaloneSetup(syncController)
+				.setControllerAdvice(new ServiceUnavailableAdvice()).build();
+		session.setAttribute("loggedInUserId", "Jhon123");
+		note = new Note(1, "Testing-1", "Testing Service layer", "Active", new Date(), null, null, "Jhon123");
+	}
+
+	@Test
+	public void testGetChangesSuccess() throws Exception {
+		SyncChanges changes = new SyncChanges(Arrays.asList(note), Collections.emptyList(), Collections.emptyList(),
+				Arrays.asList(new Tombstone(Tombstone.NOTE, 2, "Jhon123", new Date())), 1500L, false);
+		when(syncService.getChanges("Jhon123", 1000L)).thenReturn(changes);
+		mockMvc.perform(get("/sync").param("since", "1000").session(session)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.notes[0].noteId").value(1))
+				.andExpect(jsonPath("$.deleted[0].entityType").value(Tombstone.NOTE))
+				.andExpect(jsonPath("$.deleted[0].entityId").value(2))
+				.andExpect(jsonPath("$.deleted[0].ownerId").doesNotExist())
+				.andExpect(jsonPath("$.watermark").value(1500)).andDo(print());
+	}
+
+	@Test
+	public void testGetChangesWithoutWatermark() throws Exception {
+		SyncChanges changes = new SyncChanges(Arrays.asList(note), Collections.emptyList(), Collections.emptyList(),
+				Collections.emptyList(), 1500L, true);
+		when(syncService.getChanges("Jhon123", null)).thenReturn(changes);
+		mockMvc.perform(get("/sync").session(session)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.reset").value(true)).andDo(print());
+	}
+
+	@Test
+	public void testGetChangesInvalidWatermark() throws Exception {
+		mockMvc.perform(get("/sync").param("since", "yesterday").session(session))
+				.andExpect(status().isBadRequest()).andDo(print());
+	}
+
+	@Test
+	public void testGetChangesWithoutConnection() throws Exception {
+		when(syncService.getChanges("Jhon123", 1000L))
+				.thenThrow(new CannotCreateTransactionException("Connection is not available"));
+		mockMvc.perform(get("/sync").param("since", "1000").session(session))
+				.andExpect(status().isServiceUnavailable()).andDo(print());
+	}
+
+	@Test
+	public void testGetChangesUnauthorized() throws Exception {
+		mockMvc.perform(get("/sync").param("since", "1000")).andExpect(status().isUnauthorized()).andDo(print());
+	}
+
+	@Test
+	public void testApplyMutationsSuccess() throws Exception {
+		SyncMutationResult result = new SyncMutationResult(Arrays.asList(BatchItemResult.created(0, 5)),
+				Collections.singletonMap("n1", 5));
+		when(syncService.applyMutations(any(), eq("Jhon123"))).thenReturn(result);
+		mockMvc.perform(post("/sync/mutations").contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"op\":\"create\",\"type\":\"note\",\"tempId\":\"n1\",\"note\":{\"noteTitle\":\"Offline\"}}]")
+				.session(session)).andExpect(status().isOk()).andExpect(jsonPath("$.ids.n1").value(5))
+				.andDo(print());
+	}
+
+	@Test
+	public void testApplyMutationsPartiallyRejected() throws Exception {
+		SyncMutationResult result = new SyncMutationResult(
+				Arrays.asList(BatchItemResult.rejected(0, "note not found exception")), Collections.emptyMap());
+		when(syncService.applyMutations(any(), eq("Jhon123"))).thenReturn(result);
+		mockMvc.perform(post("/sync/mutations").contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"op\":\"delete\",\"type\":\"note\",\"id\":9}]").session(session))
+				.andExpect(status().isMultiStatus()).andDo(print());
+	}
+
+	@Test
+	public void testApplyMutationsEmpty() throws Exception {
+		mockMvc.perform(post("/sync/mutations").contentType(MediaType.APPLICATION_JSON).content("[]")
+				.session(session)).andExpect(status().isBadRequest()).andDo(print());
+	}
+
+}
@@ -20,6 +20,7 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stackroute.keepnote.controller.UserAuthenticationController;
+import com.stackroute.keepnote.controller.ServiceUnavailableAdvice;
 import com.stackroute.keepnote.model.User;
 import com.stackroute.keepnote.service.UserService;
 
@@ -37,7 +38,8 @@ public class UserAuthenticationControllerTest {
 	@Before
 	public void setUp() throws Exception {
 		MockitoAnnotations.initMocks(this);
-		mockMvc = MockMvcBuilders.standaloneSetup(authController).build();
+		mockMvc = MockMvcBuilders.standaloneSetup(authController)
+				.setControllerAdvice(new ServiceUnavailableAdvice()).build();
 		user = new User("Jhon123", "Jhon Simon", "974324567", "123456", new Date());
 		// creatin Session object and setting session
 		session = new MockHttpSession();
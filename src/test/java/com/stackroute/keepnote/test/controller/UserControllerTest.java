@@ -26,6 +26,7 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stackroute.keepnote.config.ApplicationContextConfig;
 import com.stackroute.keepnote.controller.UserController;
+import com.stackroute.keepnote.controller.ServiceUnavailableAdvice;
 import com.stackroute.keepnote.exception.UserAlreadyExistException;
 import com.stackroute.keepnote.model.User;
 import com.stackroute.keepnote.service.UserService;
@@ -49,7 +50,8 @@ public class UserControllerTest {
 
 		MockitoAnnotations.initMocks(this);
 
-		mockMvc = MockMvcBuilders.standaloneSetup(userController).build();
+		mockMvc = MockMvcBuilders.standaloneSetup(userController)
+				.setControllerAdvice(new ServiceUnavailableAdvice()).build();
 
 		user = new User("Jhon123", "Jhon Simon", "123456", "9872367384", new Date());
 		// Setting session attribute
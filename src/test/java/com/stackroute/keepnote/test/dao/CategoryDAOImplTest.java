@@ -2,7 +2,10 @@ package com.stackroute.keepnote.test.dao;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.Query;
 import javax.transaction.Transactional;
@@ -24,8 +27,13 @@ import org.springframework.test.context.web.WebAppConfiguration;
 import com.stackroute.keepnote.config.ApplicationContextConfig;
 import com.stackroute.keepnote.dao.CategoryDAO;
 import com.stackroute.keepnote.dao.CategoryDAOImpl;
+import com.stackroute.keepnote.dao.NoteDAOImpl;
+import com.stackroute.keepnote.dao.TombstoneDAOImpl;
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
 import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.FieldSelection;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.Tombstone;
 
 @RunWith(SpringRunner.class)
 @Transactional
@@ -60,6 +68,22 @@ public class CategoryDAOImplTest {
 
 	}
 
+	@Test
+	@Rollback(true)
+	public void testGetCategoryFieldsByUserId() {
+		categoryDAO.createCategory(category);
+		List<Map<String, Object>> rows = categoryDAO.getCategoryFieldsByUserId("Jhon123",
+				FieldSelection.parse("categoryName", FieldSelection.CATEGORY_FIELDS), 0, 0);
+		assertEquals(1, rows.size());
+		assertEquals(2, rows.get(0).size());
+		assertEquals(category.getCategoryId(), rows.get(0).get("categoryId"));
+		assertEquals("Testing", rows.get(0).get("categoryName"));
+		assertTrue(categoryDAO.getCategoryFieldsByUserId("Jhon123",
+				FieldSelection.parse("categoryName", FieldSelection.CATEGORY_FIELDS), category.getCategoryId(), 10)
+				.isEmpty());
+
+	}
+
 	@Test(expected= CategoryNotFoundException.class)
 	@Rollback(true)
 	public void testCreateCategoryFailure() throws CategoryNotFoundException {
@@ -85,6 +109,47 @@ public class CategoryDAOImplTest {
 		assertEquals(false, status);
 	}
 
+	@Test
+	public void testDeleteCategoryByOwnerTouchesItsNotes() {
+		categoryDAO.createCategory(category);
+		NoteDAOImpl noteDAO = new NoteDAOImpl(sessionFactory);
+		Note note = new Note(0, "Testing-1", "Testing sync", "Active", new Date(), category, null, "Jhon123");
+		noteDAO.createNote(note);
+		sessionFactory.getCurrentSession().flush();
+		sessionFactory.getCurrentSession()
+				.createQuery("update Note set updatedAt = :updatedAt where noteId = :noteId")
+				.setParameter("updatedAt", new Date(System.currentTimeMillis() - 3600000))
+				.setParameter("noteId", note.getNoteId()).executeUpdate();
+		Date since = new Date(System.currentTimeMillis() - 1000);
+
+		assertEquals(0, categoryDAO.deleteCategoryByOwner(category.getCategoryId(), "Jhon456"));
+		assertEquals(0, noteDAO.getNotesUpdatedSince("Jhon123", since).size());
+		assertEquals(1, categoryDAO.deleteCategoryByOwner(category.getCategoryId(), "Jhon123"));
+		assertEquals(1, noteDAO.getNotesUpdatedSince("Jhon123", since).size());
+		List<Tombstone> tombstones = new TombstoneDAOImpl(sessionFactory).getTombstonesSince("Jhon123", since);
+		assertEquals(1, tombstones.size());
+		assertEquals(Tombstone.CATEGORY, tombstones.get(0).getEntityType());
+		sessionFactory.getCurrentSession().createQuery("DELETE from Note").executeUpdate();
+	}
+
+	@Test
+	public void testDeleteCategories() {
+		categoryDAO.createCategory(category);
+		NoteDAOImpl noteDAO = new NoteDAOImpl(sessionFactory);
+		noteDAO.createNote(new Note(0, "Testing-1", "Testing sync", "Active", new Date(), category, null, "Jhon123"));
+		Date since = new Date(System.currentTimeMillis() - 1000);
+		List<Category> categories = categoryDAO.getCategoriesByIds("Jhon123", Arrays.asList(category.getCategoryId()));
+		assertEquals(1, categories.size());
+		assertTrue(categoryDAO.getCategoriesByIds("Jhon456", Arrays.asList(category.getCategoryId())).isEmpty());
+		categoryDAO.deleteCategories(categories);
+		sessionFactory.getCurrentSession().flush();
+		sessionFactory.getCurrentSession().clear();
+		assertTrue(categoryDAO.getAllCategoryByUserId("Jhon123").isEmpty());
+		assertNull(noteDAO.getNotesUpdatedSince("Jhon123", since).get(0).getCategory());
+		assertEquals(1, new TombstoneDAOImpl(sessionFactory).getTombstonesSince("Jhon123", since).size());
+		sessionFactory.getCurrentSession().createQuery("DELETE from Note").executeUpdate();
+	}
+
 	@Test
 	public void testUpdateCategory() throws CategoryNotFoundException {
 		categoryDAO.createCategory(category);
@@ -0,0 +1,92 @@
+package com.stackroute.keepnote.test.dao;
+
+import static org.junit.Assert.*;
+
+import java.util.Date;
+
+import javax.persistence.Query;
+import javax.transaction.Transactional;
+
+import org.hibernate.SessionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+import org.springframework.test.context.transaction.TransactionalTestExecutionListener;
+import org.springframework.test.context.web.WebAppConfiguration;
+
+import com.stackroute.keepnote.config.ApplicationContextConfig;
+import com.stackroute.keepnote.dao.IdempotencyDAO;
+import com.stackroute.keepnote.dao.IdempotencyDAOImpl;
+import com.stackroute.keepnote.model.IdempotentResponse;
+
+@RunWith(SpringRunner.class)
+@Transactional
+@WebAppConfiguration
+@ContextConfiguration(classes = { ApplicationContextConfig.class })
+@TestExecutionListeners({ DependencyInjectionTestExecutionListener.class, TransactionalTestExecutionListener.class })
+public class IdempotencyDAOImplTest {
+
+	@Autowired
+	private SessionFactory sessionFactory;
+	private IdempotencyDAO idempotencyDAO;
+	private IdempotentResponse pending;
+
+	@Before
+	public void setUp() throws Exception {
+		idempotencyDAO = new IdempotencyDAOImpl(sessionFactory);
+		pending = new IdempotentResponse("key-1", "body-1", IdempotentResponse.PENDING, null, null, new Date());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		Query query = sessionFactory.getCurrentSession().createQuery("DELETE from IdempotentResponse");
+		query.executeUpdate();
+	}
+
+	@Test
+	public void testClaimKeyOnce() {
+		assertTrue(idempotencyDAO.claimKey(pending));
+		assertFalse(idempotencyDAO.claimKey(
+				new IdempotentResponse("key-1", "body-2", IdempotentResponse.PENDING, null, null, new Date())));
+		IdempotentResponse claimed = idempotencyDAO.getResponse("key-1");
+		assertTrue(claimed.isPending());
+		assertEquals("body-1", claimed.getFingerprint());
+	}
+
+	@Test
+	public void testSaveResponseOverClaim() {
+		assertTrue(idempotencyDAO.claimKey(pending));
+		sessionFactory.getCurrentSession().clear();
+		idempotencyDAO.saveResponse(new IdempotentResponse("key-1", "body-1", 201, "application/json",
+				"{}".getBytes(), new Date()));
+		sessionFactory.getCurrentSession().flush();
+		sessionFactory.getCurrentSession().clear();
+		IdempotentResponse kept = idempotencyDAO.getResponse("key-1");
+		assertEquals(201, kept.getStatus());
+		assertArrayEquals("{}".getBytes(), kept.getBody());
+		assertEquals(0, idempotencyDAO.deleteClaim("key-1", new Date()));
+	}
+
+	@Test
+	public void testDeleteClaim() {
+		assertTrue(idempotencyDAO.claimKey(pending));
+		assertEquals(0, idempotencyDAO.deleteClaim("key-1", new Date(pending.getCreatedAt().getTime() - 60000L)));
+		assertEquals(1, idempotencyDAO.deleteClaim("key-1", new Date()));
+		assertTrue(idempotencyDAO.claimKey(pending));
+	}
+
+	@Test
+	public void testDeleteResponsesBefore() {
+		assertTrue(idempotencyDAO.claimKey(pending));
+		assertEquals(0, idempotencyDAO.deleteResponsesBefore(new Date(pending.getCreatedAt().getTime() - 60000L)));
+		assertEquals(1, idempotencyDAO.deleteResponsesBefore(new Date(System.currentTimeMillis() + 1000L)));
+		assertNull(idempotencyDAO.getResponse("key-1"));
+	}
+
+}
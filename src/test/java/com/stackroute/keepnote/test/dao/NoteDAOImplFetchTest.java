@@ -0,0 +1,111 @@
+package com.stackroute.keepnote.test.dao;
+
+import static org.junit.Assert.*;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.stackroute.keepnote.config.ReadWriteRoutingDataSource;
+import com.stackroute.keepnote.dao.NoteDAO;
+import com.stackroute.keepnote.dao.NoteDAOImpl;
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.test.support.H2SessionFactories;
+
+/*
+ * Checks that listing notes costs a constant number of SQL statements, no
+ * matter how many notes (with distinct categories and reminders) a user owns.
+ */
+public class NoteDAOImplFetchTest {
+
+	private SessionFactory sessionFactory;
+	private NoteDAO noteDAO;
+
+	@Before
+	public void setUp() {
+		Properties properties = new Properties();
+		properties.put("hibernate.current_session_context_class", "thread");
+		sessionFactory = H2SessionFactories.create("fetch", properties);
+		noteDAO = new NoteDAOImpl(sessionFactory);
+	}
+
+	@After
+	public void tearDown() {
+		sessionFactory.close();
+		ReadWriteRoutingDataSource.reset();
+	}
+
+	@Test
+	public void testGetAllNotesByUserIdStatementCountIsConstant() {
+		assertEquals(1, countListingStatements("Jhon123", 5));
+		assertEquals(1, countListingStatements("Jhon456", 50));
+	}
+
+	@Test
+	public void testGetNotesByUserIdAfterStatementCountIsConstant() {
+		createNotes("Jhon123", 30);
+		Session session = sessionFactory.getCurrentSession();
+		session.beginTransaction();
+		Statistics statistics = sessionFactory.getStatistics();
+		statistics.clear();
+		List<Note> notes = noteDAO.getNotesByUserIdAfter("Jhon123", 0, 20);
+		touchAssociations(notes);
+		assertEquals(20, notes.size());
+		assertEquals(1, statistics.getPrepareStatementCount());
+		session.getTransaction().commit();
+	}
+
+	@Test
+	public void testInsertNotesKeepsReadsOnPrimary() {
+		assertFalse(ReadWriteRoutingDataSource.hasWritten());
+		noteDAO.insertNotes(Arrays.asList(
+				new Note(0, "Imported", "Testing DAO layer", "Active", new Date(), null, null, "Jhon123")));
+		assertTrue(ReadWriteRoutingDataSource.hasWritten());
+	}
+
+	private long countListingStatements(String userId, int noteCount) {
+		createNotes(userId, noteCount);
+		Session session = sessionFactory.getCurrentSession();
+		session.beginTransaction();
+		Statistics statistics = sessionFactory.getStatistics();
+		statistics.clear();
+		List<Note> notes = noteDAO.getAllNotesByUserId(userId);
+		touchAssociations(notes);
+		assertEquals(noteCount, notes.size());
+		long statementCount = statistics.getPrepareStatementCount();
+		session.getTransaction().commit();
+		return statementCount;
+	}
+
+	private void touchAssociations(List<Note> notes) {
+		for (Note note : notes) {
+			assertNotNull(note.getCategory().getCategoryName());
+			assertNotNull(note.getReminder().getReminderName());
+		}
+	}
+
+	private void createNotes(String userId, int noteCount) {
+		Session session = sessionFactory.getCurrentSession();
+		session.beginTransaction();
+		for (int i = 0; i < noteCount; i++) {
+			Category category = new Category(0, "Category-" + i, "Testing fetching", new Date(), userId, null);
+			Reminder reminder = new Reminder(0, "Reminder-" + i, "Testing fetching", "Email", userId, null,
+					new Date());
+			session.save(category);
+			session.save(reminder);
+			session.save(new Note(0, "Testing-" + i, "Testing DAO layer", "Active", new Date(), category, reminder,
+					userId));
+		}
+		session.getTransaction().commit();
+	}
+
+}
@@ -1,8 +1,11 @@
 package com.stackroute.keepnote.test.dao;
 
 import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.Query;
 import javax.transaction.Transactional;
@@ -23,8 +26,12 @@ import org.springframework.test.context.web.WebAppConfiguration;
 import com.stackroute.keepnote.config.ApplicationContextConfig;
 import com.stackroute.keepnote.dao.NoteDAO;
 import com.stackroute.keepnote.dao.NoteDAOImpl;
+import com.stackroute.keepnote.dao.TombstoneDAOImpl;
 import com.stackroute.keepnote.exception.NoteNotFoundException;
+import com.stackroute.keepnote.model.FieldSelection;
 import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.NoteSummary;
+import com.stackroute.keepnote.model.Tombstone;
 
 @RunWith(SpringRunner.class)
 @Transactional
@@ -51,6 +58,55 @@ public class NoteDAOImplTest {
 		query.executeUpdate();
 	}
 
+	@Test
+	public void testCreatedByIndexExists() {
+
+		List<?> indexes = sessionFactory.getCurrentSession()
+				.createNativeQuery("SHOW INDEX FROM Note WHERE Key_name = 'IX_Note_createdBy_noteId'").getResultList();
+		assertEquals(2, indexes.size());
+	}
+
+	@Test
+	@Rollback(true)
+	public void testCreateNotes() {
+
+		List<Note> notes = new ArrayList<>();
+		for (int i = 0; i < 120; i++) {
+			notes.add(new Note(0, "Testing-" + i, "Testing batch inserts", "Active", new Date(), null, null, "Jhon123"));
+		}
+		noteDAO.createNotes(notes);
+		List<Note> created = noteDAO.getAllNotesByUserId("Jhon123");
+		assertEquals(120, created.size());
+	}
+
+	@Test
+	@Rollback(true)
+	public void testGetNotesByIds() {
+
+		Note other = new Note(0, "Testing-2", "Testing search", "Active", new Date(), null, null, "Jhon456");
+		noteDAO.createNote(note);
+		noteDAO.createNote(other);
+		List<Note> notes = noteDAO.getNotesByIds("Jhon123", Arrays.asList(note.getNoteId(), other.getNoteId()));
+		assertEquals(1, notes.size());
+		assertEquals("Testing-1", notes.get(0).getNoteTitle());
+	}
+
+	@Test
+	@Rollback(true)
+	public void testStreamNotesByUserId() {
+
+		List<Note> notes = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			notes.add(new Note(0, "Testing-" + i, "Testing export", "Active", new Date(), null, null, "Jhon123"));
+		}
+		noteDAO.createNotes(notes);
+		sessionFactory.getCurrentSession().flush();
+		List<String> titles = new ArrayList<>();
+		noteDAO.streamNotesByUserId("Jhon123", streamed -> titles.add(streamed.getNoteTitle()));
+		assertEquals(30, titles.size());
+		assertEquals("Testing-29", titles.get(29));
+	}
+
 	@Test
 	@Rollback(true)
 	public void testCreateNoteSuccess() throws NoteNotFoundException {
@@ -97,6 +153,124 @@ public class NoteDAOImplTest {
 		noteDAO.deleteNote(note3.getNoteId());
 	}
 
+	@Test
+	@Rollback(true)
+	public void testGetNotesByUserIdAfter() throws NoteNotFoundException {
+		Note note2 = new Note(2, "Testing-2", "Testing Service layer", "Active", new Date(), null, null, "Jhon123");
+		Note note3 = new Note(3, "Testing-3", "Testing Service layer", "Active", new Date(), null, null, "Jhon123");
+		noteDAO.createNote(note);
+		noteDAO.createNote(note2);
+		noteDAO.createNote(note3);
+		List<Note> firstPage = noteDAO.getNotesByUserIdAfter("Jhon123", 0, 2);
+		assertEquals(2, firstPage.size());
+		List<Note> secondPage = noteDAO.getNotesByUserIdAfter("Jhon123", firstPage.get(1).getNoteId(), 2);
+		assertEquals(1, secondPage.size());
+		assertEquals("Testing-3", secondPage.get(0).getNoteTitle());
+	}
+
+	@Test
+	@Rollback(true)
+	public void testGetNoteSummariesByUserId() throws NoteNotFoundException {
+		Note note2 = new Note(2, "Testing-2", "Testing Service layer", "Active", new Date(), null, null, "Jhon123");
+		noteDAO.createNote(note);
+		noteDAO.createNote(note2);
+		List<NoteSummary> summaries = noteDAO.getNoteSummariesByUserId("Jhon123");
+		assertEquals(2, summaries.size());
+		assertEquals("Testing-2", summaries.get(1).getNoteTitle());
+		assertNull(summaries.get(1).getCategoryId());
+		assertEquals(1, noteDAO.getNoteSummariesByUserIdAfter("Jhon123", summaries.get(0).getNoteId(), 2).size());
+		noteDAO.deleteNote(note.getNoteId());
+		noteDAO.deleteNote(note2.getNoteId());
+	}
+
+	@Test
+	@Rollback(true)
+	public void testGetNoteFieldsByUserId() throws NoteNotFoundException {
+		Note note2 = new Note(2, "Testing-2", "Testing Service layer", "Active", new Date(), null, null, "Jhon123");
+		noteDAO.createNote(note);
+		noteDAO.createNote(note2);
+		FieldSelection fields = FieldSelection.parse("noteTitle,categoryId", FieldSelection.NOTE_FIELDS);
+		List<Map<String, Object>> rows = noteDAO.getNoteFieldsByUserId("Jhon123", fields, 0, 0);
+		assertEquals(2, rows.size());
+		assertEquals(Arrays.asList("noteId", "noteTitle", "categoryId"), new ArrayList<>(rows.get(1).keySet()));
+		assertEquals(note2.getNoteId(), rows.get(1).get("noteId"));
+		assertEquals("Testing-2", rows.get(1).get("noteTitle"));
+		assertNull(rows.get(1).get("categoryId"));
+		assertEquals(1, noteDAO.getNoteFieldsByUserId("Jhon123", fields, note.getNoteId(), 1).size());
+	}
+
+	@Test
+	@Rollback(true)
+	public void testDeleteNoteByOwner() throws NoteNotFoundException {
+
+		noteDAO.createNote(note);
+		assertEquals(0, noteDAO.deleteNoteByOwner(note.getNoteId(), "Jhon456"));
+		assertEquals(1, noteDAO.deleteNoteByOwner(note.getNoteId(), "Jhon123"));
+
+	}
+
+	@Test
+	public void testUpdatedAtIndexExists() {
+
+		List<?> indexes = sessionFactory.getCurrentSession()
+				.createNativeQuery("SHOW INDEX FROM Note WHERE Key_name = 'IX_Note_createdBy_updatedAt'").getResultList();
+		assertEquals(2, indexes.size());
+	}
+
+	@Test
+	@Rollback(true)
+	public void testGetNotesUpdatedSince() {
+
+		noteDAO.createNote(note);
+		Note other = new Note(0, "Testing-2", "Testing sync", "Active", new Date(), null, null, "Jhon123");
+		noteDAO.createNote(other);
+		Date since = new Date(note.getUpdatedAt().getTime() - 1000);
+		assertEquals(2, noteDAO.getNotesUpdatedSince("Jhon123", since).size());
+		assertEquals(0, noteDAO.getNotesUpdatedSince("Jhon456", since).size());
+
+		Date later = new Date(System.currentTimeMillis() + 60000);
+		sessionFactory.getCurrentSession().flush();
+		sessionFactory.getCurrentSession()
+				.createQuery("update Note set updatedAt = :updatedAt where noteId = :noteId")
+				.setParameter("updatedAt", new Date(later.getTime() + 1000)).setParameter("noteId", other.getNoteId())
+				.executeUpdate();
+		List<Note> changed = noteDAO.getNotesUpdatedSince("Jhon123", later);
+		assertEquals(1, changed.size());
+		assertEquals(other.getNoteId(), changed.get(0).getNoteId());
+	}
+
+	@Test
+	@Rollback(true)
+	public void testDeleteNoteByOwnerLeavesTombstone() {
+
+		noteDAO.createNote(note);
+		Date since = new Date(System.currentTimeMillis() - 1000);
+		noteDAO.deleteNoteByOwner(note.getNoteId(), "Jhon456");
+		assertEquals(0, new TombstoneDAOImpl(sessionFactory).getTombstonesSince("Jhon123", since).size());
+		noteDAO.deleteNoteByOwner(note.getNoteId(), "Jhon123");
+		List<Tombstone> tombstones = new TombstoneDAOImpl(sessionFactory).getTombstonesSince("Jhon123", since);
+		assertEquals(1, tombstones.size());
+		assertEquals(Tombstone.NOTE, tombstones.get(0).getEntityType());
+		assertEquals(note.getNoteId(), tombstones.get(0).getEntityId());
+	}
+
+	@Test
+	@Rollback(true)
+	public void testUpdateNoteByOwner() throws NoteNotFoundException {
+
+		noteDAO.createNote(note);
+		sessionFactory.getCurrentSession().flush();
+		sessionFactory.getCurrentSession().clear();
+		Note changes = new Note(note.getNoteId(), "Testing-1", "Unit testing for DAO layer", "Active", new Date(), null,
+				null, "Jhon456");
+		assertEquals(0, noteDAO.updateNoteByOwner(changes, "Jhon456"));
+		assertEquals(1, noteDAO.updateNoteByOwner(changes, "Jhon123"));
+		Note updatedNote = noteDAO.getNoteById(note.getNoteId());
+		assertEquals("Unit testing for DAO layer", updatedNote.getNoteContent());
+		assertEquals("Jhon123", updatedNote.getCreatedBy());
+
+	}
+
 	@Test
 	@Rollback(true)
 	public void testGetNoteById() throws NoteNotFoundException {
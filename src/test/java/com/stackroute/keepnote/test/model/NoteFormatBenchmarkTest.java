@@ -0,0 +1,74 @@
+package com.stackroute.keepnote.test.model;
+
+import static org.junit.Assert.*;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.test.support.NoteBenchmarks;
+
+/*
+ * Compares the size of a GET /note response, and the time to write and read
+ * it, in JSON, Smile and CBOR, with the ObjectMappers the message converters
+ * use. The sizes and the round trip are checked in every build, the times only
+ * with -Dbenchmark=true.
+ */
+public class NoteFormatBenchmarkTest {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(NoteFormatBenchmarkTest.class);
+
+	private List<Note> notes;
+
+	@Before
+	public void setUp() {
+		notes = NoteBenchmarks.notes();
+	}
+
+	@Test
+	public void testBinaryFormatsAreSmaller() throws Exception {
+		int json = roundTrip(Jackson2ObjectMapperBuilder.json().build()).length;
+		assertTrue(roundTrip(Jackson2ObjectMapperBuilder.smile().build()).length < json);
+		assertTrue(roundTrip(Jackson2ObjectMapperBuilder.cbor().build()).length < json);
+	}
+
+	@Test
+	public void benchmarkFormats() throws Exception {
+		NoteBenchmarks.assumeEnabled();
+		measure("JSON", Jackson2ObjectMapperBuilder.json().build());
+		measure("Smile", Jackson2ObjectMapperBuilder.smile().build());
+		measure("CBOR", Jackson2ObjectMapperBuilder.cbor().build());
+	}
+
+	/*
+	 * Write the notes and read them back, checking that nothing was lost
+	 */
+	private byte[] roundTrip(ObjectMapper mapper) throws Exception {
+		Note[] values = notes.toArray(new Note[notes.size()]);
+		byte[] payload = mapper.writerFor(Note[].class).writeValueAsBytes(values);
+		Note[] read = mapper.readerFor(Note[].class).readValue(payload);
+		assertEquals(NoteBenchmarks.NOTES, read.length);
+		assertEquals(notes.get(NoteBenchmarks.NOTES - 1).getNoteContent(),
+				read[NoteBenchmarks.NOTES - 1].getNoteContent());
+		return payload;
+	}
+
+	private void measure(String format, ObjectMapper mapper) throws Exception {
+		ObjectWriter writer = mapper.writerFor(Note[].class);
+		ObjectReader reader = mapper.readerFor(Note[].class);
+		Note[] values = notes.toArray(new Note[notes.size()]);
+		byte[] payload = writer.writeValueAsBytes(values);
+		double write = NoteBenchmarks.measure(() -> writer.writeValueAsBytes(values));
+		double read = NoteBenchmarks.measure(() -> reader.readValue(payload));
+		LOGGER.info(String.format("%-5s %8d bytes  write %7.3f ms  read %7.3f ms", format, payload.length, write,
+				read));
+	}
+
+}
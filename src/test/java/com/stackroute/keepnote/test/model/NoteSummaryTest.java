@@ -0,0 +1,16 @@
+package com.stackroute.keepnote.test.model;
+
+import org.junit.Test;
+import org.meanbean.test.BeanTester;
+
+import com.stackroute.keepnote.model.NoteSummary;
+
+public class NoteSummaryTest {
+
+	@Test
+	public void Beantest() {
+		new BeanTester().testBean(NoteSummary.class);
+
+	}
+
+}
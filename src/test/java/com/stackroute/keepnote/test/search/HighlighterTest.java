@@ -0,0 +1,44 @@
+package com.stackroute.keepnote.test.search;
+
+import static org.junit.Assert.*;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.stackroute.keepnote.search.Highlighter;
+
+public class HighlighterTest {
+
+	private final Set<String> terms = new HashSet<>(Collections.singletonList("spring"));
+
+	@Test
+	public void testHighlightEscapesText() {
+		assertEquals("<em>Spring</em> &amp; &quot;", Highlighter.highlight("Spring & \"", terms));
+		assertEquals("a &lt;script&gt; <em>spring</em>", Highlighter.highlight("a <script> spring", terms));
+	}
+
+	@Test
+	public void testSnippetAroundFirstMatch() {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 50; i++) {
+			text.append("filler ");
+		}
+		text.append("about spring transactions");
+		for (int i = 0; i < 50; i++) {
+			text.append(" filler");
+		}
+		String snippet = Highlighter.snippet(text.toString(), terms, 80);
+		assertTrue(snippet.startsWith("\u2026filler"));
+		assertTrue(snippet.endsWith("\u2026"));
+		assertTrue(snippet.contains("about <em>spring</em> transactions"));
+	}
+
+	@Test
+	public void testSnippetWithoutMatch() {
+		assertEquals("short text", Highlighter.snippet("short text", terms, 80));
+		assertNull(Highlighter.snippet(null, terms, 80));
+	}
+
+}
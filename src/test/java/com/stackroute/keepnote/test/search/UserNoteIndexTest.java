@@ -0,0 +1,110 @@
+package com.stackroute.keepnote.test.search;
+
+import static org.junit.Assert.*;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.search.Tokenizer;
+import com.stackroute.keepnote.search.UserNoteIndex;
+
+public class UserNoteIndexTest {
+
+	private UserNoteIndex index;
+
+	@Before
+	public void setUp() {
+		index = new UserNoteIndex();
+		index.put(1, "Shopping list", "Milk, bread and eggs");
+		index.put(2, "Spring notes", "Spring transactions and the Spring session factory");
+		index.put(3, "Hibernate", "Batch inserts with a stateless session");
+	}
+
+	@Test
+	public void testTokenize() {
+		assertEquals(Arrays.asList("milk", "bread", "and", "eggs", "caf\u00e9"),
+				Tokenizer.tokenize("Milk, BREAD and eggs... Caf\u00e9"));
+	}
+
+	@Test
+	public void testSearchRanksByRelevance() {
+		List<UserNoteIndex.Hit> hits = index.search(Arrays.asList("session"), 10);
+		assertEquals(2, hits.size());
+		assertEquals(3, hits.get(0).getNoteId());
+		assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+		assertEquals(2, index.search(Arrays.asList("spring", "session"), 10).get(0).getNoteId());
+	}
+
+	@Test
+	public void testTitleOutranksContent() {
+		index.put(4, "Eggs", "Boil for seven minutes");
+		assertEquals(4, index.search(Arrays.asList("eggs"), 10).get(0).getNoteId());
+	}
+
+	@Test
+	public void testSearchKeepsBestHits() {
+		for (int i = 10; i < 60; i++) {
+			index.put(i, "Note " + i, "session " + (i % 2 == 0 ? "session" : "other"));
+		}
+		List<UserNoteIndex.Hit> hits = index.search(Arrays.asList("session"), 5);
+		assertEquals(5, hits.size());
+		for (UserNoteIndex.Hit hit : hits) {
+			assertEquals(0, hit.getNoteId() % 2);
+		}
+	}
+
+	@Test
+	public void testPutReplacesNote() {
+		index.put(1, "Shopping list", "Apples");
+		assertTrue(index.search(Arrays.asList("milk"), 10).isEmpty());
+		assertEquals(1, index.search(Arrays.asList("apples"), 10).get(0).getNoteId());
+		assertEquals(3, index.size());
+	}
+
+	@Test
+	public void testRemove() {
+		index.remove(3);
+		index.remove(42);
+		assertEquals(1, index.search(Arrays.asList("session"), 10).size());
+		assertTrue(index.search(Arrays.asList("hibernate"), 10).isEmpty());
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	public void testSearchAfterCompaction() {
+		for (int i = 10; i < 3010; i++) {
+			index.put(i, "Note " + i, i % 3 == 0 ? "kept session" : "dropped");
+		}
+		for (int i = 10; i < 3010; i++) {
+			if (i % 3 != 0) {
+				index.remove(i);
+			}
+		}
+		assertEquals(1003, index.size());
+		List<UserNoteIndex.Hit> hits = index.search(Arrays.asList("kept"), 2000);
+		assertEquals(1000, hits.size());
+		assertTrue(index.search(Arrays.asList("dropped"), 10).isEmpty());
+		index.put(3, "Hibernate", "Session after compaction");
+		assertEquals(3, index.search(Arrays.asList("compaction"), 10).get(0).getNoteId());
+	}
+
+	@Test
+	public void testLoadOnce() {
+		UserNoteIndex loaded = new UserNoteIndex();
+		AtomicInteger loads = new AtomicInteger();
+		for (int i = 0; i < 2; i++) {
+			loaded.load(consumer -> {
+				loads.incrementAndGet();
+				consumer.accept(new Note(7, "Loaded", "From the database", "Active", new Date(), null, null, "Jhon123"));
+			});
+		}
+		assertEquals(1, loads.get());
+		assertEquals(7, loaded.search(Arrays.asList("database"), 10).get(0).getNoteId());
+	}
+
+}
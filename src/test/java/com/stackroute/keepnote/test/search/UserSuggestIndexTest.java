@@ -0,0 +1,71 @@
+package com.stackroute.keepnote.test.search;
+
+import static org.junit.Assert.*;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.stackroute.keepnote.model.Suggestion;
+import com.stackroute.keepnote.search.UserSuggestIndex;
+
+public class UserSuggestIndexTest {
+
+	private UserSuggestIndex index;
+
+	@Before
+	public void setUp() {
+		index = new UserSuggestIndex();
+		index.putNote(1, "Shopping list");
+		index.putNote(2, "Spring transactions");
+		index.putNote(3, "Weekly shopping");
+		index.putCategory(1, "Spring");
+	}
+
+	@Test
+	public void testPrefixOfAnyWord() {
+		List<Suggestion> suggestions = index.suggest("shop", 10);
+		assertEquals(2, suggestions.size());
+		assertEquals(1, suggestions.get(0).getId());
+		assertEquals("Weekly shopping", suggestions.get(1).getText());
+	}
+
+	@Test
+	public void testShortPrefixMatchesExactly() {
+		assertEquals(4, index.suggest("s", 10).size());
+		assertTrue(index.suggest("xh", 10).isEmpty());
+	}
+
+	@Test
+	public void testTypoTolerance() {
+		assertEquals("Shopping list", index.suggest("shpo", 10).get(0).getText());
+		assertEquals("Spring transactions", index.suggest("spring tarnsac", 10).get(0).getText());
+		assertTrue(index.suggest("shxyz", 10).isEmpty());
+	}
+
+	@Test
+	public void testCategoriesAndRanking() {
+		List<Suggestion> suggestions = index.suggest("Spring", 10);
+		assertEquals(2, suggestions.size());
+		assertEquals(Suggestion.CATEGORY, suggestions.get(0).getType());
+		assertEquals(Suggestion.NOTE, suggestions.get(1).getType());
+		assertEquals(1, index.suggest("spring", 1).size());
+	}
+
+	@Test
+	public void testRemoveAndReplace() {
+		index.removeNote(1);
+		index.putNote(3, "Monthly budget");
+		index.removeCategory(1);
+		assertTrue(index.suggest("shop", 10).isEmpty());
+		assertEquals(3, index.suggest("budg", 10).get(0).getId());
+		assertEquals(1, index.suggest("spring", 10).size());
+		for (int i = 10; i < 3010; i++) {
+			index.putNote(i, "Note " + i);
+			index.removeNote(i);
+		}
+		assertEquals(2, index.size());
+		assertEquals(3, index.suggest("monthly", 10).get(0).getId());
+	}
+
+}
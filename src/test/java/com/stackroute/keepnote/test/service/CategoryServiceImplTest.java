@@ -6,6 +6,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import org.junit.Before;
@@ -13,16 +14,24 @@ import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
+import com.stackroute.keepnote.cache.UserListCache;
 import com.stackroute.keepnote.dao.CategoryDAO;
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
+import com.stackroute.keepnote.model.BatchItemResult;
 import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.search.NoteSuggestIndex;
 import com.stackroute.keepnote.service.CategoryServiceImpl;
 
 public class CategoryServiceImplTest {
 
 	@Mock
 	CategoryDAO categoryDAO;
+	@Mock
+	NoteSuggestIndex suggestIndex;
+	@Spy
+	UserListCache listCache = new UserListCache();
 	@InjectMocks
 	CategoryServiceImpl categoryServiceImpl;
 	private Category category = null;
@@ -42,6 +51,18 @@ public class CategoryServiceImplTest {
 		boolean status = categoryServiceImpl.createCategory(category);
 		assertEquals(true, status);
 		verify(categoryDAO, times(1)).createCategory(category);
+		verify(suggestIndex, times(1)).putCategory("Jhon123", 1, "Testing");
+	}
+
+	@Test
+	public void testCreateCategories() {
+		allCategory.add(category);
+		allCategory.add(null);
+		List<BatchItemResult> results = categoryServiceImpl.createCategories(allCategory, "Jhon456");
+		assertEquals(BatchItemResult.CREATED, results.get(0).getStatus());
+		assertEquals("Jhon456", category.getCategoryCreatedBy());
+		assertEquals(BatchItemResult.REJECTED, results.get(1).getStatus());
+		verify(categoryDAO, times(1)).createCategories(Arrays.asList(category));
 	}
 
 	@Test
@@ -1,27 +1,47 @@
 package com.stackroute.keepnote.test.service;
 
 import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import com.stackroute.keepnote.cache.NoteJsonCache;
+import com.stackroute.keepnote.cache.UserListCache;
 import com.stackroute.keepnote.dao.CategoryDAO;
 import com.stackroute.keepnote.dao.NoteDAO;
 import com.stackroute.keepnote.dao.ReminderDAO;
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
 import com.stackroute.keepnote.exception.NoteNotFoundException;
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
+import com.stackroute.keepnote.model.BatchItemResult;
 import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.ImportSummary;
+import com.stackroute.keepnote.model.KeysetPage;
 import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.NoteSearchHit;
+import com.stackroute.keepnote.model.NoteSummary;
 import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.Suggestion;
+import com.stackroute.keepnote.search.NoteSearchIndex;
+import com.stackroute.keepnote.search.NoteSuggestIndex;
 import com.stackroute.keepnote.service.NoteServiceImpl;
 
 public class NoteServiceImplTest {
@@ -32,6 +52,14 @@ public class NoteServiceImplTest {
 	private CategoryDAO categoryDAO;
 	@Mock
 	private ReminderDAO reminderDAO;
+	@Spy
+	private NoteSearchIndex searchIndex = new NoteSearchIndex();
+	@Spy
+	private NoteSuggestIndex suggestIndex = new NoteSuggestIndex();
+	@Spy
+	private UserListCache listCache = new UserListCache();
+	@Spy
+	private NoteJsonCache noteJsonCache = new NoteJsonCache();
 	@InjectMocks
 	NoteServiceImpl noteServiceImpl;
 
@@ -65,6 +93,163 @@ public class NoteServiceImplTest {
 
 	}
 
+	@Test
+	public void testCreateNotes() {
+		Category missingCategory = new Category(2, "Go", "Testing in go", new Date(), "Jhon123", null);
+		Note rejectedNote = new Note(2, "Testing-2", "Testing Service layer", "Active", new Date(), missingCategory,
+				null, "Jhon123");
+		notes.add(note);
+		notes.add(rejectedNote);
+		notes.add(null);
+		when(reminderDAO.getRemindersByIds("Jhon456", new HashSet<>(Arrays.asList(1))))
+				.thenReturn(Arrays.asList(reminder));
+		when(categoryDAO.getCategoriesByIds("Jhon456", new HashSet<>(Arrays.asList(1, 2))))
+				.thenReturn(Arrays.asList(category));
+		List<BatchItemResult> results = noteServiceImpl.createNotes(notes, "Jhon456");
+		assertEquals(3, results.size());
+		assertEquals(BatchItemResult.CREATED, results.get(0).getStatus());
+		assertEquals(Integer.valueOf(1), results.get(0).getId());
+		assertEquals("Jhon456", note.getCreatedBy());
+		assertEquals(BatchItemResult.REJECTED, results.get(1).getStatus());
+		assertEquals("category not found exception", results.get(1).getMessage());
+		assertEquals(BatchItemResult.REJECTED, results.get(2).getStatus());
+		verify(noteDAO, times(1)).createNotes(Arrays.asList(note));
+
+	}
+
+	@Test
+	public void testCreateNotesRejectsCategoryOfAnotherUser() {
+		notes.add(note);
+		when(reminderDAO.getRemindersByIds("Jhon456", new HashSet<>(Arrays.asList(1))))
+				.thenReturn(Arrays.asList(reminder));
+		when(categoryDAO.getCategoriesByIds("Jhon456", new HashSet<>(Arrays.asList(1))))
+				.thenReturn(Collections.emptyList());
+		List<BatchItemResult> results = noteServiceImpl.createNotes(notes, "Jhon456");
+		assertEquals(BatchItemResult.REJECTED, results.get(0).getStatus());
+		assertEquals("category not found exception", results.get(0).getMessage());
+		verify(noteDAO, times(1)).createNotes(Collections.emptyList());
+
+	}
+
+	@Test
+	public void testImportNotesRejectsReminderOfAnotherUser() {
+		notes.add(note);
+		when(reminderDAO.getRemindersByIds("Jhon456", new HashSet<>(Arrays.asList(1))))
+				.thenReturn(Collections.emptyList());
+		ImportSummary summary = noteServiceImpl.importNotes(notes.iterator(), "Jhon456", 10);
+		assertEquals(0, summary.getImported());
+		assertEquals(1, summary.getRejected());
+		verify(noteDAO, never()).insertNotes(any());
+
+	}
+
+	@Test
+	public void testImportNotesInChunks() {
+		for (int i = 1; i <= 5; i++) {
+			notes.add(new Note(i, "Testing-" + i, "Testing Service layer", "Active", new Date(), null, null, "Jhon123"));
+		}
+		ImportSummary summary = noteServiceImpl.importNotes(notes.iterator(), "Jhon456", 2);
+		assertTrue(summary.isComplete());
+		assertEquals(5, summary.getImported());
+		assertEquals(3, summary.getChunks());
+		assertEquals(0, summary.getRejected());
+		assertEquals("Jhon456", notes.get(4).getCreatedBy());
+		verify(noteDAO, times(1)).insertNotes(notes.subList(0, 2));
+		verify(noteDAO, times(1)).insertNotes(notes.subList(2, 4));
+		verify(noteDAO, times(1)).insertNotes(notes.subList(4, 5));
+
+	}
+
+	@Test
+	public void testImportNotesStopsAtUnreadableNote() {
+		Note other = new Note(2, "Testing-2", "Testing Service layer", "Active", new Date(), null, null, "Jhon123");
+		Iterator<Note> input = Arrays.asList(new Note[] { other, null, note }).iterator();
+		when(reminderDAO.getRemindersByIds("Jhon456", new HashSet<>(Arrays.asList(1))))
+				.thenReturn(Arrays.asList(reminder));
+		when(categoryDAO.getCategoriesByIds("Jhon456", new HashSet<>(Arrays.asList(1))))
+				.thenReturn(Arrays.asList(category));
+		ImportSummary summary = noteServiceImpl.importNotes(new Iterator<Note>() {
+			public boolean hasNext() {
+				return true;
+			}
+
+			public Note next() {
+				if (input.hasNext()) {
+					return input.next();
+				}
+				throw new IllegalStateException("Unexpected character");
+			}
+		}, "Jhon456", 10);
+		assertFalse(summary.isComplete());
+		assertEquals(Integer.valueOf(3), summary.getFailedAt());
+		assertEquals(2, summary.getImported());
+		assertEquals(1, summary.getRejected());
+		assertEquals(1, summary.getErrors().get(0).getIndex());
+		verify(noteDAO, times(1)).insertNotes(Arrays.asList(other, note));
+
+	}
+
+	@Test
+	public void testSearchNotes() {
+		Note other = new Note(2, "Groceries", "Buy milk and bread", "Active", new Date(), null, null, "Jhon123");
+		doAnswer(invocation -> {
+			Consumer<Note> consumer = invocation.getArgument(1);
+			consumer.accept(note);
+			consumer.accept(other);
+			return null;
+		}).when(noteDAO).streamNotesByUserId(eq("Jhon123"), any());
+		when(noteDAO.getNotesByIds("Jhon123", Arrays.asList(2))).thenReturn(Arrays.asList(other));
+		List<NoteSearchHit> hits = noteServiceImpl.searchNotes("Jhon123", "Milk!", 10);
+		assertEquals(1, hits.size());
+		assertEquals(2, hits.get(0).getNoteId());
+		assertEquals("Buy <em>milk</em> and bread", hits.get(0).getSnippet());
+		assertTrue(noteServiceImpl.searchNotes("Jhon123", "?!", 10).isEmpty());
+		verify(noteDAO, times(1)).streamNotesByUserId(eq("Jhon123"), any());
+
+	}
+
+	@Test
+	public void testSearchNotesSeesDeletedNote() throws NoteNotFoundException {
+		doAnswer(invocation -> {
+			Consumer<Note> consumer = invocation.getArgument(1);
+			consumer.accept(note);
+			return null;
+		}).when(noteDAO).streamNotesByUserId(eq("Jhon123"), any());
+		when(noteDAO.getNotesByIds("Jhon123", Arrays.asList(1))).thenReturn(Arrays.asList(note));
+		assertEquals(1, noteServiceImpl.searchNotes("Jhon123", "testing", 10).size());
+		when(noteDAO.deleteNoteByOwner(1, "Jhon123")).thenReturn(1);
+		noteServiceImpl.deleteNote(1, "Jhon123");
+		assertTrue(noteServiceImpl.searchNotes("Jhon123", "testing", 10).isEmpty());
+
+	}
+
+	@Test
+	public void testSuggest() throws ReminderNotFoundException, CategoryNotFoundException {
+		when(noteDAO.getNoteSummariesByUserId("Jhon123")).thenReturn(Arrays
+				.asList(new NoteSummary(1, "Testing", "Active", new Date(), category.getCategoryId(), null)));
+		when(categoryDAO.getAllCategoryByUserId("Jhon123")).thenReturn(Arrays.asList(category));
+		List<Suggestion> suggestions = noteServiceImpl.suggest("Jhon123", "jav", 10);
+		assertEquals(1, suggestions.size());
+		assertEquals(Suggestion.CATEGORY, suggestions.get(0).getType());
+
+		note = new Note(2, "Javascript promises", "Testing Service layer", "Active", new Date(), null, null,
+				"Jhon123");
+		when(noteDAO.createNote(note)).thenReturn(true);
+		noteServiceImpl.createNote(note);
+		suggestions = noteServiceImpl.suggest("Jhon123", "javas", 10);
+		assertEquals(2, suggestions.get(0).getId());
+		verify(noteDAO, times(1)).getNoteSummariesByUserId("Jhon123");
+
+	}
+
+	@Test
+	public void testExportNotesByUserId() {
+		Consumer<Note> consumer = notes::add;
+		noteServiceImpl.exportNotesByUserId("Jhon123", consumer);
+		verify(noteDAO, times(1)).streamNotesByUserId("Jhon123", consumer);
+
+	}
+
 	@Test
 	public void testCreateNoteSuccessWithoutCategoryAndReminder()
 			throws ReminderNotFoundException, CategoryNotFoundException {
@@ -136,6 +321,39 @@ public class NoteServiceImplTest {
 		verify(noteDAO, times(1)).deleteNote(1);
 	}
 
+	@Test
+	public void testDeleteNoteByOwnerSuccess() throws NoteNotFoundException {
+		when(noteDAO.deleteNoteByOwner(1, "Jhon123")).thenReturn(1);
+		boolean status = noteServiceImpl.deleteNote(1, "Jhon123");
+		assertEquals(true, status);
+		verify(noteDAO, times(1)).deleteNoteByOwner(1, "Jhon123");
+	}
+
+	@Test(expected = NoteNotFoundException.class)
+	public void testDeleteNoteByOwnerFailure() throws NoteNotFoundException {
+		when(noteDAO.deleteNoteByOwner(1, "Jhon456")).thenReturn(0);
+		noteServiceImpl.deleteNote(1, "Jhon456");
+	}
+
+	@Test
+	public void testUpdateNoteByOwnerSuccess()
+			throws ReminderNotFoundException, NoteNotFoundException, CategoryNotFoundException {
+		note.setNoteContent("Testing updateNote()");
+		when(noteDAO.updateNoteByOwner(note, "Jhon123")).thenReturn(1);
+		Note updatedNote = noteServiceImpl.updateNote(note, 1, "Jhon123");
+		assertEquals("Testing updateNote()", updatedNote.getNoteContent());
+		verify(noteDAO, times(1)).updateNoteByOwner(note, "Jhon123");
+		verify(categoryDAO, times(1)).getCategoryById(category.getCategoryId());
+		verify(reminderDAO, times(1)).getReminderById(reminder.getReminderId());
+	}
+
+	@Test(expected = NoteNotFoundException.class)
+	public void testUpdateNoteByOwnerFailure()
+			throws ReminderNotFoundException, NoteNotFoundException, CategoryNotFoundException {
+		when(noteDAO.updateNoteByOwner(note, "Jhon456")).thenReturn(0);
+		noteServiceImpl.updateNote(note, 1, "Jhon456");
+	}
+
 	@Test
 	public void testGetAllNotesByUserIdSucess() {
 
@@ -153,6 +371,82 @@ public class NoteServiceImplTest {
 
 	}
 
+	@Test
+	public void testGetAllNotesByUserIdIsCachedUntilNoteWrite()
+			throws ReminderNotFoundException, CategoryNotFoundException {
+
+		notes.add(note);
+		when(noteDAO.getAllNotesByUserId("Jhon123")).thenReturn(notes);
+		noteServiceImpl.getAllNotesByUserId("Jhon123");
+		assertEquals(1, noteServiceImpl.getAllNotesByUserId("Jhon123").size());
+		verify(noteDAO, times(1)).getAllNotesByUserId("Jhon123");
+
+		Note created = new Note(2, "Testing-2", "Testing Service layer", "Active", new Date(), null, null, "Jhon123");
+		when(noteDAO.createNote(created)).thenReturn(true);
+		when(noteDAO.getAllNotesByUserId("Jhon123")).thenReturn(Arrays.asList(note, created));
+		noteServiceImpl.createNote(created);
+		assertEquals(2, noteServiceImpl.getAllNotesByUserId("Jhon123").size());
+		verify(noteDAO, times(2)).getAllNotesByUserId("Jhon123");
+		assertEquals(1, listCache.getNotes().getStats().hitCount());
+
+	}
+
+	@Test
+	public void testGetNotesByUserIdFirstPage() {
+
+		notes.add(note);
+		notes.add(new Note(2, "Testing-2", "Testing Service layer", "Active", new Date(), category, reminder, "Jhon123"));
+		notes.add(new Note(3, "Testing-3", "Testing Service layer", "Active", new Date(), category, reminder, "Jhon123"));
+		when(noteDAO.getNotesByUserIdAfter("Jhon123", 0, 3)).thenReturn(notes);
+		KeysetPage<Note> page = noteServiceImpl.getNotesByUserId("Jhon123", null, 2);
+		assertEquals(2, page.getItems().size());
+		assertEquals(2, KeysetPage.decodeCursor(page.getNext()));
+		verify(noteDAO, times(1)).getNotesByUserIdAfter("Jhon123", 0, 3);
+
+	}
+
+	@Test
+	public void testGetNotesByUserIdLastPage() {
+
+		notes.add(new Note(3, "Testing-3", "Testing Service layer", "Active", new Date(), category, reminder, "Jhon123"));
+		when(noteDAO.getNotesByUserIdAfter("Jhon123", 2, 3)).thenReturn(notes);
+		KeysetPage<Note> page = noteServiceImpl.getNotesByUserId("Jhon123", KeysetPage.encodeCursor(2), 2);
+		assertEquals(1, page.getItems().size());
+		assertNull(page.getNext());
+
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetNotesByUserIdInvalidCursor() {
+
+		noteServiceImpl.getNotesByUserId("Jhon123", "not-a-cursor", 2);
+
+	}
+
+	@Test
+	public void testGetNoteSummariesByUserId() {
+
+		List<NoteSummary> summaries = new ArrayList<>();
+		summaries.add(new NoteSummary(1, "Testing-1", "Active", new Date(), 1, 1));
+		when(noteDAO.getNoteSummariesByUserId("Jhon123")).thenReturn(summaries);
+		assertEquals(summaries, noteServiceImpl.getNoteSummariesByUserId("Jhon123"));
+		verify(noteDAO, times(1)).getNoteSummariesByUserId("Jhon123");
+
+	}
+
+	@Test
+	public void testGetNoteSummariesByUserIdFirstPage() {
+
+		List<NoteSummary> summaries = new ArrayList<>();
+		summaries.add(new NoteSummary(1, "Testing-1", "Active", new Date(), 1, null));
+		summaries.add(new NoteSummary(2, "Testing-2", "Active", new Date(), null, 1));
+		when(noteDAO.getNoteSummariesByUserIdAfter("Jhon123", 0, 2)).thenReturn(summaries);
+		KeysetPage<NoteSummary> page = noteServiceImpl.getNoteSummariesByUserId("Jhon123", null, 1);
+		assertEquals(1, page.getItems().size());
+		assertEquals(1, KeysetPage.decodeCursor(page.getNext()));
+
+	}
+
 	@Test
 	public void testGetNoteByIdSuccess() throws NoteNotFoundException {
 		when(noteDAO.getNoteById(note.getNoteId())).thenReturn(note);
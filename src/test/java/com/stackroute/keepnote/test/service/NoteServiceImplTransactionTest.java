@@ -0,0 +1,128 @@
+package com.stackroute.keepnote.test.service;
+
+import static com.stackroute.keepnote.test.support.H2SessionFactories.transactional;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.stackroute.keepnote.cache.NoteJsonCache;
+import com.stackroute.keepnote.cache.UserListCache;
+import com.stackroute.keepnote.dao.CategoryDAO;
+import com.stackroute.keepnote.dao.CategoryDAOImpl;
+import com.stackroute.keepnote.dao.NoteDAO;
+import com.stackroute.keepnote.dao.NoteDAOImpl;
+import com.stackroute.keepnote.dao.ReminderDAO;
+import com.stackroute.keepnote.dao.ReminderDAOImpl;
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.ImportSummary;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.NoteSearchHit;
+import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.search.NoteSearchIndex;
+import com.stackroute.keepnote.search.NoteSuggestIndex;
+import com.stackroute.keepnote.service.NoteService;
+import com.stackroute.keepnote.service.NoteServiceImpl;
+import com.stackroute.keepnote.test.support.H2SessionFactories;
+
+/*
+ * Checks that a service call uses a single Hibernate session (one connection)
+ * and flushes at most once, at commit.
+ */
+public class NoteServiceImplTransactionTest {
+
+	private SessionFactory sessionFactory;
+	private NoteService noteService;
+	private Category category;
+	private Reminder reminder;
+
+	@Before
+	public void setUp() {
+		sessionFactory = H2SessionFactories.create("tx");
+		noteService = (NoteService) transactional(new NoteServiceImpl(
+				(NoteDAO) transactional(new NoteDAOImpl(sessionFactory), sessionFactory),
+				(CategoryDAO) transactional(new CategoryDAOImpl(sessionFactory), sessionFactory),
+				(ReminderDAO) transactional(new ReminderDAOImpl(sessionFactory), sessionFactory), new NoteSearchIndex(),
+				new NoteSuggestIndex(), new UserListCache(), new NoteJsonCache()), sessionFactory);
+
+		category = new Category(0, "Category-1", "Testing transactions", new Date(), "Jhon123", null);
+		reminder = new Reminder(0, "Reminder-1", "Testing transactions", "Email", "Jhon123", null, new Date());
+		Session session = sessionFactory.openSession();
+		session.beginTransaction();
+		session.save(category);
+		session.save(reminder);
+		session.getTransaction().commit();
+		session.close();
+	}
+
+	@After
+	public void tearDown() {
+		sessionFactory.close();
+	}
+
+	@Test
+	public void testCreateNoteUsesOneSessionAndOneFlush() throws Exception {
+		Statistics statistics = sessionFactory.getStatistics();
+		statistics.clear();
+		Note note = new Note(0, "Testing-1", "Testing Service layer", "Active", new Date(), category, reminder,
+				"Jhon123");
+		assertTrue(noteService.createNote(note));
+		assertEquals(1, statistics.getSessionOpenCount());
+		assertEquals(1, statistics.getConnectCount());
+		assertEquals(1, statistics.getFlushCount());
+		assertEquals(1, noteService.getAllNotesByUserId("Jhon123").size());
+	}
+
+	@Test
+	public void testImportCommitsEachChunk() throws Exception {
+		List<Long> storedBeforeRead = new ArrayList<>();
+		Iterator<Note> notes = IntStream.range(0, 5).mapToObj(i -> {
+			storedBeforeRead.add(countNotes());
+			return new Note(0, "Imported-" + i, "Testing import", "Active", new Date(), category, null, "Other");
+		}).iterator();
+		ImportSummary summary = noteService.importNotes(notes, "Jhon123", 2);
+		assertEquals(5, summary.getImported());
+		assertEquals(3, summary.getChunks());
+		assertEquals(Arrays.asList(0L, 0L, 2L, 2L, 4L), storedBeforeRead);
+		assertEquals(5, noteService.getAllNotesByUserId("Jhon123").size());
+	}
+
+	@Test
+	public void testSearchSeesCommittedNotes() throws Exception {
+		assertTrue(noteService.searchNotes("Jhon123", "transactions", 10).isEmpty());
+		noteService.createNote(new Note(0, "Testing-1", "Committed transactions", "Active", new Date(), category,
+				reminder, "Jhon123"));
+		List<NoteSearchHit> hits = noteService.searchNotes("Jhon123", "transactions", 10);
+		assertEquals(1, hits.size());
+		assertEquals("Committed <em>transactions</em>", hits.get(0).getSnippet());
+	}
+
+	@Test
+	public void testReadsDoNotFlush() throws Exception {
+		noteService.createNote(new Note(0, "Testing-1", "Testing Service layer", "Active", new Date(), category,
+				reminder, "Jhon123"));
+		Statistics statistics = sessionFactory.getStatistics();
+		statistics.clear();
+		assertEquals(1, noteService.getAllNotesByUserId("Jhon123").size());
+		assertEquals(1, noteService.getNotesByUserId("Jhon123", null, 10).getItems().size());
+		assertEquals(2, statistics.getSessionOpenCount());
+		assertEquals(0, statistics.getFlushCount());
+	}
+
+	private long countNotes() {
+		try (Session session = sessionFactory.openSession()) {
+			return session.createQuery("select count(note) FROM Note note", Long.class).uniqueResult();
+		}
+	}
+
+}
@@ -6,6 +6,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import org.junit.Before;
@@ -13,9 +14,12 @@ import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
+import com.stackroute.keepnote.cache.UserListCache;
 import com.stackroute.keepnote.dao.ReminderDAO;
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
+import com.stackroute.keepnote.model.BatchItemResult;
 import com.stackroute.keepnote.model.Reminder;
 import com.stackroute.keepnote.service.ReminderServiceImpl;
 
@@ -23,6 +27,8 @@ public class ReminderServiceImplTest {
 
 	@Mock
 	ReminderDAO reminderDAO;
+	@Spy
+	UserListCache listCache = new UserListCache();
 	@InjectMocks
 	ReminderServiceImpl reminderServiceImpl;
 	private Reminder reminder = null;
@@ -44,6 +50,19 @@ public class ReminderServiceImplTest {
 		verify(reminderDAO, times(1)).createReminder(reminder);
 	}
 
+	@Test
+	public void testCreateReminders() {
+
+		allReminder.add(reminder);
+		allReminder.add(null);
+		List<BatchItemResult> results = reminderServiceImpl.createReminders(allReminder, "Jhon456");
+		assertEquals(BatchItemResult.CREATED, results.get(0).getStatus());
+		assertEquals("Jhon456", reminder.getReminderCreatedBy());
+		assertEquals(BatchItemResult.REJECTED, results.get(1).getStatus());
+		verify(reminderDAO, times(1)).createReminders(Arrays.asList(reminder));
+
+	}
+
 	@Test
 	public void testCreateReminderFailure() {
 
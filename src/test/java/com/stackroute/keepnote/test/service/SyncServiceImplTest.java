@@ -0,0 +1,166 @@
+package com.stackroute.keepnote.test.service;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import com.stackroute.keepnote.cache.NoteJsonCache;
+import com.stackroute.keepnote.cache.UserListCache;
+import com.stackroute.keepnote.dao.CategoryDAO;
+import com.stackroute.keepnote.dao.NoteDAO;
+import com.stackroute.keepnote.dao.ReminderDAO;
+import com.stackroute.keepnote.dao.TombstoneDAO;
+import com.stackroute.keepnote.model.BatchItemResult;
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.SyncChanges;
+import com.stackroute.keepnote.model.SyncMutation;
+import com.stackroute.keepnote.model.SyncMutationResult;
+import com.stackroute.keepnote.model.Tombstone;
+import com.stackroute.keepnote.search.NoteSearchIndex;
+import com.stackroute.keepnote.search.NoteSuggestIndex;
+import com.stackroute.keepnote.service.SyncServiceImpl;
+
+public class SyncServiceImplTest {
+
+	@Mock
+	NoteDAO noteDAO;
+	@Mock
+	CategoryDAO categoryDAO;
+	@Mock
+	ReminderDAO reminderDAO;
+	@Mock
+	TombstoneDAO tombstoneDAO;
+	@Mock
+	NoteSearchIndex searchIndex;
+	@Mock
+	NoteSuggestIndex suggestIndex;
+	@Spy
+	UserListCache listCache = new UserListCache();
+	@Spy
+	NoteJsonCache noteJsonCache = new NoteJsonCache();
+	@InjectMocks
+	SyncServiceImpl syncServiceImpl;
+	private Note note;
+
+	@Before
+	public void setUp() throws Exception {
+		MockitoAnnotations.initMocks(this);
+		note = new Note(1, "Testing-1", "Testing Service layer", "Active", new Date(), null, null, "Jhon123");
+	}
+
+	@Test
+	public void testGetChangesWithoutWatermarkReturnsEverything() {
+
+		when(noteDAO.getAllNotesByUserId("Jhon123")).thenReturn(Arrays.asList(note));
+		long start = System.currentTimeMillis();
+		SyncChanges changes = syncServiceImpl.getChanges("Jhon123", null);
+		assertTrue(changes.isReset());
+		assertEquals(1, changes.getNotes().size());
+		assertTrue(changes.getDeleted().isEmpty());
+		assertTrue(changes.getWatermark() < start);
+		verify(noteDAO, never()).getNotesUpdatedSince(any(), any());
+		verify(tombstoneDAO, never()).getTombstonesSince(any(), any());
+	}
+
+	@Test
+	public void testGetChangesSinceWatermark() {
+
+		long since = System.currentTimeMillis() - 60000;
+		Tombstone tombstone = new Tombstone(Tombstone.NOTE, 2, "Jhon123", new Date());
+		when(noteDAO.getNotesUpdatedSince("Jhon123", new Date(since))).thenReturn(Arrays.asList(note));
+		when(tombstoneDAO.getTombstonesSince("Jhon123", new Date(since))).thenReturn(Arrays.asList(tombstone));
+		SyncChanges changes = syncServiceImpl.getChanges("Jhon123", since);
+		assertFalse(changes.isReset());
+		assertEquals(Arrays.asList(note), changes.getNotes());
+		assertEquals(Arrays.asList(tombstone), changes.getDeleted());
+		assertTrue(changes.getWatermark() > since);
+		assertTrue(changes.getWatermark() < System.currentTimeMillis());
+		verify(noteDAO, never()).getAllNotesByUserId(any());
+		verify(categoryDAO, times(1)).getCategoriesUpdatedSince("Jhon123", new Date(since));
+		verify(reminderDAO, times(1)).getRemindersUpdatedSince("Jhon123", new Date(since));
+	}
+
+	@Test
+	public void testGetChangesNeverMovesTheWatermarkBack() {
+
+		long since = System.currentTimeMillis();
+		assertEquals(since, syncServiceImpl.getChanges("Jhon123", since).getWatermark());
+	}
+
+	@Test
+	public void testGetChangesWithExpiredWatermarkResets() {
+
+		long since = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(365);
+		SyncChanges changes = syncServiceImpl.getChanges("Jhon123", since);
+		assertTrue(changes.isReset());
+		verify(noteDAO, times(1)).getAllNotesByUserId("Jhon123");
+		verify(tombstoneDAO, never()).getTombstonesSince(eq("Jhon123"), any());
+	}
+
+	@Test
+	public void testApplyMutationsMapsTemporaryIds() {
+
+		when(categoryDAO.createCategory(any())).thenAnswer(invocation -> {
+			((Category) invocation.getArgument(0)).setCategoryId(7);
+			return true;
+		});
+		when(noteDAO.createNote(any())).thenAnswer(invocation -> {
+			((Note) invocation.getArgument(0)).setNoteId(8);
+			return true;
+		});
+		SyncMutation createCategory = new SyncMutation(SyncMutation.CREATE, Tombstone.CATEGORY, null, "c1");
+		createCategory.setCategory(new Category(0, "Offline", "Created offline", null, null, null));
+		SyncMutation createNote = new SyncMutation(SyncMutation.CREATE, Tombstone.NOTE, null, "n1");
+		createNote.setNote(note);
+		createNote.setCategoryTempId("c1");
+		SyncMutationResult result = syncServiceImpl.applyMutations(Arrays.asList(createCategory, createNote),
+				"Jhon456");
+		assertEquals(Integer.valueOf(7), result.getIds().get("c1"));
+		assertEquals(Integer.valueOf(8), result.getIds().get("n1"));
+		assertEquals(7, note.getCategory().getCategoryId());
+		assertEquals("Jhon456", note.getCreatedBy());
+		verify(listCache, times(1)).invalidateCategories("Jhon456");
+	}
+
+	@Test
+	public void testApplyMutationsRejectsMissingTargets() {
+
+		when(noteDAO.getNotesByIds(eq("Jhon123"), any())).thenReturn(Arrays.asList(note));
+		SyncMutation update = new SyncMutation(SyncMutation.UPDATE, Tombstone.NOTE, 2, null);
+		update.setNote(new Note(0, "Testing-2", "Testing sync", "Active", null, null, null, null));
+		SyncMutation delete = new SyncMutation(SyncMutation.DELETE, Tombstone.NOTE, 1, null);
+		SyncMutation deleteAgain = new SyncMutation(SyncMutation.DELETE, Tombstone.NOTE, 1, null);
+		SyncMutation invalid = new SyncMutation("move", Tombstone.NOTE, 1, null);
+		SyncMutationResult result = syncServiceImpl.applyMutations(Arrays.asList(update, delete, deleteAgain, invalid),
+				"Jhon123");
+		assertEquals(BatchItemResult.REJECTED, result.getResults().get(0).getStatus());
+		assertEquals(BatchItemResult.DELETED, result.getResults().get(1).getStatus());
+		assertEquals(Integer.valueOf(1), result.getResults().get(1).getId());
+		assertEquals(BatchItemResult.REJECTED, result.getResults().get(2).getStatus());
+		assertEquals(BatchItemResult.REJECTED, result.getResults().get(3).getStatus());
+		verify(noteDAO, times(1)).deleteNotes(Arrays.asList(note));
+		verify(noteDAO, times(1)).updateNotes(Collections.emptyList());
+		verify(noteJsonCache, times(1)).invalidate(1);
+		verify(listCache, times(1)).invalidateNotes("Jhon123");
+		verify(listCache, never()).invalidateCategories("Jhon123");
+		verify(listCache, never()).invalidateReminders("Jhon123");
+	}
+
+}
@@ -0,0 +1,142 @@
+package com.stackroute.keepnote.test.service;
+
+import static com.stackroute.keepnote.test.support.H2SessionFactories.transactional;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.stackroute.keepnote.cache.NoteJsonCache;
+import com.stackroute.keepnote.cache.UserListCache;
+import com.stackroute.keepnote.dao.CategoryDAO;
+import com.stackroute.keepnote.dao.CategoryDAOImpl;
+import com.stackroute.keepnote.dao.NoteDAO;
+import com.stackroute.keepnote.dao.NoteDAOImpl;
+import com.stackroute.keepnote.dao.ReminderDAO;
+import com.stackroute.keepnote.dao.ReminderDAOImpl;
+import com.stackroute.keepnote.dao.TombstoneDAO;
+import com.stackroute.keepnote.dao.TombstoneDAOImpl;
+import com.stackroute.keepnote.model.BatchItemResult;
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.SyncMutation;
+import com.stackroute.keepnote.model.SyncMutationResult;
+import com.stackroute.keepnote.model.Tombstone;
+import com.stackroute.keepnote.search.NoteSearchIndex;
+import com.stackroute.keepnote.search.NoteSuggestIndex;
+import com.stackroute.keepnote.service.SyncService;
+import com.stackroute.keepnote.service.SyncServiceImpl;
+import com.stackroute.keepnote.test.support.H2SessionFactories;
+
+/*
+ * Checks that a batch of mutations is applied in a single session and flush,
+ * with the inserts sent in JDBC batches, and leaves the expected rows behind.
+ */
+public class SyncServiceImplTransactionTest {
+
+	private SessionFactory sessionFactory;
+	private SyncService syncService;
+	private Reminder reminder;
+	private Note note;
+
+	@Before
+	public void setUp() {
+		sessionFactory = H2SessionFactories.create("sync");
+		syncService = (SyncService) transactional(new SyncServiceImpl(
+				(NoteDAO) transactional(new NoteDAOImpl(sessionFactory), sessionFactory),
+				(CategoryDAO) transactional(new CategoryDAOImpl(sessionFactory), sessionFactory),
+				(ReminderDAO) transactional(new ReminderDAOImpl(sessionFactory), sessionFactory),
+				(TombstoneDAO) transactional(new TombstoneDAOImpl(sessionFactory), sessionFactory), new NoteSearchIndex(),
+				new NoteSuggestIndex(), new UserListCache(), new NoteJsonCache()), sessionFactory);
+
+		reminder = new Reminder(0, "Reminder-1", "Testing sync", "Email", "Jhon123", null, new Date());
+		note = new Note(0, "Testing-1", "Testing sync", "Active", new Date(), null, reminder, "Jhon123");
+		Session session = sessionFactory.openSession();
+		session.beginTransaction();
+		session.save(reminder);
+		session.save(note);
+		session.getTransaction().commit();
+		session.close();
+	}
+
+	@After
+	public void tearDown() {
+		sessionFactory.close();
+	}
+
+	@Test
+	public void testMutationsUseOneSessionAndBatchedInserts() {
+		List<SyncMutation> mutations = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			SyncMutation create = new SyncMutation(SyncMutation.CREATE, Tombstone.NOTE, null, "n" + i);
+			create.setNote(new Note(0, "Offline-" + i, "Testing sync", "Active", null, null, null, null));
+			mutations.add(create);
+		}
+		Statistics statistics = sessionFactory.getStatistics();
+		statistics.clear();
+		SyncMutationResult result = syncService.applyMutations(mutations, "Jhon123");
+		assertTrue(BatchItemResult.noneRejected(result.getResults()));
+		assertEquals(40, result.getIds().size());
+		assertEquals(1, statistics.getSessionOpenCount());
+		assertEquals(1, statistics.getFlushCount());
+		assertEquals(40, statistics.getEntityInsertCount());
+		assertTrue(statistics.getPrepareStatementCount() < 10);
+		assertEquals(41, countRows("Note"));
+	}
+
+	@Test
+	public void testMutationsReferToEarlierCreates() {
+		SyncMutation createCategory = new SyncMutation(SyncMutation.CREATE, Tombstone.CATEGORY, null, "c1");
+		createCategory.setCategory(new Category(0, "Offline", "Created offline", null, null, null));
+		SyncMutation createNote = new SyncMutation(SyncMutation.CREATE, Tombstone.NOTE, null, "n1");
+		createNote.setNote(new Note(0, "Offline-1", "Testing sync", "Active", null, null, null, null));
+		createNote.setCategoryTempId("c1");
+		SyncMutation updateNote = new SyncMutation(SyncMutation.UPDATE, Tombstone.NOTE, null, "n1");
+		updateNote.setNote(new Note(0, "Offline-1", "Changed offline", "Active", null, null, null, null));
+		updateNote.setCategoryTempId("c1");
+		SyncMutation updateExisting = new SyncMutation(SyncMutation.UPDATE, Tombstone.NOTE, note.getNoteId(), null);
+		updateExisting.setNote(new Note(0, "Testing-1", "Changed offline", "Active", null, null, reminder, null));
+		SyncMutation deleteReminder = new SyncMutation(SyncMutation.DELETE, Tombstone.REMINDER,
+				reminder.getReminderId(), null);
+		SyncMutation deleteMissing = new SyncMutation(SyncMutation.DELETE, Tombstone.NOTE, 999999, null);
+
+		SyncMutationResult result = syncService.applyMutations(
+				Arrays.asList(createCategory, createNote, updateNote, updateExisting, deleteReminder, deleteMissing), "Jhon123");
+		List<BatchItemResult> results = result.getResults();
+		assertEquals(BatchItemResult.CREATED, results.get(0).getStatus());
+		assertEquals(BatchItemResult.CREATED, results.get(1).getStatus());
+		assertEquals(BatchItemResult.UPDATED, results.get(2).getStatus());
+		assertEquals(results.get(1).getId(), results.get(2).getId());
+		assertEquals(BatchItemResult.UPDATED, results.get(3).getStatus());
+		assertEquals(BatchItemResult.DELETED, results.get(4).getStatus());
+		assertEquals(BatchItemResult.REJECTED, results.get(5).getStatus());
+		assertEquals(results.get(0).getId(), result.getIds().get("c1"));
+
+		try (Session session = sessionFactory.openSession()) {
+			Note created = session.get(Note.class, result.getIds().get("n1"));
+			assertEquals("Changed offline", created.getNoteContent());
+			assertEquals(result.getIds().get("c1").intValue(), created.getCategory().getCategoryId());
+			assertEquals("Jhon123", created.getCreatedBy());
+			Note existing = session.get(Note.class, note.getNoteId());
+			assertEquals("Changed offline", existing.getNoteContent());
+			assertNull(existing.getReminder());
+		}
+		assertEquals(1, countRows("Tombstone"));
+	}
+
+	private long countRows(String entity) {
+		try (Session session = sessionFactory.openSession()) {
+			return session.createQuery("select count(*) FROM " + entity, Long.class).uniqueResult();
+		}
+	}
+
+}
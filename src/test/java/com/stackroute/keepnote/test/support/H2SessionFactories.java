@@ -0,0 +1,66 @@
+package com.stackroute.keepnote.test.support;
+
+import java.util.Properties;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.SessionFactory;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.orm.hibernate5.HibernateTransactionManager;
+import org.springframework.orm.hibernate5.LocalSessionFactoryBuilder;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.Tombstone;
+import com.stackroute.keepnote.model.User;
+
+/*
+ * Hibernate on a fresh in-memory H2 database, for the tests that count the
+ * sessions, flushes and statements of the DAOs and services without starting
+ * MariaDB or the Spring context. Statistics are on and inserts are sent in JDBC
+ * batches, as in the application.
+ */
+public final class H2SessionFactories {
+
+	private H2SessionFactories() {
+	}
+
+	public static SessionFactory create(String name) {
+		return create(name, new Properties());
+	}
+
+	/*
+	 * The given properties are added to, and override, the common ones
+	 */
+	public static SessionFactory create(String name, Properties overrides) {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:" + name + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+		Properties properties = new Properties();
+		properties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+		properties.put("hibernate.hbm2ddl.auto", "create-drop");
+		properties.put("hibernate.cache.use_second_level_cache", "false");
+		properties.put("hibernate.generate_statistics", "true");
+		properties.put("hibernate.jdbc.batch_size", "50");
+		properties.put("hibernate.order_inserts", "true");
+		properties.put("hibernate.order_updates", "true");
+		properties.putAll(overrides);
+		return new LocalSessionFactoryBuilder(dataSource)
+				.addAnnotatedClasses(Category.class, Note.class, Reminder.class, Tombstone.class, User.class)
+				.addProperties(properties).buildSessionFactory();
+	}
+
+	/*
+	 * A proxy of the target applying its @Transactional annotations with a
+	 * HibernateTransactionManager, as the application context does. The proxy
+	 * implements the interfaces of the target only.
+	 */
+	public static Object transactional(Object target, SessionFactory sessionFactory) {
+		ProxyFactory proxyFactory = new ProxyFactory(target);
+		proxyFactory.addAdvice(new TransactionInterceptor(new HibernateTransactionManager(sessionFactory),
+				new AnnotationTransactionAttributeSource()));
+		return proxyFactory.getProxy();
+	}
+
+}
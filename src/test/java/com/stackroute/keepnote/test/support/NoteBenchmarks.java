@@ -0,0 +1,76 @@
+package com.stackroute.keepnote.test.support;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assume;
+
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.Reminder;
+
+/*
+ * The notes and the timing loop shared by the benchmarks of the GET /note
+ * response. The notes are those of a user with NOTES notes, each with a few
+ * sentences of content, a category and a reminder, all of them stored once.
+ * The timing of a unit test run being too noisy to assert on, the benchmarks
+ * only run when the build is run with -Dbenchmark=true.
+ */
+public final class NoteBenchmarks {
+
+	public static final int NOTES = 500;
+
+	private static final int WARMUP = 20;
+	private static final int ROUNDS = 50;
+
+	private NoteBenchmarks() {
+	}
+
+	public static List<Note> notes() {
+		List<Note> notes = new ArrayList<>(NOTES);
+		Date now = new Date();
+		for (int i = 0; i < NOTES; i++) {
+			Category category = new Category(i % 10, "Category " + (i % 10), "Notes about topic " + (i % 10), now,
+					"Jhon123", null);
+			category.setUpdatedAt(now);
+			Reminder reminder = new Reminder(i % 5, "Reminder " + (i % 5), "Remind me by email every morning",
+					"Email reminder", "Jhon123", null, now);
+			reminder.setUpdatedAt(now);
+			Note note = new Note(i, "Meeting notes " + i,
+					"Discussed the release plan for sprint " + i + ". Action items: review the pull requests, "
+							+ "update the deployment guide and book the demo room for Thursday afternoon.",
+					i % 3 == 0 ? "Completed" : "Active", now, category, reminder, "Jhon123");
+			note.setUpdatedAt(now);
+			notes.add(note);
+		}
+		return notes;
+	}
+
+	/*
+	 * Skip the calling test unless the benchmarks were asked for
+	 */
+	public static void assumeEnabled() {
+		Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+	}
+
+	/*
+	 * Run the task WARMUP times, then return its mean time in milliseconds over
+	 * ROUNDS more runs
+	 */
+	public static double measure(Callable<?> task) throws Exception {
+		for (int i = 0; i < WARMUP; i++) {
+			task.call();
+		}
+		long nanos = 0L;
+		for (int i = 0; i < ROUNDS; i++) {
+			long start = System.nanoTime();
+			task.call();
+			nanos += System.nanoTime() - start;
+		}
+		return (double) nanos / ROUNDS / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+}